@@ -16,6 +16,7 @@ import java.util.regex.Pattern;
 import app.revanced.integrations.music.settings.Settings;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.ByteTrieSearch;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
@@ -148,17 +149,17 @@ public final class CustomFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         // All callbacks are custom filter groups.
         CustomFilterGroup custom = (CustomFilterGroup) matchedGroup;
         if (custom.startsWith && contentIndex != 0) {
             return false;
         }
-        if (custom.bufferSearch != null && !custom.bufferSearch.matches(protobufBufferArray)) {
+        if (custom.bufferSearch != null && !custom.bufferSearch.matches(protobufBuffer)) {
             return false;
         }
 
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
\ No newline at end of file
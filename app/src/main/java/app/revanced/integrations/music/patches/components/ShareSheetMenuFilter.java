@@ -6,6 +6,7 @@ import app.revanced.integrations.music.patches.misc.ShareSheetPatch;
 import app.revanced.integrations.music.settings.Settings;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 
 /**
  * Abuse LithoFilter for {@link ShareSheetPatch}.
@@ -24,7 +25,13 @@ public final class ShareSheetMenuFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Flags the menu as visible, which must happen every time the menu is shown.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         isShareSheetMenuVisible = true;
 
@@ -12,6 +12,7 @@ import app.revanced.integrations.shared.settings.BooleanSetting;
 import app.revanced.integrations.shared.settings.FloatSetting;
 import app.revanced.integrations.shared.settings.IntegerSetting;
 import app.revanced.integrations.shared.settings.LongSetting;
+import app.revanced.integrations.shared.settings.Setting;
 import app.revanced.integrations.shared.settings.StringSetting;
 import app.revanced.integrations.shared.utils.Utils;
 
@@ -215,6 +216,11 @@ public class Settings extends BaseSettings {
     // SB settings not exported
     public static final LongSetting SB_LAST_VIP_CHECK = new LongSetting("sb_last_vip_check", 0L, false, false);
 
+    static {
+        // All settings are loaded.
+        Setting.preferences.endStartupSnapshot();
+    }
+
     public static final String OPEN_DEFAULT_APP_SETTINGS = "revanced_default_app_settings";
 
     /**
@@ -6,13 +6,11 @@ import static app.revanced.integrations.shared.utils.Utils.getFormattedTimeStamp
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.shared.utils.VideoQualityList;
 
 /**
  * Hooking class for the current playing video.
@@ -44,7 +42,7 @@ public final class VideoInformation {
      * The available qualities of the current video in human readable form: [1080, 720, 480]
      */
     @Nullable
-    private static List<Integer> videoQualities;
+    private static volatile VideoQualityList videoQualities;
 
     /**
      * Injection point.
@@ -204,16 +202,10 @@ public final class VideoInformation {
      * @return available video quality.
      */
     public static int getAvailableVideoQuality(int preferredQuality) {
-        if (videoQualities != null) {
-            int qualityToUse = videoQualities.get(0); // first element is automatic mode
-            for (Integer quality : videoQualities) {
-                if (quality <= preferredQuality && qualityToUse < quality) {
-                    qualityToUse = quality;
-                }
-            }
-            preferredQuality = qualityToUse;
-        }
-        return preferredQuality;
+        VideoQualityList qualities = videoQualities;
+        return qualities == null
+                ? preferredQuality
+                : qualities.getAvailableQuality(preferredQuality);
     }
 
     /**
@@ -223,16 +215,8 @@ public final class VideoInformation {
      */
     public static void setVideoQualityList(Object[] qualities) {
         try {
-            if (videoQualities == null || videoQualities.size() != qualities.length) {
-                videoQualities = new ArrayList<>(qualities.length);
-                for (Object streamQuality : qualities) {
-                    for (Field field : streamQuality.getClass().getFields()) {
-                        if (field.getType().isAssignableFrom(Integer.TYPE)
-                                && field.getName().length() <= 2) {
-                            videoQualities.add(field.getInt(streamQuality));
-                        }
-                    }
-                }
+            if (videoQualities == null || videoQualities.isDifferentSize(qualities)) {
+                videoQualities = VideoQualityList.fromStreamQualities(qualities);
                 Logger.printDebug(() -> "videoQualities: " + videoQualities);
             }
         } catch (Exception ex) {
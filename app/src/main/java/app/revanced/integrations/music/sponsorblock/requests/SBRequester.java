@@ -20,10 +20,12 @@ import app.revanced.integrations.music.settings.Settings;
 import app.revanced.integrations.music.sponsorblock.SponsorBlockSettings;
 import app.revanced.integrations.music.sponsorblock.objects.SegmentCategory;
 import app.revanced.integrations.music.sponsorblock.objects.SponsorSegment;
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
 import app.revanced.integrations.shared.requests.Route;
 import app.revanced.integrations.shared.sponsorblock.requests.SBRoutes;
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 
 public class SBRequester {
@@ -37,6 +39,12 @@ public class SBRequester {
      */
     private static final int TIMEOUT_HTTP_DEFAULT_MILLISECONDS = 10000;
 
+    private static final Endpoint DEFAULT_ENDPOINT = new Endpoint("sponsorBlock",
+            TIMEOUT_TCP_DEFAULT_MILLISECONDS, TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
+
+    private static final Endpoint GET_SEGMENTS_ENDPOINT = new Endpoint("getSegments",
+            TIMEOUT_TCP_DEFAULT_MILLISECONDS, TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
+
     /**
      * Response code of a successful API call
      */
@@ -58,9 +66,11 @@ public class SBRequester {
     public static SponsorSegment[] getSegments(@NonNull String videoId) {
         Utils.verifyOffMainThread();
         List<SponsorSegment> segments = new ArrayList<>();
+        final long startTime = System.currentTimeMillis();
         try {
-            HttpURLConnection connection = getConnectionFromRoute(SBRoutes.GET_SEGMENTS, videoId, SegmentCategory.sponsorBlockAPIFetchCategories);
+            HttpURLConnection connection = getConnectionFromRoute(GET_SEGMENTS_ENDPOINT, SBRoutes.GET_SEGMENTS, videoId, SegmentCategory.sponsorBlockAPIFetchCategories);
             final int responseCode = connection.getResponseCode();
+            GET_SEGMENTS_ENDPOINT.recordResponse(startTime, responseCode);
 
             if (responseCode == HTTP_STATUS_CODE_SUCCESS) {
                 JSONArray responseArray = Requester.parseJSONArray(connection);
@@ -97,8 +107,10 @@ public class SBRequester {
                 connection.disconnect(); // something went wrong, might as well disconnect
             }
         } catch (SocketTimeoutException ex) {
+            GET_SEGMENTS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError(str("revanced_sb_sponsorblock_connection_failure_timeout"), ex);
         } catch (IOException ex) {
+            GET_SEGMENTS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError(str("revanced_sb_sponsorblock_connection_failure_generic"), ex);
         } catch (Exception ex) {
             // Should never happen
@@ -116,7 +128,7 @@ public class SBRequester {
         if (now < (Settings.SB_LAST_VIP_CHECK.get() + TimeUnit.DAYS.toMillis(3))) {
             return;
         }
-        Utils.runOnBackgroundThread(() -> {
+        TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, () -> {
             try {
                 JSONObject json = getJSONObject(SponsorBlockSettings.getSBPrivateUserID());
                 boolean vip = json.getBoolean("vip");
@@ -133,10 +145,11 @@ public class SBRequester {
     // helpers
 
     private static HttpURLConnection getConnectionFromRoute(@NonNull Route route, String... params) throws IOException {
-        HttpURLConnection connection = Requester.getConnectionFromRoute(Settings.SB_API_URL.get(), route, params);
-        connection.setConnectTimeout(TIMEOUT_TCP_DEFAULT_MILLISECONDS);
-        connection.setReadTimeout(TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
-        return connection;
+        return getConnectionFromRoute(DEFAULT_ENDPOINT, route, params);
+    }
+
+    private static HttpURLConnection getConnectionFromRoute(@NonNull Endpoint endpoint, @NonNull Route route, String... params) throws IOException {
+        return Requester.getConnectionFromRoute(Settings.SB_API_URL.get(), endpoint, route, params);
     }
 
     private static JSONObject getJSONObject(String... params) throws IOException, JSONException {
@@ -1,6 +1,8 @@
 package app.revanced.integrations.shared.patches.components;
 
 import app.revanced.integrations.shared.settings.BooleanSetting;
+import app.revanced.integrations.shared.utils.BitParallelByteSearch;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.ByteTrieSearch;
 import app.revanced.integrations.shared.utils.Logger;
 
@@ -8,18 +10,33 @@ import app.revanced.integrations.shared.utils.Logger;
  * If you have more than 1 filter patterns, then all instances of
  * this class should filtered using {@link ByteArrayFilterGroupList#check(byte[])},
  * which uses a prefix tree to give better performance.
+ * <p>
+ * A single pattern is searched using KMP. Multiple patterns are searched in a single pass
+ * using a {@link BitParallelByteSearch}, or using an automaton if the patterns are too long.
  */
 @SuppressWarnings("unused")
 public class ByteArrayFilterGroup extends FilterGroup<byte[]> {
 
-    private volatile int[][] failurePatterns;
+    /**
+     * KMP failure array of the pattern, if the group has only 1 pattern.
+     */
+    private volatile int[] failurePattern;
+    /**
+     * Search of all patterns, if the group has multiple patterns.
+     */
+    private volatile BitParallelByteSearch bitParallelSearch;
+    /**
+     * Search of all patterns, if the group has multiple patterns that are too long for {@link #bitParallelSearch}.
+     */
+    private volatile ByteTrieSearch automatonSearch;
 
     // Modified implementation from https://stackoverflow.com/a/1507813
-    private static int indexOf(final byte[] data, final byte[] pattern, final int[] failure) {
+    private static int indexOf(final byte[] data, final int startIndex, final int endIndex,
+                               final byte[] pattern, final int[] failure) {
         // Finds the first occurrence of the pattern in the byte array using
         // KMP matching algorithm.
         int patternLength = pattern.length;
-        for (int i = 0, j = 0, dataLength = data.length; i < dataLength; i++) {
+        for (int i = startIndex, j = 0; i < endIndex; i++) {
             while (j > 0 && pattern[j] != data[i]) {
                 j = failure[j - 1];
             }
@@ -62,37 +79,79 @@ public class ByteArrayFilterGroup extends FilterGroup<byte[]> {
         super(setting, ByteTrieSearch.convertStringsToBytes(filters));
     }
 
-    private synchronized void buildFailurePatterns() {
-        if (failurePatterns != null)
+    private synchronized void buildSearch() {
+        if (failurePattern != null || bitParallelSearch != null || automatonSearch != null)
             return; // Thread race and another thread already initialized the search.
-        Logger.printDebug(() -> "Building failure array for: " + this);
-        int[][] failurePatterns = new int[filters.length][];
-        int i = 0;
-        for (byte[] pattern : filters) {
-            failurePatterns[i++] = createFailurePattern(pattern);
+        if (filters.length == 1) {
+            Logger.printDebug(() -> "Building failure array for: " + this);
+            failurePattern = createFailurePattern(filters[0]);
+        } else if (BitParallelByteSearch.canSearch(filters)) {
+            Logger.printDebug(() -> "Building bit parallel search for: " + this);
+            bitParallelSearch = new BitParallelByteSearch(filters);
+        } else {
+            Logger.printDebug(() -> "Building automaton for: " + this);
+            ByteTrieSearch search = new ByteTrieSearch();
+            for (byte[] pattern : filters) {
+                search.addPattern(pattern, (textSearched, matchedStartIndex, matchedLength, callbackParameter) -> {
+                    ((FilterGroupResult) callbackParameter).setValues(setting, matchedStartIndex, matchedLength);
+                    return true;
+                });
+            }
+            search.buildAutomaton();
+            automatonSearch = search;
         }
-        this.failurePatterns = failurePatterns; // Must set after initialization finishes.
     }
 
     @Override
     public FilterGroupResult check(final byte[] bytes) {
-        int matchedLength = 0;
-        int matchedIndex = -1;
-        if (isEnabled()) {
-            int[][] failures = failurePatterns;
-            if (failures == null) {
-                buildFailurePatterns(); // Lazy load.
-                failures = failurePatterns;
-            }
-            for (int i = 0, length = filters.length; i < length; i++) {
-                byte[] filter = filters[i];
-                matchedIndex = indexOf(bytes, filter, failures[i]);
-                if (matchedIndex >= 0) {
-                    matchedLength = filter.length;
-                    break;
-                }
+        return check(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Searches only the live region of a buffer.
+     */
+    public FilterGroupResult check(final ByteBufferView buffer) {
+        return check(buffer.array(), buffer.offset(), buffer.endIndex());
+    }
+
+    /**
+     * If more than 1 pattern is found, the result is the match that ends first.
+     *
+     * @param startIndex Index to start searching, inclusive value.
+     * @param endIndex   Index to stop matching, exclusive value.
+     */
+    public FilterGroupResult check(final byte[] bytes, final int startIndex, final int endIndex) {
+        if (!isEnabled() || filters.length == 0) {
+            return threadResult(setting, -1, 0);
+        }
+
+        int[] failure = failurePattern;
+        BitParallelByteSearch bitSearch = bitParallelSearch;
+        ByteTrieSearch automaton = automatonSearch;
+        if (failure == null && bitSearch == null && automaton == null) {
+            buildSearch(); // Lazy load.
+            failure = failurePattern;
+            bitSearch = bitParallelSearch;
+            automaton = automatonSearch;
+        }
+
+        if (failure != null) {
+            final byte[] filter = filters[0];
+            final int matchedIndex = indexOf(bytes, startIndex, endIndex, filter, failure);
+            return threadResult(setting, matchedIndex, matchedIndex >= 0 ? filter.length : 0);
+        }
+
+        if (bitSearch != null) {
+            final long found = bitSearch.find(bytes, startIndex, endIndex, bitSearch.allPatternsMask());
+            if (found == BitParallelByteSearch.NOT_FOUND) {
+                return threadResult(setting, -1, 0);
             }
+            return threadResult(setting, BitParallelByteSearch.getMatchedIndex(found),
+                    filters[BitParallelByteSearch.getPatternIndex(found)].length);
         }
-        return new FilterGroupResult(setting, matchedIndex, matchedLength);
+
+        FilterGroupResult result = threadResult(setting, -1, 0);
+        automaton.matches(bytes, startIndex, endIndex, result);
+        return result;
     }
 }
@@ -1,14 +1,137 @@
 package app.revanced.integrations.shared.patches.components;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import app.revanced.integrations.shared.utils.BitParallelByteSearch;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.ByteTrieSearch;
 
 /**
  * If searching for a single byte pattern, then it is slightly better to use
  * {@link ByteArrayFilterGroup#check(byte[])} as it uses KMP which is faster
  * than a prefix tree to search for only 1 pattern.
+ * <p>
+ * If the combined length of all patterns is short enough, all patterns are searched using a
+ * {@link BitParallelByteSearch}. Otherwise, the patterns are searched using an automaton.
  */
 public final class ByteArrayFilterGroupList extends FilterGroupList<byte[], ByteArrayFilterGroup> {
+
+    private static final class BitParallelGroups {
+        final BitParallelByteSearch search;
+        /**
+         * Group of each pattern of {@link #search}.
+         */
+        final ByteArrayFilterGroup[] patternGroups;
+        final int[] patternLengths;
+
+        BitParallelGroups(BitParallelByteSearch search, ByteArrayFilterGroup[] patternGroups, int[] patternLengths) {
+            this.search = search;
+            this.patternGroups = patternGroups;
+            this.patternLengths = patternLengths;
+        }
+    }
+
+    /**
+     * Patterns of the groups that are enabled.
+     */
+    private static final class EnabledPatterns {
+        /**
+         * {@link FilterGroup#getVerdictSettingChangeCount()} when the mask was created.
+         */
+        final int settingChangeCount;
+        final long patternMask;
+
+        EnabledPatterns(int settingChangeCount, long patternMask) {
+            this.settingChangeCount = settingChangeCount;
+            this.patternMask = patternMask;
+        }
+    }
+
+    /**
+     * Null if the patterns are too long for a bit parallel search.
+     */
+    private volatile BitParallelGroups bitParallelGroups;
+    private volatile EnabledPatterns enabledPatterns;
+
     protected ByteTrieSearch createSearchGraph() {
         return new ByteTrieSearch();
     }
+
+    @Override
+    protected void onGroupsAdded() {
+        List<byte[]> patterns = new ArrayList<>();
+        List<ByteArrayFilterGroup> patternGroups = new ArrayList<>();
+        for (ByteArrayFilterGroup group : this) {
+            if (!group.includeInSearch()) {
+                continue;
+            }
+            for (byte[] pattern : group.filters) {
+                patterns.add(pattern);
+                patternGroups.add(group);
+            }
+        }
+
+        byte[][] patternsArray = patterns.toArray(new byte[0][]);
+        if (BitParallelByteSearch.canSearch(patternsArray)) {
+            int[] patternLengths = new int[patternsArray.length];
+            for (int i = 0; i < patternsArray.length; i++) {
+                patternLengths[i] = patternsArray[i].length;
+            }
+            bitParallelGroups = new BitParallelGroups(new BitParallelByteSearch(patternsArray),
+                    patternGroups.toArray(new ByteArrayFilterGroup[0]), patternLengths);
+        } else {
+            bitParallelGroups = null;
+        }
+        enabledPatterns = null;
+    }
+
+    /**
+     * @return Mask of the patterns of all enabled groups.
+     */
+    private long getEnabledPatternMask(BitParallelGroups groups) {
+        final int settingChangeCount = FilterGroup.getVerdictSettingChangeCount();
+        EnabledPatterns enabled = enabledPatterns;
+        if (enabled == null || enabled.settingChangeCount != settingChangeCount) {
+            long mask = 0;
+            ByteArrayFilterGroup[] patternGroups = groups.patternGroups;
+            for (int i = 0, length = patternGroups.length; i < length; i++) {
+                if (patternGroups[i].isEnabled()) {
+                    mask |= groups.search.patternMask(i);
+                }
+            }
+            enabled = new EnabledPatterns(settingChangeCount, mask);
+            enabledPatterns = enabled;
+        }
+        return enabled.patternMask;
+    }
+
+    @Override
+    public FilterGroup.FilterGroupResult check(byte[] bytes) {
+        return check(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public FilterGroup.FilterGroupResult check(byte[] bytes, int startIndex, int endIndex) {
+        BitParallelGroups groups = bitParallelGroups;
+        if (groups == null) {
+            return super.check(bytes, startIndex, endIndex);
+        }
+
+        FilterGroup.FilterGroupResult result = resetThreadResult();
+        final long found = groups.search.find(bytes, startIndex, endIndex, getEnabledPatternMask(groups));
+        if (found != BitParallelByteSearch.NOT_FOUND) {
+            final int patternIndex = BitParallelByteSearch.getPatternIndex(found);
+            result.setValues(groups.patternGroups[patternIndex].setting,
+                    BitParallelByteSearch.getMatchedIndex(found), groups.patternLengths[patternIndex]);
+        }
+        return result;
+    }
+
+    /**
+     * Searches only the live region of a buffer.
+     */
+    public FilterGroup.FilterGroupResult check(ByteBufferView buffer) {
+        return check(buffer.array(), buffer.offset(), buffer.endIndex());
+    }
 }
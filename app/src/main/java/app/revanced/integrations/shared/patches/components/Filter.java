@@ -7,6 +7,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import app.revanced.integrations.shared.settings.BaseSettings;
+import app.revanced.integrations.shared.settings.Setting;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.Logger;
 
 /**
@@ -17,7 +19,7 @@ import app.revanced.integrations.shared.utils.Logger;
  * <p>
  * To filter {@link FilterContentType#PROTOBUFFER}, first add a callback to
  * either an identifier or a path.
- * Then inside {@link #isFiltered(String, String, String, byte[], StringFilterGroup, FilterContentType, int)}
+ * Then inside {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
  * search for the buffer content using either a {@link ByteArrayFilterGroup} (if searching for 1 pattern)
  * or a {@link ByteArrayFilterGroupList} (if searching for more than 1 pattern).
  * <p>
@@ -50,7 +52,7 @@ public abstract class Filter {
     protected final List<StringFilterGroup> allValueCallbacks = new ArrayList<>();
 
     /**
-     * Adds callbacks to {@link #isFiltered(String, String, String, byte[], StringFilterGroup, FilterContentType, int)}
+     * Adds callbacks to {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
      * if any of the groups are found.
      */
     protected final void addIdentifierCallbacks(StringFilterGroup... groups) {
@@ -58,7 +60,7 @@ public abstract class Filter {
     }
 
     /**
-     * Adds callbacks to {@link #isFiltered(String, String, String, byte[], StringFilterGroup, FilterContentType, int)}
+     * Adds callbacks to {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
      * if any of the groups are found.
      */
     protected final void addPathCallbacks(StringFilterGroup... groups) {
@@ -66,13 +68,46 @@ public abstract class Filter {
     }
 
     /**
-     * Adds callbacks to {@link #isFiltered(String, String, String, byte[], StringFilterGroup, FilterContentType, int)}
+     * Adds callbacks to {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
      * if any of the groups are found.
      */
     protected final void addAllValueCallbacks(StringFilterGroup... groups) {
         allValueCallbacks.addAll(Arrays.asList(groups));
     }
 
+    /**
+     * Adds settings that {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
+     * reads directly, so cached verdicts are not used after these settings change.
+     * The settings of filter groups are already included.
+     */
+    protected final void addVerdictSettings(Setting<?>... settings) {
+        for (Setting<?> setting : settings) {
+            FilterGroup.addVerdictSetting(setting);
+        }
+    }
+
+    /**
+     * If the result of {@link #isFiltered(String, String, String, ByteBufferView, StringFilterGroup, FilterContentType, int)}
+     * depends only on the component and the current settings, and calling it has no side effects.
+     * <p>
+     * Components matched by a filter that is not cacheable are filtered every time they are bound.
+     * Subclasses must return false if the result depends on other state (such as the current
+     * navigation or player state), if they save or act on the component data,
+     * or if they check the all value (which is only part of the cache key if all value callbacks are used).
+     */
+    public boolean isCacheable() {
+        return true;
+    }
+
+    /**
+     * Same as {@link #isCacheable()}, but for a single group of this filter.
+     * Filters where only some groups depend on other state can override this,
+     * so the components matched by the other groups are still cached.
+     */
+    public boolean isCacheable(StringFilterGroup group) {
+        return isCacheable();
+    }
+
     /**
      * Called after an enabled filter has been matched.
      * Default implementation is to always filter the matched component and log the action.
@@ -89,7 +124,7 @@ public abstract class Filter {
      * @param contentIndex Matched index of the identifier or path.
      * @return True if the litho component should be filtered out.
      */
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (BaseSettings.ENABLE_DEBUG_LOGGING.get()) {
             String filterSimpleName = getClass().getSimpleName();
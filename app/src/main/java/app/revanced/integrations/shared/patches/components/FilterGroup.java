@@ -2,7 +2,12 @@ package app.revanced.integrations.shared.patches.components;
 
 import androidx.annotation.NonNull;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import app.revanced.integrations.shared.settings.BooleanSetting;
+import app.revanced.integrations.shared.settings.Setting;
 
 @SuppressWarnings("unused")
 public abstract class FilterGroup<T> {
@@ -54,9 +59,51 @@ public abstract class FilterGroup<T> {
         }
     }
 
+    /**
+     * Number of changes to the settings that can change a filter verdict.
+     */
+    private static final AtomicInteger verdictSettingChangeCount = new AtomicInteger();
+
+    private static final Setting.ChangeListener verdictSettingListener =
+            setting -> verdictSettingChangeCount.incrementAndGet();
+
+    /**
+     * Settings with {@link #verdictSettingListener} added. Many groups use the same setting.
+     */
+    private static final Set<Setting<?>> verdictSettings = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Includes changes of the setting in {@link #getVerdictSettingChangeCount()}.
+     */
+    static void addVerdictSetting(@NonNull Setting<?> setting) {
+        if (verdictSettings.add(setting)) {
+            setting.addChangeListener(verdictSettingListener);
+        }
+    }
+
+    /**
+     * @return Number of changes to the settings of all filter groups,
+     * and to the settings added with {@link Filter#addVerdictSettings(Setting[])}.
+     * Unlike {@link Setting#getValueChangeCount()}, this does not change
+     * when a setting that no filter uses is saved.
+     */
+    static int getVerdictSettingChangeCount() {
+        return verdictSettingChangeCount.get();
+    }
+
     protected final BooleanSetting setting;
     protected final T[] filters;
 
+    /**
+     * Result reused by each calling thread, so checking does not create garbage on the Litho threads.
+     */
+    private final ThreadLocal<FilterGroupResult> resultThreadLocal = new ThreadLocal<>() {
+        @Override
+        protected FilterGroupResult initialValue() {
+            return new FilterGroupResult();
+        }
+    };
+
     /**
      * Initialize a new filter group.
      *
@@ -70,6 +117,9 @@ public abstract class FilterGroup<T> {
         if (filters.length == 0) {
             throw new IllegalArgumentException("Must use one or more filter patterns (zero specified)");
         }
+        if (setting != null) {
+            addVerdictSetting(setting);
+        }
     }
 
     public boolean isEnabled() {
@@ -91,5 +141,19 @@ public abstract class FilterGroup<T> {
         return getClass().getSimpleName() + ": " + (setting == null ? "(null setting)" : setting);
     }
 
+    /**
+     * @return The result of the calling thread with the given values.
+     * The same instance is returned for every check by the same thread.
+     */
+    protected final FilterGroupResult threadResult(BooleanSetting setting, int matchedIndex, int matchedLength) {
+        FilterGroupResult result = resultThreadLocal.get();
+        result.setValues(setting, matchedIndex, matchedLength);
+        return result;
+    }
+
+    /**
+     * @return The check result. The result is reused by the calling thread,
+     * and is only valid until the next check of this group by the same thread.
+     */
     public abstract FilterGroupResult check(final T stack);
 }
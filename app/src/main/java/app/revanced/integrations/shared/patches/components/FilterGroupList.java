@@ -18,6 +18,16 @@ public abstract class FilterGroupList<V, T extends FilterGroup<V>> implements It
     private final List<T> filterGroups = new ArrayList<>();
     private final TrieSearch<V> search = createSearchGraph();
 
+    /**
+     * Result reused by each calling thread, so checking does not create garbage on the Litho threads.
+     */
+    private final ThreadLocal<FilterGroup.FilterGroupResult> resultThreadLocal = new ThreadLocal<>() {
+        @Override
+        protected FilterGroup.FilterGroupResult initialValue() {
+            return new FilterGroup.FilterGroupResult();
+        }
+    };
+
     @SafeVarargs
     public final void addAll(final T... groups) {
         filterGroups.addAll(Arrays.asList(groups));
@@ -37,6 +47,15 @@ public abstract class FilterGroupList<V, T extends FilterGroup<V>> implements It
                 });
             }
         }
+
+        search.buildAutomaton();
+        onGroupsAdded();
+    }
+
+    /**
+     * Called after groups are added. Subclasses can override to build additional searches.
+     */
+    protected void onGroupsAdded() {
     }
 
     @NonNull
@@ -58,12 +77,34 @@ public abstract class FilterGroupList<V, T extends FilterGroup<V>> implements It
         return filterGroups.spliterator();
     }
 
+    /**
+     * @return The check result. The result is reused by the calling thread,
+     * and is only valid until the next check of this list by the same thread.
+     */
     public FilterGroup.FilterGroupResult check(V stack) {
-        FilterGroup.FilterGroupResult result = new FilterGroup.FilterGroupResult();
+        FilterGroup.FilterGroupResult result = resetThreadResult();
         search.matches(stack, result);
         return result;
 
     }
 
+    /**
+     * @param startIndex Index to start searching, inclusive value.
+     * @param endIndex   Index to stop matching, exclusive value.
+     * @return The check result. The result is reused by the calling thread,
+     * and is only valid until the next check of this list by the same thread.
+     */
+    public FilterGroup.FilterGroupResult check(V stack, int startIndex, int endIndex) {
+        FilterGroup.FilterGroupResult result = resetThreadResult();
+        search.matches(stack, startIndex, endIndex, result);
+        return result;
+    }
+
+    protected final FilterGroup.FilterGroupResult resetThreadResult() {
+        FilterGroup.FilterGroupResult result = resultThreadLocal.get();
+        result.setValues(null, -1, 0);
+        return result;
+    }
+
     protected abstract TrieSearch<V> createSearchGraph();
 }
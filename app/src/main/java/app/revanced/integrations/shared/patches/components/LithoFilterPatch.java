@@ -7,37 +7,119 @@ import java.nio.ByteBuffer;
 import java.util.List;
 
 import app.revanced.integrations.shared.settings.BaseSettings;
+import app.revanced.integrations.shared.utils.ByteBufferView;
+import app.revanced.integrations.shared.utils.CharSequenceTrieSearch;
 import app.revanced.integrations.shared.utils.Logger;
-import app.revanced.integrations.shared.utils.StringTrieSearch;
 
 @SuppressWarnings("unused")
 public final class LithoFilterPatch {
     /**
      * Simple wrapper to pass the litho parameters through the prefix search.
+     * <p>
+     * Each thread reuses a single instance, and the path and all value Strings
+     * are only created if a filter callback or search actually needs them.
      */
     private static final class LithoFilterParameters {
+        /**
+         * Buffer view, reused for every buffer set by the owning thread.
+         */
+        final ByteBufferView protoBuffer = new ByteBufferView();
+        @Nullable
+        String identifier;
+        @Nullable
+        private CharSequence pathBuilder;
         @Nullable
-        final String identifier;
-        final String path;
-        final String allValue;
-        final byte[] protoBuffer;
+        private Object object;
+        @Nullable
+        private String path;
+        @Nullable
+        private String allValue;
+        /**
+         * If the verdict can be saved to the verdict cache.
+         * Set to false if a filter that is not cacheable is called.
+         */
+        boolean cacheable;
+        /**
+         * If a filter callback was called. Filters are given the buffer,
+         * so the verdict then depends on the buffer and not only on the component.
+         */
+        boolean callbackCalled;
+        /**
+         * Hash of {@link #protoBuffer}, computed at most once for each buffer.
+         */
+        private long bufferHash;
+        private boolean bufferHashed;
+
+        void setProtoBuffer(@Nullable ByteBuffer buffer) {
+            protoBuffer.set(buffer);
+            bufferHashed = false;
+        }
+
+        /**
+         * The same buffer is filtered once for each of its components,
+         * so the hash is computed on first use and reused for the other components.
+         */
+        long getBufferHash() {
+            if (!bufferHashed) {
+                bufferHash = LithoVerdictCache.hash(0, protoBuffer);
+                bufferHashed = true;
+            }
+            return bufferHash;
+        }
 
-        LithoFilterParameters(String lithoPath, @Nullable String lithoIdentifier, String allValues, byte[] bufferArray) {
-            this.path = lithoPath;
-            this.identifier = lithoIdentifier;
-            this.allValue = allValues;
-            this.protoBuffer = bufferArray;
+        void set(CharSequence lithoPathBuilder, @Nullable String lithoIdentifier, Object allValueObject) {
+            pathBuilder = lithoPathBuilder;
+            identifier = lithoIdentifier;
+            object = allValueObject;
+            path = null;
+            allValue = null;
+            cacheable = true;
+            callbackCalled = false;
+        }
+
+        /**
+         * Clears references to the litho objects, so they are not kept in memory after filtering.
+         * The proto buffer is intentionally kept, see {@link LithoFilterPatch#setProtoBuffer(ByteBuffer)}.
+         */
+        void clear() {
+            pathBuilder = null;
+            identifier = null;
+            object = null;
+            path = null;
+            allValue = null;
+        }
+
+        CharSequence getPathBuilder() {
+            return pathBuilder;
+        }
+
+        String getPath() {
+            String value = path;
+            if (value == null) {
+                value = String.valueOf(pathBuilder);
+                path = value;
+            }
+            return value;
+        }
+
+        String getAllValue() {
+            String value = allValue;
+            if (value == null) {
+                value = String.valueOf(object);
+                allValue = value;
+            }
+            return value;
         }
 
         @NonNull
         @Override
         public String toString() {
             // Estimate the percentage of the buffer that are Strings.
-            StringBuilder builder = new StringBuilder(Math.max(100, protoBuffer.length / 2));
+            StringBuilder builder = new StringBuilder(Math.max(100, protoBuffer.length() / 2));
             builder.append("\nID: ");
             builder.append(identifier);
             builder.append("\nPath: ");
-            builder.append(path);
+            builder.append(pathBuilder);
             if (BaseSettings.ENABLE_DEBUG_BUFFER_LOGGING.get()) {
                 builder.append("\nBufferStrings: ");
                 findAsciiStrings(builder, protoBuffer);
@@ -47,18 +129,19 @@ public final class LithoFilterPatch {
         }
 
         /**
-         * Search through a byte array for all ASCII strings.
+         * Search through a buffer for all ASCII strings.
          */
-        private static void findAsciiStrings(StringBuilder builder, byte[] buffer) {
+        private static void findAsciiStrings(StringBuilder builder, ByteBufferView protoBuffer) {
             // Valid ASCII values (ignore control characters).
             final int minimumAscii = 32;  // 32 = space character
             final int maximumAscii = 126; // 127 = delete character
             final int minimumAsciiStringLength = 4; // Minimum length of an ASCII string to include.
             String delimitingCharacter = "❙"; // Non ascii character, to allow easier log filtering.
 
-            final int length = buffer.length;
-            int start = 0;
-            int end = 0;
+            final byte[] buffer = protoBuffer.array();
+            final int length = protoBuffer.endIndex();
+            int start = protoBuffer.offset();
+            int end = start;
             while (end < length) {
                 int value = buffer[end];
                 if (value < minimumAscii || value > maximumAscii || end == length - 1) {
@@ -79,17 +162,29 @@ public final class LithoFilterPatch {
             new DummyFilter() // Replaced by patch.
     };
 
-    private static final StringTrieSearch pathSearchTree = new StringTrieSearch();
-    private static final StringTrieSearch identifierSearchTree = new StringTrieSearch();
-    private static final StringTrieSearch allValueSearchTree = new StringTrieSearch();
+    private static final CharSequenceTrieSearch pathSearchTree = new CharSequenceTrieSearch();
+    private static final CharSequenceTrieSearch identifierSearchTree = new CharSequenceTrieSearch();
+    private static final CharSequenceTrieSearch allValueSearchTree = new CharSequenceTrieSearch();
 
-    private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+    /**
+     * Verdicts of recently filtered components.
+     * Components are rebound every time they are scrolled back into view,
+     * and most of them are the same components that were previously filtered.
+     */
+    private static final LithoVerdictCache verdictCache = new LithoVerdictCache(4096);
 
     /**
      * Because litho filtering is multi-threaded and the buffer is passed in from a different injection point,
      * the buffer is saved to a ThreadLocal so each calling thread does not interfere with other threads.
+     * <p>
+     * Each thread reuses the same parameters, so filtering does not create garbage on the Litho threads.
      */
-    private static final ThreadLocal<ByteBuffer> bufferThreadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<LithoFilterParameters> parametersThreadLocal = new ThreadLocal<>() {
+        @Override
+        protected LithoFilterParameters initialValue() {
+            return new LithoFilterParameters();
+        }
+    };
 
     static {
         for (Filter filter : filters) {
@@ -101,6 +196,11 @@ public final class LithoFilterPatch {
                     filter.allValueCallbacks, Filter.FilterContentType.ALLVALUE);
         }
 
+        // All patterns are now added, and every component is searched in a single pass.
+        identifierSearchTree.buildAutomaton();
+        pathSearchTree.buildAutomaton();
+        allValueSearchTree.buildAutomaton();
+
         Logger.printDebug(() -> "Using: "
                 + identifierSearchTree.numberOfPatterns() + " identifier filters"
                 + " (" + identifierSearchTree.getEstimatedMemorySize() + " KB), "
@@ -108,19 +208,24 @@ public final class LithoFilterPatch {
                 + " (" + pathSearchTree.getEstimatedMemorySize() + " KB)");
     }
 
-    private static void filterUsingCallbacks(StringTrieSearch pathSearchTree,
+    private static void filterUsingCallbacks(CharSequenceTrieSearch pathSearchTree,
                                              Filter filter, List<StringFilterGroup> groups,
                                              Filter.FilterContentType type) {
         for (StringFilterGroup group : groups) {
             if (!group.includeInSearch()) {
                 continue;
             }
+            final boolean cacheable = filter.isCacheable(group);
             for (String pattern : group.filters) {
                 pathSearchTree.addPattern(pattern, (textSearched, matchedStartIndex, matchedLength, callbackParameter) -> {
                             if (!group.isEnabled()) return false;
                             LithoFilterParameters parameters = (LithoFilterParameters) callbackParameter;
-                            return filter.isFiltered(parameters.path, parameters.identifier, parameters.allValue, parameters.protoBuffer,
-                                    group, type, matchedStartIndex);
+                            if (!cacheable) {
+                                parameters.cacheable = false;
+                            }
+                            parameters.callbackCalled = true;
+                            return filter.isFiltered(parameters.getPath(), parameters.identifier, parameters.getAllValue(),
+                                    parameters.protoBuffer, group, type, matchedStartIndex);
                         }
                 );
             }
@@ -135,49 +240,104 @@ public final class LithoFilterPatch {
         // This is intentional, as it appears the buffer can be set once and then filtered multiple times.
         // The buffer will be cleared from memory after a new buffer is set by the same thread,
         // or when the calling thread eventually dies.
-        bufferThreadLocal.set(protobufBuffer);
+        if (protobufBuffer == null) {
+            Logger.printDebug(() -> "Proto buffer is null, using an empty buffer");
+        }
+        parametersThreadLocal.get().setProtoBuffer(protobufBuffer);
+    }
+
+    /**
+     * @return Hash of the component and the settings, not including the buffer.
+     * This is the verdict key of components that do not match any filter callback,
+     * since only filter callbacks use the buffer.
+     */
+    private static long getComponentHash(LithoFilterParameters parameter) {
+        // Changes of the filter settings can enable or disable a filter group.
+        long hash = FilterGroup.getVerdictSettingChangeCount();
+        hash = LithoVerdictCache.hash(hash, parameter.identifier);
+        hash = LithoVerdictCache.hash(hash, parameter.getPathBuilder());
+        if (allValueSearchTree.numberOfPatterns() != 0) {
+            hash = LithoVerdictCache.hash(hash, parameter.getAllValue());
+        }
+        return hash;
+    }
+
+    /**
+     * @return Verdict key of components that match a filter callback.
+     */
+    private static long getBufferVerdictKey(LithoFilterParameters parameter, long componentHash) {
+        return LithoVerdictCache.finish(LithoVerdictCache.hash(componentHash, parameter.getBufferHash()));
+    }
+
+    private static boolean search(LithoFilterParameters parameter) {
+        if (parameter.identifier != null && identifierSearchTree.matches(parameter.identifier, parameter)) {
+            return true;
+        }
+
+        if (pathSearchTree.matches(parameter.getPathBuilder(), parameter)) {
+            return true;
+        }
+
+        // Only convert the object to a String if it's searched.
+        return allValueSearchTree.numberOfPatterns() != 0
+                && allValueSearchTree.matches(parameter.getAllValue(), parameter);
     }
 
     /**
      * Injection point.  Called off the main thread, and commonly called by multiple threads at the same time.
      */
     public static boolean filter(@NonNull StringBuilder pathBuilder, @Nullable String identifier, @NonNull Object object) {
+        LithoFilterParameters parameter = null;
         try {
             if (pathBuilder.length() == 0) {
                 return false;
             }
 
-            ByteBuffer protobufBuffer = bufferThreadLocal.get();
-            final byte[] bufferArray;
             // Potentially the buffer may have been null or never set up until now.
-            // Use an empty buffer so the litho id or path filters still work correctly.
-            if (protobufBuffer == null) {
-                Logger.printDebug(() -> "Proto buffer is null, using an empty buffer array");
-                bufferArray = EMPTY_BYTE_ARRAY;
-            } else if (!protobufBuffer.hasArray()) {
-                Logger.printDebug(() -> "Proto buffer does not have an array, using an empty buffer array");
-                bufferArray = EMPTY_BYTE_ARRAY;
-            } else {
-                bufferArray = protobufBuffer.array();
-            }
+            // The buffer view is then empty so the litho id or path filters still work correctly.
+            parameter = parametersThreadLocal.get();
+            parameter.set(pathBuilder, identifier, object);
 
-            LithoFilterParameters parameter = new LithoFilterParameters(pathBuilder.toString(), identifier,
-                    object.toString(), bufferArray);
-            Logger.printDebug(() -> "Searching " + parameter);
-
-            if (parameter.identifier != null && identifierSearchTree.matches(parameter.identifier, parameter)) {
-                return true;
+            // Whether a component matches a filter callback depends only on the component and the settings.
+            // Components that match no callback are cached without the buffer,
+            // and only components that match a callback hash the buffer.
+            final long componentHash = getComponentHash(parameter);
+            final long componentKey = LithoVerdictCache.finish(componentHash);
+            int verdict = verdictCache.get(componentKey);
+            if (verdict == LithoVerdictCache.MISS) {
+                verdict = verdictCache.get(getBufferVerdictKey(parameter, componentHash));
+                if (verdict == LithoVerdictCache.MISS) {
+                    verdictCache.recordMiss();
+                }
+            }
+            final int cachedVerdict = verdict;
+            if (cachedVerdict != LithoVerdictCache.MISS) {
+                if (BaseSettings.ENABLE_DEBUG_LOGGING.get()) {
+                    String parameterString = parameter.toString();
+                    Logger.printDebug(() -> "Cached verdict filtered: " + (cachedVerdict == LithoVerdictCache.FILTERED)
+                            + " " + verdictCache + parameterString);
+                }
+                return cachedVerdict == LithoVerdictCache.FILTERED;
             }
 
-            if (pathSearchTree.matches(parameter.path, parameter)) {
-                return true;
+            if (BaseSettings.ENABLE_DEBUG_LOGGING.get()) {
+                String parameterString = parameter.toString();
+                Logger.printDebug(() -> "Searching " + parameterString);
             }
 
-            if (allValueSearchTree.matches(parameter.allValue, parameter)) {
-                return true;
+            final boolean filtered = search(parameter);
+            if (parameter.cacheable) {
+                verdictCache.put(parameter.callbackCalled
+                        ? getBufferVerdictKey(parameter, componentHash)
+                        : componentKey, filtered);
             }
+            return filtered;
         } catch (Exception ex) {
             Logger.printException(() -> "Litho filter failure", ex);
+        } finally {
+            if (parameter != null) {
+                parameter.clear();
+            }
         }
 
         return false;
@@ -0,0 +1,214 @@
+package app.revanced.integrations.shared.patches.components;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import app.revanced.integrations.shared.utils.ByteBufferView;
+
+/**
+ * Bounded cache of filter verdicts, keyed by a 64-bit hash of the litho component.
+ * <p>
+ * The same components are filtered again every time they are rebound while scrolling,
+ * and a cached verdict skips all prefix tree and buffer searches.
+ * <p>
+ * The cache is lock free and safe to use from multiple threads.
+ * Entries are stored in small sets of {@link #WAYS} slots, where a key can only be stored
+ * in the set its hash maps to. When a set is full, an entry not recently used is evicted
+ * using the clock algorithm, which approximates least recently used eviction without
+ * needing to reorder entries on every cache hit.
+ * <p>
+ * Each slot is a single long that holds the key hash, the verdict and a recently used bit.
+ * The lowest two bits of the key hash are replaced by the verdict and recently used bits,
+ * so two keys that differ only in those bits are the same key.
+ * This is acceptable because the remaining 62 bits make a false match very unlikely.
+ * <p>
+ * There is no explicit invalidation. Callers include anything that changes a verdict
+ * (such as {@link FilterGroup#getVerdictSettingChangeCount()})
+ * in the key hash, and old entries are no longer found and are eventually evicted.
+ */
+final class LithoVerdictCache {
+    static final int MISS = -1;
+    static final int NOT_FILTERED = 0;
+    static final int FILTERED = 1;
+
+    private static final int WAYS = 4;
+
+    private static final long EMPTY_SLOT = 0;
+    private static final long VERDICT_BIT = 1;
+    private static final long RECENTLY_USED_BIT = 2;
+    private static final long KEY_MASK = ~(VERDICT_BIT | RECENTLY_USED_BIT);
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumEntries Maximum number of entries. Rounded up to a power of 2.
+     */
+    LithoVerdictCache(int maximumEntries) {
+        final int minimumSets = Math.max(1, (maximumEntries + WAYS - 1) / WAYS);
+        int numberOfSets = Integer.highestOneBit(minimumSets);
+        if (numberOfSets < minimumSets) numberOfSets <<= 1;
+        slots = new AtomicLongArray(numberOfSets * WAYS);
+        setMask = numberOfSets - 1;
+    }
+
+    private static long slotKey(long keyHash) {
+        final long key = keyHash & KEY_MASK;
+        // Zero is used for empty slots.
+        return key == EMPTY_SLOT ? RECENTLY_USED_BIT << 1 : key;
+    }
+
+    private int setStartIndex(long keyHash) {
+        // Use the upper bits for the set, since the lower bits are part of the slot value.
+        return ((int) (keyHash >>> 32) & setMask) * WAYS;
+    }
+
+    /**
+     * Misses are not counted, since a verdict can be looked up with more than one key.
+     * Use {@link #recordMiss()} once no key was found.
+     *
+     * @return {@link #FILTERED}, {@link #NOT_FILTERED} or {@link #MISS}.
+     */
+    int get(long keyHash) {
+        final long key = slotKey(keyHash);
+        final int start = setStartIndex(keyHash);
+        for (int i = start, end = start + WAYS; i < end; i++) {
+            final long slot = slots.get(i);
+            if ((slot & KEY_MASK) == key) {
+                if ((slot & RECENTLY_USED_BIT) == 0) {
+                    // If another thread replaced the slot, then this write is lost and that is harmless.
+                    slots.compareAndSet(i, slot, slot | RECENTLY_USED_BIT);
+                }
+                hits.increment();
+                return (slot & VERDICT_BIT) != 0 ? FILTERED : NOT_FILTERED;
+            }
+        }
+        return MISS;
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void put(long keyHash, boolean filtered) {
+        final long key = slotKey(keyHash);
+        final long value = key | RECENTLY_USED_BIT | (filtered ? VERDICT_BIT : 0);
+        final int start = setStartIndex(keyHash);
+        final int end = start + WAYS;
+
+        for (int i = start; i < end; i++) {
+            final long slot = slots.get(i);
+            if (slot == EMPTY_SLOT || (slot & KEY_MASK) == key) {
+                slots.set(i, value);
+                return;
+            }
+        }
+
+        // Set is full. Clock eviction: clear the recently used bits until
+        // an entry is found that was not used since it was last passed over.
+        // Gives up after two passes, which can happen only if other threads keep using the entries.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = start; i < end; i++) {
+                final long slot = slots.get(i);
+                if ((slot & RECENTLY_USED_BIT) == 0) {
+                    if (slots.compareAndSet(i, slot, value)) {
+                        evictions.increment();
+                    }
+                    return;
+                }
+                slots.compareAndSet(i, slot, slot & ~RECENTLY_USED_BIT);
+            }
+        }
+    }
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Not a secure hash, and is only intended to be fast and to have few collisions.
+     *
+     * @return Hash of the previous hash combined with the value.
+     */
+    static long hash(long hash, long value) {
+        return Long.rotateLeft((hash ^ value) * HASH_MULTIPLIER, 31);
+    }
+
+    /**
+     * @param text Text to hash. Null is hashed differently than an empty value.
+     */
+    static long hash(long hash, @Nullable CharSequence text) {
+        if (text == null) {
+            return hash(hash, -1);
+        }
+        final int length = text.length();
+        int i = 0;
+        // Combine 4 characters into each hash step.
+        for (final int end = length - 3; i < end; i += 4) {
+            hash = hash(hash, (long) text.charAt(i)
+                    | (long) text.charAt(i + 1) << 16
+                    | (long) text.charAt(i + 2) << 32
+                    | (long) text.charAt(i + 3) << 48);
+        }
+        for (; i < length; i++) {
+            hash = hash(hash, text.charAt(i));
+        }
+        return hash(hash, length);
+    }
+
+    static long hash(long hash, @NonNull ByteBufferView view) {
+        final byte[] array = view.array();
+        final int end = view.endIndex();
+        int i = view.offset();
+        // Combine 8 bytes into each hash step.
+        for (final int wordEnd = end - 7; i < wordEnd; i += 8) {
+            hash = hash(hash, (array[i] & 0xFFL)
+                    | (array[i + 1] & 0xFFL) << 8
+                    | (array[i + 2] & 0xFFL) << 16
+                    | (array[i + 3] & 0xFFL) << 24
+                    | (array[i + 4] & 0xFFL) << 32
+                    | (array[i + 5] & 0xFFL) << 40
+                    | (array[i + 6] & 0xFFL) << 48
+                    | (long) array[i + 7] << 56);
+        }
+        for (; i < end; i++) {
+            hash = hash(hash, array[i]);
+        }
+        return hash(hash, view.length());
+    }
+
+    /**
+     * Mixes the bits of a hash, so all bits of the key depend on all the hashed values.
+     */
+    static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    void clear() {
+        for (int i = 0, length = slots.length(); i < length; i++) {
+            slots.set(i, EMPTY_SLOT);
+        }
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LithoVerdictCache{capacity=" + capacity()
+                + ", hits=" + hits.sum()
+                + ", misses=" + misses.sum()
+                + ", evictions=" + evictions.sum() + "}";
+    }
+}
@@ -24,6 +24,6 @@ public class StringFilterGroup extends FilterGroup<String> {
                 }
             }
         }
-        return new FilterGroupResult(setting, matchedIndex, matchedLength);
+        return threadResult(setting, matchedIndex, matchedLength);
     }
 }
@@ -0,0 +1,90 @@
+package app.revanced.integrations.shared.requests;
+
+import androidx.annotation.NonNull;
+
+import app.revanced.integrations.shared.utils.Logger;
+
+/**
+ * Pauses all calls to an API after a connection error or after the API requested a back off.
+ * <p>
+ * A single instance is shared by all endpoints of the same API.
+ * <p>
+ * This class is thread safe.
+ */
+public final class Backoff {
+
+    /**
+     * Indicates a client rate limit has been reached and the client must back off.
+     */
+    public static final int HTTP_STATUS_CODE_RATE_LIMIT = 429;
+
+    private final long connectionErrorBackoffMillis;
+    private final long rateLimitBackoffMillis;
+
+    /**
+     * If non zero, then the system time of when API calls can resume.
+     */
+    private volatile long timeToResumeAPICalls; // must be volatile, since different threads read/write to this
+
+    /**
+     * @param connectionErrorBackoffMillis How long to wait until API calls are resumed, if any connection error occurs.
+     * @param rateLimitBackoffMillis       How long to wait until API calls are resumed, if the API requested a back off.
+     */
+    public Backoff(long connectionErrorBackoffMillis, long rateLimitBackoffMillis) {
+        this.connectionErrorBackoffMillis = connectionErrorBackoffMillis;
+        this.rateLimitBackoffMillis = rateLimitBackoffMillis;
+    }
+
+    /**
+     * @return If the response code is a client rate limit.
+     */
+    public static boolean isRateLimit(int httpResponseCode) {
+        return httpResponseCode == HTTP_STATUS_CODE_RATE_LIMIT;
+    }
+
+    /**
+     * @return True, if a back off is in effect and the call should not be made.
+     */
+    public boolean isInEffect(@NonNull String apiEndPointName) {
+        if (!isInEffect()) {
+            return false;
+        }
+        Logger.printDebug(() -> "Ignoring api call " + apiEndPointName + " as rate limit is in effect");
+        return true;
+    }
+
+    /**
+     * Same as {@link #isInEffect(String)}, but does not log.
+     * For speculative calls that are frequently skipped.
+     */
+    public boolean isInEffect() {
+        final long timeToResume = timeToResumeAPICalls;
+        if (timeToResume == 0) {
+            return false;
+        }
+        if (System.currentTimeMillis() > timeToResume) {
+            timeToResumeAPICalls = 0;
+            return false;
+        }
+        return true;
+    }
+
+    public void onConnectionError() {
+        timeToResumeAPICalls = System.currentTimeMillis() + connectionErrorBackoffMillis;
+    }
+
+    public void onRateLimit() {
+        Logger.printDebug(() -> "API rate limit was hit. Stopping API calls for the next "
+                + (rateLimitBackoffMillis / 1000) + " seconds");
+        timeToResumeAPICalls = System.currentTimeMillis() + rateLimitBackoffMillis;
+    }
+
+    /**
+     * @return If a back off was in effect.
+     */
+    public boolean reset() {
+        final boolean wasInEffect = timeToResumeAPICalls != 0;
+        timeToResumeAPICalls = 0;
+        return wasInEffect;
+    }
+}
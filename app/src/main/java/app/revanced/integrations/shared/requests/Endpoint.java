@@ -0,0 +1,111 @@
+package app.revanced.integrations.shared.requests;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.net.HttpURLConnection;
+import java.util.Objects;
+
+import app.revanced.integrations.shared.settings.BaseSettings;
+import app.revanced.integrations.shared.utils.Logger;
+
+/**
+ * Connection settings of a remote API call, and the metrics of the calls made to it.
+ * <p>
+ * Requesters declare one instance for each kind of API call,
+ * instead of each requester setting the timeouts and logging the call durations itself.
+ * <p>
+ * This class is thread safe.
+ */
+public final class Endpoint {
+
+    /**
+     * Receives the result of every call to any endpoint.
+     * <p>
+     * Method is called on the thread that made the call, which is usually a background thread.
+     */
+    public interface MetricsListener {
+        /**
+         * @param responseCode   HTTP response code, or {@link #CONNECTION_ERROR} if no response was received.
+         * @param durationMillis Time from opening the connection until the response or error was received.
+         */
+        void onCallCompleted(@NonNull Endpoint endpoint, int responseCode, long durationMillis);
+    }
+
+    /**
+     * Response code used if the connection failed or timed out.
+     */
+    public static final int CONNECTION_ERROR = -1;
+
+    @Nullable
+    private static volatile MetricsListener metricsListener;
+
+    /**
+     * @param listener Listener of all endpoint calls, or null to remove the current listener.
+     */
+    public static void setMetricsListener(@Nullable MetricsListener listener) {
+        metricsListener = listener;
+    }
+
+    @NonNull
+    public final String name;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * @param name                 Name used for logging.
+     * @param connectTimeoutMillis TCP connection timeout.
+     * @param readTimeoutMillis    HTTP response timeout.
+     */
+    public Endpoint(@NonNull String name, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.name = Objects.requireNonNull(name);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Applies the timeouts of this endpoint to a connection.
+     */
+    public void applyTimeouts(@NonNull HttpURLConnection connection) {
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+    }
+
+    /**
+     * Records a call that received a HTTP response.
+     *
+     * @param startTimeMillis System time of when the connection was opened.
+     */
+    public void recordResponse(long startTimeMillis, int responseCode) {
+        record(startTimeMillis, responseCode);
+    }
+
+    /**
+     * Records a call that failed to connect or timed out.
+     *
+     * @param startTimeMillis System time of when the connection was opened.
+     */
+    public void recordConnectionError(long startTimeMillis) {
+        record(startTimeMillis, CONNECTION_ERROR);
+    }
+
+    private void record(long startTimeMillis, int responseCode) {
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+        if (BaseSettings.ENABLE_DEBUG_LOGGING.get()) {
+            Logger.printDebug(() -> name + " response: " + responseCode + " took: " + durationMillis + "ms");
+        }
+
+        MetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onCallCompleted(this, responseCode, durationMillis);
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "Endpoint{" + "name='" + name + '\''
+                + ", connectTimeout=" + connectTimeoutMillis
+                + ", readTimeout=" + readTimeoutMillis + '}';
+    }
+}
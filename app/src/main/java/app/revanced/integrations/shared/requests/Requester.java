@@ -4,12 +4,19 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
+import android.util.JsonReader;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 @SuppressWarnings("unused")
 public class Requester {
@@ -33,20 +40,80 @@ public class Requester {
     }
 
     /**
-     * Parse the {@link HttpURLConnection}, and closes the underlying InputStream.
+     * Opens a connection using the timeouts of the endpoint.
      */
-    private static String parseInputStreamAndClose(InputStream inputStream) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            StringBuilder jsonBuilder = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonBuilder.append(line);
-                jsonBuilder.append('\n');
+    public static HttpURLConnection getConnectionFromRoute(String apiUrl, Endpoint endpoint, Route route, String... params) throws IOException {
+        return getConnectionFromCompiledRoute(apiUrl, endpoint, route.compile(params));
+    }
+
+    /**
+     * Opens a connection using the timeouts of the endpoint.
+     */
+    public static HttpURLConnection getConnectionFromCompiledRoute(String apiUrl, Endpoint endpoint, Route.CompiledRoute route) throws IOException {
+        HttpURLConnection connection = getConnectionFromCompiledRoute(apiUrl, route);
+        endpoint.applyTimeouts(connection);
+        return connection;
+    }
+
+    /**
+     * Reads and discards any remaining response data, and closes the response streams.
+     * <p>
+     * A keep-alive connection can only be reused for the next request to the same host
+     * after the response is fully read. Use this instead of {@link HttpURLConnection#disconnect()}
+     * if the response is not needed (such as an unexpected response code),
+     * and other requests to the same host are likely in the near future.
+     */
+    public static void closeResponse(@NonNull HttpURLConnection connection) {
+        try {
+            InputStream stream = connection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getInputStream()
+                    : connection.getErrorStream();
+            if (stream != null) {
+                try (InputStream inputStream = stream) {
+                    byte[] buffer = new byte[1024];
+                    //noinspection StatementWithEmptyBody
+                    while (inputStream.read(buffer) >= 0) {
+                    }
+                }
             }
-            return jsonBuilder.toString();
+        } catch (IOException ex) {
+            // Connection cannot be reused.
+            connection.disconnect();
         }
     }
 
+    /**
+     * Reads all bytes of the InputStream, and closes the InputStream.
+     *
+     * @param expectedLength Expected number of bytes, or -1 if not known.
+     */
+    private static byte[] parseBytesAndClose(InputStream inputStream, int expectedLength) throws IOException {
+        try (InputStream stream = inputStream;
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream(expectedLength > 0 ? expectedLength : 8192)) {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = stream.read(buffer)) >= 0) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Parse the {@link HttpURLConnection}, and closes the underlying InputStream.
+     */
+    private static String parseInputStreamAndClose(InputStream inputStream) throws IOException {
+        return new String(parseBytesAndClose(inputStream, -1), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse the {@link HttpURLConnection} response as raw bytes.
+     * This does not close the url connection.
+     */
+    public static byte[] parseBytes(HttpURLConnection connection) throws IOException {
+        return parseBytesAndClose(connection.getInputStream(), connection.getContentLength());
+    }
+
     /**
      * Parse the {@link HttpURLConnection} response as a String.
      * This does not close the url connection. If further requests to this host are unlikely
@@ -139,4 +206,77 @@ public class Requester {
         return array;
     }
 
+    /**
+     * Parse only the requested fields of the {@link HttpURLConnection} JSON response,
+     * and closes the underlying InputStream. This does not close the url connection.
+     * <p>
+     * The response is read as a stream, and any object or array that does not contain
+     * a requested field is skipped without being parsed. Use this instead of
+     * {@link #parseJSONObject(HttpURLConnection)} if only a few values of a large response are needed.
+     *
+     * @param fieldPaths Paths of the fields, with each object key or array index separated by a period.
+     *                   For example: {@code playabilityStatus.status} or {@code contents.0.videoId}
+     * @return Map of field path to the String value of the field.
+     * Fields not found, fields that are null, and fields that are an object or array are not included.
+     */
+    public static Map<String, String> parseJSONFields(HttpURLConnection connection, String... fieldPaths) throws IOException {
+        Map<String, String> fields = new HashMap<>(2 * fieldPaths.length);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            parseJSONFields(reader, "", fieldPaths, fields);
+        }
+        return fields;
+    }
+
+    private static void parseJSONFields(JsonReader reader, String path, String[] fieldPaths,
+                                        Map<String, String> fields) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT -> {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String childPath = getJSONChildPath(path, reader.nextName());
+                    if (isJSONFieldOrParent(childPath, fieldPaths)) {
+                        parseJSONFields(reader, childPath, fieldPaths, fields);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            case BEGIN_ARRAY -> {
+                reader.beginArray();
+                int index = 0;
+                while (reader.hasNext()) {
+                    String childPath = getJSONChildPath(path, String.valueOf(index++));
+                    if (isJSONFieldOrParent(childPath, fieldPaths)) {
+                        parseJSONFields(reader, childPath, fieldPaths, fields);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            }
+            case STRING, NUMBER -> fields.put(path, reader.nextString());
+            case BOOLEAN -> fields.put(path, String.valueOf(reader.nextBoolean()));
+            default -> reader.skipValue();
+        }
+    }
+
+    private static String getJSONChildPath(String path, String name) {
+        return path.isEmpty() ? name : path + '.' + name;
+    }
+
+    /**
+     * @return If the path is one of the field paths, or is a parent object or array of a field path.
+     */
+    private static boolean isJSONFieldOrParent(String path, String[] fieldPaths) {
+        final int pathLength = path.length();
+        for (String fieldPath : fieldPaths) {
+            if (fieldPath.startsWith(path)
+                    && (fieldPath.length() == pathLength || fieldPath.charAt(pathLength) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package app.revanced.integrations.shared.requests;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
+import app.revanced.integrations.shared.utils.TaskScheduler.Lane;
+
+/**
+ * Coalesces identical calls that are in flight at the same time.
+ * <p>
+ * If a call with the same key is already running, then the future of that call is returned
+ * instead of making another call. Once a call completes its key is removed,
+ * so results are not cached and the next call with the same key is made again.
+ * <p>
+ * This class is thread safe.
+ *
+ * @param <K> Key that identifies identical calls, such as a video id.
+ * @param <V> Result of the call.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Future<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Lane the calls run in.
+     */
+    private final Lane lane;
+
+    public SingleFlight() {
+        this(Lane.INTERACTIVE);
+    }
+
+    public SingleFlight(@NonNull Lane lane) {
+        this.lane = Objects.requireNonNull(lane);
+    }
+
+    /**
+     * Runs the call in the lane of this instance, unless a call with the same key is already in flight.
+     *
+     * @return The future of the new call, or of the call already in flight.
+     */
+    @NonNull
+    public Future<V> submit(@NonNull K key, @NonNull Callable<V> call) {
+        Objects.requireNonNull(key);
+        Future<V> existing = inFlight.get(key);
+        if (existing != null) {
+            Logger.printDebug(() -> "Joining in flight call: " + key);
+            return existing;
+        }
+
+        FutureTask<V> task = new FutureTask<>(call) {
+            @Override
+            protected void done() {
+                inFlight.remove(key, this);
+            }
+        };
+        existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            Logger.printDebug(() -> "Joining in flight call: " + key);
+            return existing; // Another thread won the race.
+        }
+
+        TaskScheduler.run(lane, task);
+        return task;
+    }
+
+    /**
+     * @return The future of the call in flight, or null if no call with the key is in flight.
+     */
+    @Nullable
+    public Future<V> getInFlight(@NonNull K key) {
+        return inFlight.get(key);
+    }
+
+    /**
+     * @return If a call with the key is in flight.
+     */
+    public boolean isInFlight(@NonNull K key) {
+        return inFlight.containsKey(key);
+    }
+}
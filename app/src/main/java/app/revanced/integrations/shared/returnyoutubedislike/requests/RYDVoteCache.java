@@ -0,0 +1,211 @@
+package app.revanced.integrations.shared.returnyoutubedislike.requests;
+
+import android.content.Context;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app.revanced.integrations.shared.utils.AppendOnlyRecordFile;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.Utils;
+
+/**
+ * Persistent cache of fetched RYD votes, so recently seen videos
+ * can show dislikes after an app restart without waiting for the API.
+ * <p>
+ * Entries are stored in an append only binary file in the app cache directory.
+ * The file is read into memory on first use, and new fetches are appended to the end.
+ * Once the file contains too many replaced or evicted entries, it is rewritten with only the current entries.
+ * <p>
+ * This class is thread safe.
+ */
+final class RYDVoteCache {
+    private static final String FILE_NAME = "revanced_ryd_votes.bin";
+
+    /**
+     * File header. Must be changed if the record format changes.
+     */
+    private static final int FILE_HEADER = 0x52594401; // 'RYD' and version 1.
+
+    /**
+     * Maximum number of entries kept. Each entry is about 70 bytes.
+     */
+    private static final int CACHE_LIMIT = 2000;
+
+    /**
+     * How long an entry is used before it's refreshed.
+     */
+    private static final long FRESH_MILLISECONDS = 7 * 60 * 1000; // 7 Minutes.
+
+    /**
+     * Entries older than this are not used.
+     */
+    private static final long MAXIMUM_AGE_MILLISECONDS = 7L * 24 * 60 * 60 * 1000; // 7 Days.
+
+    /**
+     * Value stored if a raw like or dislike count is null.
+     */
+    private static final long NULL_COUNT = -1;
+
+    static final class CachedVote {
+        @NonNull
+        final String videoId;
+        final long timeFetched;
+        final long viewCount;
+        final long likeCount;
+        final long rawLikeCount;
+        final long dislikeCount;
+        final long rawDislikeCount;
+
+        private CachedVote(@NonNull String videoId, long timeFetched, long viewCount, long likeCount,
+                           long rawLikeCount, long dislikeCount, long rawDislikeCount) {
+            this.videoId = videoId;
+            this.timeFetched = timeFetched;
+            this.viewCount = viewCount;
+            this.likeCount = likeCount;
+            this.rawLikeCount = rawLikeCount;
+            this.dislikeCount = dislikeCount;
+            this.rawDislikeCount = rawDislikeCount;
+        }
+
+        /**
+         * @return If this entry can be used without refreshing.
+         */
+        boolean isFresh(long now) {
+            return now - timeFetched < FRESH_MILLISECONDS;
+        }
+
+        private boolean isTooOld(long now) {
+            return now - timeFetched > MAXIMUM_AGE_MILLISECONDS;
+        }
+
+        /**
+         * @return A new instance of the vote data, as it was originally fetched.
+         */
+        @NonNull
+        RYDVoteData toVoteData() {
+            return new RYDVoteData(videoId, viewCount, likeCount, toNullableCount(rawLikeCount),
+                    dislikeCount, toNullableCount(rawDislikeCount));
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            byte[] videoIdBytes = videoId.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(videoIdBytes.length);
+            out.write(videoIdBytes);
+            out.writeLong(timeFetched);
+            out.writeLong(viewCount);
+            out.writeLong(likeCount);
+            out.writeLong(rawLikeCount);
+            out.writeLong(dislikeCount);
+            out.writeLong(rawDislikeCount);
+        }
+
+        private static CachedVote read(DataInputStream in) throws IOException {
+            byte[] videoIdBytes = new byte[in.readUnsignedByte()];
+            in.readFully(videoIdBytes);
+            return new CachedVote(new String(videoIdBytes, StandardCharsets.UTF_8),
+                    in.readLong(), in.readLong(), in.readLong(),
+                    in.readLong(), in.readLong(), in.readLong());
+        }
+    }
+
+    private static long toStoredCount(@Nullable Long count) {
+        return count == null ? NULL_COUNT : count;
+    }
+
+    @Nullable
+    private static Long toNullableCount(long count) {
+        return count == NULL_COUNT ? null : count;
+    }
+
+    /**
+     * Entries in least recently used order.
+     */
+    @GuardedBy("this")
+    private final Map<String, CachedVote> entries = new LinkedHashMap<>(2 * CACHE_LIMIT, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedVote> eldest) {
+            return size() > CACHE_LIMIT; // Evict the oldest entry if over the cache limit.
+        }
+    };
+
+    /**
+     * Cache file, or null if the cache directory is not available.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private AppendOnlyRecordFile<CachedVote> storeFile;
+
+    @GuardedBy("this")
+    private boolean loaded;
+
+    /**
+     * @return The cached entry, or null if the video is not cached.
+     */
+    @Nullable
+    synchronized CachedVote get(@NonNull String videoId) {
+        loadIfNeeded();
+
+        CachedVote entry = entries.get(videoId);
+        if (entry != null && entry.isTooOld(System.currentTimeMillis())) {
+            entries.remove(videoId);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Saves the vote data, as it was fetched from the API.
+     * Must be called before any user votes are applied to the data.
+     */
+    synchronized void put(@NonNull RYDVoteData voteData) {
+        loadIfNeeded();
+
+        CachedVote entry = new CachedVote(voteData.videoId, System.currentTimeMillis(), voteData.viewCount,
+                voteData.fetchedLikeCount, toStoredCount(voteData.fetchedRawLikeCount),
+                voteData.fetchedDislikeCount, toStoredCount(voteData.fetchedRawDislikeCount));
+        entries.put(entry.videoId, entry);
+
+        if (storeFile == null) return;
+        if (storeFile.shouldRewrite(entries.size(), 1, CACHE_LIMIT)) {
+            storeFile.rewrite(entries.values());
+        } else {
+            storeFile.append(entry);
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadIfNeeded() {
+        if (loaded) return;
+        loaded = true;
+
+        Context context = Utils.getContext();
+        if (context == null) {
+            return; // Cache is only in memory.
+        }
+        storeFile = new AppendOnlyRecordFile<>(new File(context.getCacheDir(), FILE_NAME),
+                FILE_HEADER, "vote cache", CachedVote::read, CachedVote::write);
+
+        final long startTime = System.currentTimeMillis();
+        final boolean fileIsValid = storeFile.read(entry -> entries.put(entry.videoId, entry));
+
+        final long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isTooOld(now));
+        Logger.printDebug(() -> "Loaded " + entries.size() + " cached votes in: "
+                + (System.currentTimeMillis() - startTime) + "ms");
+
+        if (!fileIsValid) {
+            // Do not append after a partial entry or an unknown file version.
+            storeFile.rewrite(entries.values());
+        }
+    }
+}
@@ -26,7 +26,7 @@ public final class RYDVoteData {
      */
     public final long viewCount;
 
-    private final long fetchedLikeCount;
+    final long fetchedLikeCount;
     private volatile long likeCount; // Read/write from different threads.
     /**
      * Like count can be hidden by video creator, but RYD still tracks the number
@@ -36,13 +36,13 @@ public final class RYDVoteData {
      * Raw values can be null, especially for older videos with little to no views.
      */
     @Nullable
-    private final Long fetchedRawLikeCount;
+    final Long fetchedRawLikeCount;
     private volatile float likePercentage;
 
-    private final long fetchedDislikeCount;
+    final long fetchedDislikeCount;
     private volatile long dislikeCount; // Read/write from different threads.
     @Nullable
-    private final Long fetchedRawDislikeCount;
+    final Long fetchedRawDislikeCount;
     private volatile float dislikePercentage;
 
     @Nullable
@@ -73,6 +73,25 @@ public final class RYDVoteData {
         updateUsingVote(Vote.LIKE_REMOVE); // Calculate percentages.
     }
 
+    /**
+     * Creates vote data from previously fetched values.
+     */
+    RYDVoteData(@NonNull String videoId, long viewCount, long likeCount, @Nullable Long rawLikeCount,
+                long dislikeCount, @Nullable Long rawDislikeCount) {
+        this.videoId = videoId;
+        this.viewCount = viewCount;
+
+        fetchedLikeCount = likeCount;
+        fetchedRawLikeCount = rawLikeCount;
+
+        fetchedDislikeCount = dislikeCount;
+        fetchedRawDislikeCount = rawDislikeCount;
+
+        this.likeCount = fetchedLikeCount;
+        this.dislikeCount = fetchedDislikeCount;
+        updateUsingVote(Vote.LIKE_REMOVE); // Calculate percentages.
+    }
+
     /**
      * Public like count of the video, as reported by YT when RYD last updated it's data.
      * <p>
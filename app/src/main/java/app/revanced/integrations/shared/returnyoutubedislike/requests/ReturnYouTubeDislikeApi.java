@@ -5,6 +5,7 @@ import static app.revanced.integrations.shared.utils.StringRef.str;
 
 import android.util.Base64;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
@@ -22,22 +23,21 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Objects;
 
+import app.revanced.integrations.shared.requests.Backoff;
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
+import app.revanced.integrations.shared.requests.SingleFlight;
 import app.revanced.integrations.shared.returnyoutubedislike.ReturnYouTubeDislike;
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 
 public class ReturnYouTubeDislikeApi {
     /**
-     * {@link #fetchVotes(String)} TCP connection timeout
+     * {@link #fetchVotes(String)} TCP connection timeout of 2 seconds, and HTTP read timeout of 4 seconds.
+     * To locally debug and force timeouts, change the read timeout to a very small number (ie: 100)
      */
-    private static final int API_GET_VOTES_TCP_TIMEOUT_MILLISECONDS = 2 * 1000; // 2 Seconds.
-
-    /**
-     * {@link #fetchVotes(String)} HTTP read timeout.
-     * To locally debug and force timeouts, change this to a very small number (ie: 100)
-     */
-    private static final int API_GET_VOTES_HTTP_TIMEOUT_MILLISECONDS = 4 * 1000; // 4 Seconds.
+    private static final Endpoint GET_VOTES_ENDPOINT = new Endpoint("fetchVotes", 2 * 1000, 4 * 1000);
 
     /**
      * Default connection and response timeout for voting and registration.
@@ -45,18 +45,13 @@ public class ReturnYouTubeDislikeApi {
      * Voting and user registration runs in the background and has has no urgency
      * so this can be a larger value.
      */
-    private static final int API_REGISTER_VOTE_TIMEOUT_MILLISECONDS = 60 * 1000; // 60 Seconds.
+    private static final Endpoint REGISTER_VOTE_ENDPOINT = new Endpoint("registerVote", 60 * 1000, 60 * 1000); // 60 Seconds.
 
     /**
      * Response code of a successful API call
      */
     private static final int HTTP_STATUS_CODE_SUCCESS = 200;
 
-    /**
-     * Indicates a client rate limit has been reached and the client must back off.
-     */
-    private static final int HTTP_STATUS_CODE_RATE_LIMIT = 429;
-
     /**
      * How long to wait until API calls are resumed, if the API requested a back off.
      * No clear guideline of how long to wait until resuming.
@@ -68,10 +63,29 @@ public class ReturnYouTubeDislikeApi {
      */
     private static final int BACKOFF_CONNECTION_ERROR_MILLISECONDS = 2 * 60 * 1000; // 2 Minutes.
 
+    private static final Backoff backoff = new Backoff(BACKOFF_CONNECTION_ERROR_MILLISECONDS, BACKOFF_RATE_LIMIT_MILLISECONDS);
+
     /**
-     * If non zero, then the system time of when API calls can resume.
+     * Votes of recently fetched videos, kept across app restarts.
      */
-    private static volatile long timeToResumeAPICalls; // must be volatile, since different threads read/write to this
+    private static final RYDVoteCache voteCache = new RYDVoteCache();
+
+    /**
+     * Background refreshes of stale cached votes.
+     */
+    private static final SingleFlight<String, RYDVoteData> voteRefreshes = new SingleFlight<>(TaskScheduler.Lane.PREFETCH);
+
+    /**
+     * Maximum number of votes prefetched per minute.
+     * Scrolling a feed shows many videos, and most of the API rate limit must be left for videos that are opened.
+     */
+    private static final int MAXIMUM_PREFETCHES_PER_MINUTE = 30;
+
+    @GuardedBy("ReturnYouTubeDislikeApi.class")
+    private static long prefetchWindowStartTime;
+
+    @GuardedBy("ReturnYouTubeDislikeApi.class")
+    private static int prefetchWindowCount;
 
     /**
      * If the last API getVotes call failed for any reason (including server requested rate limit).
@@ -89,34 +103,11 @@ public class ReturnYouTubeDislikeApi {
      * Should be called if RYD is turned on/off.
      */
     public static void resetRateLimits() {
-        if (lastApiCallFailed || timeToResumeAPICalls != 0) {
+        final boolean backoffWasInEffect = backoff.reset();
+        if (lastApiCallFailed || backoffWasInEffect) {
             Logger.printDebug(() -> "Reset rate limit");
         }
         lastApiCallFailed = false;
-        timeToResumeAPICalls = 0;
-    }
-
-    /**
-     * @return True, if api rate limit is in effect.
-     */
-    private static boolean checkIfRateLimitInEffect(String apiEndPointName) {
-        if (timeToResumeAPICalls == 0) {
-            return false;
-        }
-        final long now = System.currentTimeMillis();
-        if (now > timeToResumeAPICalls) {
-            timeToResumeAPICalls = 0;
-            return false;
-        }
-        Logger.printDebug(() -> "Ignoring api call " + apiEndPointName + " as rate limit is in effect");
-        return true;
-    }
-
-    /**
-     * @return True, if a client rate limit was requested
-     */
-    private static boolean checkIfRateLimitWasHit(int httpResponseCode) {
-        return httpResponseCode == HTTP_STATUS_CODE_RATE_LIMIT;
     }
 
     private static void updateRateLimitAndStats(boolean connectionError, boolean rateLimitHit) {
@@ -124,12 +115,10 @@ public class ReturnYouTubeDislikeApi {
             throw new IllegalArgumentException();
         }
         if (connectionError) {
-            timeToResumeAPICalls = System.currentTimeMillis() + BACKOFF_CONNECTION_ERROR_MILLISECONDS;
+            backoff.onConnectionError();
             lastApiCallFailed = true;
         } else if (rateLimitHit) {
-            Logger.printDebug(() -> "API rate limit was hit. Stopping API calls for the next "
-                    + BACKOFF_RATE_LIMIT_MILLISECONDS + " seconds");
-            timeToResumeAPICalls = System.currentTimeMillis() + BACKOFF_RATE_LIMIT_MILLISECONDS;
+            backoff.onRateLimit();
             if (!lastApiCallFailed && toastOnConnectionError) {
                 Utils.showToastLong(str("revanced_ryd_failure_client_rate_limit_requested"));
             }
@@ -149,20 +138,85 @@ public class ReturnYouTubeDislikeApi {
     }
 
     /**
-     * @return NULL if fetch failed, or if a rate limit is in effect.
+     * Returns the cached votes if available. If the cached votes are stale,
+     * then the stale votes are returned and the cache is refreshed in the background.
+     *
+     * @return NULL if the video is not cached and the fetch failed, or if a rate limit is in effect.
      */
     @Nullable
     public static RYDVoteData fetchVotes(String videoId) {
         Utils.verifyOffMainThread();
         Objects.requireNonNull(videoId);
 
-        if (checkIfRateLimitInEffect("fetchVotes")) {
+        RYDVoteCache.CachedVote cachedVote = voteCache.get(videoId);
+        if (cachedVote != null) {
+            if (cachedVote.isFresh(System.currentTimeMillis())) {
+                Logger.printDebug(() -> "Using cached votes for: " + videoId);
+            } else {
+                // Show the stale votes now, and the refreshed votes the next time the video is shown.
+                Logger.printDebug(() -> "Using stale cached votes and refreshing: " + videoId);
+                voteRefreshes.submit(videoId, () -> fetchVotesFromApi(videoId));
+            }
+            return cachedVote.toVoteData();
+        }
+
+        return fetchVotesFromApi(videoId);
+    }
+
+    /**
+     * Fetches the votes in the prefetch lane, so the votes are cached before the video is opened.
+     * Does nothing if the votes are already cached, if a back off is in effect,
+     * or if too many votes were prefetched in the last minute.
+     * Can be called from any thread, and does not wait for the vote cache to load.
+     */
+    public static void prefetchVotes(@NonNull String videoId) {
+        if (backoff.isInEffect() || voteRefreshes.isInFlight(videoId)) {
+            return;
+        }
+        // The cache is checked in the prefetch lane,
+        // because the first use of the cache reads the cache file.
+        voteRefreshes.submit(videoId, () -> prefetchVotesFromApi(videoId));
+    }
+
+    @Nullable
+    private static RYDVoteData prefetchVotesFromApi(String videoId) {
+        RYDVoteCache.CachedVote cachedVote = voteCache.get(videoId);
+        if (cachedVote != null) {
+            return cachedVote.toVoteData();
+        }
+        if (!tryStartPrefetch()) {
+            return null;
+        }
+        Logger.printDebug(() -> "Prefetching votes for: " + videoId);
+        return fetchVotesFromApi(videoId);
+    }
+
+    private static synchronized boolean tryStartPrefetch() {
+        final long now = System.currentTimeMillis();
+        if (now - prefetchWindowStartTime > 60 * 1000) {
+            prefetchWindowStartTime = now;
+            prefetchWindowCount = 0;
+        }
+        if (prefetchWindowCount >= MAXIMUM_PREFETCHES_PER_MINUTE) {
+            return false;
+        }
+        prefetchWindowCount++;
+        return true;
+    }
+
+    /**
+     * @return NULL if fetch failed, or if a rate limit is in effect.
+     */
+    @Nullable
+    private static RYDVoteData fetchVotesFromApi(String videoId) {
+        if (backoff.isInEffect("fetchVotes")) {
             return null;
         }
         Logger.printDebug(() -> "Fetching votes for: " + videoId);
 
+        final long startTime = System.currentTimeMillis();
         try {
-            HttpURLConnection connection = getRYDConnectionFromRoute(ReturnYouTubeDislikeRoutes.GET_DISLIKES, videoId);
+            HttpURLConnection connection = getRYDConnectionFromRoute(GET_VOTES_ENDPOINT, ReturnYouTubeDislikeRoutes.GET_DISLIKES, videoId);
             // request headers, as per https://returnyoutubedislike.com/docs/fetching
             // the documentation says to use 'Accept:text/html', but the RYD browser plugin uses 'Accept:application/json'
             connection.setRequestProperty("Accept", "application/json");
@@ -170,11 +224,10 @@ public class ReturnYouTubeDislikeApi {
             connection.setRequestProperty("Pragma", "no-cache");
             connection.setRequestProperty("Cache-Control", "no-cache");
             connection.setUseCaches(false);
-            connection.setConnectTimeout(API_GET_VOTES_TCP_TIMEOUT_MILLISECONDS); // timeout for TCP connection to server
-            connection.setReadTimeout(API_GET_VOTES_HTTP_TIMEOUT_MILLISECONDS); // timeout for server response
 
             final int responseCode = connection.getResponseCode();
-            if (checkIfRateLimitWasHit(responseCode)) {
+            GET_VOTES_ENDPOINT.recordResponse(startTime, responseCode);
+            if (Backoff.isRateLimit(responseCode)) {
                 connection.disconnect(); // rate limit hit, should disconnect
                 updateRateLimitAndStats(false, true);
                 return null;
@@ -185,6 +238,7 @@ public class ReturnYouTubeDislikeApi {
                 JSONObject json = Requester.parseJSONObject(connection);
                 try {
                     RYDVoteData votingData = new RYDVoteData(json);
+                    voteCache.put(votingData);
                     updateRateLimitAndStats(false, false);
                     Logger.printDebug(() -> "Voting data fetched: " + votingData);
                     return votingData;
@@ -198,8 +252,10 @@ public class ReturnYouTubeDislikeApi {
             connection.disconnect(); // something went wrong, might as well disconnect
         } catch (
                 SocketTimeoutException ex) { // connection timed out, response timeout, or some other network error
+            GET_VOTES_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError((str("revanced_ryd_failure_connection_timeout")), ex);
         } catch (IOException ex) {
+            GET_VOTES_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError((str("revanced_ryd_failure_generic", ex.getMessage())), ex);
         } catch (Exception ex) {
             // should never happen
@@ -217,19 +273,17 @@ public class ReturnYouTubeDislikeApi {
     public static String registerAsNewUser() {
         Utils.verifyOffMainThread();
         try {
-            if (checkIfRateLimitInEffect("registerAsNewUser")) {
+            if (backoff.isInEffect("registerAsNewUser")) {
                 return null;
             }
             String userId = randomString();
             Logger.printDebug(() -> "Trying to register new user");
 
-            HttpURLConnection connection = getRYDConnectionFromRoute(ReturnYouTubeDislikeRoutes.GET_REGISTRATION, userId);
+            HttpURLConnection connection = getRYDConnectionFromRoute(REGISTER_VOTE_ENDPOINT, ReturnYouTubeDislikeRoutes.GET_REGISTRATION, userId);
             connection.setRequestProperty("Accept", "application/json");
-            connection.setConnectTimeout(API_REGISTER_VOTE_TIMEOUT_MILLISECONDS);
-            connection.setReadTimeout(API_REGISTER_VOTE_TIMEOUT_MILLISECONDS);
 
             final int responseCode = connection.getResponseCode();
-            if (checkIfRateLimitWasHit(responseCode)) {
+            if (Backoff.isRateLimit(responseCode)) {
                 connection.disconnect(); // disconnect, as no more connections will be made for a little while
                 return null;
             }
@@ -259,7 +313,7 @@ public class ReturnYouTubeDislikeApi {
         Objects.requireNonNull(userId);
         Objects.requireNonNull(solution);
         try {
-            if (checkIfRateLimitInEffect("confirmRegistration")) {
+            if (backoff.isInEffect("confirmRegistration")) {
                 return null;
             }
             Logger.printDebug(() -> "Trying to confirm registration with solution: " + solution);
@@ -275,7 +329,7 @@ public class ReturnYouTubeDislikeApi {
             }
 
             final int responseCode = connection.getResponseCode();
-            if (checkIfRateLimitWasHit(responseCode)) {
+            if (Backoff.isRateLimit(responseCode)) {
                 connection.disconnect(); // disconnect, as no more connections will be made for a little while
                 return null;
             }
@@ -307,7 +361,7 @@ public class ReturnYouTubeDislikeApi {
         try {
             if (userId == null) return;
 
-            if (checkIfRateLimitInEffect("sendVote")) {
+            if (backoff.isInEffect("sendVote")) {
                 return;
             }
             Logger.printDebug(() -> "Trying to vote for video: " + videoId + " with vote: " + vote);
@@ -323,7 +377,7 @@ public class ReturnYouTubeDislikeApi {
             }
 
             final int responseCode = connection.getResponseCode();
-            if (checkIfRateLimitWasHit(responseCode)) {
+            if (Backoff.isRateLimit(responseCode)) {
                 connection.disconnect(); // disconnect, as no more connections will be made for a little while
                 return;
             }
@@ -358,7 +412,7 @@ public class ReturnYouTubeDislikeApi {
         Objects.requireNonNull(solution);
 
         try {
-            if (checkIfRateLimitInEffect("confirmVote")) {
+            if (backoff.isInEffect("confirmVote")) {
                 return;
             }
             Logger.printDebug(() -> "Trying to confirm vote for video: " + videoId + " solution: " + solution);
@@ -373,7 +427,7 @@ public class ReturnYouTubeDislikeApi {
             }
 
             final int responseCode = connection.getResponseCode();
-            if (checkIfRateLimitWasHit(responseCode)) {
+            if (Backoff.isRateLimit(responseCode)) {
                 connection.disconnect(); // disconnect, as no more connections will be made for a little while
                 return;
             }
@@ -404,8 +458,7 @@ public class ReturnYouTubeDislikeApi {
         connection.setRequestProperty("Cache-Control", "no-cache");
         connection.setUseCaches(false);
         connection.setDoOutput(true);
-        connection.setConnectTimeout(API_REGISTER_VOTE_TIMEOUT_MILLISECONDS); // timeout for TCP connection to server
-        connection.setReadTimeout(API_REGISTER_VOTE_TIMEOUT_MILLISECONDS); // timeout for server response
+        REGISTER_VOTE_ENDPOINT.applyTimeouts(connection);
     }
 
 
@@ -6,6 +6,7 @@ import static app.revanced.integrations.shared.requests.Route.Method.POST;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
 import app.revanced.integrations.shared.requests.Route;
 
@@ -25,4 +26,8 @@ public class ReturnYouTubeDislikeRoutes {
         return Requester.getConnectionFromRoute(RYD_API_URL, route, params);
     }
 
+    public static HttpURLConnection getRYDConnectionFromRoute(Endpoint endpoint, Route route, String... params) throws IOException {
+        return Requester.getConnectionFromRoute(RYD_API_URL, endpoint, route, params);
+    }
+
 }
\ No newline at end of file
@@ -23,7 +23,9 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
+import app.revanced.integrations.shared.requests.SingleFlight;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
 
@@ -33,6 +35,9 @@ public class ChannelRequest {
      */
     private static final int HTTP_TIMEOUT_MILLISECONDS = 3 * 1000;
 
+    private static final Endpoint CHANNEL_DETAILS_ENDPOINT = new Endpoint("channelDetails",
+            HTTP_TIMEOUT_MILLISECONDS, HTTP_TIMEOUT_MILLISECONDS);
+
     /**
      * Any arbitrarily large value, but must be at least twice {@link #HTTP_TIMEOUT_MILLISECONDS}
      */
@@ -49,6 +54,12 @@ public class ChannelRequest {
                 }
             });
 
+    /**
+     * Fetches in flight, so a handle requested again before its fetch completes
+     * (such as after the cache evicts it) joins the running fetch.
+     */
+    private static final SingleFlight<String, String> inFlightFetches = new SingleFlight<>();
+
     public static void fetchRequestIfNeeded(@NonNull String handle, @NonNull String apiKey, Boolean userNameFirst) {
         if (!cache.containsKey(handle)) {
             cache.put(handle, new ChannelRequest(handle, apiKey, userNameFirst));
@@ -73,24 +84,26 @@ public class ChannelRequest {
         Logger.printDebug(() -> "Fetching channel handle for: " + handle);
 
         try {
-            HttpURLConnection connection = ChannelRoutes.getChannelConnectionFromRoute(GET_CHANNEL_DETAILS, handle, apiKey);
+            HttpURLConnection connection = ChannelRoutes.getChannelConnectionFromRoute(GET_CHANNEL_DETAILS, CHANNEL_DETAILS_ENDPOINT, handle, apiKey);
             connection.setRequestProperty("Content-Type", "application/json");
             connection.setRequestProperty("Connection", "keep-alive"); // keep-alive is on by default with http 1.1, but specify anyways
             connection.setRequestProperty("Pragma", "no-cache");
             connection.setRequestProperty("Cache-Control", "no-cache");
             connection.setUseCaches(false);
-            connection.setConnectTimeout(HTTP_TIMEOUT_MILLISECONDS);
-            connection.setReadTimeout(HTTP_TIMEOUT_MILLISECONDS);
 
             final int responseCode = connection.getResponseCode();
+            CHANNEL_DETAILS_ENDPOINT.recordResponse(startTime, responseCode);
             if (responseCode == 200) return Requester.parseJSONObject(connection);
 
             handleConnectionError("API not available with response code: "
                             + responseCode + " message: " + connection.getResponseMessage(),
                     null);
+            Requester.closeResponse(connection);
         } catch (SocketTimeoutException ex) {
+            CHANNEL_DETAILS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Connection timeout", ex);
         } catch (IOException ex) {
+            CHANNEL_DETAILS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Network error", ex);
         } catch (Exception ex) {
             Logger.printException(() -> "send failed", ex);
@@ -140,7 +153,7 @@ public class ChannelRequest {
 
     private ChannelRequest(String handle, String apiKey, Boolean append) {
         this.handle = handle;
-        this.future = Utils.submitOnBackgroundThread(() -> fetch(handle, apiKey, append));
+        this.future = inFlightFetches.submit(handle, () -> fetch(handle, apiKey, append));
     }
 
     @Nullable
@@ -5,6 +5,7 @@ import static app.revanced.integrations.shared.requests.Route.Method.GET;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
 import app.revanced.integrations.shared.requests.Route;
 
@@ -16,7 +17,7 @@ public class ChannelRoutes {
     public ChannelRoutes() {
     }
 
-    public static HttpURLConnection getChannelConnectionFromRoute(Route route, String... params) throws IOException {
-        return Requester.getConnectionFromRoute(YOUTUBEI_V3_GAPIS_URL, route, params);
+    public static HttpURLConnection getChannelConnectionFromRoute(Route route, Endpoint endpoint, String... params) throws IOException {
+        return Requester.getConnectionFromRoute(YOUTUBEI_V3_GAPIS_URL, endpoint, route, params);
     }
 }
\ No newline at end of file
@@ -55,6 +55,7 @@ public class BooleanSetting extends Setting<Boolean> {
      */
     public static void privateSetValue(@NonNull BooleanSetting setting, @NonNull Boolean newValue) {
         setting.value = Objects.requireNonNull(newValue);
+        setting.onValueChanged();
     }
 
     @Override
@@ -70,6 +71,7 @@ public class BooleanSetting extends Setting<Boolean> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = Boolean.valueOf(Objects.requireNonNull(newValue));
+        onValueChanged();
     }
 
     @Override
@@ -77,6 +79,7 @@ public class BooleanSetting extends Setting<Boolean> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveBoolean(key, newValue);
+        onValueChanged();
     }
 
     @Override
@@ -0,0 +1,71 @@
+package app.revanced.integrations.shared.settings;
+
+import androidx.annotation.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A value computed from one or more settings, such as a parsed color or a compiled regex.
+ * <p>
+ * The value is computed on first use, and is computed again only after a source setting is changed.
+ * Reading an up to date value does not lock.
+ * <p>
+ * The value is computed on the thread that first uses it after a change,
+ * and not on the thread that changed the setting.
+ *
+ * @param <T> Computed value.
+ */
+public final class DerivedSetting<T> {
+
+    @NonNull
+    private final Supplier<T> compute;
+
+    /**
+     * Incremented each time a source setting changes.
+     */
+    private final AtomicInteger sourceVersion = new AtomicInteger();
+
+    /**
+     * Value of {@link #sourceVersion} when {@link #value} was computed,
+     * or -1 if the value was never computed.
+     */
+    private volatile int computedVersion = -1;
+
+    private volatile T value;
+
+    /**
+     * @param compute Computes the value from the current values of the source settings.
+     *                Can change the source settings, such as resetting an invalid value to default.
+     * @param sources Settings the value is computed from.
+     */
+    public DerivedSetting(@NonNull Supplier<T> compute, @NonNull Setting<?>... sources) {
+        this.compute = Objects.requireNonNull(compute);
+        for (Setting<?> source : sources) {
+            source.addChangeListener(setting -> sourceVersion.incrementAndGet());
+        }
+    }
+
+    @NonNull
+    public T get() {
+        if (computedVersion == sourceVersion.get()) {
+            return value;
+        }
+        return computeValue();
+    }
+
+    @NonNull
+    private synchronized T computeValue() {
+        final int version = sourceVersion.get();
+        if (computedVersion == version) {
+            return value; // Another thread already computed.
+        }
+        // If a source changes while computing (including by the computation itself),
+        // then the version differs on the next call and the value is computed again.
+        T newValue = Objects.requireNonNull(compute.get());
+        value = newValue;
+        computedVersion = version; // Must set last.
+        return newValue;
+    }
+}
@@ -94,6 +94,7 @@ public class EnumSetting<T extends Enum<?>> extends Setting<T> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = getEnumFromString(Objects.requireNonNull(newValue));
+        onValueChanged();
     }
 
     @Override
@@ -101,6 +102,7 @@ public class EnumSetting<T extends Enum<?>> extends Setting<T> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveEnumAsString(key, newValue);
+        onValueChanged();
     }
 
     @Override
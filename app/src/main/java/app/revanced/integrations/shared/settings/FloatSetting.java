@@ -60,6 +60,7 @@ public class FloatSetting extends Setting<Float> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = Float.valueOf(Objects.requireNonNull(newValue));
+        onValueChanged();
     }
 
     @Override
@@ -67,6 +68,7 @@ public class FloatSetting extends Setting<Float> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveFloatString(key, newValue);
+        onValueChanged();
     }
 
     @Override
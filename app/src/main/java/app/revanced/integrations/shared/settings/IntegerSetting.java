@@ -60,6 +60,7 @@ public class IntegerSetting extends Setting<Integer> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = Integer.valueOf(Objects.requireNonNull(newValue));
+        onValueChanged();
     }
 
     @Override
@@ -67,6 +68,7 @@ public class IntegerSetting extends Setting<Integer> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveIntegerString(key, newValue);
+        onValueChanged();
     }
 
     @Override
@@ -60,6 +60,7 @@ public class LongSetting extends Setting<Long> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = Long.valueOf(Objects.requireNonNull(newValue));
+        onValueChanged();
     }
 
     @Override
@@ -67,6 +68,7 @@ public class LongSetting extends Setting<Long> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveLongString(key, newValue);
+        onValueChanged();
     }
 
     @Override
@@ -19,6 +19,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import app.revanced.integrations.shared.settings.preference.SharedPrefCategory;
 import app.revanced.integrations.shared.utils.Logger;
@@ -31,6 +33,16 @@ import app.revanced.integrations.shared.utils.Utils;
 @SuppressWarnings("unused")
 public abstract class Setting<T> {
 
+    /**
+     * Called after the value of a setting is changed.
+     */
+    public interface ChangeListener {
+        /**
+         * Called on the thread that changed the value. Must not block.
+         */
+        void onSettingChanged(@NonNull Setting<?> setting);
+    }
+
     /**
      * Indicates if a {@link Setting} is available to edit and use.
      * Typically this is dependent upon other BooleanSetting(s) set to 'true',
@@ -87,8 +99,23 @@ public abstract class Setting<T> {
 
     /**
      * Preference all instances are saved to.
+     * Settings created during app startup are loaded from a single copy of the preferences,
+     * until {@link SharedPrefCategory#endStartupSnapshot()} is called.
      */
-    public static final SharedPrefCategory preferences = new SharedPrefCategory("revanced");
+    public static final SharedPrefCategory preferences = new SharedPrefCategory("revanced", true);
+
+    /**
+     * Number of times any setting value was changed after it was loaded.
+     * Allows caching values derived from settings, and discarding them if any setting changes.
+     */
+    private static final AtomicInteger valueChangeCount = new AtomicInteger();
+
+    /**
+     * @return A count that changes every time any setting value is changed.
+     */
+    public static int getValueChangeCount() {
+        return valueChangeCount.get();
+    }
 
     @Nullable
     public static Setting<?> getSettingFromPath(@NonNull String str) {
@@ -161,6 +188,13 @@ public abstract class Setting<T> {
     @NonNull
     protected volatile T value;
 
+    /**
+     * Listeners of this setting, or null if no listener was added.
+     * Most settings have no listeners, so the list is created when the first listener is added.
+     */
+    @Nullable
+    private volatile List<ChangeListener> changeListeners;
+
     public Setting(String key, T defaultValue) {
         this(key, defaultValue, false, true, null, null);
     }
@@ -300,6 +334,41 @@ public abstract class Setting<T> {
      */
     protected abstract void load();
 
+    /**
+     * Must be called by subclasses after {@link #value} is changed,
+     * except for the initial {@link #load()}.
+     */
+    protected final void onValueChanged() {
+        valueChangeCount.incrementAndGet();
+        List<ChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            for (ChangeListener listener : listeners) {
+                listener.onSettingChanged(this);
+            }
+        }
+    }
+
+    /**
+     * Adds a listener that is called every time the value is changed,
+     * including when the value is changed by importing settings.
+     */
+    public synchronized void addChangeListener(@NonNull ChangeListener listener) {
+        Objects.requireNonNull(listener);
+        List<ChangeListener> listeners = changeListeners;
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+            changeListeners = listeners;
+        }
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(@NonNull ChangeListener listener) {
+        List<ChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
     /**
      * Persistently saves the value.
      */
@@ -428,21 +497,27 @@ public abstract class Setting<T> {
 
             boolean rebootSettingChanged = false;
             int numberOfSettingsImported = 0;
-            for (Setting setting : SETTINGS) {
-                String key = setting.getImportExportKey();
-                if (json.has(key)) {
-                    Object value = setting.readFromJSON(json, key);
-                    if (!setting.get().equals(value)) {
+            // Save all imported values at once.
+            preferences.beginBatch();
+            try {
+                for (Setting setting : SETTINGS) {
+                    String key = setting.getImportExportKey();
+                    if (json.has(key)) {
+                        Object value = setting.readFromJSON(json, key);
+                        if (!setting.get().equals(value)) {
+                            rebootSettingChanged |= setting.rebootApp;
+                            //noinspection unchecked
+                            setting.save(value);
+                        }
+                        numberOfSettingsImported++;
+                    } else if (setting.includeWithImportExport && !setting.isSetToDefault()) {
+                        Logger.printDebug(() -> "Resetting to default: " + setting);
                         rebootSettingChanged |= setting.rebootApp;
-                        //noinspection unchecked
-                        setting.save(value);
+                        setting.resetToDefault();
                     }
-                    numberOfSettingsImported++;
-                } else if (setting.includeWithImportExport && !setting.isSetToDefault()) {
-                    Logger.printDebug(() -> "Resetting to default: " + setting);
-                    rebootSettingChanged |= setting.rebootApp;
-                    setting.resetToDefault();
                 }
+            } finally {
+                preferences.endBatch();
             }
 
             // SB Enum categories are saved using StringSettings.
@@ -60,6 +60,7 @@ public class StringSetting extends Setting<String> {
     @Override
     protected void setValueFromString(@NonNull String newValue) {
         value = Objects.requireNonNull(newValue);
+        onValueChanged();
     }
 
     @Override
@@ -67,6 +68,7 @@ public class StringSetting extends Setting<String> {
         // Must set before saving to preferences (otherwise importing fails to update UI correctly).
         value = Objects.requireNonNull(newValue);
         preferences.saveString(key, newValue);
+        onValueChanged();
     }
 
     @Override
@@ -4,10 +4,15 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.preference.PreferenceFragment;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
@@ -27,9 +32,116 @@ public class SharedPrefCategory {
     @NonNull
     public final SharedPreferences preferences;
 
+    /**
+     * Copy of all preferences taken when created, used to load settings during app startup.
+     * Reading a copy does not lock the shared preferences for each setting.
+     * Discarded when any preference is changed, or when startup is done.
+     */
+    @Nullable
+    private volatile SnapshotPreferences startupSnapshot;
+
+    /**
+     * Holds a strong reference, as shared preferences only keep a weak reference to listeners.
+     */
+    @Nullable
+    private SharedPreferences.OnSharedPreferenceChangeListener snapshotListener;
+
+    /**
+     * Pending changes, if changes are currently batched.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private SharedPreferences.Editor batchEditor;
+
     public SharedPrefCategory(@NonNull String name) {
+        this(name, false);
+    }
+
+    /**
+     * @param useStartupSnapshot If all preferences are read at once, and settings are loaded from the copy
+     *                           until {@link #endStartupSnapshot()} is called.
+     */
+    public SharedPrefCategory(@NonNull String name, boolean useStartupSnapshot) {
         this.name = Objects.requireNonNull(name);
         preferences = Objects.requireNonNull(Utils.getContext()).getSharedPreferences(name, Context.MODE_PRIVATE);
+        if (useStartupSnapshot) {
+            startupSnapshot = new SnapshotPreferences(preferences);
+            // Preferences can be changed directly, such as by a preference fragment.
+            snapshotListener = (sharedPreferences, key) -> discardStartupSnapshot();
+            preferences.registerOnSharedPreferenceChangeListener(snapshotListener);
+        }
+    }
+
+    /**
+     * Discards the startup copy of the preferences, and logs the time spent loading settings from it.
+     */
+    public void endStartupSnapshot() {
+        SnapshotPreferences snapshot = startupSnapshot;
+        if (snapshot != null) {
+            final long elapsedNanos = System.nanoTime() - snapshot.timeCreatedNanos;
+            final int size = snapshot.values.size();
+            Logger.printDebug(() -> "Loaded settings in: " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+                    + "ms from " + size + " stored preferences");
+        }
+        discardStartupSnapshot();
+    }
+
+    private void discardStartupSnapshot() {
+        if (startupSnapshot == null) return;
+        startupSnapshot = null;
+        Utils.runOnMainThread(() -> {
+            if (snapshotListener != null) {
+                preferences.unregisterOnSharedPreferenceChangeListener(snapshotListener);
+                snapshotListener = null;
+            }
+        });
+    }
+
+    /**
+     * @return The preferences to read from.
+     */
+    @NonNull
+    private SharedPreferences reader() {
+        SharedPreferences snapshot = startupSnapshot;
+        return snapshot != null ? snapshot : preferences;
+    }
+
+    /**
+     * Changes are saved all at once when {@link #endBatch()} is called, instead of saving after each change.
+     * Changes made by other threads while batching are included in the batch.
+     * Calls cannot be nested.
+     */
+    public synchronized void beginBatch() {
+        if (batchEditor != null) {
+            throw new IllegalStateException("Already batching");
+        }
+        discardStartupSnapshot();
+        batchEditor = preferences.edit();
+    }
+
+    /**
+     * Saves all changes since {@link #beginBatch()}.
+     */
+    public synchronized void endBatch() {
+        if (batchEditor != null) {
+            batchEditor.apply();
+            batchEditor = null;
+        }
+    }
+
+    /**
+     * @return The batch editor, or a new editor.
+     */
+    @NonNull
+    private synchronized SharedPreferences.Editor edit() {
+        discardStartupSnapshot();
+        return batchEditor != null ? batchEditor : preferences.edit();
+    }
+
+    private synchronized void apply(@NonNull SharedPreferences.Editor editor) {
+        if (editor != batchEditor) {
+            editor.apply();
+        }
     }
 
     private void removeConflictingPreferenceKeyValue(@NonNull String key) {
@@ -38,18 +150,18 @@ public class SharedPrefCategory {
     }
 
     private void saveObjectAsString(@NonNull String key, @Nullable Object value) {
-        preferences.edit().putString(key, (value == null ? null : value.toString())).apply();
+        apply(edit().putString(key, (value == null ? null : value.toString())));
     }
 
     /**
      * Removes any preference data type that has the specified key.
      */
     public void removeKey(@NonNull String key) {
-        preferences.edit().remove(Objects.requireNonNull(key)).apply();
+        apply(edit().remove(Objects.requireNonNull(key)));
     }
 
     public void saveBoolean(@NonNull String key, boolean value) {
-        preferences.edit().putBoolean(key, value).apply();
+        apply(edit().putBoolean(key, value));
     }
 
     /**
@@ -91,7 +203,7 @@ public class SharedPrefCategory {
     public String getString(@NonNull String key, @NonNull String _default) {
         Objects.requireNonNull(_default);
         try {
-            return preferences.getString(key, _default);
+            return reader().getString(key, _default);
         } catch (ClassCastException ex) {
             // Value stored is a completely different type (should never happen).
             removeConflictingPreferenceKeyValue(key);
@@ -103,7 +215,7 @@ public class SharedPrefCategory {
     public <T extends Enum<?>> T getEnum(@NonNull String key, @NonNull T _default) {
         Objects.requireNonNull(_default);
         try {
-            String enumName = preferences.getString(key, null);
+            String enumName = reader().getString(key, null);
             if (enumName != null) {
                 try {
                     // noinspection unchecked
@@ -123,7 +235,7 @@ public class SharedPrefCategory {
 
     public boolean getBoolean(@NonNull String key, boolean _default) {
         try {
-            return preferences.getBoolean(key, _default);
+            return reader().getBoolean(key, _default);
         } catch (ClassCastException ex) {
             // Value stored is a completely different type (should never happen).
             removeConflictingPreferenceKeyValue(key);
@@ -134,7 +246,7 @@ public class SharedPrefCategory {
     @NonNull
     public Integer getIntegerString(@NonNull String key, @NonNull Integer _default) {
         try {
-            String value = preferences.getString(key, null);
+            String value = reader().getString(key, null);
             if (value != null) {
                 return Integer.valueOf(value);
             }
@@ -142,7 +254,7 @@ public class SharedPrefCategory {
         } catch (ClassCastException | NumberFormatException ex) {
             try {
                 // Old data previously stored as primitive.
-                return preferences.getInt(key, _default);
+                return reader().getInt(key, _default);
             } catch (ClassCastException ex2) {
                 // Value stored is a completely different type (should never happen).
                 removeConflictingPreferenceKeyValue(key);
@@ -154,13 +266,13 @@ public class SharedPrefCategory {
     @NonNull
     public Long getLongString(@NonNull String key, @NonNull Long _default) {
         try {
-            String value = preferences.getString(key, null);
+            String value = reader().getString(key, null);
             if (value != null) {
                 return Long.valueOf(value);
             }
         } catch (ClassCastException | NumberFormatException ex) {
             try {
-                return preferences.getLong(key, _default);
+                return reader().getLong(key, _default);
             } catch (ClassCastException ex2) {
                 removeConflictingPreferenceKeyValue(key);
             }
@@ -171,13 +283,13 @@ public class SharedPrefCategory {
     @NonNull
     public Float getFloatString(@NonNull String key, @NonNull Float _default) {
         try {
-            String value = preferences.getString(key, null);
+            String value = reader().getString(key, null);
             if (value != null) {
                 return Float.valueOf(value);
             }
         } catch (ClassCastException | NumberFormatException ex) {
             try {
-                return preferences.getFloat(key, _default);
+                return reader().getFloat(key, _default);
             } catch (ClassCastException ex2) {
                 removeConflictingPreferenceKeyValue(key);
             }
@@ -190,4 +302,86 @@ public class SharedPrefCategory {
     public String toString() {
         return name;
     }
+
+    /**
+     * Read only copy of shared preferences.
+     * Reading a value of a different type throws {@link ClassCastException}, same as shared preferences.
+     */
+    private static final class SnapshotPreferences implements SharedPreferences {
+        @NonNull
+        final SharedPreferences preferences;
+        @NonNull
+        final Map<String, ?> values;
+        final long timeCreatedNanos;
+
+        SnapshotPreferences(@NonNull SharedPreferences preferences) {
+            this.preferences = preferences;
+            timeCreatedNanos = System.nanoTime();
+            values = preferences.getAll(); // Returns a copy.
+        }
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(values);
+        }
+
+        @Nullable
+        @Override
+        public String getString(String key, @Nullable String defValue) {
+            String value = (String) values.get(key);
+            return value != null ? value : defValue;
+        }
+
+        @Nullable
+        @Override
+        public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+            //noinspection unchecked
+            Set<String> value = (Set<String>) values.get(key);
+            return value != null ? value : defValues;
+        }
+
+        @Override
+        public int getInt(String key, int defValue) {
+            Integer value = (Integer) values.get(key);
+            return value != null ? value : defValue;
+        }
+
+        @Override
+        public long getLong(String key, long defValue) {
+            Long value = (Long) values.get(key);
+            return value != null ? value : defValue;
+        }
+
+        @Override
+        public float getFloat(String key, float defValue) {
+            Float value = (Float) values.get(key);
+            return value != null ? value : defValue;
+        }
+
+        @Override
+        public boolean getBoolean(String key, boolean defValue) {
+            Boolean value = (Boolean) values.get(key);
+            return value != null ? value : defValue;
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Editor edit() {
+            return preferences.edit();
+        }
+
+        @Override
+        public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            preferences.registerOnSharedPreferenceChangeListener(listener);
+        }
+
+        @Override
+        public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+            preferences.unregisterOnSharedPreferenceChangeListener(listener);
+        }
+    }
 }
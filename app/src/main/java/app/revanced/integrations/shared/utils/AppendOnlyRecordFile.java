@@ -0,0 +1,233 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Binary file of records, where changes are appended to the end of the file
+ * and the file is only rewritten once it contains too many stale records.
+ * <p>
+ * The file starts with a header int, followed by the records. Records are read in the order they were written,
+ * so a later record of the same key replaces an earlier record.
+ * If the file has an unknown header, or ends with a partially written record (the app was closed while writing),
+ * then nothing is appended until the file is rewritten.
+ * The file is rewritten by writing a temporary file that then replaces the file.
+ * <p>
+ * This class is not thread safe, and calls must be synchronized by the owner of the file.
+ *
+ * @param <R> Record type.
+ */
+public final class AppendOnlyRecordFile<R> {
+
+    public interface RecordReader<R> {
+        /**
+         * @throws EOFException If the file ends before the end of the record.
+         */
+        @NonNull
+        R read(@NonNull DataInputStream in) throws IOException;
+    }
+
+    public interface RecordWriter<R> {
+        void write(@NonNull R record, @NonNull DataOutputStream out) throws IOException;
+    }
+
+    @NonNull
+    private final File file;
+
+    /**
+     * Must be changed if the record format changes.
+     */
+    private final int fileHeader;
+
+    /**
+     * Name of the file contents, used for logging.
+     */
+    @NonNull
+    private final String description;
+
+    @NonNull
+    private final RecordReader<R> reader;
+
+    @NonNull
+    private final RecordWriter<R> writer;
+
+    /**
+     * Number of records in the file, including records that were replaced.
+     */
+    private int recordCount;
+
+    /**
+     * If records can be appended to the end of the file.
+     * False if the file has an unknown header or a partial record.
+     */
+    private boolean appendable = true;
+
+    private DataOutputStream output;
+
+    public AppendOnlyRecordFile(@NonNull File file, int fileHeader, @NonNull String description,
+                                @NonNull RecordReader<R> reader, @NonNull RecordWriter<R> writer) {
+        this.file = file;
+        this.fileHeader = fileHeader;
+        this.description = description;
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    /**
+     * Reads all records of the file, if the file exists.
+     *
+     * @param consumer Called with each record, in the order the records were written.
+     * @return If the file is valid. If false, the file must be rewritten before records are appended,
+     * and any records read before the invalid record were passed to the consumer.
+     */
+    public boolean read(@NonNull Consumer<R> consumer) {
+        closeOutput();
+        recordCount = 0;
+        appendable = true;
+        if (!file.exists()) {
+            return true;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(readFile(file)))) {
+            if (in.available() < Integer.BYTES || in.readInt() != fileHeader) {
+                Logger.printInfo(() -> "Unknown " + description + " file: " + file.getName());
+                appendable = false;
+            } else {
+                while (in.available() > 0) {
+                    consumer.accept(reader.read(in));
+                    recordCount++;
+                }
+            }
+        } catch (EOFException ex) {
+            // App was closed while writing the last record.
+            Logger.printDebug(() -> "Ignoring partially written " + description + " record");
+            appendable = false;
+        } catch (IOException ex) {
+            Logger.printInfo(() -> "Failed to read " + description, ex);
+            appendable = false;
+        }
+        return appendable;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            int bytesRead;
+            while (offset < data.length && (bytesRead = inputStream.read(data, offset, data.length - offset)) >= 0) {
+                offset += bytesRead;
+            }
+            return offset == data.length ? data : Arrays.copyOf(data, offset);
+        }
+    }
+
+    /**
+     * @param currentRecordCount Number of records a rewrite writes, including the records about to be appended.
+     * @param appendRecordCount  Number of records about to be appended.
+     * @param maximumStaleRecords Number of replaced records allowed in the file.
+     * @return If the file should be rewritten instead of appending the records,
+     * because the file is not valid or appending exceeds the maximum number of replaced records.
+     */
+    public boolean shouldRewrite(int currentRecordCount, int appendRecordCount, int maximumStaleRecords) {
+        return !appendable || recordCount + appendRecordCount - currentRecordCount > maximumStaleRecords;
+    }
+
+    /**
+     * @return If the record was written.
+     */
+    public boolean append(@NonNull R record) {
+        return append(Collections.singletonList(record));
+    }
+
+    /**
+     * Appends records to the end of the file. Does nothing if the file must be rewritten first.
+     *
+     * @return If the records were written.
+     */
+    public boolean append(@NonNull Iterable<R> records) {
+        if (!appendable) return false;
+
+        try {
+            if (output == null) {
+                final boolean isNewFile = !file.exists() || file.length() == 0;
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+                if (isNewFile) {
+                    output.writeInt(fileHeader);
+                    recordCount = 0;
+                }
+            }
+            for (R record : records) {
+                writer.write(record, output);
+                recordCount++;
+            }
+            output.flush();
+            return true;
+        } catch (IOException ex) {
+            Logger.printInfo(() -> "Failed to write " + description, ex);
+            closeOutput();
+            // Part of a record may have been written, and records appended after it would be lost.
+            appendable = false;
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the file with only the current records.
+     *
+     * @return If the file was written.
+     */
+    public boolean rewrite(@NonNull Iterable<R> records) {
+        closeOutput();
+        File tempFile = new File(file.getPath() + ".tmp");
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(fileHeader);
+            for (R record : records) {
+                writer.write(record, out);
+                count++;
+            }
+        } catch (IOException ex) {
+            Logger.printInfo(() -> "Failed to write " + description, ex);
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return false;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            Logger.printInfo(() -> "Failed to replace " + description + " file");
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return false;
+        }
+        recordCount = count;
+        appendable = true;
+        final int finalCount = count;
+        Logger.printDebug(() -> "Rewrote " + description + " with: " + finalCount + " records");
+        return true;
+    }
+
+    private void closeOutput() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException ex) {
+                Logger.printInfo(() -> "Failed to close " + description, ex);
+            }
+            output = null;
+        }
+    }
+}
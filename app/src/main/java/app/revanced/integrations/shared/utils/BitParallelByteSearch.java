@@ -0,0 +1,161 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Searches for multiple byte patterns in a single pass, using the bit parallel Shift-And algorithm.
+ * <p>
+ * All patterns are combined into a single 64-bit state, where each bit is one byte of one pattern.
+ * Each byte of the searched data is then a table lookup and a few bit operations,
+ * regardless of how many patterns are searched for.
+ * This is faster than {@link ByteTrieSearch} for a small number of short patterns,
+ * since there is no branching on the data being searched.
+ * <p>
+ * The combined length of all patterns cannot be more than {@link #MAXIMUM_TOTAL_PATTERN_LENGTH}.
+ * Use {@link #canSearch(byte[][])} to check if the patterns can be searched.
+ * <p>
+ * This class is immutable and thread safe.
+ */
+public final class BitParallelByteSearch {
+    /**
+     * Maximum combined length of all patterns, which is the number of bits in the state.
+     */
+    public static final int MAXIMUM_TOTAL_PATTERN_LENGTH = Long.SIZE;
+
+    /**
+     * Value returned by {@link #find(byte[], int, int, long)} if no pattern is found.
+     */
+    public static final long NOT_FOUND = -1;
+
+    /**
+     * For each byte value, the bits of the pattern bytes that equal the value.
+     */
+    private final long[] byteMasks = new long[256];
+    /**
+     * Bits of the first byte of each pattern.
+     */
+    private final long startBits;
+    /**
+     * Bits of the last byte of each pattern.
+     */
+    private final long endBits;
+    /**
+     * Pattern index of each end bit.
+     */
+    private final byte[] bitPatternIndex = new byte[Long.SIZE];
+    private final int[] patternLengths;
+
+    /**
+     * @return If the patterns are not empty, and the combined length of all patterns
+     * is not more than {@link #MAXIMUM_TOTAL_PATTERN_LENGTH}.
+     */
+    public static boolean canSearch(@NonNull byte[][] patterns) {
+        if (patterns.length == 0) return false;
+        int totalLength = 0;
+        for (byte[] pattern : patterns) {
+            if (pattern.length == 0) return false;
+            totalLength += pattern.length;
+        }
+        return totalLength <= MAXIMUM_TOTAL_PATTERN_LENGTH;
+    }
+
+    /**
+     * @throws IllegalArgumentException If {@link #canSearch(byte[][])} returns false for the patterns.
+     */
+    public BitParallelByteSearch(@NonNull byte[]... patterns) {
+        if (!canSearch(patterns)) {
+            throw new IllegalArgumentException("Patterns are empty or too long: " + patterns.length);
+        }
+
+        final int numberOfPatterns = patterns.length;
+        patternLengths = new int[numberOfPatterns];
+        long start = 0;
+        long end = 0;
+        int bit = 0;
+        for (int patternIndex = 0; patternIndex < numberOfPatterns; patternIndex++) {
+            byte[] pattern = patterns[patternIndex];
+            final int patternLength = pattern.length;
+            patternLengths[patternIndex] = patternLength;
+            start |= 1L << bit;
+            for (byte value : pattern) {
+                byteMasks[value & 0xFF] |= 1L << bit;
+                bit++;
+            }
+            end |= 1L << (bit - 1);
+            bitPatternIndex[bit - 1] = (byte) patternIndex;
+        }
+        startBits = start;
+        endBits = end;
+    }
+
+    /**
+     * @return Mask to use with {@link #find(byte[], int, int, long)} to search for all patterns.
+     */
+    public long allPatternsMask() {
+        return endBits;
+    }
+
+    /**
+     * @param patternIndex Index of the pattern, in the order given to the constructor.
+     * @return Mask to use with {@link #find(byte[], int, int, long)} to search for the pattern.
+     * Masks of multiple patterns can be combined using a bitwise or.
+     */
+    public long patternMask(int patternIndex) {
+        long mask = endBits;
+        // Remove the end bits of the previous patterns, and keep only the lowest remaining bit.
+        for (int i = 0; i < patternIndex; i++) {
+            mask &= mask - 1;
+        }
+        return Long.lowestOneBit(mask);
+    }
+
+    public int numberOfPatterns() {
+        return patternLengths.length;
+    }
+
+    /**
+     * Finds the first match of any of the patterns.
+     * If multiple patterns end at the same index, then the pattern with the lowest index is used.
+     *
+     * @param startIndex  Index to start searching, inclusive value.
+     * @param endIndex    Index to stop matching, exclusive value.
+     * @param patternMask Patterns to search for, from {@link #allPatternsMask()} or {@link #patternMask(int)}.
+     * @return The matched pattern index and the start index of the match,
+     * which can be read with {@link #getPatternIndex(long)} and {@link #getMatchedIndex(long)}.
+     * Or {@link #NOT_FOUND} if no pattern is found.
+     */
+    public long find(@NonNull byte[] data, int startIndex, int endIndex, long patternMask) {
+        final long matchBits = endBits & patternMask;
+        if (matchBits == 0) {
+            return NOT_FOUND;
+        }
+        final long[] masks = byteMasks;
+        final long start = startBits;
+        long state = 0;
+        for (int i = startIndex; i < endIndex; i++) {
+            state = ((state << 1) | start) & masks[data[i] & 0xFF];
+            final long matched = state & matchBits;
+            if (matched != 0) {
+                final int patternIndex = bitPatternIndex[Long.numberOfTrailingZeros(matched)];
+                final int matchedIndex = i - patternLengths[patternIndex] + 1;
+                return ((long) patternIndex << 32) | matchedIndex;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @param found Value returned from {@link #find(byte[], int, int, long)}, that is not {@link #NOT_FOUND}.
+     */
+    public static int getPatternIndex(long found) {
+        return (int) (found >>> 32);
+    }
+
+    /**
+     * @param found Value returned from {@link #find(byte[], int, int, long)}, that is not {@link #NOT_FOUND}.
+     * @return Start index of the match.
+     */
+    public static int getMatchedIndex(long found) {
+        return (int) found;
+    }
+}
@@ -0,0 +1,180 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A read only view of the live region (position to limit) of a {@link ByteBuffer}.
+ * <p>
+ * Heap buffers are searched in place using the backing array with an offset and length,
+ * so only the live region is searched and nothing is copied.
+ * <p>
+ * Direct buffers have no backing array. Searching them one byte at a time through
+ * {@link ByteBuffer#get(int)} is much slower than a single bulk copy, so the live region is
+ * copied once on first use into an array that is owned by this view and reused for all later buffers.
+ * <p>
+ * Instances are mutable and are not thread safe, and are intended to be reused by a single thread.
+ */
+public final class ByteBufferView {
+    private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    /**
+     * Direct buffer that has not yet been copied into {@link #directCopy}, or null if none.
+     */
+    @Nullable
+    private ByteBuffer pendingDirectBuffer;
+    /**
+     * Position of {@link #pendingDirectBuffer} when this view was set.
+     * The buffer position can change before the copy is made, so the copy uses this index instead.
+     */
+    private int pendingDirectPosition;
+    /**
+     * Reusable array for the contents of direct buffers.
+     */
+    private byte[] directCopy = EMPTY_BYTE_ARRAY;
+
+    private byte[] array = EMPTY_BYTE_ARRAY;
+    private int offset;
+    private int length;
+    private boolean isDirect;
+    /**
+     * Incremented each time this view is set.
+     */
+    private int generation;
+
+    public ByteBufferView() {
+    }
+
+    /**
+     * View of a byte array region. Used by code that already has the bytes.
+     */
+    public ByteBufferView(@NonNull byte[] array, int offset, int length) {
+        set(array, offset, length);
+    }
+
+    /**
+     * Changes this view to the live region of a buffer.
+     *
+     * @param buffer Buffer to view. A null value is treated as an empty buffer.
+     */
+    public void set(@Nullable ByteBuffer buffer) {
+        generation++;
+        pendingDirectBuffer = null;
+        if (buffer == null) {
+            isDirect = false;
+            array = EMPTY_BYTE_ARRAY;
+            offset = 0;
+            length = 0;
+        } else if (buffer.hasArray()) {
+            isDirect = false;
+            array = buffer.array();
+            offset = buffer.arrayOffset() + buffer.position();
+            length = buffer.remaining();
+        } else {
+            isDirect = true;
+            pendingDirectBuffer = buffer;
+            pendingDirectPosition = buffer.position();
+            offset = 0;
+            length = buffer.remaining();
+        }
+    }
+
+    /**
+     * Changes this view to a byte array region.
+     */
+    public void set(@NonNull byte[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > array.length) {
+            throw new IllegalArgumentException("offset: " + offset + " length: " + length
+                    + " arrayLength: " + array.length);
+        }
+        generation++;
+        pendingDirectBuffer = null;
+        isDirect = false;
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    private void copyDirectBuffer(ByteBuffer buffer) {
+        if (directCopy.length < length) {
+            directCopy = new byte[length];
+        }
+        // Duplicate so the position of the original buffer is not changed,
+        // and copy the region captured when this view was set.
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.clear();
+        duplicate.position(pendingDirectPosition);
+        duplicate.get(directCopy, 0, length);
+        array = directCopy;
+    }
+
+    /**
+     * @return Array holding the live region. Only the region from {@link #offset()}
+     * to {@link #endIndex()} (exclusive) is part of this view.
+     */
+    public byte[] array() {
+        ByteBuffer pending = pendingDirectBuffer;
+        if (pending != null) {
+            pendingDirectBuffer = null;
+            copyDirectBuffer(pending);
+        }
+        return array;
+    }
+
+    /**
+     * @return Start index of the live region in {@link #array()}, inclusive.
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return End index of the live region in {@link #array()}, exclusive.
+     */
+    public int endIndex() {
+        return offset + length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * The same buffer is commonly used for multiple components,
+     * and this can be used to process each buffer only once.
+     *
+     * @return Number of times this view was set. Changes each time this view is set to a buffer,
+     * even if it is set to the same buffer again.
+     */
+    public int generation() {
+        return generation;
+    }
+
+    /**
+     * @return If the viewed buffer is a direct buffer.
+     */
+    public boolean isDirect() {
+        return isDirect;
+    }
+
+    /**
+     * @return The live region decoded as UTF-8.
+     */
+    @NonNull
+    public String decodeString() {
+        return new String(array(), offset, length, StandardCharsets.UTF_8);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ByteBufferView{offset=" + offset + ", length=" + length + ", direct=" + isDirect + "}";
+    }
+}
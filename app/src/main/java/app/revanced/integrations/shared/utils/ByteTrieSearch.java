@@ -1,6 +1,7 @@
 package app.revanced.integrations.shared.utils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import java.nio.charset.StandardCharsets;
 
@@ -46,5 +47,20 @@ public final class ByteTrieSearch extends TrieSearch<byte[]> {
     public ByteTrieSearch(@NonNull byte[]... patterns) {
         super(new ByteTrieNode(), patterns);
     }
+
+    /**
+     * Searches only the live region of a buffer.
+     */
+    public boolean matches(@NonNull ByteBufferView buffer) {
+        return matches(buffer.array(), buffer.offset(), buffer.endIndex());
+    }
+
+    /**
+     * Searches only the live region of a buffer.
+     * Match indexes given to the callbacks are indexes of {@link ByteBufferView#array()}.
+     */
+    public boolean matches(@NonNull ByteBufferView buffer, @Nullable Object callbackParameter) {
+        return matches(buffer.array(), buffer.offset(), buffer.endIndex(), callbackParameter);
+    }
 }
 
@@ -0,0 +1,404 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Case insensitive search of UTF-8 bytes for multiple keywords, in a single pass.
+ * <p>
+ * The bytes are decoded to code points while searching, and each code point is case folded
+ * before it is matched using an Aho-Corasick automaton of the case folded keywords.
+ * Each keyword is stored only once, regardless of how it is cased in the searched text.
+ * <p>
+ * Keywords can require a whole word match, where the match cannot be immediately preceded or followed by a letter.
+ * This is checked using the code points decoded by the search, so no bytes are decoded twice.
+ * Whole word keywords longer than 63 characters only check the character after the match.
+ * <p>
+ * Case folding uses simple one to one folding ({@link Character#toUpperCase(int)} then
+ * {@link Character#toLowerCase(int)}), so folding that changes the number of characters
+ * (such as German 'ß' and "SS") is not matched.
+ * Bytes that are not valid UTF-8 are not matched and are not considered letters.
+ * <p>
+ * This class is immutable and thread safe.
+ */
+public final class CaseInsensitiveUtf8Search {
+    private static final int ROOT_STATE = 0;
+    private static final int NO_STATE = -1;
+    private static final long EMPTY_KEY = -1;
+    /**
+     * Code point used for bytes that are not valid UTF-8. Never matches a keyword.
+     */
+    private static final int INVALID_CODE_POINT = -1;
+    private static final int CODE_POINT_BITS = 21;
+
+    /**
+     * Value returned by {@link #find(byte[], int, int)} if no keyword is found.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * Case folded ASCII characters.
+     */
+    private static final int[] ASCII_FOLDED = new int[128];
+    static {
+        for (int i = 0; i < 128; i++) {
+            ASCII_FOLDED[i] = (i >= 'A' && i <= 'Z') ? i + ('a' - 'A') : i;
+        }
+    }
+
+    private final String[] keywords;
+    private final boolean[] wholeWords;
+    /**
+     * Length of each keyword in code points.
+     */
+    private final int[] keywordLengths;
+
+    /**
+     * Transitions from the root state for ASCII characters, to skip the hash table lookup
+     * for the majority of bytes that do not start any keyword.
+     */
+    private final int[] rootAsciiTransitions = new int[128];
+    /**
+     * Transition table keys. Each key is the state shifted left 21 bits combined with the code point.
+     */
+    private final long[] transitionKeys;
+    private final int[] transitionStates;
+    private final int transitionMask;
+
+    private final int[] failure;
+    /**
+     * Closest state reachable by failure links that has keywords ending at it,
+     * or {@link #ROOT_STATE} if none exist.
+     */
+    private final int[] outputLink;
+    /**
+     * Keyword indexes that end at each state, or null if none end at the state.
+     */
+    private final int[][] outputs;
+
+    /**
+     * @return The case folded code point.
+     */
+    public static int foldCase(int codePoint) {
+        if (codePoint < 128) {
+            return codePoint < 0 ? codePoint : ASCII_FOLDED[codePoint];
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * @param keywords   Keywords to search for. Keywords cannot be empty.
+     * @param wholeWords If each keyword must match a whole word.
+     */
+    public CaseInsensitiveUtf8Search(@NonNull String[] keywords, @NonNull boolean[] wholeWords) {
+        if (keywords.length != wholeWords.length) {
+            throw new IllegalArgumentException("keywords: " + keywords.length + " wholeWords: " + wholeWords.length);
+        }
+        this.keywords = keywords.clone();
+        this.wholeWords = wholeWords.clone();
+
+        final int numberOfKeywords = keywords.length;
+        int[][] foldedKeywords = new int[numberOfKeywords][];
+        keywordLengths = new int[numberOfKeywords];
+        int maxStates = 1;
+        for (int i = 0; i < numberOfKeywords; i++) {
+            int[] folded = keywords[i].codePoints().map(CaseInsensitiveUtf8Search::foldCase).toArray();
+            if (folded.length == 0) {
+                throw new IllegalArgumentException("Empty keyword");
+            }
+            foldedKeywords[i] = folded;
+            keywordLengths[i] = folded.length;
+            maxStates += folded.length;
+        }
+
+        // Hash table is kept at most half full.
+        final int tableSize = Integer.highestOneBit(Math.max(2, maxStates) * 2 - 1) << 1;
+        transitionKeys = new long[tableSize];
+        Arrays.fill(transitionKeys, EMPTY_KEY);
+        transitionStates = new int[tableSize];
+        transitionMask = tableSize - 1;
+
+        // Child lists, used only while building to walk the tree breadth first.
+        int[] firstChild = new int[maxStates];
+        int[] nextSibling = new int[maxStates];
+        int[] stateCodePoint = new int[maxStates];
+        Arrays.fill(firstChild, NO_STATE);
+        //noinspection unchecked
+        List<Integer>[] stateOutputs = new List[maxStates];
+
+        int numberOfStates = 1;
+        for (int keywordIndex = 0; keywordIndex < numberOfKeywords; keywordIndex++) {
+            int state = ROOT_STATE;
+            for (int codePoint : foldedKeywords[keywordIndex]) {
+                int next = transition(state, codePoint);
+                if (next == NO_STATE) {
+                    next = numberOfStates++;
+                    addTransition(state, codePoint, next);
+                    stateCodePoint[next] = codePoint;
+                    nextSibling[next] = firstChild[state];
+                    firstChild[state] = next;
+                }
+                state = next;
+            }
+            if (stateOutputs[state] == null) {
+                stateOutputs[state] = new ArrayList<>(1);
+            }
+            stateOutputs[state].add(keywordIndex);
+        }
+
+        for (int i = 0; i < 128; i++) {
+            final int next = transition(ROOT_STATE, i);
+            rootAsciiTransitions[i] = next == NO_STATE ? ROOT_STATE : next;
+        }
+
+        failure = new int[numberOfStates];
+        outputLink = new int[numberOfStates];
+        outputs = new int[numberOfStates][];
+        for (int state = 0; state < numberOfStates; state++) {
+            List<Integer> stateOutput = stateOutputs[state];
+            if (stateOutput != null) {
+                int[] output = new int[stateOutput.size()];
+                for (int i = 0; i < output.length; i++) {
+                    output[i] = stateOutput.get(i);
+                }
+                outputs[state] = output;
+            }
+        }
+
+        // Breadth first, so the failure state of every parent is known before it's children.
+        int[] queue = new int[numberOfStates];
+        int queueHead = 0;
+        int queueTail = 0;
+        for (int child = firstChild[ROOT_STATE]; child != NO_STATE; child = nextSibling[child]) {
+            queue[queueTail++] = child; // Failure and output links of depth 1 are the root.
+        }
+        while (queueHead < queueTail) {
+            final int state = queue[queueHead++];
+            for (int child = firstChild[state]; child != NO_STATE; child = nextSibling[child]) {
+                final int codePoint = stateCodePoint[child];
+                int fallback = failure[state];
+                int fallbackChild;
+                while ((fallbackChild = transition(fallback, codePoint)) == NO_STATE && fallback != ROOT_STATE) {
+                    fallback = failure[fallback];
+                }
+                final int childFailure = fallbackChild == NO_STATE ? ROOT_STATE : fallbackChild;
+                failure[child] = childFailure;
+                outputLink[child] = outputs[childFailure] != null
+                        ? childFailure
+                        : outputLink[childFailure];
+                queue[queueTail++] = child;
+            }
+        }
+    }
+
+    private static int hashIndex(long key, int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void addTransition(int state, int codePoint, int nextState) {
+        final long key = ((long) state << CODE_POINT_BITS) | codePoint;
+        int index = hashIndex(key, transitionMask);
+        while (transitionKeys[index] != EMPTY_KEY) {
+            index = (index + 1) & transitionMask;
+        }
+        transitionKeys[index] = key;
+        transitionStates[index] = nextState;
+    }
+
+    private int transition(int state, int codePoint) {
+        final long key = ((long) state << CODE_POINT_BITS) | codePoint;
+        final long[] keys = transitionKeys;
+        final int mask = transitionMask;
+        int index = hashIndex(key, mask);
+        while (true) {
+            final long existing = keys[index];
+            if (existing == key) {
+                return transitionStates[index];
+            }
+            if (existing == EMPTY_KEY) {
+                return NO_STATE;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int nextState(int state, int codePoint) {
+        if (codePoint == INVALID_CODE_POINT) {
+            return ROOT_STATE;
+        }
+        while (true) {
+            if (state == ROOT_STATE) {
+                if (codePoint < 128) {
+                    return rootAsciiTransitions[codePoint];
+                }
+                final int next = transition(ROOT_STATE, codePoint);
+                return next == NO_STATE ? ROOT_STATE : next;
+            }
+            final int next = transition(state, codePoint);
+            if (next != NO_STATE) {
+                return next;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * @return Number of bytes of the UTF-8 character at the index, or 0 if the bytes are not valid UTF-8.
+     */
+    private static int utf8CharacterLength(byte[] data, int index, int endIndex) {
+        final int lead = data[index];
+        final int length;
+        if ((lead & 0x80) == 0) {
+            return 1; // 0xxxxxxx (ASCII)
+        } else if ((lead & 0xE0) == 0xC0) {
+            length = 2; // 110xxxxx, 10xxxxxx
+        } else if ((lead & 0xF0) == 0xE0) {
+            length = 3; // 1110xxxx, 10xxxxxx, 10xxxxxx
+        } else if ((lead & 0xF8) == 0xF0) {
+            length = 4; // 11110xxx, 10xxxxxx, 10xxxxxx, 10xxxxxx
+        } else {
+            return 0;
+        }
+        if (index + length > endIndex) {
+            return 0;
+        }
+        for (int i = index + 1, end = index + length; i < end; i++) {
+            if ((data[i] & 0xC0) != 0x80) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    private static int decodeUtf8(byte[] data, int index, int length) {
+        return switch (length) {
+            case 2 -> ((data[index] & 0x1F) << 6)
+                    | (data[index + 1] & 0x3F);
+            case 3 -> ((data[index] & 0x0F) << 12)
+                    | ((data[index + 1] & 0x3F) << 6)
+                    | (data[index + 2] & 0x3F);
+            case 4 -> ((data[index] & 0x07) << 18)
+                    | ((data[index + 1] & 0x3F) << 12)
+                    | ((data[index + 2] & 0x3F) << 6)
+                    | (data[index + 3] & 0x3F);
+            default -> data[index];
+        };
+    }
+
+    private static boolean isLetter(int codePoint) {
+        if (codePoint < 128) {
+            return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z');
+        }
+        return Character.isLetter(codePoint);
+    }
+
+    /**
+     * @param letterHistory Letter flags of the decoded code points, with the last code point of the match as the lowest bit.
+     * @param matchLength   Length of the match in code points.
+     * @return If the code point before the match is a letter.
+     * Matches longer than the history only check the end of the match.
+     */
+    private static boolean letterBeforeMatch(long letterHistory, int matchLength) {
+        return matchLength < Long.SIZE && ((letterHistory >>> matchLength) & 1) != 0;
+    }
+
+    /**
+     * Finds the first keyword match in the text.
+     *
+     * @param startIndex Index to start searching, inclusive value.
+     *                   Text before this index is not considered when checking for whole words.
+     * @param endIndex   Index to stop matching, exclusive value.
+     *                   Text after this index is not considered when checking for whole words.
+     * @return Index of the matched keyword, or {@link #NOT_FOUND}.
+     */
+    public int find(@NonNull byte[] data, int startIndex, int endIndex) {
+        if (keywords.length == 0) {
+            return NOT_FOUND;
+        }
+
+        // Letter flags of the recently decoded code points, used to check the start of whole word matches.
+        // The lowest bit is the current code point, and each higher bit is one code point earlier.
+        long letterHistory = 0;
+        // Whole word match that is waiting for the next code point, to check the end of the match.
+        int pendingWholeWord = NOT_FOUND;
+
+        int state = ROOT_STATE;
+        int index = startIndex;
+        while (index < endIndex) {
+            final int codePoint;
+            final int length = utf8CharacterLength(data, index, endIndex);
+            if (length == 0) {
+                codePoint = INVALID_CODE_POINT;
+                index++;
+            } else {
+                codePoint = decodeUtf8(data, index, length);
+                index += length;
+            }
+            final boolean letter = codePoint != INVALID_CODE_POINT && isLetter(codePoint);
+
+            if (pendingWholeWord != NOT_FOUND) {
+                if (!letter) {
+                    return pendingWholeWord;
+                }
+                pendingWholeWord = NOT_FOUND;
+            }
+
+            letterHistory = (letterHistory << 1) | (letter ? 1 : 0);
+
+            state = nextState(state, codePoint == INVALID_CODE_POINT ? codePoint : foldCase(codePoint));
+            int outputState = outputs[state] != null ? state : outputLink[state];
+            while (outputState != ROOT_STATE) {
+                for (int keywordIndex : outputs[outputState]) {
+                    if (!wholeWords[keywordIndex]) {
+                        return keywordIndex;
+                    }
+                    if (pendingWholeWord == NOT_FOUND && !letterBeforeMatch(letterHistory, keywordLengths[keywordIndex])) {
+                        pendingWholeWord = keywordIndex;
+                    }
+                }
+                outputState = outputLink[outputState];
+            }
+        }
+
+        // End of text is the end of a whole word.
+        return pendingWholeWord;
+    }
+
+    /**
+     * @param keywordIndex Index returned from {@link #find(byte[], int, int)}.
+     */
+    @NonNull
+    public String getKeyword(int keywordIndex) {
+        return keywords[keywordIndex];
+    }
+
+    public boolean isWholeWord(int keywordIndex) {
+        return wholeWords[keywordIndex];
+    }
+
+    public int numberOfKeywords() {
+        return keywords.length;
+    }
+
+    /**
+     * @return Estimated memory size (in kilobytes) of this instance.
+     */
+    public int getEstimatedMemorySize() {
+        // Assume 12 bytes for each array header.
+        long size = 12 + rootAsciiTransitions.length * 4L
+                + 12 + transitionKeys.length * 8L
+                + 12 + transitionStates.length * 4L
+                + 12 + failure.length * 4L
+                + 12 + outputLink.length * 4L
+                + 12 + outputs.length * 4L;
+        for (int[] output : outputs) {
+            if (output != null) {
+                size += 12 + output.length * 4L;
+            }
+        }
+        return (int) Math.ceil(size / 1024.0);
+    }
+}
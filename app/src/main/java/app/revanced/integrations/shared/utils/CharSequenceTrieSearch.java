@@ -0,0 +1,41 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Text pattern searching using a prefix tree (trie).
+ * <p>
+ * Same as {@link StringTrieSearch}, but can search any {@link CharSequence}
+ * (such as a {@link StringBuilder}) without first converting it to a String.
+ */
+public final class CharSequenceTrieSearch extends TrieSearch<CharSequence> {
+
+    private static final class CharSequenceTrieNode extends TrieNode<CharSequence> {
+        CharSequenceTrieNode() {
+            super();
+        }
+
+        CharSequenceTrieNode(char nodeCharacterValue) {
+            super(nodeCharacterValue);
+        }
+
+        @Override
+        TrieNode<CharSequence> createNode(char nodeValue) {
+            return new CharSequenceTrieNode(nodeValue);
+        }
+
+        @Override
+        char getCharValue(CharSequence text, int index) {
+            return text.charAt(index);
+        }
+
+        @Override
+        int getTextLength(CharSequence text) {
+            return text.length();
+        }
+    }
+
+    public CharSequenceTrieSearch(@NonNull CharSequence... patterns) {
+        super(new CharSequenceTrieNode(), patterns);
+    }
+}
@@ -0,0 +1,259 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent cache where each value decides when it expires, with a hard limit on the number of entries.
+ * <p>
+ * Lookups do not lock and never walk the other entries. Expired entries are found using a hashed timing wheel:
+ * each entry is placed in the bucket of the time it should next be checked, and as time passes
+ * the buckets that are due are checked and the expired entries removed.
+ * The wheel is advanced by whichever thread calls the cache after a bucket is due,
+ * and other threads calling at the same time skip advancing instead of waiting.
+ * <p>
+ * If more than the maximum number of entries are added, the least recently used entries are removed.
+ * <p>
+ * {@link Expiry#getExpirationTime(Object, long, long)} is called while looking up an entry,
+ * and must not block or wait for a future.
+ *
+ * @param <K> Key, such as a video id.
+ * @param <V> Cached value.
+ */
+public final class ExpiringCache<K, V> {
+
+    public interface Expiry<V> {
+        /**
+         * @param value       Cached value.
+         * @param timeCreated Time the entry was added to the cache.
+         * @param now         Current time.
+         * @return Time the value expires. Can be a time in the future when the value is checked again,
+         * if it's not yet known when the value expires.
+         */
+        long getExpirationTime(@NonNull V value, long timeCreated, long now);
+    }
+
+    /**
+     * Time covered by each bucket of the timing wheel.
+     */
+    private static final long TICK_MILLISECONDS = 10 * 1000;
+
+    /**
+     * Number of buckets. Must be a power of 2.
+     * Entries that expire after more than one rotation are checked and placed again
+     * when their bucket is first due.
+     */
+    private static final int WHEEL_SIZE = 64;
+
+    /**
+     * Fraction of the maximum size that is kept after removing least recently used entries,
+     * so the entries are not sorted again after every new entry.
+     */
+    private static final float LRU_TRIM_FACTOR = 0.9f;
+
+    private static final class Node<K, V> {
+        @NonNull
+        final K key;
+        @NonNull
+        final V value;
+        final long timeCreated;
+        volatile long timeLastUsed;
+
+        Node(@NonNull K key, @NonNull V value, long timeCreated) {
+            this.key = key;
+            this.value = value;
+            this.timeCreated = timeCreated;
+            this.timeLastUsed = timeCreated;
+        }
+    }
+
+    private final Map<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Node<K, V>>[] wheel;
+
+    private final Expiry<V> expiry;
+
+    private final int maximumSize;
+
+    /**
+     * Held by the thread that advances the wheel or removes least recently used entries.
+     */
+    private final AtomicBoolean maintenanceRunning = new AtomicBoolean();
+
+    /**
+     * Last tick of the wheel that was checked. Only changed while holding {@link #maintenanceRunning}.
+     */
+    private volatile long lastTick;
+
+    /**
+     * @param maximumSize Maximum number of entries.
+     * @param expiry      Decides when entries expire.
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringCache(int maximumSize, @NonNull Expiry<V> expiry) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize: " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.expiry = Objects.requireNonNull(expiry);
+        wheel = new ConcurrentLinkedQueue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        lastTick = System.currentTimeMillis() / TICK_MILLISECONDS;
+    }
+
+    /**
+     * @return The value, or null if no value exists or the value expired.
+     */
+    @Nullable
+    public V get(@NonNull K key) {
+        final long now = System.currentTimeMillis();
+        Node<K, V> node = getNode(key, now);
+        runMaintenanceIfNeeded(now);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * @param factory Creates the value if no value exists or the value expired.
+     *                Called at most once per call of this method, and must not block.
+     * @return The existing value, or the newly created value.
+     */
+    @NonNull
+    public V getOrCreate(@NonNull K key, @NonNull Function<K, V> factory) {
+        final long now = System.currentTimeMillis();
+        Node<K, V> node = getNode(key, now);
+        if (node == null) {
+            final boolean[] created = new boolean[1];
+            node = entries.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return new Node<>(k, Objects.requireNonNull(factory.apply(k)), now);
+            });
+            if (created[0]) {
+                schedule(node, expiry.getExpirationTime(node.value, now, now));
+            }
+        }
+        runMaintenanceIfNeeded(now);
+        return node.value;
+    }
+
+    /**
+     * Calls the consumer for each value, including values that expired but are not yet removed.
+     */
+    public void forEach(@NonNull Consumer<V> consumer) {
+        for (Node<K, V> node : entries.values()) {
+            consumer.accept(node.value);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Nullable
+    private Node<K, V> getNode(@NonNull K key, long now) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (isExpired(node, now)) {
+            entries.remove(key, node);
+            return null;
+        }
+        node.timeLastUsed = now;
+        return node;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expiry.getExpirationTime(node.value, node.timeCreated, now) <= now;
+    }
+
+    private void schedule(Node<K, V> node, long expirationTime) {
+        // Never place in a bucket that was already checked, or the entry is not checked for a full rotation.
+        // If the wheel advances at the same time, the entry can be checked one rotation late.
+        // Lookups always check expiration, so this only delays removing an unused entry.
+        final long tick = Math.max(expirationTime / TICK_MILLISECONDS, lastTick + 1);
+        wheel[(int) (tick & (WHEEL_SIZE - 1))].add(node);
+    }
+
+    private void runMaintenanceIfNeeded(long now) {
+        final long currentTick = now / TICK_MILLISECONDS;
+        final boolean wheelIsDue = currentTick > lastTick;
+        final boolean overLimit = entries.size() > maximumSize;
+        if (!wheelIsDue && !overLimit) {
+            return;
+        }
+        if (!maintenanceRunning.compareAndSet(false, true)) {
+            return; // Another thread is already doing this.
+        }
+        try {
+            if (wheelIsDue) {
+                advanceWheel(currentTick, now);
+            }
+            if (entries.size() > maximumSize) {
+                removeLeastRecentlyUsed();
+            }
+        } finally {
+            maintenanceRunning.set(false);
+        }
+    }
+
+    private void advanceWheel(long currentTick, long now) {
+        if (currentTick <= lastTick) {
+            return; // Another thread already advanced.
+        }
+        // After more than a full rotation, every bucket is checked once.
+        final long firstTick = Math.max(lastTick + 1, currentTick - WHEEL_SIZE + 1);
+        List<Node<K, V>> reschedule = new ArrayList<>();
+        int removed = 0;
+
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            ConcurrentLinkedQueue<Node<K, V>> bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+            Node<K, V> node;
+            while ((node = bucket.poll()) != null) {
+                if (entries.get(node.key) != node) {
+                    continue; // Already removed or replaced.
+                }
+                final long expirationTime = expiry.getExpirationTime(node.value, node.timeCreated, now);
+                if (expirationTime <= now) {
+                    if (entries.remove(node.key, node)) removed++;
+                } else {
+                    reschedule.add(node);
+                }
+            }
+        }
+        lastTick = currentTick;
+
+        for (Node<K, V> node : reschedule) {
+            final long expirationTime = expiry.getExpirationTime(node.value, node.timeCreated, now);
+            schedule(node, expirationTime);
+        }
+
+        if (removed > 0) {
+            final int removedCount = removed;
+            Logger.printDebug(() -> "Removed " + removedCount + " expired entries");
+        }
+    }
+
+    private void removeLeastRecentlyUsed() {
+        List<Node<K, V>> nodes = new ArrayList<>(entries.values());
+        final int removeCount = nodes.size() - (int) (maximumSize * LRU_TRIM_FACTOR);
+        if (removeCount <= 0) {
+            return;
+        }
+        nodes.sort((node1, node2) -> Long.compare(node1.timeLastUsed, node2.timeLastUsed));
+        for (int i = 0; i < removeCount; i++) {
+            Node<K, V> node = nodes.get(i);
+            entries.remove(node.key, node);
+        }
+        Logger.printDebug(() -> "Removed " + removeCount + " least recently used entries");
+    }
+}
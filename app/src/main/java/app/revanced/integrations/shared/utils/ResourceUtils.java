@@ -7,11 +7,38 @@ import android.view.animation.AnimationUtils;
 
 import androidx.annotation.NonNull;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * @noinspection ALL
  */
 public class ResourceUtils extends Utils {
 
+    /**
+     * Resolved identifiers of each resource type, indexed by {@link ResourceType#ordinal()}.
+     * Includes resources that do not exist, with an identifier of zero.
+     * <p>
+     * {@link android.content.res.Resources#getIdentifier(String, String, String)} is a slow lookup by name,
+     * and identifiers do not change while the app is running.
+     */
+    private static final Map<String, Integer>[] identifierCache;
+
+    private static final LongAdder lookupCount = new LongAdder();
+    private static final LongAdder resolveCount = new LongAdder();
+    private static final LongAdder resolveNanos = new LongAdder();
+
+    static {
+        ResourceType[] types = ResourceType.values();
+        //noinspection unchecked
+        identifierCache = new Map[types.length];
+        for (int i = 0; i < types.length; i++) {
+            identifierCache[i] = new ConcurrentHashMap<>();
+        }
+    }
+
     private ResourceUtils() {
     } // utility class
 
@@ -21,7 +48,46 @@ public class ResourceUtils extends Utils {
 
     public static int getIdentifier(@NonNull String str, @NonNull ResourceType resourceType,
                                     @NonNull Context context) {
-        return getResources().getIdentifier(str, resourceType.getType(), context.getPackageName());
+        lookupCount.increment();
+        Map<String, Integer> cache = identifierCache[resourceType.ordinal()];
+        Integer identifier = cache.get(str);
+        if (identifier == null) {
+            final long start = System.nanoTime();
+            identifier = getResources().getIdentifier(str, resourceType.getType(), context.getPackageName());
+            resolveNanos.add(System.nanoTime() - start);
+            resolveCount.increment();
+            cache.put(str, identifier);
+        }
+        return identifier;
+    }
+
+    /**
+     * Resolves and caches the identifiers, so later lookups do not resolve the names.
+     * Should be called off the main thread, during app startup.
+     */
+    public static void preloadIdentifiers(@NonNull ResourceType resourceType, @NonNull String... names) {
+        Context context = getContext();
+        if (context == null) {
+            return;
+        }
+        for (String name : names) {
+            if (getIdentifier(name, resourceType, context) == 0) {
+                // Some resources only exist in some app versions.
+                Logger.printDebug(() -> "R." + resourceType.getType() + "." + name + " not found");
+            }
+        }
+    }
+
+    /**
+     * @return Lookup counts and time spent resolving identifiers, for logging.
+     */
+    @NonNull
+    public static String getStatistics() {
+        return "ResourceUtils{"
+                + "lookups=" + lookupCount.sum()
+                + ", resolved=" + resolveCount.sum()
+                + ", resolveMs=" + TimeUnit.NANOSECONDS.toMillis(resolveNanos.sum())
+                + '}';
     }
 
     public static int getAnimIdentifier(@NonNull String str) {
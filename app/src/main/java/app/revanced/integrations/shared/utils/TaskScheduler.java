@@ -0,0 +1,339 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background tasks in separate lanes.
+ * <p>
+ * Each lane has a fixed maximum number of threads.
+ * A burst of tasks waits in the queue of that lane, instead of creating more threads
+ * or delaying the tasks of other lanes. Work that is no longer useful after waiting too long
+ * can be given a deadline, and is dropped if it was not started before the deadline.
+ * If the queue is full, either the oldest queued task is dropped,
+ * or the task runs on the thread that submitted it.
+ * <p>
+ * A task must not block on the result of another task of the same lane,
+ * as all threads of the lane can then be waiting on tasks that are queued behind them.
+ * Tasks that wait on other tasks use a lane of their own.
+ * <p>
+ * {@link Utils#runOnBackgroundThread(Runnable)} and {@link Utils#submitOnBackgroundThread(Callable)}
+ * use the {@link Lane#INTERACTIVE} lane.
+ */
+@SuppressWarnings("unused")
+public final class TaskScheduler {
+
+    /**
+     * Value to use if a task has no deadline.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    public enum Lane {
+        /**
+         * Network calls and other tasks the UI is waiting on, or will soon be waiting on.
+         * Tasks are never dropped, as callers may block on the result.
+         * If the queue is full, the task runs on the calling thread.
+         * <p>
+         * Threads use the normal priority, so this lane does not compete with the main thread.
+         */
+        INTERACTIVE(12, Thread.NORM_PRIORITY, 128, NO_DEADLINE, false),
+        /**
+         * Requests that a task of another lane starts and then waits on,
+         * such as the parallel client requests of a streaming data fetch.
+         * Tasks are never dropped, and must not block on other tasks.
+         * If the queue is full, the task runs on the calling thread.
+         */
+        NESTED_REQUEST(8, Thread.NORM_PRIORITY, 32, NO_DEADLINE, false),
+        /**
+         * Tasks that wait on the result of an {@link #INTERACTIVE} task and then update the UI,
+         * such as showing the dislikes of a Short once the votes are fetched.
+         * Tasks are dropped if too many are queued (oldest tasks are dropped first).
+         */
+        UI_UPDATE(2, Thread.NORM_PRIORITY, 16, NO_DEADLINE, true),
+        /**
+         * Speculative fetches of data that might be shown soon.
+         * Tasks are dropped if they wait more than 10 seconds,
+         * or if too many are queued (oldest tasks are dropped first).
+         * Tasks must not block on other tasks of this lane.
+         */
+        PREFETCH(2, Thread.NORM_PRIORITY - 1, 64, 10_000, true),
+        /**
+         * Short network checks that the UI only briefly waits on, such as verifying that an image exists.
+         * Kept separate from {@link #INTERACTIVE}, so a burst of checks while scrolling
+         * does not delay fetches the user is waiting on.
+         * Tasks are never dropped, as callers may track the running tasks.
+         */
+        VERIFICATION(4, Thread.NORM_PRIORITY - 1, Integer.MAX_VALUE, NO_DEADLINE, false),
+        /**
+         * Fire and forget tasks, such as votes and view counts.
+         * Tasks run one at a time, in the order they were submitted.
+         * Tasks are dropped if too many are queued (oldest tasks are dropped first).
+         */
+        BACKGROUND(1, Thread.MIN_PRIORITY, 256, NO_DEADLINE, true);
+
+        private final int maximumThreads;
+        private final int threadPriority;
+        /**
+         * Maximum number of queued tasks.
+         */
+        private final int queueCapacity;
+        private final long defaultDeadlineMillis;
+        /**
+         * If the oldest queued task is dropped when the queue is full.
+         * Otherwise the submitted task runs on the calling thread.
+         */
+        private final boolean dropOldestWhenFull;
+
+        Lane(int maximumThreads, int threadPriority, int queueCapacity, long defaultDeadlineMillis,
+             boolean dropOldestWhenFull) {
+            this.maximumThreads = maximumThreads;
+            this.threadPriority = threadPriority;
+            this.queueCapacity = queueCapacity;
+            this.defaultDeadlineMillis = defaultDeadlineMillis;
+            this.dropOldestWhenFull = dropOldestWhenFull;
+        }
+    }
+
+    /**
+     * Tasks that waited in the queue longer than this are logged.
+     */
+    private static final long SLOW_QUEUE_LOG_THRESHOLD_MILLISECONDS = 1000;
+
+    private static final LaneExecutor[] executors;
+
+    static {
+        Lane[] lanes = Lane.values();
+        executors = new LaneExecutor[lanes.length];
+        for (Lane lane : lanes) {
+            executors[lane.ordinal()] = new LaneExecutor(lane);
+        }
+    }
+
+    private TaskScheduler() {
+    } // utility class
+
+    /**
+     * Runs the task using the default deadline of the lane.
+     */
+    public static void run(@NonNull Lane lane, @NonNull Runnable task) {
+        submit(lane, Executors.callable(task, null), task, null, lane.defaultDeadlineMillis);
+    }
+
+    /**
+     * Runs the task using the default deadline of the lane.
+     *
+     * @param onDropped Called if the task is dropped without running, on the thread that dropped the task.
+     *                  Can be used to reset state that expects the task to run.
+     */
+    public static void run(@NonNull Lane lane, @NonNull Runnable task, @NonNull Runnable onDropped) {
+        submit(lane, Executors.callable(task, null), task, Objects.requireNonNull(onDropped),
+                lane.defaultDeadlineMillis);
+    }
+
+    /**
+     * Runs the task using the default deadline of the lane.
+     */
+    @NonNull
+    public static <T> Future<T> submit(@NonNull Lane lane, @NonNull Callable<T> call) {
+        return submit(lane, call, null, null, lane.defaultDeadlineMillis);
+    }
+
+    /**
+     * @param maximumQueueMillis If the task has not started after waiting this long, the task is dropped
+     *                           and the returned future is cancelled.
+     *                           Callers blocking on the result must handle the cancellation.
+     */
+    @NonNull
+    public static <T> Future<T> submit(@NonNull Lane lane, @NonNull Callable<T> call, long maximumQueueMillis) {
+        return submit(lane, call, null, null, maximumQueueMillis);
+    }
+
+    private static <T> Future<T> submit(Lane lane, Callable<T> call, Runnable runnable, Runnable onDropped,
+                                        long maximumQueueMillis) {
+        LaneExecutor executor = executors[lane.ordinal()];
+        ScheduledTask<T> task = new ScheduledTask<>(executor, call, runnable, onDropped, maximumQueueMillis);
+        executor.submitted.incrementAndGet();
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @return Number of tasks waiting to run in the lane.
+     */
+    public static int getQueueDepth(@NonNull Lane lane) {
+        return executors[lane.ordinal()].getQueue().size();
+    }
+
+    /**
+     * @return Metrics of the lane, for logging.
+     */
+    @NonNull
+    public static String getStatistics(@NonNull Lane lane) {
+        return executors[lane.ordinal()].toString();
+    }
+
+    private static final class ScheduledTask<T> extends FutureTask<T> {
+        private final LaneExecutor executor;
+        /**
+         * Original task, if the task was submitted as a Runnable.
+         */
+        private final Runnable runnable;
+        /**
+         * Called if this task is dropped, or null.
+         */
+        private final Runnable onDropped;
+        private final long timeSubmitted;
+        private final long deadline;
+
+        ScheduledTask(LaneExecutor executor, Callable<T> call, Runnable runnable, Runnable onDropped,
+                      long maximumQueueMillis) {
+            super(call);
+            this.executor = executor;
+            this.runnable = runnable;
+            this.onDropped = onDropped;
+            this.timeSubmitted = System.currentTimeMillis();
+            this.deadline = maximumQueueMillis == NO_DEADLINE
+                    ? NO_DEADLINE
+                    : timeSubmitted + maximumQueueMillis;
+        }
+
+        @Override
+        public void run() {
+            final long startTime = System.currentTimeMillis();
+            if (startTime > deadline) {
+                drop("deadline passed");
+                return;
+            }
+
+            final long queueMillis = startTime - timeSubmitted;
+            executor.recordQueueTime(queueMillis);
+            super.run();
+            executor.recordRunTime(System.currentTimeMillis() - startTime);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            if (runnable != null) {
+                // Nothing reads the result of a Runnable, so log the failure here.
+                Logger.printException(() -> executor.lane + " task failed", t);
+            }
+            super.setException(t);
+        }
+
+        /**
+         * Cancels this task without running it.
+         */
+        void drop(String reason) {
+            executor.dropped.incrementAndGet();
+            Logger.printDebug(() -> "Dropping " + executor.lane + " task (" + reason + ") after waiting: "
+                    + (System.currentTimeMillis() - timeSubmitted) + "ms");
+            cancel(false);
+            if (runnable instanceof Future<?> future) {
+                // Complete the future of the original task, so anything waiting on it is not left waiting.
+                future.cancel(false);
+            }
+            if (onDropped != null) {
+                try {
+                    onDropped.run();
+                } catch (Exception ex) {
+                    Logger.printException(() -> executor.lane + " drop callback failed", ex);
+                }
+            }
+        }
+    }
+
+    private static final class LaneExecutor extends ThreadPoolExecutor {
+        private final Lane lane;
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong totalQueueMillis = new AtomicLong();
+        private final AtomicLong maximumQueueMillis = new AtomicLong();
+        private final AtomicLong totalRunMillis = new AtomicLong();
+
+        LaneExecutor(Lane lane) {
+            super(lane.maximumThreads,
+                    lane.maximumThreads,
+                    10, // Keep threads alive 10 seconds after they go idle.
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(lane.queueCapacity),
+                    new LaneThreadFactory(lane),
+                    (task, executor) -> {
+                        if (!lane.dropOldestWhenFull) {
+                            // Queue is full. Run on the calling thread, which also slows down the caller.
+                            Logger.printDebug(() -> lane + " queue is full, running task on calling thread");
+                            task.run();
+                            return;
+                        }
+                        // Queue is full. Drop the oldest queued task and try again.
+                        BlockingQueue<Runnable> queue = executor.getQueue();
+                        Runnable oldest = queue.poll();
+                        if (oldest instanceof ScheduledTask<?> scheduledTask) {
+                            scheduledTask.drop("queue full");
+                        }
+                        executor.execute(task);
+                    });
+            this.lane = lane;
+            allowCoreThreadTimeOut(true);
+        }
+
+        void recordQueueTime(long queueMillis) {
+            totalQueueMillis.addAndGet(queueMillis);
+            maximumQueueMillis.accumulateAndGet(queueMillis, Math::max);
+            if (queueMillis > SLOW_QUEUE_LOG_THRESHOLD_MILLISECONDS) {
+                Logger.printDebug(() -> lane + " task waited: " + queueMillis + "ms " + this);
+            }
+        }
+
+        void recordRunTime(long runMillis) {
+            totalRunMillis.addAndGet(runMillis);
+            completed.incrementAndGet();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            final long completedCount = completed.get();
+            return lane + "{"
+                    + "active=" + getActiveCount()
+                    + ", queued=" + getQueue().size()
+                    + ", submitted=" + submitted.get()
+                    + ", completed=" + completedCount
+                    + ", dropped=" + dropped.get()
+                    + ", averageQueueMs=" + (completedCount == 0 ? 0 : totalQueueMillis.get() / completedCount)
+                    + ", maximumQueueMs=" + maximumQueueMillis.get()
+                    + ", averageRunMs=" + (completedCount == 0 ? 0 : totalRunMillis.get() / completedCount)
+                    + '}';
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final Lane lane;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, "revanced-" + lane.name().toLowerCase(Locale.ENGLISH) + "-" + threadCount.incrementAndGet());
+            thread.setPriority(lane.threadPriority);
+            return thread;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -301,6 +302,242 @@ public abstract class TrieSearch<T> {
         abstract int getTextLength(T text);
     }
 
+    /**
+     * A pattern and it's callback, as added to the search.
+     * Kept so the automaton can be (re)built after all patterns are added.
+     */
+    private static final class TriePattern<T> {
+        final T pattern;
+        final int patternLength;
+        @Nullable
+        final TriePatternMatchedCallback<T> callback;
+
+        TriePattern(T pattern, int patternLength, @Nullable TriePatternMatchedCallback<T> callback) {
+            this.pattern = pattern;
+            this.patternLength = patternLength;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton of all patterns.
+     * <p>
+     * The prefix tree search restarts from the root node at every index of the search text,
+     * which gives a search time of O(n * m) where n is the length of the search text
+     * and m is the length of the longest pattern.
+     * <p>
+     * This automaton adds failure links to each node (the longest proper suffix of the node
+     * that is also a prefix of some pattern), so the search text is scanned in a single pass
+     * with no backtracking and a search time of O(n + number of matches).
+     * <p>
+     * State transitions are stored in a single open addressing hash table keyed by
+     * state and character, and all other state data is kept in flat arrays.
+     * Instances are immutable after construction and can be used by multiple threads.
+     */
+    private static final class AhoCorasickAutomaton<T> {
+        private static final int ROOT_STATE = 0;
+        private static final int NO_STATE = -1;
+        private static final long EMPTY_KEY = -1;
+
+        /**
+         * Used only for the get character method.
+         */
+        private final TrieNode<T> charSource;
+
+        /**
+         * Transition table keys. Each key is the state shifted left 16 bits combined with the character.
+         */
+        private final long[] transitionKeys;
+        private final int[] transitionStates;
+        private final int transitionMask;
+
+        /**
+         * Failure link of each state.
+         */
+        private final int[] failure;
+
+        /**
+         * Closest state reachable by failure links that has patterns ending at it,
+         * or {@link #ROOT_STATE} if none exist.
+         */
+        private final int[] outputLink;
+
+        /**
+         * Patterns that end at each state, or null if none end at the state.
+         */
+        private final TriePattern<T>[][] outputs;
+
+        AhoCorasickAutomaton(TrieNode<T> charSource, List<TriePattern<T>> patterns) {
+            this.charSource = charSource;
+
+            int maxStates = 1;
+            for (TriePattern<T> pattern : patterns) {
+                maxStates += pattern.patternLength;
+            }
+
+            // Hash table is kept at most half full.
+            int tableSize = Integer.highestOneBit(Math.max(2, maxStates) * 2 - 1) << 1;
+            transitionKeys = new long[tableSize];
+            Arrays.fill(transitionKeys, EMPTY_KEY);
+            transitionStates = new int[tableSize];
+            transitionMask = tableSize - 1;
+
+            // Child lists, used only while building to walk the tree breadth first.
+            int[] firstChild = new int[maxStates];
+            int[] nextSibling = new int[maxStates];
+            char[] stateCharacter = new char[maxStates];
+            Arrays.fill(firstChild, NO_STATE);
+            //noinspection unchecked
+            List<TriePattern<T>>[] stateOutputs = new List[maxStates];
+
+            int numberOfStates = 1;
+            for (TriePattern<T> pattern : patterns) {
+                int state = ROOT_STATE;
+                for (int i = 0; i < pattern.patternLength; i++) {
+                    final char character = charSource.getCharValue(pattern.pattern, i);
+                    int next = transition(state, character);
+                    if (next == NO_STATE) {
+                        next = numberOfStates++;
+                        addTransition(state, character, next);
+                        stateCharacter[next] = character;
+                        nextSibling[next] = firstChild[state];
+                        firstChild[state] = next;
+                    }
+                    state = next;
+                }
+                if (stateOutputs[state] == null) {
+                    stateOutputs[state] = new ArrayList<>(1);
+                }
+                stateOutputs[state].add(pattern);
+            }
+
+            failure = new int[numberOfStates];
+            outputLink = new int[numberOfStates];
+            //noinspection unchecked
+            outputs = new TriePattern[numberOfStates][];
+            for (int state = 0; state < numberOfStates; state++) {
+                List<TriePattern<T>> stateOutput = stateOutputs[state];
+                if (stateOutput != null) {
+                    //noinspection unchecked
+                    outputs[state] = stateOutput.toArray(new TriePattern[0]);
+                }
+            }
+
+            // Breadth first, so the failure state of every parent is known before it's children.
+            int[] queue = new int[numberOfStates];
+            int queueHead = 0;
+            int queueTail = 0;
+            for (int child = firstChild[ROOT_STATE]; child != NO_STATE; child = nextSibling[child]) {
+                queue[queueTail++] = child; // Failure and output links of depth 1 are the root.
+            }
+            while (queueHead < queueTail) {
+                final int state = queue[queueHead++];
+                for (int child = firstChild[state]; child != NO_STATE; child = nextSibling[child]) {
+                    final char character = stateCharacter[child];
+                    int fallback = failure[state];
+                    int fallbackChild;
+                    while ((fallbackChild = transition(fallback, character)) == NO_STATE && fallback != ROOT_STATE) {
+                        fallback = failure[fallback];
+                    }
+                    final int childFailure = fallbackChild == NO_STATE ? ROOT_STATE : fallbackChild;
+                    failure[child] = childFailure;
+                    outputLink[child] = outputs[childFailure] != null
+                            ? childFailure
+                            : outputLink[childFailure];
+                    queue[queueTail++] = child;
+                }
+            }
+        }
+
+        private static int hashIndex(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private void addTransition(int state, char character, int nextState) {
+            final long key = ((long) state << 16) | character;
+            int index = hashIndex(key, transitionMask);
+            while (transitionKeys[index] != EMPTY_KEY) {
+                index = (index + 1) & transitionMask;
+            }
+            transitionKeys[index] = key;
+            transitionStates[index] = nextState;
+        }
+
+        private int transition(int state, char character) {
+            final long key = ((long) state << 16) | character;
+            final long[] keys = transitionKeys;
+            final int mask = transitionMask;
+            int index = hashIndex(key, mask);
+            while (true) {
+                final long existing = keys[index];
+                if (existing == key) {
+                    return transitionStates[index];
+                }
+                if (existing == EMPTY_KEY) {
+                    return NO_STATE;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        /**
+         * @param searchText         Text to search for patterns in.
+         * @param searchTextIndex    Start index, inclusive.
+         * @param searchTextEndIndex End index, exclusive.
+         * @return If any pattern matches, and it's associated callback halted the search.
+         */
+        boolean matches(final T searchText, final int searchTextIndex, final int searchTextEndIndex,
+                        final Object callbackParameter) {
+            final TrieNode<T> charSource = this.charSource;
+            final int[] failure = this.failure;
+            final int[] outputLink = this.outputLink;
+            final TriePattern<T>[][] outputs = this.outputs;
+            int state = ROOT_STATE;
+
+            for (int i = searchTextIndex; i < searchTextEndIndex; i++) {
+                final char character = charSource.getCharValue(searchText, i);
+                int next;
+                while ((next = transition(state, character)) == NO_STATE && state != ROOT_STATE) {
+                    state = failure[state];
+                }
+                state = next == NO_STATE ? ROOT_STATE : next;
+
+                int outputState = outputs[state] != null ? state : outputLink[state];
+                while (outputState != ROOT_STATE) {
+                    for (TriePattern<T> output : outputs[outputState]) {
+                        TriePatternMatchedCallback<T> callback = output.callback;
+                        if (callback == null) {
+                            return true; // No callback and all matches are valid.
+                        }
+                        final int patternLength = output.patternLength;
+                        if (callback.patternMatched(searchText, i - patternLength + 1,
+                                patternLength, callbackParameter)) {
+                            return true; // Callback confirmed the match.
+                        }
+                    }
+                    outputState = outputLink[outputState];
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * @return Estimated number of memory pointers used.
+         */
+        int estimatedNumberOfPointersUsed() {
+            // Longs are counted as two pointers.
+            int numberOfPointers = 2 * transitionKeys.length + transitionStates.length
+                    + failure.length + outputLink.length + outputs.length;
+            for (TriePattern<T>[] output : outputs) {
+                if (output != null) {
+                    numberOfPointers += output.length;
+                }
+            }
+            return numberOfPointers;
+        }
+    }
+
     /**
      * Root node, and it's children represent the first pattern characters.
      */
@@ -311,6 +548,23 @@ public abstract class TrieSearch<T> {
      */
     private final List<T> patterns = new ArrayList<>();
 
+    /**
+     * Patterns and callbacks to match, used to build {@link #automaton}.
+     */
+    private final List<TriePattern<T>> triePatterns = new ArrayList<>();
+
+    /**
+     * If searching uses the Aho-Corasick {@link #automaton} instead of the prefix tree.
+     */
+    private volatile boolean useAutomaton;
+
+    /**
+     * Automaton of all patterns. Discarded when a pattern is added,
+     * and lazily built again on the next search.
+     */
+    @Nullable
+    private volatile AhoCorasickAutomaton<T> automaton;
+
     @SafeVarargs
     TrieSearch(@NonNull TrieNode<T> root, @NonNull T... patterns) {
         this.root = Objects.requireNonNull(root);
@@ -341,11 +595,39 @@ public abstract class TrieSearch<T> {
         addPattern(pattern, root.getTextLength(pattern), Objects.requireNonNull(callback));
     }
 
-    void addPattern(@NonNull T pattern, int patternLength, @Nullable TriePatternMatchedCallback<T> callback) {
+    synchronized void addPattern(@NonNull T pattern, int patternLength, @Nullable TriePatternMatchedCallback<T> callback) {
         if (patternLength == 0) return; // Nothing to match
 
         patterns.add(pattern);
+        triePatterns.add(new TriePattern<>(pattern, patternLength, callback));
         root.addPattern(pattern, 0, patternLength, callback);
+        automaton = null;
+    }
+
+    /**
+     * Switches this search to use an Aho-Corasick automaton, and builds the automaton now.
+     * <p>
+     * Searching then finds all patterns in a single pass of the search text,
+     * instead of restarting the prefix tree search at every index of the text.
+     * Matches are found in the order of where they end in the search text,
+     * and not where they start.
+     * <p>
+     * This should be called after all patterns are added.
+     * Patterns can still be added afterward,
+     * but the automaton is then rebuilt on the next search.
+     */
+    public final void buildAutomaton() {
+        useAutomaton = true;
+        getAutomaton();
+    }
+
+    private synchronized AhoCorasickAutomaton<T> getAutomaton() {
+        AhoCorasickAutomaton<T> search = automaton;
+        if (search == null) {
+            search = new AhoCorasickAutomaton<>(root, triePatterns);
+            automaton = search; // Must set after initialization finishes.
+        }
+        return search;
     }
 
     public final boolean matches(@NonNull T textToSearch) {
@@ -387,6 +669,13 @@ public abstract class TrieSearch<T> {
         if (patterns.isEmpty()) {
             return false; // No patterns were added.
         }
+        if (useAutomaton) {
+            AhoCorasickAutomaton<T> search = automaton;
+            if (search == null) {
+                search = getAutomaton(); // Lazy load after patterns were added.
+            }
+            return search.matches(textToSearch, startIndex, endIndex, callbackParameter);
+        }
         for (int i = startIndex; i < endIndex; i++) {
             if (TrieNode.matches(root, textToSearch, i, endIndex, callbackParameter)) return true;
         }
@@ -403,7 +692,12 @@ public abstract class TrieSearch<T> {
         // Assume the device has less than 32GB of ram (and can use pointer compression),
         // or the device is 32-bit.
         final int numberOfBytesPerPointer = 4;
-        return (int) Math.ceil((numberOfBytesPerPointer * root.estimatedNumberOfPointersUsed()) / 1024.0);
+        int numberOfPointers = root.estimatedNumberOfPointersUsed();
+        AhoCorasickAutomaton<T> search = automaton;
+        if (search != null) {
+            numberOfPointers += search.estimatedNumberOfPointersUsed();
+        }
+        return (int) Math.ceil((numberOfBytesPerPointer * numberOfPointers) / 1024.0);
     }
 
     public int numberOfPatterns() {
@@ -38,9 +38,6 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import app.revanced.integrations.shared.settings.BooleanSetting;
 import kotlin.text.Regex;
@@ -117,28 +114,22 @@ public class Utils {
     }
 
     /**
-     * General purpose pool for network calls and other background tasks.
-     * All tasks run at max thread priority.
+     * Runs a network call or other task the UI is waiting on.
+     * The task must not block on other tasks started with this method.
+     * Use {@link TaskScheduler} for prefetches and fire and forget tasks.
      */
-    private static final ThreadPoolExecutor backgroundThreadPool = new ThreadPoolExecutor(
-            3, // 3 threads always ready to go
-            Integer.MAX_VALUE,
-            10, // For any threads over the minimum, keep them alive 10 seconds after they go idle
-            TimeUnit.SECONDS,
-            new SynchronousQueue<>(),
-            r -> { // ThreadFactory
-                Thread t = new Thread(r);
-                t.setPriority(Thread.MAX_PRIORITY); // run at max priority
-                return t;
-            });
-
     public static void runOnBackgroundThread(@NonNull Runnable task) {
-        backgroundThreadPool.execute(task);
+        TaskScheduler.run(TaskScheduler.Lane.INTERACTIVE, task);
     }
 
+    /**
+     * Runs a network call or other task the UI is waiting on.
+     * The task must not block on other tasks started with this method.
+     * Use {@link TaskScheduler} for prefetches and fire and forget tasks.
+     */
     @NonNull
     public static <T> Future<T> submitOnBackgroundThread(@NonNull Callable<T> call) {
-        return backgroundThreadPool.submit(call);
+        return TaskScheduler.submit(TaskScheduler.Lane.INTERACTIVE, call);
     }
 
 
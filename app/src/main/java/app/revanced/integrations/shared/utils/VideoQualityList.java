@@ -0,0 +1,118 @@
+package app.revanced.integrations.shared.utils;
+
+import androidx.annotation.NonNull;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Video qualities available for the current video, read from the obfuscated stream quality objects.
+ * <p>
+ * The quality fields of each obfuscated class are found once and reused,
+ * instead of searching all fields of each quality object every time the list changes.
+ * <p>
+ * This class is immutable and thread safe.
+ */
+public final class VideoQualityList {
+
+    /**
+     * Map of stream quality class -> public int fields with an obfuscated name.
+     * Each app version has a single stream quality class, so this map stays small.
+     */
+    private static final Map<Class<?>, Field[]> qualityFields = new ConcurrentHashMap<>();
+
+    /**
+     * First quality of the list, which is the 'automatic' quality of -2.
+     */
+    private final int firstQuality;
+
+    /**
+     * All qualities, in ascending order.
+     */
+    @NonNull
+    private final int[] sortedQualities;
+
+    /**
+     * Number of stream quality objects the qualities were read from.
+     */
+    private final int streamQualityCount;
+
+    private VideoQualityList(int firstQuality, @NonNull int[] sortedQualities, int streamQualityCount) {
+        this.firstQuality = firstQuality;
+        this.sortedQualities = sortedQualities;
+        this.streamQualityCount = streamQualityCount;
+    }
+
+    /**
+     * @param streamQualities Video qualities available, ordered from largest to smallest,
+     *                        with index 0 being the 'automatic' value of -2.
+     */
+    @NonNull
+    public static VideoQualityList fromStreamQualities(@NonNull Object[] streamQualities) throws IllegalAccessException {
+        int[] qualities = new int[streamQualities.length];
+        int count = 0;
+        for (Object streamQuality : streamQualities) {
+            for (Field field : getQualityFields(streamQuality.getClass())) {
+                if (count == qualities.length) {
+                    qualities = Arrays.copyOf(qualities, 2 * count);
+                }
+                qualities[count++] = field.getInt(streamQuality);
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("No qualities found");
+        }
+
+        final int firstQuality = qualities[0];
+        int[] sortedQualities = Arrays.copyOf(qualities, count);
+        Arrays.sort(sortedQualities);
+        return new VideoQualityList(firstQuality, sortedQualities, streamQualities.length);
+    }
+
+    @NonNull
+    private static Field[] getQualityFields(@NonNull Class<?> streamQualityClass) {
+        Field[] fields = qualityFields.get(streamQualityClass);
+        if (fields == null) {
+            List<Field> found = new ArrayList<>();
+            for (Field field : streamQualityClass.getFields()) {
+                if (field.getType() == Integer.TYPE && field.getName().length() <= 2) {
+                    found.add(field);
+                }
+            }
+            fields = found.toArray(new Field[0]);
+            qualityFields.put(streamQualityClass, fields);
+        }
+        return fields;
+    }
+
+    /**
+     * @return If this list was read from a different number of stream qualities.
+     */
+    public boolean isDifferentSize(@NonNull Object[] streamQualities) {
+        return streamQualityCount != streamQualities.length;
+    }
+
+    /**
+     * @return The highest quality that is not higher than the preferred quality,
+     * or the first quality of the list if all qualities are higher.
+     */
+    public int getAvailableQuality(int preferredQuality) {
+        int index = Arrays.binarySearch(sortedQualities, preferredQuality);
+        if (index < 0) {
+            index = -index - 2; // Index of the highest quality lower than the preferred quality.
+        }
+        return index < 0
+                ? firstQuality
+                : Math.max(firstQuality, sortedQualities[index]);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return Arrays.toString(sortedQualities);
+    }
+}
@@ -8,6 +8,7 @@ import static app.revanced.integrations.youtube.settings.Settings.ALT_THUMBNAIL_
 import static app.revanced.integrations.youtube.settings.Settings.ALT_THUMBNAIL_SUBSCRIPTIONS;
 import static app.revanced.integrations.youtube.shared.NavigationBar.NavigationButton;
 
+import android.content.Context;
 import android.net.Uri;
 
 import androidx.annotation.GuardedBy;
@@ -18,17 +19,30 @@ import org.chromium.net.UrlRequest;
 import org.chromium.net.UrlResponseInfo;
 import org.chromium.net.impl.CronetUrlRequest;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import app.revanced.integrations.shared.settings.Setting;
+import app.revanced.integrations.shared.utils.AppendOnlyRecordFile;
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.RootView;
@@ -498,6 +512,9 @@ public final class AlternativeThumbnailsPatch {
     /**
      * Uses HTTP HEAD requests to verify and keep track of which thumbnail sizes
      * are available and not available.
+     * <p>
+     * Verified qualities are saved to a file in the app cache directory,
+     * so thumbnails verified before an app restart are not verified again.
      */
     private static class VerifiedQualities {
         /**
@@ -507,21 +524,116 @@ public final class AlternativeThumbnailsPatch {
          */
         private static final long NOT_AVAILABLE_TIMEOUT_MILLISECONDS = 10 * 60 * 1000; // 10 minutes.
 
+        /**
+         * How long a saved video is used after it was last verified.
+         */
+        private static final long SAVED_VERIFICATION_TIMEOUT_MILLISECONDS = 7L * 24 * 60 * 60 * 1000; // 7 days.
+
+        /**
+         * Maximum time to block the image loader thread waiting for a verification.
+         * If the verification takes longer, then the original thumbnail is used
+         * and the alt thumbnail is used the next time the thumbnail is loaded.
+         */
+        private static final long MAX_MILLISECONDS_TO_WAIT_FOR_VERIFICATION = 1000;
+
+        /**
+         * How long after a change the verified qualities are saved.
+         * Scrolling a feed verifies many thumbnails, and these are saved together.
+         */
+        private static final long SAVE_DELAY_MILLISECONDS = 10 * 1000;
+
+        private static final String FILE_NAME = "revanced_alt_thumbnail_qualities.bin";
+
+        /**
+         * File header. Must be changed if the record format or {@link ThumbnailQuality} changes.
+         */
+        private static final int FILE_HEADER = 0x41545102; // 'ATQ' and version 2.
+
+        private static final int CACHE_LIMIT = 1000;
+
         /**
          * Cache used to verify if an alternative thumbnails exists for a given video id.
          */
         @GuardedBy("itself")
         private static final Map<String, VerifiedQualities> altVideoIdLookup = new LinkedHashMap<>(100) {
-            private static final int CACHE_LIMIT = 1000;
-
             @Override
             protected boolean removeEldestEntry(Entry eldest) {
                 return size() > CACHE_LIMIT; // Evict the oldest entry if over the cache limit.
             }
         };
 
+        @GuardedBy("altVideoIdLookup")
+        private static boolean loaded;
+
+        /**
+         * Saved qualities file, or null if the cache directory is not available.
+         */
+        @GuardedBy("altVideoIdLookup")
+        @Nullable
+        private static AppendOnlyRecordFile<SavedQualities> storeFile;
+
+        /**
+         * Videos verified since the last save.
+         */
+        private static final Set<String> unsavedVideoIds = ConcurrentHashMap.newKeySet();
+
+        private static final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+        /**
+         * Verified qualities of a video, as saved in the file.
+         * A later record of the same video replaces the earlier record.
+         */
+        private static final class SavedQualities {
+            @NonNull
+            final String videoId;
+            final int highestOrdinal;
+            final int lowestOrdinal;
+            final long timeToReVerify;
+            final long timeLastVerified;
+
+            SavedQualities(@NonNull String videoId, int highestOrdinal, int lowestOrdinal,
+                           long timeToReVerify, long timeLastVerified) {
+                this.videoId = videoId;
+                this.highestOrdinal = highestOrdinal;
+                this.lowestOrdinal = lowestOrdinal;
+                this.timeToReVerify = timeToReVerify;
+                this.timeLastVerified = timeLastVerified;
+            }
+
+            VerifiedQualities toVerifiedQualities() {
+                ThumbnailQuality[] qualities = ThumbnailQuality.values();
+                VerifiedQualities verified = new VerifiedQualities();
+                verified.highestQualityVerified = highestOrdinal < 0 ? null : qualities[highestOrdinal];
+                verified.lowestQualityNotAvailable = lowestOrdinal < 0 ? null : qualities[lowestOrdinal];
+                verified.timeToReVerifyLowestQuality = timeToReVerify;
+                verified.timeLastVerified = timeLastVerified;
+                return verified;
+            }
+
+            void write(DataOutputStream out) throws IOException {
+                out.writeUTF(videoId);
+                out.writeByte(highestOrdinal);
+                out.writeByte(lowestOrdinal);
+                out.writeLong(timeToReVerify);
+                out.writeLong(timeLastVerified);
+            }
+
+            static SavedQualities read(DataInputStream in) throws IOException {
+                String videoId = in.readUTF();
+                final int highestOrdinal = in.readByte();
+                final int lowestOrdinal = in.readByte();
+                final int qualityCount = ThumbnailQuality.values().length;
+                if (highestOrdinal >= qualityCount || lowestOrdinal >= qualityCount) {
+                    throw new IOException("Unknown thumbnail quality");
+                }
+                return new SavedQualities(videoId, highestOrdinal, lowestOrdinal, in.readLong(), in.readLong());
+            }
+        }
+
         private static VerifiedQualities getVerifiedQualities(@NonNull String videoId, boolean returnNullIfDoesNotExist) {
             synchronized (altVideoIdLookup) {
+                loadIfNeeded();
+
                 VerifiedQualities verified = altVideoIdLookup.get(videoId);
                 if (verified == null) {
                     if (returnNullIfDoesNotExist) {
@@ -547,23 +659,104 @@ public final class AlternativeThumbnailsPatch {
             verified.setQualityVerified(videoId, quality, false);
         }
 
+        @GuardedBy("altVideoIdLookup")
+        private static void loadIfNeeded() {
+            if (loaded) return;
+            loaded = true;
+
+            Context context = Utils.getContext();
+            if (context == null) return;
+            storeFile = new AppendOnlyRecordFile<>(new File(context.getCacheDir(), FILE_NAME),
+                    FILE_HEADER, "saved thumbnail qualities", SavedQualities::read, SavedQualities::write);
+
+            final long now = System.currentTimeMillis();
+            final boolean fileIsValid = storeFile.read(saved -> {
+                if (now - saved.timeLastVerified > SAVED_VERIFICATION_TIMEOUT_MILLISECONDS) {
+                    altVideoIdLookup.remove(saved.videoId);
+                } else {
+                    altVideoIdLookup.put(saved.videoId, saved.toVerifiedQualities());
+                }
+            });
+            Logger.printDebug(() -> "Loaded " + altVideoIdLookup.size() + " saved thumbnail qualities");
+
+            if (!fileIsValid) {
+                // Do not append after a partial record or an unknown file version.
+                storeFile.rewrite(getAllSavedQualities());
+            }
+        }
+
+        @GuardedBy("altVideoIdLookup")
+        private static List<SavedQualities> getAllSavedQualities() {
+            List<SavedQualities> saved = new ArrayList<>(altVideoIdLookup.size());
+            for (Map.Entry<String, VerifiedQualities> entry : altVideoIdLookup.entrySet()) {
+                saved.add(entry.getValue().toSavedQualities(entry.getKey()));
+            }
+            return saved;
+        }
+
+        private static void scheduleSave(@NonNull String videoId) {
+            unsavedVideoIds.add(videoId);
+            if (saveScheduled.compareAndSet(false, true)) {
+                // If the save is dropped, the next verification schedules it again.
+                Utils.runOnMainThreadDelayed(() -> TaskScheduler.run(TaskScheduler.Lane.BACKGROUND,
+                        VerifiedQualities::save, () -> saveScheduled.set(false)), SAVE_DELAY_MILLISECONDS);
+            }
+        }
+
+        /**
+         * Appends the qualities changed since the last save to the file.
+         */
+        private static void save() {
+            saveScheduled.set(false);
+
+            synchronized (altVideoIdLookup) {
+                List<SavedQualities> changed = new ArrayList<>();
+                for (Iterator<String> iterator = unsavedVideoIds.iterator(); iterator.hasNext(); ) {
+                    String videoId = iterator.next();
+                    iterator.remove();
+                    VerifiedQualities verified = altVideoIdLookup.get(videoId);
+                    if (verified != null) { // Can be evicted before it's saved.
+                        changed.add(verified.toSavedQualities(videoId));
+                    }
+                }
+                if (storeFile == null || changed.isEmpty()) {
+                    return;
+                }
+
+                if (storeFile.shouldRewrite(altVideoIdLookup.size(), changed.size(), CACHE_LIMIT)) {
+                    storeFile.rewrite(getAllSavedQualities());
+                } else {
+                    storeFile.append(changed);
+                }
+            }
+        }
+
         /**
          * Highest quality verified as existing.
          */
         @Nullable
+        @GuardedBy("this")
         private ThumbnailQuality highestQualityVerified;
         /**
          * Lowest quality verified as not existing.
          */
         @Nullable
+        @GuardedBy("this")
         private ThumbnailQuality lowestQualityNotAvailable;
 
         /**
          * System time, of when to invalidate {@link #lowestQualityNotAvailable}.
          * Used only if fast mode is not enabled.
          */
+        @GuardedBy("this")
         private long timeToReVerifyLowestQuality;
 
+        /**
+         * System time of the last verification.
+         */
+        @GuardedBy("this")
+        private long timeLastVerified;
+
         private synchronized void setQualityVerified(String videoId, ThumbnailQuality quality, boolean isVerified) {
             if (isVerified) {
                 if (highestQualityVerified == null || highestQualityVerified.ordinal() < quality.ordinal()) {
@@ -576,13 +769,22 @@ public final class AlternativeThumbnailsPatch {
                 }
                 Logger.printDebug(() -> quality + " not available for video: " + videoId);
             }
+            timeLastVerified = System.currentTimeMillis();
+            scheduleSave(videoId);
+        }
+
+        private synchronized SavedQualities toSavedQualities(@NonNull String videoId) {
+            return new SavedQualities(videoId,
+                    highestQualityVerified == null ? -1 : highestQualityVerified.ordinal(),
+                    lowestQualityNotAvailable == null ? -1 : lowestQualityNotAvailable.ordinal(),
+                    timeToReVerifyLowestQuality, timeLastVerified);
         }
 
         /**
-         * Verify if a video alt thumbnail exists.  Does so by making a minimal HEAD http request.
+         * @return If the verification result is already known, then the result. Otherwise null.
          */
-        synchronized boolean verifyYouTubeThumbnailExists(@NonNull String videoId, @NonNull ThumbnailQuality quality,
-                                                          @NonNull String imageUrl) {
+        @Nullable
+        private synchronized Boolean getKnownResult(@NonNull String videoId, @NonNull ThumbnailQuality quality) {
             if (highestQualityVerified != null && highestQualityVerified.ordinal() >= quality.ordinal()) {
                 return true; // Previously verified as existing.
             }
@@ -600,39 +802,33 @@ public final class AlternativeThumbnailsPatch {
             if (fastQuality) {
                 return true; // Unknown if it exists or not.  Use the URL anyways and update afterwards if loading fails.
             }
+            return null;
+        }
+
+        /**
+         * Verify if a video alt thumbnail exists.  Does so by making a minimal HEAD http request.
+         * Waits for the verification for at most {@link #MAX_MILLISECONDS_TO_WAIT_FOR_VERIFICATION}.
+         */
+        boolean verifyYouTubeThumbnailExists(@NonNull String videoId, @NonNull ThumbnailQuality quality,
+                                             @NonNull String imageUrl) {
+            Boolean knownResult = getKnownResult(videoId, quality);
+            if (knownResult != null) {
+                return knownResult;
+            }
 
-            boolean imageFileFound;
+            // The result is saved when the verification completes, even if it takes too long to wait for it here.
+            Future<Boolean> verification = ThumbnailVerificationQueue.verify(imageUrl,
+                    imageFileFound -> setQualityVerified(videoId, quality, imageFileFound));
             try {
-                // This hooked code is running on a low priority thread, and it's slightly faster
-                // to run the url connection thru the integrations thread pool which runs at the highest priority.
-                final long start = System.currentTimeMillis();
-                imageFileFound = Utils.submitOnBackgroundThread(() -> {
-                    final int connectionTimeoutMillis = 10000; // 10 seconds.
-                    HttpURLConnection connection = (HttpURLConnection) new URL(imageUrl).openConnection();
-                    connection.setConnectTimeout(connectionTimeoutMillis);
-                    connection.setReadTimeout(connectionTimeoutMillis);
-                    connection.setRequestMethod("HEAD");
-                    // Even with a HEAD request, the response is the same size as a full GET request.
-                    // Using an empty range fixes this.
-                    connection.setRequestProperty("Range", "bytes=0-0");
-                    final int responseCode = connection.getResponseCode();
-                    if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
-                        String contentType = connection.getContentType();
-                        return (contentType != null && contentType.startsWith("image"));
-                    }
-                    if (responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
-                        Logger.printDebug(() -> "Unexpected response code: " + responseCode + " for url: " + imageUrl);
-                    }
-                    return false;
-                }).get();
-                Logger.printDebug(() -> "Verification took: " + (System.currentTimeMillis() - start) + "ms for image: " + imageUrl);
+                return verification.get(MAX_MILLISECONDS_TO_WAIT_FOR_VERIFICATION, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                Logger.printDebug(() -> "Verification is taking too long, using original thumbnail for: " + videoId);
+            } catch (CancellationException ex) {
+                Logger.printDebug(() -> "Verification was dropped for: " + videoId);
             } catch (ExecutionException | InterruptedException ex) {
                 Logger.printInfo(() -> "Could not verify alt url: " + imageUrl, ex);
-                imageFileFound = false;
             }
-
-            setQualityVerified(videoId, quality, imageFileFound);
-            return imageFileFound;
+            return false;
         }
     }
 
@@ -0,0 +1,180 @@
+package app.revanced.integrations.youtube.patches.alternativethumbnails;
+
+import android.net.Uri;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
+
+/**
+ * Verifies if thumbnail images exist, using HTTP HEAD requests.
+ * <p>
+ * Scrolling a feed requests the thumbnails of all visible videos at once.
+ * Instead of starting a connection for each thumbnail, the requests are queued by host,
+ * and only a few requests run at the same time for each host.
+ * Each running request then takes the next queued request of the same host,
+ * so the requests reuse the same keep alive connections.
+ * The most recently queued request runs first, since older requests
+ * are likely for thumbnails already scrolled off screen.
+ * <p>
+ * Requests for a url already queued or running are coalesced into the same request.
+ * <p>
+ * This class is thread safe.
+ */
+final class ThumbnailVerificationQueue {
+
+    /**
+     * Maximum number of requests running at the same time for each host.
+     */
+    private static final int MAXIMUM_CONCURRENT_REQUESTS_PER_HOST = 4;
+
+    /**
+     * Maximum number of queued requests for each host.
+     * If more are queued, then the oldest request is dropped and reported as not verified.
+     */
+    private static final int MAXIMUM_QUEUED_REQUESTS_PER_HOST = 100;
+
+    private static final int CONNECTION_TIMEOUT_MILLISECONDS = 10000; // 10 seconds.
+
+    private static final class HostQueue {
+        final Deque<Verification> queued = new ArrayDeque<>();
+        int running;
+    }
+
+    private static final class Verification extends FutureTask<Boolean> {
+        @NonNull
+        final String imageUrl;
+        @NonNull
+        final String host;
+
+        Verification(@NonNull String imageUrl, @NonNull String host, @NonNull Consumer<Boolean> onResult) {
+            super(() -> {
+                final boolean imageFileFound = sendHeadRequest(imageUrl);
+                onResult.accept(imageFileFound);
+                return imageFileFound;
+            });
+            this.imageUrl = imageUrl;
+            this.host = host;
+        }
+    }
+
+    /**
+     * Queued and running verifications, keyed by the image url.
+     */
+    @GuardedBy("ThumbnailVerificationQueue.class")
+    private static final Map<String, Verification> verifications = new HashMap<>();
+
+    @GuardedBy("ThumbnailVerificationQueue.class")
+    private static final Map<String, HostQueue> hostQueues = new HashMap<>();
+
+    private ThumbnailVerificationQueue() {
+    }
+
+    /**
+     * @param onResult Called with the result, before the future completes.
+     *                 Not called if another verification of the same url is already queued or running.
+     * @return Future of the verification, which is true if the image exists.
+     */
+    @NonNull
+    static Future<Boolean> verify(@NonNull String imageUrl, @NonNull Consumer<Boolean> onResult) {
+        String host = Uri.parse(imageUrl).getHost();
+        if (host == null) host = "";
+
+        synchronized (ThumbnailVerificationQueue.class) {
+            Verification existing = verifications.get(imageUrl);
+            if (existing != null) {
+                return existing;
+            }
+
+            Verification verification = new Verification(imageUrl, host, onResult);
+            verifications.put(imageUrl, verification);
+
+            HostQueue hostQueue = hostQueues.get(host);
+            if (hostQueue == null) {
+                hostQueue = new HostQueue();
+                hostQueues.put(host, hostQueue);
+            }
+            hostQueue.queued.addLast(verification);
+            if (hostQueue.queued.size() > MAXIMUM_QUEUED_REQUESTS_PER_HOST) {
+                Verification dropped = hostQueue.queued.removeFirst();
+                verifications.remove(dropped.imageUrl);
+                dropped.cancel(false);
+            }
+
+            if (hostQueue.running < MAXIMUM_CONCURRENT_REQUESTS_PER_HOST) {
+                hostQueue.running++;
+                final String runningHost = host;
+                TaskScheduler.run(TaskScheduler.Lane.VERIFICATION, () -> runQueuedVerifications(runningHost));
+            }
+            return verification;
+        }
+    }
+
+    /**
+     * Runs the queued verifications of the host, until none are left.
+     */
+    private static void runQueuedVerifications(@NonNull String host) {
+        while (true) {
+            Verification verification;
+            synchronized (ThumbnailVerificationQueue.class) {
+                HostQueue hostQueue = hostQueues.get(host);
+                //noinspection ConstantConditions
+                verification = hostQueue.queued.pollLast();
+                if (verification == null) {
+                    hostQueue.running--;
+                    if (hostQueue.running == 0) {
+                        hostQueues.remove(host);
+                    }
+                    return;
+                }
+            }
+
+            try {
+                verification.run();
+            } finally {
+                synchronized (ThumbnailVerificationQueue.class) {
+                    verifications.remove(verification.imageUrl, verification);
+                }
+            }
+        }
+    }
+
+    private static boolean sendHeadRequest(@NonNull String imageUrl) {
+        final long start = System.currentTimeMillis();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(imageUrl).openConnection();
+            connection.setConnectTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
+            connection.setReadTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
+            connection.setRequestMethod("HEAD");
+            // Even with a HEAD request, the response is the same size as a full GET request.
+            // Using an empty range fixes this.
+            connection.setRequestProperty("Range", "bytes=0-0");
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+                String contentType = connection.getContentType();
+                return (contentType != null && contentType.startsWith("image"));
+            }
+            if (responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
+                Logger.printDebug(() -> "Unexpected response code: " + responseCode + " for url: " + imageUrl);
+            }
+            return false;
+        } catch (Exception ex) {
+            Logger.printInfo(() -> "Could not verify alt url: " + imageUrl, ex);
+            return false;
+        } finally {
+            Logger.printDebug(() -> "Verification took: " + (System.currentTimeMillis() - start) + "ms for image: " + imageUrl);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupList;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.youtube.settings.Settings;
 
 @SuppressWarnings("unused")
@@ -93,7 +94,7 @@ public final class ActionButtonsFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (!path.startsWith(VIDEO_ACTION_BAR_PATH_PREFIX)) {
             return false;
@@ -108,11 +109,11 @@ public final class ActionButtonsFilter extends Filter {
         }
         if (matchedGroup == bufferFilterPathRule) {
             // In case the group list has no match, return false.
-            if (!bufferButtonsGroupList.check(protobufBufferArray).isFiltered()) {
+            if (!bufferButtonsGroupList.check(protobufBuffer).isFiltered()) {
                 return false;
             }
         }
 
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
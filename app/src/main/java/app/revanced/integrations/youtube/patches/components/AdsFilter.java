@@ -5,6 +5,7 @@ import androidx.annotation.Nullable;
 import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.youtube.settings.Settings;
 
 /**
@@ -147,14 +148,14 @@ public final class AdsFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (matchedGroup == playerShoppingShelf) {
-            if (contentIndex == 0 && playerShoppingShelfBuffer.check(protobufBufferArray).isFiltered()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            if (contentIndex == 0 && playerShoppingShelfBuffer.check(protobufBuffer).isFiltered()) {
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
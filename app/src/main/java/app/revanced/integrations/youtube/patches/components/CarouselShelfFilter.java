@@ -7,6 +7,7 @@ import java.util.stream.Stream;
 
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
 import app.revanced.integrations.youtube.settings.Settings;
@@ -72,7 +73,13 @@ public final class CarouselShelfFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the selected navigation tab and the player and search bar state.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (exceptions.matches(path)) {
             return false;
@@ -90,6 +97,6 @@ public final class CarouselShelfFilter extends Filter {
         if (!hideShelves) {
             return false;
         }
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
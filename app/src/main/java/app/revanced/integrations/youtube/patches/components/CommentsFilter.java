@@ -6,6 +6,7 @@ import java.util.regex.Pattern;
 
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
 import app.revanced.integrations.youtube.settings.Settings;
 
@@ -27,6 +28,7 @@ public final class CommentsFilter extends Filter {
 
     public CommentsFilter() {
         exceptions.addPatterns("macro_markers_list_item");
+        addVerdictSettings(Settings.HIDE_COMMENTS_SECTION, Settings.HIDE_COMMENTS_SECTION_IN_HOME_FEED);
 
         final StringFilterGroup channelGuidelines = new StringFilterGroup(
                 Settings.HIDE_CHANNEL_GUIDELINES,
@@ -96,38 +98,38 @@ public final class CommentsFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (exceptions.matches(path))
             return false;
 
         if (matchedGroup == createShorts || matchedGroup == thanks || matchedGroup == timeStampAndEmojiPicker) {
             if (path.startsWith(COMMENT_COMPOSER_PATH)) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         } else if (matchedGroup == comments) {
             if (path.startsWith(FEED_VIDEO_PATH)) {
                 if (Settings.HIDE_COMMENTS_SECTION_IN_HOME_FEED.get()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 }
                 return false;
             } else if (Settings.HIDE_COMMENTS_SECTION.get()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         } else if (matchedGroup == commentsPreviewDots) {
             if (path.startsWith(VIDEO_METADATA_CAROUSEL_PATH)) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         } else if (matchedGroup == previewCommentText) {
             if (COMMENT_PREVIEW_TEXT_PATTERN.matcher(path).find()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
 
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
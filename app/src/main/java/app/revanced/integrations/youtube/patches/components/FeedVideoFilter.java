@@ -7,6 +7,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupL
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
 import app.revanced.integrations.shared.patches.components.StringFilterGroupList;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.RootView;
@@ -71,26 +72,32 @@ public final class FeedVideoFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the search bar state.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (matchedGroup == inlineShorts) {
             if (RootView.isSearchBarActive()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         } else if (matchedGroup == videoLockup) {
-            if (relatedVideo.check(protobufBufferArray).isFiltered()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            if (relatedVideo.check(protobufBuffer).isFiltered()) {
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             if (feedOnlyVideoPattern.matches(allValue)) {
-                if (feedOnlyGroupList.check(protobufBufferArray).isFiltered()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                if (feedOnlyGroupList.check(protobufBuffer).isFiltered()) {
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 } else if (videoLockupFilterGroup.check(allValue).isFiltered()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 }
             } else {
-                if (feedAndDrawerGroupList.check(protobufBufferArray).isFiltered()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                if (feedAndDrawerGroupList.check(protobufBuffer).isFiltered()) {
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 }
             }
         }
@@ -3,12 +3,17 @@ package app.revanced.integrations.youtube.patches.components;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.settings.DerivedSetting;
+import app.revanced.integrations.shared.utils.ByteBufferView;
+import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.NavigationBar;
 import app.revanced.integrations.youtube.shared.RootView;
@@ -60,40 +65,68 @@ public final class FeedVideoViewsFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the selected navigation tab and the search bar state.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (hideFeedVideoViewsSettingIsActive() &&
-                filterByViews(protobufBufferArray)) {
-            return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                filterByViews(protobufBuffer)) {
+            return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
         }
 
         return false;
     }
 
-    private final String ARROW = " -> ";
-    private final String VIEWS = "views";
-    private final String[] parts = Settings.HIDE_VIDEO_VIEW_COUNTS_MULTIPLIER.get().split("\\n");
-    private Pattern[] viewCountPatterns = null;
+    private static final String ARROW = " -> ";
+    private static final String VIEWS = "views";
+
+    /**
+     * Number with a dot (.) kilo separator.
+     */
+    private static final Pattern KILO_SEPARATOR_PATTERN = Pattern.compile("\\d+\\.\\d{3,}");
+
+    /**
+     * View count patterns and multipliers, parsed from {@link Settings#HIDE_VIDEO_VIEW_COUNTS_MULTIPLIER}.
+     */
+    private static final class ViewCountParser {
+        final Pattern[] patterns;
+        /**
+         * Map of multiplier key -> multiplier value.
+         */
+        final Map<String, Long> multipliers;
+
+        ViewCountParser(String[] parts) {
+            patterns = getViewCountPatterns(parts);
+            multipliers = getMultiplierValues(parts);
+        }
+    }
+
+    private final DerivedSetting<ViewCountParser> viewCountParser = new DerivedSetting<>(
+            () -> new ViewCountParser(Settings.HIDE_VIDEO_VIEW_COUNTS_MULTIPLIER.get().split("\\n")),
+            Settings.HIDE_VIDEO_VIEW_COUNTS_MULTIPLIER
+    );
 
     /**
      * Hide videos based on views count
      */
-    private synchronized boolean filterByViews(byte[] protobufBufferArray) {
-        final String protobufString = new String(protobufBufferArray);
+    private boolean filterByViews(ByteBufferView protobufBuffer) {
+        final String protobufString = protobufBuffer.decodeString();
         final long lessThan = Settings.HIDE_VIDEO_VIEW_COUNTS_LESS_THAN.get();
         final long greaterThan = Settings.HIDE_VIDEO_VIEW_COUNTS_GREATER_THAN.get();
+        final ViewCountParser parser = viewCountParser.get();
 
-        if (viewCountPatterns == null) {
-            viewCountPatterns = getViewCountPatterns(parts);
-        }
-
-        for (Pattern pattern : viewCountPatterns) {
+        for (Pattern pattern : parser.patterns) {
             final Matcher matcher = pattern.matcher(protobufString);
             if (matcher.find()) {
                 String numString = Objects.requireNonNull(matcher.group(1));
                 double num = parseNumber(numString);
                 String multiplierKey = matcher.group(2);
-                long multiplierValue = getMultiplierValue(parts, multiplierKey);
+                Long multiplier = parser.multipliers.get(multiplierKey);
+                long multiplierValue = multiplier == null ? 1L : multiplier; // Default value if not found
                 return num * multiplierValue < lessThan || num * multiplierValue > greaterThan;
             }
         }
@@ -101,7 +134,7 @@ public final class FeedVideoViewsFilter extends Filter {
         return false;
     }
 
-    private synchronized double parseNumber(String numString) {
+    private static double parseNumber(String numString) {
         /**
          * Some languages have comma (,) as a decimal separator.
          * In order to detect those numbers as doubles in Java
@@ -117,14 +150,14 @@ public final class FeedVideoViewsFilter extends Filter {
          * digits after dot (.), we replace it with nothing
          * to make Java understand the number as a whole.
          */
-        if (numString.matches("\\d+\\.\\d{3,}")) {
+        if (KILO_SEPARATOR_PATTERN.matcher(numString).matches()) {
             numString = numString.replace(".", "");
         }
 
         return Double.parseDouble(numString);
     }
 
-    private synchronized Pattern[] getViewCountPatterns(String[] parts) {
+    private static Pattern[] getViewCountPatterns(String[] parts) {
         StringBuilder prefixPatternBuilder = new StringBuilder("(\\d+(?:[.,]\\d+)?)\\s?("); // LTR layout
         StringBuilder secondPatternBuilder = new StringBuilder(); // RTL layout
         StringBuilder suffixBuilder = getSuffixBuilder(parts, prefixPatternBuilder, secondPatternBuilder);
@@ -144,7 +177,7 @@ public final class FeedVideoViewsFilter extends Filter {
     }
 
     @NonNull
-    private synchronized StringBuilder getSuffixBuilder(String[] parts, StringBuilder prefixPatternBuilder, StringBuilder secondPatternBuilder) {
+    private static StringBuilder getSuffixBuilder(String[] parts, StringBuilder prefixPatternBuilder, StringBuilder secondPatternBuilder) {
         StringBuilder suffixBuilder = new StringBuilder();
 
         for (String part : parts) {
@@ -164,17 +197,23 @@ public final class FeedVideoViewsFilter extends Filter {
         return suffixBuilder;
     }
 
-    private synchronized long getMultiplierValue(String[] parts, String multiplier) {
+    private static Map<String, Long> getMultiplierValues(String[] parts) {
+        Map<String, Long> multipliers = new HashMap<>();
+
         for (String part : parts) {
             final String[] pair = part.split(ARROW);
             final String pair0 = pair[0].trim();
             final String pair1 = pair[1].trim();
 
-            if (pair.length == 2 && pair0.equals(multiplier) && !pair1.equals(VIEWS)) {
-                return Long.parseLong(pair[1].replaceAll("[^\\d]", ""));
+            if (pair.length == 2 && !pair1.equals(VIEWS) && !multipliers.containsKey(pair0)) {
+                try {
+                    multipliers.put(pair0, Long.parseLong(pair[1].replaceAll("[^\\d]", "")));
+                } catch (NumberFormatException ex) {
+                    Logger.printDebug(() -> "Invalid view count multiplier: " + part);
+                }
             }
         }
 
-        return 1L; // Default value if not found
+        return multipliers;
     }
 }
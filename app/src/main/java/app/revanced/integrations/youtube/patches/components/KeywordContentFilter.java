@@ -15,16 +15,17 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
 
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
-import app.revanced.integrations.shared.utils.ByteTrieSearch;
+import app.revanced.integrations.shared.settings.DerivedSetting;
+import app.revanced.integrations.shared.utils.ByteBufferView;
+import app.revanced.integrations.shared.utils.CaseInsensitiveUtf8Search;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
-import app.revanced.integrations.shared.utils.TrieSearch;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.RootView;
@@ -42,8 +43,8 @@ import app.revanced.integrations.youtube.shared.RootView;
  * - Some layout component residue will remain, such as the video chapter previews for some search results.
  *   These components do not include the video title or channel name, and they
  *   appear outside the filtered components so they are not caught.
- * - Keywords are case sensitive, but some casing variation is manually added.
- *   (ie: "mr beast" automatically filters "Mr Beast" and "MR BEAST").
+ * - Keywords are not case sensitive (ie: "mr beast" also filters "Mr Beast" and "MR BEAST"),
+ *   but case variations that change the number of characters (such as 'ß' and "SS") are not matched.
  * - Keywords present in the layout or video data cannot be used as filters, otherwise all videos
  *   will always be hidden.  This patch checks for some words of these words.
  * - When using whole word syntax, some keywords may need additional pluralized variations.
@@ -151,8 +152,6 @@ public final class KeywordContentFilter extends Filter {
 
     private static final long ALL_VIDEOS_FILTERED_BACKOFF_MILLISECONDS = 60 * 1000; // 60 seconds
 
-    private static final int UTF8_MAX_BYTE_COUNT = 4;
-
     /**
      * Rolling average of how many videos were filtered by a keyword.
      * Used to detect if a keyword passes the initial check against {@link #STRINGS_IN_EVERY_BUFFER}
@@ -179,13 +178,11 @@ public final class KeywordContentFilter extends Filter {
     private final StringTrieSearch commentsFilterExceptions = new StringTrieSearch();
 
     /**
-     * The last value of {@link Settings#HIDE_KEYWORD_CONTENT_PHRASES}
-     * parsed and loaded into {@link #bufferSearch}.
+     * Search of {@link Settings#HIDE_KEYWORD_CONTENT_PHRASES}, parsed again when the keywords are changed.
      * Allows changing the keywords without restarting the app.
      */
-    private volatile String lastKeywordPhrasesParsed;
-
-    private volatile ByteTrieSearch bufferSearch;
+    private final DerivedSetting<CaseInsensitiveUtf8Search> bufferSearch = new DerivedSetting<>(
+            this::parseKeywords, Settings.HIDE_KEYWORD_CONTENT_PHRASES);
 
     private static void logNavigationState(String state) {
         // Enable locally to debug filtering. Default off to reduce log spam.
@@ -196,45 +193,6 @@ public final class KeywordContentFilter extends Filter {
         }
     }
 
-    /**
-     * Change first letter of the first word to use title case.
-     */
-    private static String titleCaseFirstWordOnly(String sentence) {
-        if (sentence.isEmpty()) {
-            return sentence;
-        }
-        final int firstCodePoint = sentence.codePointAt(0);
-        // In some non English languages title case is different than uppercase.
-        return new StringBuilder()
-                .appendCodePoint(Character.toTitleCase(firstCodePoint))
-                .append(sentence, Character.charCount(firstCodePoint), sentence.length())
-                .toString();
-    }
-
-    /**
-     * Uppercase the first letter of each word.
-     */
-    private static String capitalizeAllFirstLetters(String sentence) {
-        if (sentence.isEmpty()) {
-            return sentence;
-        }
-
-        final int delimiter = ' ';
-        // Use code points and not characters to handle unicode surrogates.
-        int[] codePoints = sentence.codePoints().toArray();
-        boolean capitalizeNext = true;
-        for (int i = 0, length = codePoints.length; i < length; i++) {
-            final int codePoint = codePoints[i];
-            if (codePoint == delimiter) {
-                capitalizeNext = true;
-            } else if (capitalizeNext) {
-                codePoints[i] = Character.toUpperCase(codePoint);
-                capitalizeNext = false;
-            }
-        }
-        return new String(codePoints, 0, codePoints.length);
-    }
-
     /**
      * @return If the string contains any characters from languages that do not use spaces between words.
      */
@@ -264,25 +222,13 @@ public final class KeywordContentFilter extends Filter {
     /**
      * @return If the phrase will hide all videos. Not an exhaustive check.
      */
-    private static boolean phrasesWillHideAllVideos(@NonNull String[] phrases, boolean matchWholeWords) {
-        for (String phrase : phrases) {
-            for (String commonString : STRINGS_IN_EVERY_BUFFER) {
-                if (matchWholeWords) {
-                    byte[] commonStringBytes = commonString.getBytes(StandardCharsets.UTF_8);
-                    int matchIndex = 0;
-                    while (true) {
-                        matchIndex = commonString.indexOf(phrase, matchIndex);
-                        if (matchIndex < 0) break;
-
-                        if (keywordMatchIsWholeWord(commonStringBytes, matchIndex, phrase.length())) {
-                            return true;
-                        }
-
-                        matchIndex++;
-                    }
-                } else if (Utils.containsAny(commonString, phrases)) {
-                    return true;
-                }
+    private static boolean phraseWillHideAllVideos(@NonNull String phrase, boolean matchWholeWords) {
+        CaseInsensitiveUtf8Search search = new CaseInsensitiveUtf8Search(
+                new String[]{phrase}, new boolean[]{matchWholeWords});
+        for (String commonString : STRINGS_IN_EVERY_BUFFER) {
+            byte[] commonStringBytes = commonString.getBytes(StandardCharsets.UTF_8);
+            if (search.find(commonStringBytes, 0, commonStringBytes.length) != CaseInsensitiveUtf8Search.NOT_FOUND) {
+                return true;
             }
         }
 
@@ -290,104 +236,11 @@ public final class KeywordContentFilter extends Filter {
     }
 
     /**
-     * @return If the start and end indexes are not surrounded by other letters.
-     * If the indexes are surrounded by numbers/symbols/punctuation it is considered a whole word.
-     */
-    private static boolean keywordMatchIsWholeWord(byte[] text, int keywordStartIndex, int keywordLength) {
-        final Integer codePointBefore = getUtf8CodePointBefore(text, keywordStartIndex);
-        if (codePointBefore != null && Character.isLetter(codePointBefore)) {
-            return false;
-        }
-
-        final Integer codePointAfter = getUtf8CodePointAt(text, keywordStartIndex + keywordLength);
-        //noinspection RedundantIfStatement
-        if (codePointAfter != null && Character.isLetter(codePointAfter)) {
-            return false;
-        }
-
-        return true;
-    }
-
-    /**
-     * @return The UTF8 character point immediately before the index,
-     * or null if the bytes before the index is not a valid UTF8 character.
-     */
-    @Nullable
-    private static Integer getUtf8CodePointBefore(byte[] data, int index) {
-        int characterByteCount = 0;
-        while (--index >= 0 && ++characterByteCount <= UTF8_MAX_BYTE_COUNT) {
-            if (isValidUtf8(data, index, characterByteCount)) {
-                return decodeUtf8ToCodePoint(data, index, characterByteCount);
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * @return The UTF8 character point at the index,
-     * or null if the index holds no valid UTF8 character.
+     * @return The phrase with all characters case folded.
      */
-    @Nullable
-    private static Integer getUtf8CodePointAt(byte[] data, int index) {
-        int characterByteCount = 0;
-        final int dataLength = data.length;
-        while (index + characterByteCount < dataLength && ++characterByteCount <= UTF8_MAX_BYTE_COUNT) {
-            if (isValidUtf8(data, index, characterByteCount)) {
-                return decodeUtf8ToCodePoint(data, index, characterByteCount);
-            }
-        }
-
-        return null;
-    }
-
-    public static boolean isValidUtf8(byte[] data, int startIndex, int numberOfBytes) {
-        switch (numberOfBytes) {
-            case 1 -> { // 0xxxxxxx (ASCII)
-                return (data[startIndex] & 0x80) == 0;
-            }
-            case 2 -> { // 110xxxxx, 10xxxxxx
-                return (data[startIndex] & 0xE0) == 0xC0
-                        && (data[startIndex + 1] & 0xC0) == 0x80;
-            }
-            case 3 -> { // 1110xxxx, 10xxxxxx, 10xxxxxx
-                return (data[startIndex] & 0xF0) == 0xE0
-                        && (data[startIndex + 1] & 0xC0) == 0x80
-                        && (data[startIndex + 2] & 0xC0) == 0x80;
-            }
-            case 4 -> { // 11110xxx, 10xxxxxx, 10xxxxxx, 10xxxxxx
-                return (data[startIndex] & 0xF8) == 0xF0
-                        && (data[startIndex + 1] & 0xC0) == 0x80
-                        && (data[startIndex + 2] & 0xC0) == 0x80
-                        && (data[startIndex + 3] & 0xC0) == 0x80;
-            }
-        }
-
-        throw new IllegalArgumentException("numberOfBytes: " + numberOfBytes);
-    }
-
-    public static int decodeUtf8ToCodePoint(byte[] data, int startIndex, int numberOfBytes) {
-        switch (numberOfBytes) {
-            case 1 -> {
-                return data[startIndex];
-            }
-            case 2 -> {
-                return ((data[startIndex] & 0x1F) << 6) |
-                        (data[startIndex + 1] & 0x3F);
-            }
-            case 3 -> {
-                return ((data[startIndex] & 0x0F) << 12) |
-                        ((data[startIndex + 1] & 0x3F) << 6) |
-                        (data[startIndex + 2] & 0x3F);
-            }
-            case 4 -> {
-                return ((data[startIndex] & 0x07) << 18) |
-                        ((data[startIndex + 1] & 0x3F) << 12) |
-                        ((data[startIndex + 2] & 0x3F) << 6) |
-                        (data[startIndex + 3] & 0x3F);
-            }
-        }
-        throw new IllegalArgumentException("numberOfBytes: " + numberOfBytes);
+    private static String foldCase(String phrase) {
+        int[] codePoints = phrase.codePoints().map(CaseInsensitiveUtf8Search::foldCase).toArray();
+        return new String(codePoints, 0, codePoints.length);
     }
 
     private static boolean phraseUsesWholeWordSyntax(String phrase) {
@@ -398,114 +251,77 @@ public final class KeywordContentFilter extends Filter {
         return phrase.substring(1, phrase.length() - 1);
     }
 
-    private synchronized void parseKeywords() { // Must be synchronized since Litho is multi-threaded.
+    private CaseInsensitiveUtf8Search parseKeywords() {
         String rawKeywords = Settings.HIDE_KEYWORD_CONTENT_PHRASES.get();
 
-        //noinspection StringEquality
-        if (rawKeywords == lastKeywordPhrasesParsed) {
-            Logger.printDebug(() -> "Using previously initialized search");
-            return; // Another thread won the race, and search is already initialized.
-        }
-
-        ByteTrieSearch search = new ByteTrieSearch();
         String[] split = rawKeywords.split("\n");
-        if (split.length != 0) {
-            // Linked Set so log statement are more organized and easier to read.
-            // Map is: Phrase -> isWholeWord
-            Map<String, Boolean> keywords = new LinkedHashMap<>(10 * split.length);
-
-            for (String phrase : split) {
-                // Remove any trailing spaces the user may have accidentally included.
-                phrase = phrase.stripTrailing();
-                if (phrase.isBlank()) continue;
-
-                final boolean wholeWordMatching;
-                if (phraseUsesWholeWordSyntax(phrase)) {
-                    if (phrase.length() == 2) {
-                        continue; // Empty "" phrase
-                    }
-                    phrase = stripWholeWordSyntax(phrase);
-                    wholeWordMatching = true;
-                } else if (phrase.length() < MINIMUM_KEYWORD_LENGTH && !isLanguageWithNoSpaces(phrase)) {
-                    // Allow phrases of 1 and 2 characters if using a
-                    // language that does not use spaces between words.
-
-                    // Do not reset the setting. Keep the invalid keywords so the user can fix the mistake.
-                    Utils.showToastLong(str("revanced_hide_keyword_toast_invalid_length", phrase, MINIMUM_KEYWORD_LENGTH));
-                    continue;
-                } else {
-                    wholeWordMatching = false;
+        // Linked Set so log statement are more organized and easier to read.
+        // Map is: Phrase -> isWholeWord
+        Map<String, Boolean> keywords = new LinkedHashMap<>(2 * split.length);
+        // Case folded phrases, to find a phrase that is declared both with and without quotes.
+        // Map is: Case folded phrase -> isWholeWord
+        Map<String, Boolean> foldedKeywords = new HashMap<>(2 * split.length);
+
+        for (String phrase : split) {
+            // Remove any trailing spaces the user may have accidentally included.
+            phrase = phrase.stripTrailing();
+            if (phrase.isBlank()) continue;
+
+            final boolean wholeWordMatching;
+            if (phraseUsesWholeWordSyntax(phrase)) {
+                if (phrase.length() == 2) {
+                    continue; // Empty "" phrase
                 }
+                phrase = stripWholeWordSyntax(phrase);
+                wholeWordMatching = true;
+            } else if (phrase.length() < MINIMUM_KEYWORD_LENGTH && !isLanguageWithNoSpaces(phrase)) {
+                // Allow phrases of 1 and 2 characters if using a
+                // language that does not use spaces between words.
+
+                // Do not reset the setting. Keep the invalid keywords so the user can fix the mistake.
+                Utils.showToastLong(str("revanced_hide_keyword_toast_invalid_length", phrase, MINIMUM_KEYWORD_LENGTH));
+                continue;
+            } else {
+                wholeWordMatching = false;
+            }
 
-                // Common casing that might appear.
-                //
-                // This could be simplified by adding case insensitive search to the prefix search,
-                // which is very simple to add to StringTreSearch for Unicode and ByteTrieSearch for ASCII.
-                //
-                // But to support Unicode with ByteTrieSearch would require major changes because
-                // UTF-8 characters can be different byte lengths, which does
-                // not allow comparing two different byte arrays using simple plain array indexes.
-                //
-                // Instead use all common case variations of the words.
-                String[] phraseVariations = {
-                        phrase,
-                        phrase.toLowerCase(),
-                        titleCaseFirstWordOnly(phrase),
-                        capitalizeAllFirstLetters(phrase),
-                        phrase.toUpperCase()
-                };
-                if (phrasesWillHideAllVideos(phraseVariations, wholeWordMatching)) {
-                    String toastMessage;
-                    // If whole word matching is off, but would pass with on, then show a different toast.
-                    if (!wholeWordMatching && !phrasesWillHideAllVideos(phraseVariations, true)) {
-                        toastMessage = "revanced_hide_keyword_toast_invalid_common_whole_word_required";
-                    } else {
-                        toastMessage = "revanced_hide_keyword_toast_invalid_common";
-                    }
-
-                    Utils.showToastLong(str(toastMessage, phrase));
-                    continue;
+            // The search is case insensitive, so each phrase is added only once for all casing variations.
+            if (phraseWillHideAllVideos(phrase, wholeWordMatching)) {
+                String toastMessage;
+                // If whole word matching is off, but would pass with on, then show a different toast.
+                if (!wholeWordMatching && !phraseWillHideAllVideos(phrase, true)) {
+                    toastMessage = "revanced_hide_keyword_toast_invalid_common_whole_word_required";
+                } else {
+                    toastMessage = "revanced_hide_keyword_toast_invalid_common";
                 }
 
-                for (String variation : phraseVariations) {
-                    // Check if the same phrase is declared both with and without quotes.
-                    Boolean existing = keywords.get(variation);
-                    if (existing == null) {
-                        keywords.put(variation, wholeWordMatching);
-                    } else if (existing != wholeWordMatching) {
-                        Utils.showToastLong(str("revanced_hide_keyword_toast_invalid_conflicting", phrase));
-                        break;
-                    }
-                }
+                Utils.showToastLong(str(toastMessage, phrase));
+                continue;
             }
 
-            for (Map.Entry<String, Boolean> entry : keywords.entrySet()) {
-                String keyword = entry.getKey();
-                //noinspection ExtractMethodRecommender
-                final boolean isWholeWord = entry.getValue();
-                TrieSearch.TriePatternMatchedCallback<byte[]> callback =
-                        (textSearched, startIndex, matchLength, callbackParameter) -> {
-                            if (isWholeWord && !keywordMatchIsWholeWord(textSearched, startIndex, matchLength)) {
-                                return false;
-                            }
-
-                            Logger.printDebug(() -> (isWholeWord ? "Matched whole keyword: '"
-                                    : "Matched keyword: '") + keyword + "'");
-                            // noinspection unchecked
-                            ((MutableReference<String>) callbackParameter).value = keyword;
-                            return true;
-                        };
-                byte[] stringBytes = keyword.getBytes(StandardCharsets.UTF_8);
-                search.addPattern(stringBytes, callback);
+            // Check if the same phrase is declared both with and without quotes.
+            Boolean existing = foldedKeywords.putIfAbsent(foldCase(phrase), wholeWordMatching);
+            if (existing == null) {
+                keywords.put(phrase, wholeWordMatching);
+            } else if (existing != wholeWordMatching) {
+                Utils.showToastLong(str("revanced_hide_keyword_toast_invalid_conflicting", phrase));
             }
+        }
 
-            Logger.printDebug(() -> "Search using: (" + search.getEstimatedMemorySize() + " KB) keywords: " + keywords.keySet());
+        String[] keywordArray = new String[keywords.size()];
+        boolean[] wholeWordArray = new boolean[keywordArray.length];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : keywords.entrySet()) {
+            keywordArray[i] = entry.getKey();
+            wholeWordArray[i] = entry.getValue();
+            i++;
         }
+        CaseInsensitiveUtf8Search search = new CaseInsensitiveUtf8Search(keywordArray, wholeWordArray);
+        Logger.printDebug(() -> "Search using: (" + search.getEstimatedMemorySize() + " KB) keywords: " + keywords.keySet());
 
-        bufferSearch = search;
         timeToResumeFiltering = 0;
         filteredVideosPercentage = 0;
-        lastKeywordPhrasesParsed = rawKeywords; // Must set last.
+        return search;
     }
 
     public KeywordContentFilter() {
@@ -587,7 +403,13 @@ public final class KeywordContentFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the selected navigation tab and the search bar state.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (contentIndex != 0 && matchedGroup == startsWithFilter) {
             return false;
@@ -598,12 +420,8 @@ public final class KeywordContentFilter extends Filter {
             return false;
         }
 
-        // Field is intentionally compared using reference equality.
-        //noinspection StringEquality
-        if (Settings.HIDE_KEYWORD_CONTENT_PHRASES.get() != lastKeywordPhrasesParsed) {
-            // User changed the keywords or whole word setting.
-            parseKeywords();
-        }
+        // Parses the keywords if this is the first use, or the keywords were changed.
+        CaseInsensitiveUtf8Search search = bufferSearch.get();
 
         if (matchedGroup != commentsFilter && !hideKeywordSettingIsActive()) {
             return false;
@@ -613,10 +431,13 @@ public final class KeywordContentFilter extends Filter {
             return false; // Do not update statistics.
         }
 
-        MutableReference<String> matchRef = new MutableReference<>();
-        if (bufferSearch.matches(protobufBufferArray, matchRef)) {
-            updateStats(true, matchRef.value);
-            return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        final int keywordIndex = search.find(protobufBuffer.array(), protobufBuffer.offset(), protobufBuffer.endIndex());
+        if (keywordIndex != CaseInsensitiveUtf8Search.NOT_FOUND) {
+            String keyword = search.getKeyword(keywordIndex);
+            Logger.printDebug(() -> (search.isWholeWord(keywordIndex) ? "Matched whole keyword: '"
+                    : "Matched keyword: '") + keyword + "'");
+            updateStats(true, keyword);
+            return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
         }
 
         updateStats(false, null);
@@ -624,9 +445,3 @@ public final class KeywordContentFilter extends Filter {
     }
 }
 
-/**
- * Simple non-atomic wrapper since {@link AtomicReference#setPlain(Object)} is not available with Android 8.0.
- */
-final class MutableReference<T> {
-    T value;
-}
\ No newline at end of file
@@ -6,6 +6,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupList;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.PlayerType;
@@ -134,7 +135,13 @@ public final class PlayerFlyoutMenuFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the player type.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (matchedGroup == playerFlyoutMenu) {
             // Overflow menu is always the start of the path.
@@ -142,12 +149,12 @@ public final class PlayerFlyoutMenuFilter extends Filter {
                 return false;
             }
             // Shorts also use this player flyout panel
-            if (PlayerType.getCurrent().isNoneOrHidden() || byteArrayException.check(protobufBufferArray).isFiltered()) {
+            if (PlayerType.getCurrent().isNoneOrHidden() || byteArrayException.check(protobufBuffer).isFiltered()) {
                 return false;
             }
-            if (flyoutFilterGroupList.check(protobufBufferArray).isFiltered()) {
+            if (flyoutFilterGroupList.check(protobufBuffer).isFiltered()) {
                 // Super class handles logging.
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
         } else if (matchedGroup == qualityHeader) {
             // Quality header is always the start of the path.
@@ -155,14 +162,14 @@ public final class PlayerFlyoutMenuFilter extends Filter {
                 return false;
             }
             // Super class handles logging.
-            return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
         } else {
             // Components other than the footer separator are not filtered.
             if (pathBuilderException.matches(path) || !playerFlyoutMenuFooter.matches(path)) {
                 return false;
             }
             // Super class handles logging.
-            return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
         }
 
         return false;
@@ -8,6 +8,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupList;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.youtube.patches.utils.ReturnYouTubeChannelNamePatch;
 import app.revanced.integrations.youtube.settings.Settings;
@@ -34,19 +35,25 @@ public final class ReturnYouTubeChannelNameFilterPatch extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Saves the channel names found in the buffer.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
-        if (shortsChannelBarAvatarFilterGroup.check(protobufBufferArray).isFiltered()) {
-            setLastShortsChannelId(protobufBufferArray);
+        if (shortsChannelBarAvatarFilterGroup.check(protobufBuffer).isFiltered()) {
+            setLastShortsChannelId(protobufBuffer);
         }
 
         return false;
     }
 
-    private void setLastShortsChannelId(byte[] protobufBufferArray) {
+    private void setLastShortsChannelId(ByteBufferView protobufBuffer) {
         try {
             String[] splitArr;
-            final String bufferString = findAsciiStrings(protobufBufferArray);
+            final String bufferString = findAsciiStrings(protobufBuffer);
             splitArr = bufferString.split(CHANNEL_ID_IDENTIFIER_WITH_DELIMITING_CHARACTER);
             if (splitArr.length < 2) {
                 return;
@@ -74,8 +81,9 @@ public final class ReturnYouTubeChannelNameFilterPatch extends Filter {
         }
     }
 
-    private String findAsciiStrings(byte[] buffer) {
-        StringBuilder builder = new StringBuilder(Math.max(100, buffer.length / 2));
+    private String findAsciiStrings(ByteBufferView protobufBuffer) {
+        final byte[] buffer = protobufBuffer.array();
+        StringBuilder builder = new StringBuilder(Math.max(100, protobufBuffer.length() / 2));
         builder.append("");
 
         // Valid ASCII values (ignore control characters).
@@ -84,9 +92,9 @@ public final class ReturnYouTubeChannelNameFilterPatch extends Filter {
         final int minimumAsciiStringLength = 4; // Minimum length of an ASCII string to include.
         String delimitingCharacter = "❙"; // Non ascii character, to allow easier log filtering.
 
-        final int length = buffer.length;
-        int start = 0;
-        int end = 0;
+        final int length = protobufBuffer.endIndex();
+        int start = protobufBuffer.offset();
+        int end = start;
         while (end < length) {
             int value = buffer[end];
             if (value < minimumAscii || value > maximumAscii || end == length - 1) {
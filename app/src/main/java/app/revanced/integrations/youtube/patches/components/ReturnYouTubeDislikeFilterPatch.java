@@ -4,6 +4,7 @@ import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -13,6 +14,9 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupL
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.FilterGroup;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.returnyoutubedislike.requests.ReturnYouTubeDislikeApi;
+import app.revanced.integrations.shared.utils.BitParallelByteSearch;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.TrieSearch;
 import app.revanced.integrations.youtube.patches.utils.ReturnYouTubeDislikePatch;
@@ -32,6 +36,9 @@ import app.revanced.integrations.youtube.shared.VideoInformation;
  * But the correct video id does appear in the protobuffer just before a Shorts litho span is created.
  * <p>
  * Once a way to asynchronously update litho text is found, this strategy will no longer be needed.
+ * <p>
+ * Also prefetches the votes of videos shown in the feed, using the video id's of the thumbnails,
+ * so the votes are already cached when a video is opened.
  */
 public final class ReturnYouTubeDislikeFilterPatch extends Filter {
 
@@ -52,8 +59,68 @@ public final class ReturnYouTubeDislikeFilterPatch extends Filter {
             return size() > NUMBER_OF_LAST_VIDEO_IDS_TO_TRACK;
         }
     };
+
+    /**
+     * Feed video id's that were already prefetched.  Value is ignored and Map is treated as a Set.
+     * Litho rebinds the same feed components while scrolling, and this prevents checking the same video again.
+     */
+    @GuardedBy("itself")
+    private static final Map<String, Boolean> prefetchedVideoIds = new LinkedHashMap<>() {
+        private static final int NUMBER_OF_PREFETCHED_VIDEO_IDS_TO_TRACK = 200;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > NUMBER_OF_PREFETCHED_VIDEO_IDS_TO_TRACK;
+        }
+    };
+
+    /**
+     * Thumbnail urls in feed components, followed by the video id.
+     * Thumbnails of Shorts use the same urls.
+     */
+    private static final byte[][] THUMBNAIL_URL_VIDEO_ID_PREFIXES = {
+            "/vi/".getBytes(StandardCharsets.US_ASCII),
+            "/vi_webp/".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private static final BitParallelByteSearch thumbnailUrlSearch =
+            new BitParallelByteSearch(THUMBNAIL_URL_VIDEO_ID_PREFIXES);
+
+    private static final int VIDEO_ID_LENGTH = 11;
+
+    /**
+     * Buffer last searched for thumbnails by each thread.
+     * The same buffer is filtered once for each of its components, and only needs to be searched once.
+     */
+    private static final ThreadLocal<SearchedBuffer> lastSearchedBuffer = new ThreadLocal<>() {
+        @Override
+        protected SearchedBuffer initialValue() {
+            return new SearchedBuffer();
+        }
+    };
+
+    private static final class SearchedBuffer {
+        ByteBufferView view;
+        int generation;
+
+        /**
+         * @return If the buffer was not already searched, and marks the buffer as searched.
+         */
+        boolean setIfNotSearched(ByteBufferView buffer) {
+            if (view == buffer && generation == buffer.generation()) {
+                return false;
+            }
+            view = buffer;
+            generation = buffer.generation();
+            return true;
+        }
+    }
+
     private final ByteArrayFilterGroupList videoIdFilterGroup = new ByteArrayFilterGroupList();
 
+    private final StringFilterGroup feedVideoPath;
+    private final StringFilterGroup shortsShelfIdentifier;
+
     public ReturnYouTubeDislikeFilterPatch() {
         // When a new Short is opened, the like buttons always seem to load before the dislike.
         // But if swiping back to a previous video and liking/disliking, then only that single button reloads.
@@ -63,6 +130,21 @@ public final class ReturnYouTubeDislikeFilterPatch extends Filter {
                 new StringFilterGroup(null, "|shorts_dislike_button.eml")
         );
 
+        // Feed videos and Shorts shelves, used to prefetch the votes before a video is opened.
+        // Only the root component of a feed video is searched, which is always first in the path.
+        feedVideoPath = new StringFilterGroup(
+                Settings.RYD_ENABLED,
+                "video_lockup_with_attachment.eml",
+                "compact_video.eml"
+        );
+        shortsShelfIdentifier = new StringFilterGroup(
+                Settings.RYD_SHORTS,
+                "shorts_shelf",
+                "shorts_grid"
+        );
+        addPathCallbacks(feedVideoPath);
+        addIdentifierCallbacks(shortsShelfIdentifier);
+
         // After the likes icon name is some binary data and then the video id for that specific short.
         videoIdFilterGroup.addAll(
                 // on_shadowed  = Video was previously like/disliked before opening.
@@ -119,8 +201,9 @@ public final class ReturnYouTubeDislikeFilterPatch extends Filter {
      * This could use {@link TrieSearch}, but since the patterns are constantly changing
      * the overhead of updating the Trie might negate the search performance gain.
      */
-    private static boolean byteArrayContainsString(@NonNull byte[] array, @NonNull String text) {
-        for (int i = 0, lastArrayStartIndex = array.length - text.length(); i <= lastArrayStartIndex; i++) {
+    private static boolean byteArrayContainsString(@NonNull ByteBufferView buffer, @NonNull String text) {
+        final byte[] array = buffer.array();
+        for (int i = buffer.offset(), lastArrayStartIndex = buffer.endIndex() - text.length(); i <= lastArrayStartIndex; i++) {
             boolean found = true;
             for (int j = 0, textLength = text.length(); j < textLength; j++) {
                 if (array[i + j] != (byte) text.charAt(j)) {
@@ -137,15 +220,88 @@ public final class ReturnYouTubeDislikeFilterPatch extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Saves the video ids found in the buffer.
+        return false;
+    }
+
+    @Override
+    public boolean isCacheable(StringFilterGroup group) {
+        // Feed components are never filtered, and the votes only need to be prefetched
+        // the first time a component is seen. A cached verdict means the votes were already prefetched.
+        return group == feedVideoPath || group == shortsShelfIdentifier || isCacheable();
+    }
+
+    /**
+     * Prefetches the votes of all videos with a thumbnail in the buffer.
+     */
+    private static void prefetchVotes(@NonNull ByteBufferView buffer) {
+        if (!lastSearchedBuffer.get().setIfNotSearched(buffer)) {
+            return;
+        }
+
+        final byte[] array = buffer.array();
+        final int endIndex = buffer.endIndex();
+        final long allPrefixes = thumbnailUrlSearch.allPatternsMask();
+        int searchIndex = buffer.offset();
+        while (true) {
+            final long found = thumbnailUrlSearch.find(array, searchIndex, endIndex, allPrefixes);
+            if (found == BitParallelByteSearch.NOT_FOUND) {
+                return;
+            }
+            final int prefixLength = THUMBNAIL_URL_VIDEO_ID_PREFIXES[BitParallelByteSearch.getPatternIndex(found)].length;
+            final int videoIdStart = BitParallelByteSearch.getMatchedIndex(found) + prefixLength;
+            if (!isVideoId(array, videoIdStart, endIndex)) {
+                searchIndex = videoIdStart;
+                continue;
+            }
+            searchIndex = videoIdStart + VIDEO_ID_LENGTH;
+
+            String videoId = new String(array, videoIdStart, VIDEO_ID_LENGTH, StandardCharsets.US_ASCII);
+            synchronized (prefetchedVideoIds) {
+                if (prefetchedVideoIds.put(videoId, Boolean.TRUE) != null) {
+                    continue;
+                }
+            }
+            ReturnYouTubeDislikeApi.prefetchVotes(videoId);
+        }
+    }
+
+    /**
+     * @return If the array has 11 video id characters at the start index, followed by the end of the url path.
+     */
+    private static boolean isVideoId(byte[] array, int start, int endIndex) {
+        final int end = start + VIDEO_ID_LENGTH;
+        if (end >= endIndex) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            final byte c = array[i];
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return array[end] == '/';
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
+        if (matchedGroup == feedVideoPath || matchedGroup == shortsShelfIdentifier) {
+            // Child components of a feed video have the same path prefix, and do not need to be searched.
+            if (Settings.RYD_ENABLED.get() && (matchedGroup != feedVideoPath || contentIndex == 0)) {
+                prefetchVotes(protobufBuffer);
+            }
+            return false;
+        }
+
         if (!Settings.RYD_ENABLED.get() || !Settings.RYD_SHORTS.get()) {
             return false;
         }
 
-        FilterGroup.FilterGroupResult result = videoIdFilterGroup.check(protobufBufferArray);
+        FilterGroup.FilterGroupResult result = videoIdFilterGroup.check(protobufBuffer);
         if (result.isFiltered()) {
-            String matchedVideoId = findVideoId(protobufBufferArray);
+            String matchedVideoId = findVideoId(protobufBuffer);
             // Matched video will be null if in incognito mode.
             // Must pass a null id to correctly clear out the current video data.
             // Otherwise if a Short is opened in non-incognito, then incognito is enabled and another Short is opened,
@@ -157,10 +313,10 @@ public final class ReturnYouTubeDislikeFilterPatch extends Filter {
     }
 
     @Nullable
-    private String findVideoId(byte[] protobufBufferArray) {
+    private String findVideoId(ByteBufferView protobufBuffer) {
         synchronized (lastVideoIds) {
             for (String videoId : lastVideoIds.keySet()) {
-                if (byteArrayContainsString(protobufBufferArray, videoId)) {
+                if (byteArrayContainsString(protobufBuffer, videoId)) {
                     return videoId;
                 }
             }
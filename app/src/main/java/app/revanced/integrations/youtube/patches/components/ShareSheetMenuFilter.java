@@ -4,6 +4,7 @@ import androidx.annotation.Nullable;
 
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.youtube.patches.misc.ShareSheetPatch;
 import app.revanced.integrations.youtube.settings.Settings;
 
@@ -24,7 +25,13 @@ public final class ShareSheetMenuFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Flags the menu as visible, which must happen every time the menu is shown.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         isShareSheetMenuVisible = true;
 
@@ -8,6 +8,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroupList;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.youtube.settings.Settings;
 
 @SuppressWarnings("unused")
@@ -39,6 +40,8 @@ public final class ShortsButtonFilter extends Filter {
     );
 
     public ShortsButtonFilter() {
+        addVerdictSettings(Settings.HIDE_SHORTS_PAUSED_OVERLAY_BUTTONS);
+
         StringFilterGroup floatingButton = new StringFilterGroup(
                 Settings.HIDE_SHORTS_FLOATING_BUTTON,
                 "floating_action_button"
@@ -221,54 +224,54 @@ public final class ShortsButtonFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         if (matchedGroup == subscribeButton || matchedGroup == joinButton) {
             // Selectively filter to avoid false positive filtering of other subscribe/join buttons.
             if (StringUtils.startsWithAny(path, REEL_CHANNEL_BAR_PATH, REEL_LIVE_HEADER_PATH, REEL_METAPANEL_PATH)) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
 
         if (matchedGroup == metaPanelButton) {
-            if (path.startsWith(REEL_METAPANEL_PATH) && useThisSoundButton.check(protobufBufferArray).isFiltered()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            if (path.startsWith(REEL_METAPANEL_PATH) && useThisSoundButton.check(protobufBuffer).isFiltered()) {
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
 
         // Video action buttons (like, dislike, comment, share, remix) have the same path.
         if (matchedGroup == actionBar) {
-            if (videoActionButtonGroupList.check(protobufBufferArray).isFiltered()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            if (videoActionButtonGroupList.check(protobufBuffer).isFiltered()) {
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
 
         if (matchedGroup == suggestedAction) {
             if (isEverySuggestedActionFilterEnabled()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             // Suggested actions can be at the start or in the middle of a path.
-            if (suggestedActionsGroupList.check(protobufBufferArray).isFiltered()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+            if (suggestedActionsGroupList.check(protobufBuffer).isFiltered()) {
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             return false;
         }
 
         if (matchedGroup == pausedOverlayButtons) {
             if (Settings.HIDE_SHORTS_PAUSED_OVERLAY_BUTTONS.get()) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             } else if (StringUtils.contains(path, SHORTS_PAUSED_STATE_BUTTON_PATH)) {
-                if (pausedOverlayButtonsGroupList.check(protobufBufferArray).isFiltered()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                if (pausedOverlayButtonsGroupList.check(protobufBuffer).isFiltered()) {
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 }
             }
             return false;
         }
 
         // Super class handles logging.
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 }
@@ -6,6 +6,7 @@ import app.revanced.integrations.shared.patches.components.ByteArrayFilterGroup;
 import app.revanced.integrations.shared.patches.components.Filter;
 import app.revanced.integrations.shared.patches.components.StringFilterGroup;
 import app.revanced.integrations.shared.settings.BooleanSetting;
+import app.revanced.integrations.shared.utils.ByteBufferView;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.StringTrieSearch;
 import app.revanced.integrations.youtube.settings.Settings;
@@ -87,7 +88,13 @@ public final class ShortsShelfFilter extends Filter {
     }
 
     @Override
-    public boolean isFiltered(String path, @Nullable String identifier, String allValue, byte[] protobufBufferArray,
+    public boolean isCacheable() {
+        // Depends on the selected navigation tab and the player and search bar state.
+        return false;
+    }
+
+    @Override
+    public boolean isFiltered(String path, @Nullable String identifier, String allValue, ByteBufferView protobufBuffer,
                               StringFilterGroup matchedGroup, FilterContentType contentType, int contentIndex) {
         final boolean playerActive = RootView.isPlayerActive();
         final boolean searchBarActive = RootView.isSearchBarActive();
@@ -98,8 +105,8 @@ public final class ShortsShelfFilter extends Filter {
         Logger.printDebug(() -> "hideShelves: " + hideShelves + "\nplayerActive: " + playerActive + "\nsearchBarActive: " + searchBarActive + "\nbrowseId: " + browseId + "\nnavigation: " + navigation);
         if (contentType == FilterContentType.PATH) {
             if (matchedGroup == compactFeedVideoPath) {
-                if (hideShelves && compactFeedVideoBuffer.check(protobufBufferArray).isFiltered()) {
-                    return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                if (hideShelves && compactFeedVideoBuffer.check(protobufBuffer).isFiltered()) {
+                    return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
                 }
                 return false;
             } else if (matchedGroup == shelfHeaderPath) {
@@ -108,13 +115,13 @@ public final class ShortsShelfFilter extends Filter {
                 if (contentIndex != 0) {
                     return false;
                 }
-                if (!channelProfileShelfHeader.check(protobufBufferArray).isFiltered()) {
+                if (!channelProfileShelfHeader.check(protobufBuffer).isFiltered()) {
                     return false;
                 }
                 if (feedGroup.matches(allValue)) {
                     return false;
                 }
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
         } else if (contentType == FilterContentType.IDENTIFIER) {
             // Feed/search identifier components.
@@ -125,7 +132,7 @@ public final class ShortsShelfFilter extends Filter {
                     return false;
                 }
             } else if (matchedGroup == channelProfile) {
-                return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+                return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
             }
             if (!hideShelves) {
                 return false;
@@ -133,7 +140,7 @@ public final class ShortsShelfFilter extends Filter {
         }
 
         // Super class handles logging.
-        return super.isFiltered(path, identifier, allValue, protobufBufferArray, matchedGroup, contentType, contentIndex);
+        return super.isFiltered(path, identifier, allValue, protobufBuffer, matchedGroup, contentType, contentIndex);
     }
 
     private static boolean shouldHideShortsFeedItems(boolean playerActive, boolean searchBarActive, NavigationButton selectedNavButton, String browseId) {
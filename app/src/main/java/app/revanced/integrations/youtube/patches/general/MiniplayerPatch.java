@@ -58,12 +58,14 @@ public final class MiniplayerPatch {
         }
     }
 
+    public static final String MODERN_OVERLAY_SUBTITLE_TEXT_ID_NAME = "modern_miniplayer_subtitle_text";
+
     /**
      * Modern subtitle overlay for {@link MiniplayerType#MODERN_2}.
      * Resource is not present in older targets, and this field will be zero.
      */
     private static final int MODERN_OVERLAY_SUBTITLE_TEXT
-            = ResourceUtils.getIdIdentifier("modern_miniplayer_subtitle_text");
+            = ResourceUtils.getIdIdentifier(MODERN_OVERLAY_SUBTITLE_TEXT_ID_NAME);
 
     private static final MiniplayerType CURRENT_TYPE = Settings.MINIPLAYER_TYPE.get();
 
@@ -6,6 +6,7 @@ import org.json.JSONObject;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
 import app.revanced.integrations.shared.requests.Route;
 import app.revanced.integrations.shared.utils.Logger;
@@ -40,7 +41,16 @@ public final class PlayerRoutes {
     /**
      * TCP connection and HTTP read timeout
      */
-    private static final int CONNECTION_TIMEOUT_MILLISECONDS = 10 * 1000; // 10 Seconds.
+    static final int CONNECTION_TIMEOUT_MILLISECONDS = 10 * 1000; // 10 Seconds.
+
+    static final Endpoint STREAMING_DATA_ENDPOINT = new Endpoint("streamingData",
+            CONNECTION_TIMEOUT_MILLISECONDS, CONNECTION_TIMEOUT_MILLISECONDS);
+
+    static final Endpoint PLAYLIST_PAGE_ENDPOINT = new Endpoint("playlistPage",
+            CONNECTION_TIMEOUT_MILLISECONDS, CONNECTION_TIMEOUT_MILLISECONDS);
+
+    static final Endpoint LIVE_STREAM_RENDERER_ENDPOINT = new Endpoint("liveStreamRenderer",
+            CONNECTION_TIMEOUT_MILLISECONDS, CONNECTION_TIMEOUT_MILLISECONDS);
 
     private PlayerRoutes() {
     }
@@ -89,17 +99,14 @@ public final class PlayerRoutes {
     /**
      * @noinspection SameParameterValue
      */
-    static HttpURLConnection getPlayerResponseConnectionFromRoute(Route.CompiledRoute route, ClientType clientType) throws IOException {
-        var connection = Requester.getConnectionFromCompiledRoute(YOUTUBEI_V1_GAPIS_URL, route);
+    static HttpURLConnection getPlayerResponseConnectionFromRoute(Route.CompiledRoute route, Endpoint endpoint, ClientType clientType) throws IOException {
+        var connection = Requester.getConnectionFromCompiledRoute(YOUTUBEI_V1_GAPIS_URL, endpoint, route);
 
         connection.setRequestProperty("Content-Type", "application/json");
         connection.setRequestProperty("User-Agent", clientType.userAgent);
 
         connection.setUseCaches(false);
         connection.setDoOutput(true);
-
-        connection.setConnectTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
-        connection.setReadTimeout(CONNECTION_TIMEOUT_MILLISECONDS);
         return connection;
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package app.revanced.integrations.youtube.patches.misc.requests;
 
 import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.GET_PLAYLIST_PAGE;
+import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.PLAYLIST_PAGE_ENDPOINT;
 
 import android.annotation.SuppressLint;
 
@@ -8,9 +9,6 @@ import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
@@ -24,8 +22,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import app.revanced.integrations.shared.requests.Requester;
+import app.revanced.integrations.shared.requests.SingleFlight;
 import app.revanced.integrations.shared.utils.Logger;
-import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.patches.misc.client.AppClient.ClientType;
 import app.revanced.integrations.youtube.shared.VideoInformation;
 
@@ -38,9 +36,22 @@ public class PlaylistRequest {
 
     private static final long MAX_MILLISECONDS_TO_WAIT_FOR_FETCH = 20 * 1000; // 20 seconds
 
+    /**
+     * Player parameters of the first video of the playlist.
+     * Only this field is parsed, and the rest of the response is skipped.
+     */
+    private static final String PLAYER_PARAMS_FIELD = "contents.singleColumnWatchNextResults.playlist.playlist"
+            + ".contents.0.playlistPanelVideoRenderer.navigationEndpoint.watchEndpoint.playerParams";
+
     @GuardedBy("itself")
     private static final Map<String, PlaylistRequest> cache = new HashMap<>();
 
+    /**
+     * Fetches in flight, so a video requested again after its failed or expired
+     * request was removed from the cache joins a fetch that is still running.
+     */
+    private static final SingleFlight<String, Boolean> inFlightFetches = new SingleFlight<>();
+
     @SuppressLint("ObsoleteSdkInt")
     public static void fetchRequestIfNeeded(@Nullable String videoId) {
         Objects.requireNonNull(videoId);
@@ -71,7 +82,7 @@ public class PlaylistRequest {
     }
 
     @Nullable
-    private static JSONObject send(ClientType clientType, String videoId) {
+    private static Map<String, String> send(ClientType clientType, String videoId) {
         Objects.requireNonNull(clientType);
         Objects.requireNonNull(videoId);
 
@@ -80,7 +91,7 @@ public class PlaylistRequest {
         Logger.printDebug(() -> "Fetching playlist request for: " + videoId + " using client: " + clientTypeName);
 
         try {
-            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_PLAYLIST_PAGE, clientType);
+            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_PLAYLIST_PAGE, PLAYLIST_PAGE_ENDPOINT, clientType);
 
             String innerTubeBody = PlayerRoutes.createInnertubeBody(
                     clientType,
@@ -92,14 +103,18 @@ public class PlaylistRequest {
             connection.getOutputStream().write(requestBody);
 
             final int responseCode = connection.getResponseCode();
-            if (responseCode == 200) return Requester.parseJSONObject(connection);
+            PLAYLIST_PAGE_ENDPOINT.recordResponse(startTime, responseCode);
+            if (responseCode == 200) return Requester.parseJSONFields(connection, PLAYER_PARAMS_FIELD);
 
             handleConnectionError(clientTypeName + " not available with response code: "
                             + responseCode + " message: " + connection.getResponseMessage(),
                     null);
+            Requester.closeResponse(connection);
         } catch (SocketTimeoutException ex) {
+            PLAYLIST_PAGE_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Connection timeout", ex);
         } catch (IOException ex) {
+            PLAYLIST_PAGE_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Network error", ex);
         } catch (Exception ex) {
             Logger.printException(() -> "send failed", ex);
@@ -112,41 +127,12 @@ public class PlaylistRequest {
 
     private static Boolean fetch(@NonNull String videoId) {
         final ClientType clientType = ClientType.ANDROID_VR;
-        final JSONObject playlistJson = send(clientType, videoId);
-        if (playlistJson != null) {
-            try {
-                final JSONObject singleColumnWatchNextResultsJsonObject = playlistJson
-                        .getJSONObject("contents")
-                        .getJSONObject("singleColumnWatchNextResults");
-
-                if (!singleColumnWatchNextResultsJsonObject.has("playlist")) {
-                    return false;
-                }
-
-                final JSONObject playlistJsonObject = singleColumnWatchNextResultsJsonObject
-                        .getJSONObject("playlist")
-                        .getJSONObject("playlist");
-
-                final Object currentStreamObject = playlistJsonObject
-                        .getJSONArray("contents")
-                        .get(0);
-
-                if (!(currentStreamObject instanceof JSONObject currentStreamJsonObject)) {
-                    return false;
-                }
-
-                final JSONObject watchEndpointJsonObject = currentStreamJsonObject
-                        .getJSONObject("playlistPanelVideoRenderer")
-                        .getJSONObject("navigationEndpoint")
-                        .getJSONObject("watchEndpoint");
-
-                Logger.printDebug(() -> "watchEndpoint: " + watchEndpointJsonObject);
-
-                return watchEndpointJsonObject.has("playerParams") &&
-                        VideoInformation.isMixPlaylistsOpenedByUser(watchEndpointJsonObject.getString("playerParams"));
-            } catch (JSONException e) {
-                Logger.printDebug(() -> "Fetch failed while processing response data for response: " + playlistJson);
-            }
+        final Map<String, String> playlistFields = send(clientType, videoId);
+        if (playlistFields != null) {
+            final String playerParams = playlistFields.get(PLAYER_PARAMS_FIELD);
+            Logger.printDebug(() -> "playerParams: " + playerParams);
+
+            return playerParams != null && VideoInformation.isMixPlaylistsOpenedByUser(playerParams);
         }
 
         return false;
@@ -162,7 +148,7 @@ public class PlaylistRequest {
     private PlaylistRequest(String videoId) {
         this.timeFetched = System.currentTimeMillis();
         this.videoId = videoId;
-        this.future = Utils.submitOnBackgroundThread(() -> fetch(videoId));
+        this.future = inFlightFetches.submit(videoId, () -> fetch(videoId));
     }
 
     public boolean isExpired(long now) {
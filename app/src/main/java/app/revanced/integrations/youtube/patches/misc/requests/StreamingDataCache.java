@@ -0,0 +1,461 @@
+package app.revanced.integrations.youtube.patches.misc.requests;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import app.revanced.integrations.shared.utils.BitParallelByteSearch;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.youtube.patches.misc.client.AppClient.ClientType;
+
+/**
+ * Persistent cache of fetched streaming data, so a recently watched video
+ * can start without fetching the streaming data again, including after an app restart.
+ * <p>
+ * Each response is stored unmodified in its own file in the app cache directory.
+ * The video id, client, expiration time and network are stored in the file name,
+ * so loading the cache only lists the directory and does not read any files.
+ * <p>
+ * Responses expire when the stream urls in the response expire.
+ * Responses without an expiration time are not stored.
+ * <p>
+ * Stream urls only work for the client ip address they were created for.
+ * Responses are only used on the same network they were fetched on, and if a response
+ * was since fetched on that network with a different ip address, then older responses are not used.
+ * <p>
+ * This class is thread safe.
+ */
+final class StreamingDataCache {
+    private static final String DIRECTORY_NAME = "revanced_streaming_data";
+
+    private static final String FILE_EXTENSION = ".bin";
+
+    /**
+     * Separator of the file name fields. Is not a valid video id character.
+     */
+    private static final char FILE_NAME_SEPARATOR = '.';
+
+    /**
+     * Maximum number of responses kept.
+     */
+    private static final int CACHE_LIMIT = 50;
+
+    /**
+     * Maximum size of all responses. Each response is usually 10-50 KB.
+     */
+    private static final long CACHE_SIZE_LIMIT_BYTES = 5 * 1024 * 1024;
+
+    /**
+     * Responses are not used if the stream urls expire sooner than this,
+     * so the video does not stop playing if it's watched to the end.
+     */
+    private static final long MINIMUM_TIME_UNTIL_EXPIRATION_MILLISECONDS = 60 * 60 * 1000; // 1 Hour.
+
+    /**
+     * Url query parameters and path segments of the stream urls.
+     * The expiration time is in epoch seconds.
+     */
+    private static final byte[][] STREAM_URL_FIELD_PREFIXES = {
+            "expire=".getBytes(StandardCharsets.US_ASCII),
+            "/expire/".getBytes(StandardCharsets.US_ASCII),
+            "?ip=".getBytes(StandardCharsets.US_ASCII),
+            "&ip=".getBytes(StandardCharsets.US_ASCII),
+            "/ip/".getBytes(StandardCharsets.US_ASCII),
+    };
+
+    /**
+     * Index of the first ip prefix in {@link #STREAM_URL_FIELD_PREFIXES}.
+     */
+    private static final int FIRST_IP_PREFIX_INDEX = 2;
+
+    private static final BitParallelByteSearch streamUrlFieldSearch =
+            new BitParallelByteSearch(STREAM_URL_FIELD_PREFIXES);
+
+    /**
+     * Value of {@link Entry#ipHash} if the response has no ip address.
+     */
+    private static final int NO_IP_HASH = 0;
+
+    /**
+     * Value of the network handle if no network is connected.
+     */
+    private static final long NO_NETWORK = 0;
+
+    /**
+     * Fields of the stream urls of a response.
+     */
+    static final class StreamUrlFields {
+        /**
+         * Earliest expiration time of all stream urls, in epoch milliseconds,
+         * or {@link Long#MAX_VALUE} if the response has no expiration time.
+         */
+        final long expirationTime;
+        /**
+         * Client ip address the stream urls are for, or null if the urls have no ip address.
+         */
+        @Nullable
+        final String ip;
+
+        StreamUrlFields(long expirationTime, @Nullable String ip) {
+            this.expirationTime = expirationTime;
+            this.ip = ip;
+        }
+
+        int getIpHash() {
+            if (ip == null) return NO_IP_HASH;
+            final int hash = ip.hashCode();
+            return hash == NO_IP_HASH ? 1 : hash;
+        }
+    }
+
+    static final class CachedStreamingData {
+        @NonNull
+        final ClientType clientType;
+        @NonNull
+        final ByteBuffer streamingData;
+
+        CachedStreamingData(@NonNull ClientType clientType, @NonNull ByteBuffer streamingData) {
+            this.clientType = clientType;
+            this.streamingData = streamingData;
+        }
+    }
+
+    private static final class Entry {
+        @NonNull
+        final File file;
+        @NonNull
+        final String videoId;
+        @NonNull
+        final ClientType clientType;
+        final long expirationTime;
+        /**
+         * Hash of the ip address of the stream urls, or {@link #NO_IP_HASH}.
+         */
+        final int ipHash;
+        /**
+         * Network the response was fetched on.
+         */
+        final long networkHandle;
+        final long length;
+        long timeLastUsed;
+
+        Entry(@NonNull File file, @NonNull String videoId, @NonNull ClientType clientType,
+              long expirationTime, int ipHash, long networkHandle, long length, long timeLastUsed) {
+            this.file = file;
+            this.videoId = videoId;
+            this.clientType = clientType;
+            this.expirationTime = expirationTime;
+            this.ipHash = ipHash;
+            this.networkHandle = networkHandle;
+            this.length = length;
+            this.timeLastUsed = timeLastUsed;
+        }
+
+        boolean isExpired(long now) {
+            return expirationTime - now <= MINIMUM_TIME_UNTIL_EXPIRATION_MILLISECONDS;
+        }
+
+        @Nullable
+        static Entry fromFile(@NonNull File file) {
+            String name = file.getName();
+            if (!name.endsWith(FILE_EXTENSION)) {
+                return null;
+            }
+            String[] fields = name.substring(0, name.length() - FILE_EXTENSION.length())
+                    .split("\\" + FILE_NAME_SEPARATOR);
+            if (fields.length != 5) {
+                return null; // Includes files of older versions, that did not store the network.
+            }
+            try {
+                return new Entry(file, fields[0], ClientType.valueOf(fields[1]),
+                        Long.parseLong(fields[2]), Integer.parseInt(fields[3]), Long.parseLong(fields[4]),
+                        file.length(), file.lastModified());
+            } catch (IllegalArgumentException ex) { // Includes NumberFormatException.
+                return null; // Client was removed, or the file is not a cache entry.
+            }
+        }
+
+        @NonNull
+        static String getFileName(@NonNull String videoId, @NonNull ClientType clientType, long expirationTime,
+                                  int ipHash, long networkHandle) {
+            return videoId + FILE_NAME_SEPARATOR + clientType.name()
+                    + FILE_NAME_SEPARATOR + expirationTime
+                    + FILE_NAME_SEPARATOR + ipHash
+                    + FILE_NAME_SEPARATOR + networkHandle + FILE_EXTENSION;
+        }
+    }
+
+    /**
+     * Entries keyed by the file name.
+     */
+    @GuardedBy("this")
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Cache directory, or null if the cache directory is not available.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private File directory;
+
+    @GuardedBy("this")
+    private boolean loaded;
+
+    /**
+     * Network of the most recently stored response, or {@link #NO_NETWORK} if none was stored.
+     */
+    @GuardedBy("this")
+    private long lastStoredNetworkHandle = NO_NETWORK;
+
+    /**
+     * Ip address hash of the most recently stored response.
+     * This is the current ip address, if the network has not changed since.
+     */
+    @GuardedBy("this")
+    private int lastStoredIpHash = NO_IP_HASH;
+
+    /**
+     * @param clientTypes Clients to use, in order of preference.
+     * @return The stored streaming data of the first client with a response that does not expire soon,
+     * or null if no such response is stored.
+     */
+    @Nullable
+    CachedStreamingData get(@NonNull String videoId, @NonNull ClientType[] clientTypes) {
+        Entry entry = findEntry(videoId, clientTypes);
+        if (entry == null) {
+            return null;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(entry.file, "r")) {
+            // Read into a heap buffer, the same as a fetched response.
+            // Callers may use the backing array, which a memory mapped buffer does not have.
+            byte[] streamingData = new byte[(int) entry.length];
+            file.readFully(streamingData);
+            Logger.printDebug(() -> "Using stored streaming data for: " + videoId + " client: " + entry.clientType);
+            return new CachedStreamingData(entry.clientType, ByteBuffer.wrap(streamingData));
+        } catch (IOException ex) {
+            Logger.printInfo(() -> "Failed to read stored streaming data", ex);
+            synchronized (this) {
+                remove(entry);
+            }
+            return null;
+        }
+    }
+
+    @Nullable
+    private synchronized Entry findEntry(@NonNull String videoId, @NonNull ClientType[] clientTypes) {
+        loadIfNeeded();
+
+        final long networkHandle = getActiveNetworkHandle();
+        if (networkHandle == NO_NETWORK) {
+            return null;
+        }
+        // If a response was stored on this network, then responses with another ip address are outdated.
+        final boolean ipIsKnown = networkHandle == lastStoredNetworkHandle && lastStoredIpHash != NO_IP_HASH;
+
+        final long now = System.currentTimeMillis();
+        for (ClientType clientType : clientTypes) {
+            for (Entry entry : entries.values()) {
+                if (entry.clientType == clientType && entry.videoId.equals(videoId) && !entry.isExpired(now)
+                        && entry.networkHandle == networkHandle
+                        && (!ipIsKnown || entry.ipHash == NO_IP_HASH || entry.ipHash == lastStoredIpHash)) {
+                    entry.timeLastUsed = now;
+                    //noinspection ResultOfMethodCallIgnored
+                    entry.file.setLastModified(now);
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the response, unless the response has no expiration time or expires soon.
+     * Must be called off the main thread.
+     */
+    synchronized void put(@NonNull String videoId, @NonNull ClientType clientType, @NonNull byte[] streamingData) {
+        Utils.verifyOffMainThread();
+        loadIfNeeded();
+        if (directory == null) {
+            return;
+        }
+
+        final long networkHandle = getActiveNetworkHandle();
+        if (networkHandle == NO_NETWORK) {
+            return;
+        }
+        StreamUrlFields fields = findStreamUrlFields(streamingData);
+        final long expirationTime = fields.expirationTime;
+        final int ipHash = fields.getIpHash();
+        lastStoredNetworkHandle = networkHandle;
+        lastStoredIpHash = ipHash;
+
+        final long now = System.currentTimeMillis();
+        if (expirationTime == Long.MAX_VALUE || expirationTime - now <= MINIMUM_TIME_UNTIL_EXPIRATION_MILLISECONDS) {
+            Logger.printDebug(() -> "Not storing streaming data without a usable expiration: " + videoId);
+            return;
+        }
+
+        // Replace any existing response of the same video and client.
+        for (Entry existing : new ArrayList<>(entries.values())) {
+            if (existing.clientType == clientType && existing.videoId.equals(videoId)) {
+                remove(existing);
+            }
+        }
+
+        File file = new File(directory, Entry.getFileName(videoId, clientType, expirationTime, ipHash, networkHandle));
+        File tempFile = new File(directory, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(streamingData);
+        } catch (IOException ex) {
+            Logger.printInfo(() -> "Failed to store streaming data", ex);
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+        if (!tempFile.renameTo(file)) {
+            Logger.printInfo(() -> "Failed to rename streaming data file");
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+
+        entries.put(file.getName(), new Entry(file, videoId, clientType, expirationTime,
+                ipHash, networkHandle, streamingData.length, now));
+        removeExpiredAndOverLimit(now);
+    }
+
+    @GuardedBy("this")
+    private void remove(@NonNull Entry entry) {
+        entries.remove(entry.file.getName());
+        //noinspection ResultOfMethodCallIgnored
+        entry.file.delete();
+    }
+
+    @GuardedBy("this")
+    private void removeExpiredAndOverLimit(long now) {
+        List<Entry> sortedEntries = new ArrayList<>(entries.values());
+        sortedEntries.sort((entry1, entry2) -> Long.compare(entry2.timeLastUsed, entry1.timeLastUsed));
+
+        long totalBytes = 0;
+        int count = 0;
+        for (Entry entry : sortedEntries) {
+            totalBytes += entry.length;
+            count++;
+            if (entry.isExpired(now) || count > CACHE_LIMIT || totalBytes > CACHE_SIZE_LIMIT_BYTES) {
+                remove(entry);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadIfNeeded() {
+        if (loaded) return;
+        loaded = true;
+
+        Context context = Utils.getContext();
+        if (context == null) {
+            return; // Nothing is stored.
+        }
+        File cacheDirectory = new File(context.getCacheDir(), DIRECTORY_NAME);
+        if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+            Logger.printInfo(() -> "Failed to create streaming data directory");
+            return;
+        }
+        directory = cacheDirectory;
+
+        File[] files = cacheDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Entry entry = Entry.fromFile(file);
+            if (entry == null) {
+                // Partially written or unknown file.
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            } else {
+                entries.put(file.getName(), entry);
+            }
+        }
+        removeExpiredAndOverLimit(System.currentTimeMillis());
+        Logger.printDebug(() -> "Loaded " + entries.size() + " stored streaming data responses");
+    }
+
+    /**
+     * @return Handle of the active network, or {@link #NO_NETWORK} if not connected.
+     */
+    private static long getActiveNetworkHandle() {
+        Context context = Utils.getContext();
+        if (context != null && context.getSystemService(Context.CONNECTIVITY_SERVICE) instanceof ConnectivityManager cm) {
+            Network network = cm.getActiveNetwork();
+            if (network != null) {
+                return network.getNetworkHandle();
+            }
+        }
+        return NO_NETWORK;
+    }
+
+    /**
+     * Finds the expiration time and ip address of the stream urls, in a single pass over the response.
+     */
+    @NonNull
+    static StreamUrlFields findStreamUrlFields(@NonNull byte[] streamingData) {
+        long expirationSeconds = Long.MAX_VALUE;
+        String ip = null;
+        final long allPrefixes = streamUrlFieldSearch.allPatternsMask();
+        int searchIndex = 0;
+        while (true) {
+            final long found = streamUrlFieldSearch.find(streamingData, searchIndex, streamingData.length, allPrefixes);
+            if (found == BitParallelByteSearch.NOT_FOUND) {
+                break;
+            }
+            final int prefixIndex = BitParallelByteSearch.getPatternIndex(found);
+            final int valueStart = BitParallelByteSearch.getMatchedIndex(found) + STREAM_URL_FIELD_PREFIXES[prefixIndex].length;
+            int valueEnd = valueStart;
+            if (prefixIndex < FIRST_IP_PREFIX_INDEX) {
+                long value = 0;
+                for (; valueEnd < streamingData.length && valueEnd - valueStart < 12; valueEnd++) {
+                    final byte c = streamingData[valueEnd];
+                    if (c < '0' || c > '9') break;
+                    value = value * 10 + (c - '0');
+                }
+                if (valueEnd > valueStart) {
+                    expirationSeconds = Math.min(expirationSeconds, value);
+                }
+            } else {
+                // IPv4, or url encoded IPv6.
+                for (; valueEnd < streamingData.length && valueEnd - valueStart < 64; valueEnd++) {
+                    final byte c = streamingData[valueEnd];
+                    if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+                            || c == '.' || c == ':' || c == '%')) break;
+                }
+                if (ip == null && valueEnd > valueStart) {
+                    // All stream urls of a response are for the same ip address.
+                    ip = new String(streamingData, valueStart, valueEnd - valueStart, StandardCharsets.US_ASCII);
+                }
+            }
+            searchIndex = valueEnd;
+        }
+
+        return new StreamUrlFields(expirationSeconds == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : expirationSeconds * 1000, ip);
+    }
+}
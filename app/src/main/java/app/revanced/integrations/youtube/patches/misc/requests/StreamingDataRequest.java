@@ -2,34 +2,38 @@ package app.revanced.integrations.youtube.patches.misc.requests;
 
 import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.GET_LIVE_STREAM_RENDERER;
 import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.GET_STREAMING_DATA;
+import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.LIVE_STREAM_RENDERER_ENDPOINT;
+import static app.revanced.integrations.youtube.patches.misc.requests.PlayerRoutes.STREAMING_DATA_ENDPOINT;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import app.revanced.integrations.shared.requests.Requester;
+import app.revanced.integrations.shared.requests.SingleFlight;
 import app.revanced.integrations.shared.utils.Logger;
-import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.youtube.patches.misc.client.AppClient.ClientType;
 import app.revanced.integrations.youtube.settings.Settings;
 
@@ -58,7 +62,30 @@ public class StreamingDataRequest {
         }
     }
 
-    private static ClientType lastSpoofedClientType;
+    /**
+     * How long to wait for a client to respond before also fetching with the next client.
+     * Lower values start video playback sooner if a client is slow, but make more unnecessary requests.
+     */
+    private static final long HEDGE_DELAY_MILLISECONDS = 1500;
+
+    /**
+     * Weight of the latest result in the success rate of each client.
+     */
+    private static final float SUCCESS_RATE_WEIGHT = 0.25f;
+
+    /**
+     * Clients with a lower success rate are tried after all other clients.
+     * A client that always worked falls below this after 3 failures in a row.
+     */
+    private static final float MINIMUM_SUCCESS_RATE_TO_KEEP_ORDER = 0.5f;
+
+    /**
+     * Recent success rate of each client, from 0 to 1.  Clients not yet used are not included.
+     */
+    @GuardedBy("itself")
+    private static final Map<ClientType, Float> clientSuccessRates = new EnumMap<>(ClientType.class);
+
+    private static volatile ClientType lastSpoofedClientType;
 
     public static String getLastSpoofedClientName() {
         return lastSpoofedClientType == null
@@ -67,12 +94,7 @@ public class StreamingDataRequest {
     }
 
     /**
-     * TCP connection and HTTP read timeout.
-     */
-    private static final int HTTP_TIMEOUT_MILLISECONDS = 10 * 1000;
-
-    /**
-     * Any arbitrarily large value, but must be at least twice {@link #HTTP_TIMEOUT_MILLISECONDS}
+     * Any arbitrarily large value, but must be at least twice {@link PlayerRoutes#CONNECTION_TIMEOUT_MILLISECONDS}
      */
     private static final int MAX_MILLISECONDS_TO_WAIT_FOR_FETCH = 20 * 1000;
 
@@ -94,6 +116,17 @@ public class StreamingDataRequest {
                 }
             });
 
+    /**
+     * Responses of recently watched videos, kept across app restarts.
+     */
+    private static final StreamingDataCache persistentCache = new StreamingDataCache();
+
+    /**
+     * Fetches that are still in progress.  If the same video is requested again before
+     * the previous fetch completes (such as the player reloading), then the fetch is reused.
+     */
+    private static final SingleFlight<String, ByteBuffer> inFlightFetches = new SingleFlight<>();
+
     public static void fetchRequest(@NonNull String videoId, Map<String, String> fetchHeaders) {
         cache.put(videoId, new StreamingDataRequest(videoId, fetchHeaders));
     }
@@ -103,25 +136,35 @@ public class StreamingDataRequest {
         return cache.get(videoId);
     }
 
+    private static final String PLAYABILITY_STATUS_FIELD = "playabilityStatus.status";
+    private static final String IS_LIVE_CONTENT_FIELD = "videoDetails.isLiveContent";
+
     private static void handleConnectionError(String toastMessage, @Nullable Exception ex) {
         Logger.printInfo(() -> toastMessage, ex);
     }
 
+    private static boolean needsPlayabilityCheck(ClientType clientType) {
+        return SPOOF_STREAMING_DATA_IOS_COMPATIBILITY && clientType == ClientType.IOS;
+    }
+
     private static boolean isUnplayableOrLiveStream(ClientType clientType, String videoId) {
-        if (!SPOOF_STREAMING_DATA_IOS_COMPATIBILITY || clientType != ClientType.IOS) {
+        if (!needsPlayabilityCheck(clientType)) {
             return false;
         }
         Objects.requireNonNull(videoId);
+        final long startTime = System.currentTimeMillis();
         try {
-            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_LIVE_STREAM_RENDERER, clientType);
+            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_LIVE_STREAM_RENDERER, LIVE_STREAM_RENDERER_ENDPOINT, clientType);
             String innerTubeBody = PlayerRoutes.createInnertubeBody(clientType, videoId);
             byte[] requestBody = innerTubeBody.getBytes(StandardCharsets.UTF_8);
             connection.setFixedLengthStreamingMode(requestBody.length);
             connection.getOutputStream().write(requestBody);
 
             final int responseCode = connection.getResponseCode();
+            LIVE_STREAM_RENDERER_ENDPOINT.recordResponse(startTime, responseCode);
             if (responseCode == 200) {
-                JSONObject playerResponse = Requester.parseJSONObject(connection);
+                Map<String, String> playerResponse = Requester.parseJSONFields(connection,
+                        PLAYABILITY_STATUS_FIELD, IS_LIVE_CONTENT_FIELD);
                 final boolean isPlayabilityOk = isPlayabilityStatusOk(playerResponse);
                 final boolean isLiveStream = isLiveStream(playerResponse);
                 return !isPlayabilityOk || isLiveStream;
@@ -129,9 +172,12 @@ public class StreamingDataRequest {
 
             // Always show a toast for this, as a non 200 response means something is broken.
             handleConnectionError("Fetch livestreams not available: " + responseCode, null);
+            Requester.closeResponse(connection);
         } catch (SocketTimeoutException ex) {
+            LIVE_STREAM_RENDERER_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Fetch livestreams temporarily not available (API timed out)", ex);
         } catch (IOException ex) {
+            LIVE_STREAM_RENDERER_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Fetch livestreams temporarily not available: " + ex.getMessage(), ex);
         } catch (Exception ex) {
             Logger.printException(() -> "Fetch livestreams failed", ex); // Should never happen.
@@ -140,24 +186,24 @@ public class StreamingDataRequest {
         return true;
     }
 
-    private static boolean isPlayabilityStatusOk(@NonNull JSONObject playerResponse) {
-        try {
-            return playerResponse.getJSONObject("playabilityStatus").getString("status").equals("OK");
-        } catch (JSONException e) {
+    private static boolean isPlayabilityStatusOk(@NonNull Map<String, String> playerResponse) {
+        String status = playerResponse.get(PLAYABILITY_STATUS_FIELD);
+        if (status == null) {
             Logger.printDebug(() -> "Failed to get playabilityStatus for response: " + playerResponse);
+            return false;
         }
 
-        return false;
+        return status.equals("OK");
     }
 
-    private static boolean isLiveStream(@NonNull JSONObject playerResponse) {
-        try {
-            return playerResponse.getJSONObject("videoDetails").getBoolean("isLiveContent");
-        } catch (JSONException e) {
+    private static boolean isLiveStream(@NonNull Map<String, String> playerResponse) {
+        String isLiveContent = playerResponse.get(IS_LIVE_CONTENT_FIELD);
+        if (isLiveContent == null) {
             Logger.printDebug(() -> "Failed to get videoDetails for response: " + playerResponse);
+            return false;
         }
 
-        return false;
+        return Boolean.parseBoolean(isLiveContent);
     }
 
     private static final String[] REQUEST_HEADER_KEYS = {
@@ -166,9 +212,12 @@ public class StreamingDataRequest {
             "X-Goog-Visitor-Id"
     };
 
+    /**
+     * @param fetch Fetch that is cancelled by disconnecting the connection.
+     */
     @Nullable
     private static HttpURLConnection send(ClientType clientType, String videoId,
-                                          Map<String, String> playerHeaders) {
+                                          Map<String, String> playerHeaders, ClientFetch fetch) {
         Objects.requireNonNull(clientType);
         Objects.requireNonNull(videoId);
         Objects.requireNonNull(playerHeaders);
@@ -178,9 +227,8 @@ public class StreamingDataRequest {
         Logger.printDebug(() -> "Fetching video streams for: " + videoId + " using client: " + clientType.name());
 
         try {
-            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_STREAMING_DATA, clientType);
-            connection.setConnectTimeout(HTTP_TIMEOUT_MILLISECONDS);
-            connection.setReadTimeout(HTTP_TIMEOUT_MILLISECONDS);
+            HttpURLConnection connection = PlayerRoutes.getPlayerResponseConnectionFromRoute(GET_STREAMING_DATA, STREAMING_DATA_ENDPOINT, clientType);
+            fetch.connection = connection;
 
             for (String key : REQUEST_HEADER_KEYS) {
                 String value = playerHeaders.get(key);
@@ -195,14 +243,22 @@ public class StreamingDataRequest {
             connection.getOutputStream().write(requestBody);
 
             final int responseCode = connection.getResponseCode();
+            STREAMING_DATA_ENDPOINT.recordResponse(startTime, responseCode);
             if (responseCode == 200) return connection;
 
             handleConnectionError(clientTypeName + " not available with response code: "
                             + responseCode + " message: " + connection.getResponseMessage(),
                     null);
+            Requester.closeResponse(connection);
         } catch (SocketTimeoutException ex) {
+            STREAMING_DATA_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Connection timeout", ex);
         } catch (IOException ex) {
+            if (fetch.cancelled) {
+                Logger.printDebug(() -> clientTypeName + " fetch cancelled");
+                return null;
+            }
+            STREAMING_DATA_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError("Network error", ex);
         } catch (Exception ex) {
             Logger.printException(() -> "send failed", ex);
@@ -213,37 +269,203 @@ public class StreamingDataRequest {
         return null;
     }
 
-    private static ByteBuffer fetch(@NonNull String videoId, Map<String, String> playerHeaders) {
-        lastSpoofedClientType = null;
-
-        // Retry with different client if empty response body is received.
+    /**
+     * Orders the clients to try, from most to least likely to succeed.
+     * Clients that recently worked are kept in the order of {@link #clientTypesToUse},
+     * so the preferred client is used first unless it has been failing.
+     */
+    private static ClientType[] getClientTypesInFetchOrder() {
+        List<ClientType> working = new ArrayList<>(clientTypesToUse.length);
+        List<ClientType> failing = new ArrayList<>(clientTypesToUse.length);
         for (ClientType clientType : clientTypesToUse) {
-            if (isUnplayableOrLiveStream(clientType, videoId)) {
-                Logger.printDebug(() -> "Ignore IOS spoofing as it is unplayable or a live stream (video: " + videoId + ")");
-                continue;
+            if (getSuccessRate(clientType) >= MINIMUM_SUCCESS_RATE_TO_KEEP_ORDER) {
+                working.add(clientType);
+            } else {
+                failing.add(clientType);
+            }
+        }
+        failing.sort((type1, type2) -> Float.compare(getSuccessRate(type2), getSuccessRate(type1)));
+        working.addAll(failing);
+        return working.toArray(new ClientType[0]);
+    }
+
+    private static float getSuccessRate(ClientType clientType) {
+        synchronized (clientSuccessRates) {
+            Float rate = clientSuccessRates.get(clientType);
+            return rate == null ? 1 : rate;
+        }
+    }
+
+    private static void recordClientResult(ClientType clientType, boolean success) {
+        synchronized (clientSuccessRates) {
+            final float rate = getSuccessRate(clientType);
+            final float updatedRate = rate + SUCCESS_RATE_WEIGHT * ((success ? 1 : 0) - rate);
+            clientSuccessRates.put(clientType, updatedRate);
+            if (!success) {
+                Logger.printDebug(() -> clientType + " success rate: " + updatedRate);
             }
+        }
+    }
+
+    /**
+     * Fetch using a single client.
+     */
+    private static final class ClientFetch implements Callable<ByteBuffer> {
+        final ClientType clientType;
+        private final String videoId;
+        private final Map<String, String> playerHeaders;
+        private final BlockingQueue<ClientFetch> completedFetches;
+        volatile boolean cancelled;
+        @Nullable
+        volatile HttpURLConnection connection;
+        @Nullable
+        volatile Future<ByteBuffer> future;
+        /**
+         * Check if the video is unplayable or a live stream, run in parallel to this fetch.
+         * Null if the client does not need the check.
+         */
+        @Nullable
+        volatile Future<Boolean> playabilityCheck;
+        /**
+         * Result of the fetch. Set before this instance is added to the completed fetches.
+         */
+        @Nullable
+        volatile ByteBuffer streamingData;
+
+        ClientFetch(ClientType clientType, String videoId, Map<String, String> playerHeaders,
+                    BlockingQueue<ClientFetch> completedFetches) {
+            this.clientType = clientType;
+            this.videoId = videoId;
+            this.playerHeaders = playerHeaders;
+            this.completedFetches = completedFetches;
+        }
 
-            HttpURLConnection connection = send(clientType, videoId, playerHeaders);
+        @Override
+        public ByteBuffer call() {
+            try {
+                streamingData = fetchStreamingData();
+                if (!cancelled && streamingData == null) {
+                    // Successful fetches are recorded once the playability check passes.
+                    recordClientResult(clientType, false);
+                }
+                return streamingData;
+            } finally {
+                completedFetches.add(this);
+            }
+        }
+
+        @Nullable
+        private ByteBuffer fetchStreamingData() {
+            HttpURLConnection connection = send(clientType, videoId, playerHeaders, this);
+            if (connection == null || cancelled) {
+                return null;
+            }
+            try {
+                // gzip encoding doesn't response with content length (-1),
+                // but empty response body does.
+                if (connection.getContentLength() == 0) {
+                    return null;
+                }
+                return ByteBuffer.wrap(Requester.parseBytes(connection));
+            } catch (IOException ex) {
+                if (!cancelled) {
+                    Logger.printException(() -> "Fetch failed while processing response data", ex);
+                }
+            }
+            return null;
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            Future<Boolean> playabilityCheck = this.playabilityCheck;
+            if (playabilityCheck != null) {
+                playabilityCheck.cancel(false);
+            }
+            HttpURLConnection connection = this.connection;
             if (connection != null) {
-                try {
-                    // gzip encoding doesn't response with content length (-1),
-                    // but empty response body does.
-                    if (connection.getContentLength() != 0) {
-                        try (InputStream inputStream = new BufferedInputStream(connection.getInputStream())) {
-                            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                                byte[] buffer = new byte[8192];
-                                int bytesRead;
-                                while ((bytesRead = inputStream.read(buffer)) >= 0) {
-                                    baos.write(buffer, 0, bytesRead);
-                                }
-                                lastSpoofedClientType = clientType;
-
-                                return ByteBuffer.wrap(baos.toByteArray());
-                            }
-                        }
+                connection.disconnect(); // Stop downloading the response.
+            }
+        }
+    }
+
+    /**
+     * Starts the first client, and starts the next client if the previous clients failed
+     * or have not responded after {@link #HEDGE_DELAY_MILLISECONDS}.
+     * The first successful response is used, and all other fetches are cancelled.
+     */
+    @Nullable
+    private static ByteBuffer fetch(@NonNull String videoId, Map<String, String> playerHeaders) {
+        lastSpoofedClientType = null;
+
+        ClientType[] clientTypes = getClientTypesInFetchOrder();
+        StreamingDataCache.CachedStreamingData cached = persistentCache.get(videoId, clientTypes);
+        if (cached != null) {
+            lastSpoofedClientType = cached.clientType;
+            return cached.streamingData;
+        }
+
+        BlockingQueue<ClientFetch> completedFetches = new LinkedBlockingQueue<>();
+        List<ClientFetch> startedFetches = new ArrayList<>(clientTypes.length);
+        final long deadline = System.currentTimeMillis() + MAX_MILLISECONDS_TO_WAIT_FOR_FETCH;
+        ClientFetch successfulFetch = null;
+
+        startedFetches.add(startFetch(clientTypes[0], videoId, playerHeaders, completedFetches));
+        int nextClientIndex = 1;
+        int pendingFetches = 1;
+
+        try {
+            while (pendingFetches > 0) {
+                final boolean canStartNext = nextClientIndex < clientTypes.length;
+                final long timeRemaining = deadline - System.currentTimeMillis();
+                if (timeRemaining <= 0) {
+                    handleConnectionError("Timed out waiting for client streams", null);
+                    return null;
+                }
+                ClientFetch completed = completedFetches.poll(
+                        canStartNext ? Math.min(HEDGE_DELAY_MILLISECONDS, timeRemaining) : timeRemaining,
+                        TimeUnit.MILLISECONDS);
+                if (completed == null) {
+                    if (canStartNext) {
+                        ClientType slowClient = clientTypes[nextClientIndex - 1];
+                        Logger.printDebug(() -> slowClient + " is slow, also fetching with next client");
+                        startedFetches.add(startFetch(clientTypes[nextClientIndex++], videoId, playerHeaders, completedFetches));
+                        pendingFetches++;
                     }
-                } catch (IOException ex) {
-                    Logger.printException(() -> "Fetch failed while processing response data", ex);
+                    continue;
+                }
+
+                pendingFetches--;
+                ByteBuffer streamingData = completed.streamingData;
+                if (streamingData != null && failedPlayabilityCheck(completed, videoId, deadline)) {
+                    // Not a failure of the client, so the success rate is not changed.
+                    streamingData = null;
+                }
+                if (streamingData != null) {
+                    recordClientResult(completed.clientType, true);
+                    successfulFetch = completed;
+                    lastSpoofedClientType = completed.clientType;
+                    final ClientType clientType = completed.clientType;
+                    TaskScheduler.run(TaskScheduler.Lane.BACKGROUND,
+                            () -> persistentCache.put(videoId, clientType, streamingData.array()));
+                    return streamingData;
+                }
+                if (canStartNext) {
+                    // Failed. Start the next client without waiting for the hedge delay.
+                    startedFetches.add(startFetch(clientTypes[nextClientIndex++], videoId, playerHeaders, completedFetches));
+                    pendingFetches++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Logger.printException(() -> "fetch interrupted", ex);
+            Thread.currentThread().interrupt(); // Restore interrupt status flag.
+            return null;
+        } finally {
+            for (ClientFetch fetch : startedFetches) {
+                if (fetch != successfulFetch) {
+                    fetch.cancel();
                 }
             }
         }
@@ -252,13 +474,50 @@ public class StreamingDataRequest {
         return null;
     }
 
+    /**
+     * @return If the fetch has a playability check, and the check found the video is unplayable
+     * or a live stream, or the check failed.
+     */
+    private static boolean failedPlayabilityCheck(ClientFetch fetch, String videoId, long deadline)
+            throws InterruptedException {
+        Future<Boolean> playabilityCheck = fetch.playabilityCheck;
+        if (playabilityCheck == null) {
+            return false;
+        }
+        try {
+            final long timeRemaining = Math.max(0, deadline - System.currentTimeMillis());
+            if (!playabilityCheck.get(timeRemaining, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            Logger.printDebug(() -> "Ignore " + fetch.clientType + " spoofing as it is unplayable or a live stream (video: " + videoId + ")");
+        } catch (TimeoutException | ExecutionException | CancellationException ex) {
+            Logger.printInfo(() -> "Playability check failed", ex);
+        }
+        return true;
+    }
+
+    private static ClientFetch startFetch(ClientType clientType, String videoId, Map<String, String> playerHeaders,
+                                          BlockingQueue<ClientFetch> completedFetches) {
+        ClientFetch fetch = new ClientFetch(clientType, videoId, playerHeaders, completedFetches);
+        // The calling fetch waits on these tasks, and neither waits on the other.
+        // The playability check runs in parallel to the fetch,
+        // so the check does not add another round trip before the video can start.
+        fetch.future = TaskScheduler.submit(TaskScheduler.Lane.NESTED_REQUEST, fetch);
+        if (needsPlayabilityCheck(clientType)) {
+            fetch.playabilityCheck = TaskScheduler.submit(TaskScheduler.Lane.NESTED_REQUEST,
+                    () -> isUnplayableOrLiveStream(clientType, videoId));
+        }
+        return fetch;
+    }
+
+
     private final String videoId;
     private final Future<ByteBuffer> future;
 
     private StreamingDataRequest(String videoId, Map<String, String> playerHeaders) {
         Objects.requireNonNull(playerHeaders);
         this.videoId = videoId;
-        this.future = Utils.submitOnBackgroundThread(() -> fetch(videoId, playerHeaders));
+        this.future = inFlightFetches.submit(videoId, () -> fetch(videoId, playerHeaders));
     }
 
     public boolean fetchCompleted() {
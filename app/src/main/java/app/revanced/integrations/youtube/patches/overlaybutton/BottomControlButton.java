@@ -25,6 +25,9 @@ import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
 
 public abstract class BottomControlButton {
+    public static final String FADE_DURATION_FAST_INTEGER_NAME = "fade_duration_fast";
+    public static final String FADE_OVERLAY_FADE_DURATION_INTEGER_NAME = "fade_overlay_fade_duration";
+
     private static final Animation fadeIn;
     private static final Animation fadeOut;
     private static final Animation fadeOutImmediate;
@@ -41,15 +44,15 @@ public abstract class BottomControlButton {
     static {
         fadeIn = getAnimation("fade_in");
         // android.R.integer.config_shortAnimTime, 200
-        fadeIn.setDuration(getInteger("fade_duration_fast"));
+        fadeIn.setDuration(getInteger(FADE_DURATION_FAST_INTEGER_NAME));
 
         fadeOut = getAnimation("fade_out");
         // android.R.integer.config_mediumAnimTime, 400
-        fadeOut.setDuration(getInteger("fade_overlay_fade_duration"));
+        fadeOut.setDuration(getInteger(FADE_OVERLAY_FADE_DURATION_INTEGER_NAME));
 
         fadeOutImmediate = getAnimation("abc_fade_out");
         // android.R.integer.config_shortAnimTime, 200
-        fadeOutImmediate.setDuration(getInteger("fade_duration_fast"));
+        fadeOutImmediate.setDuration(getInteger(FADE_DURATION_FAST_INTEGER_NAME));
     }
 
     @NonNull
@@ -26,6 +26,7 @@ import java.util.Objects;
 
 import app.revanced.integrations.shared.settings.BaseSettings;
 import app.revanced.integrations.shared.settings.BooleanSetting;
+import app.revanced.integrations.shared.settings.DerivedSetting;
 import app.revanced.integrations.shared.settings.IntegerSetting;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.ResourceUtils;
@@ -670,17 +671,24 @@ public class PlayerPatch {
     }
 
     /**
-     * Points where errors occur when playing videos on the PlayStore (ROOT Build)
+     * Custom seekbar color, parsed only when the setting changes.
      */
-    public static int overrideSeekbarColor(final int colorValue) {
+    private static final DerivedSetting<Integer> customSeekbarColor = new DerivedSetting<>(() -> {
         try {
-            return Settings.ENABLE_CUSTOM_SEEKBAR_COLOR.get()
-                    ? Color.parseColor(Settings.ENABLE_CUSTOM_SEEKBAR_COLOR_VALUE.get())
-                    : colorValue;
+            return Color.parseColor(Settings.ENABLE_CUSTOM_SEEKBAR_COLOR_VALUE.get());
         } catch (Exception ignored) {
             Settings.ENABLE_CUSTOM_SEEKBAR_COLOR_VALUE.resetToDefault();
+            return Color.parseColor(Settings.ENABLE_CUSTOM_SEEKBAR_COLOR_VALUE.defaultValue);
         }
-        return colorValue;
+    }, Settings.ENABLE_CUSTOM_SEEKBAR_COLOR_VALUE);
+
+    /**
+     * Points where errors occur when playing videos on the PlayStore (ROOT Build)
+     */
+    public static int overrideSeekbarColor(final int colorValue) {
+        return Settings.ENABLE_CUSTOM_SEEKBAR_COLOR.get()
+                ? customSeekbarColor.get()
+                : colorValue;
     }
 
     public static boolean enableSeekbarTapping() {
@@ -691,8 +699,10 @@ public class PlayerPatch {
         return Settings.RESTORE_OLD_SEEKBAR_THUMBNAILS.get();
     }
 
+    public static final String TIME_BAR_CHAPTER_TITLE_ID_NAME = "time_bar_chapter_title";
+
     private static final int timeBarChapterViewId =
-            ResourceUtils.getIdIdentifier("time_bar_chapter_title");
+            ResourceUtils.getIdIdentifier(TIME_BAR_CHAPTER_TITLE_ID_NAME);
 
     public static boolean hideSeekbar() {
         return Settings.HIDE_SEEKBAR.get();
@@ -10,7 +10,18 @@ import androidx.annotation.NonNull;
 
 import app.revanced.integrations.shared.settings.BaseSettings;
 import app.revanced.integrations.shared.settings.BooleanSetting;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.ResourceUtils;
+import app.revanced.integrations.shared.utils.ResourceUtils.ResourceType;
+import app.revanced.integrations.shared.utils.TaskScheduler;
+import app.revanced.integrations.youtube.patches.general.MiniplayerPatch;
+import app.revanced.integrations.youtube.patches.overlaybutton.BottomControlButton;
+import app.revanced.integrations.youtube.patches.player.PlayerPatch;
+import app.revanced.integrations.youtube.sponsorblock.ui.NewSegmentLayout;
+import app.revanced.integrations.youtube.sponsorblock.ui.SkipSponsorButton;
+import app.revanced.integrations.youtube.sponsorblock.ui.SponsorBlockViewController;
 import app.revanced.integrations.youtube.utils.ExtendedUtils;
+import app.revanced.integrations.youtube.whitelist.Whitelist;
 
 @SuppressWarnings("unused")
 public class InitializationPatch {
@@ -35,5 +46,37 @@ public class InitializationPatch {
         ExtendedUtils.setSmallestScreenWidthDp();
         ExtendedUtils.setVersionName();
         ExtendedUtils.setPlayerFlyoutMenuAdditionalSettings();
+        TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, InitializationPatch::preloadResourceIdentifiers);
+    }
+
+    /**
+     * Resolves the identifiers used when the player and its overlays are created,
+     * so opening the first video does not resolve them on the main thread.
+     * <p>
+     * The names are compile time constants of the classes that use them,
+     * so this does not initialize those classes on this thread.
+     */
+    private static void preloadResourceIdentifiers() {
+        ResourceUtils.preloadIdentifiers(ResourceType.ID,
+                PlayerControlsPatch.PLAYER_OVERFLOW_BUTTON_ID_NAME,
+                PlayerPatch.TIME_BAR_CHAPTER_TITLE_ID_NAME,
+                MiniplayerPatch.MODERN_OVERLAY_SUBTITLE_TEXT_ID_NAME,
+                SkipSponsorButton.CONTAINER_ID_NAME,
+                SkipSponsorButton.TEXT_ID_NAME
+        );
+        ResourceUtils.preloadIdentifiers(ResourceType.LAYOUT,
+                SkipSponsorButton.LAYOUT_NAME,
+                SponsorBlockViewController.INLINE_SPONSOR_OVERLAY_LAYOUT_NAME,
+                NewSegmentLayout.LAYOUT_NAME
+        );
+        ResourceUtils.preloadIdentifiers(ResourceType.DRAWABLE,
+                Whitelist.PLAYBACK_SPEED_DRAWABLE_NAME,
+                Whitelist.SPONSOR_BLOCK_DRAWABLE_NAME
+        );
+        ResourceUtils.preloadIdentifiers(ResourceType.INTEGER,
+                BottomControlButton.FADE_DURATION_FAST_INTEGER_NAME,
+                BottomControlButton.FADE_OVERLAY_FADE_DURATION_INTEGER_NAME
+        );
+        Logger.printDebug(ResourceUtils::getStatistics);
     }
 }
\ No newline at end of file
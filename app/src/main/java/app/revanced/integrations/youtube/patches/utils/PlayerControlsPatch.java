@@ -15,9 +15,11 @@ import app.revanced.integrations.youtube.shared.PlayerControlsVisibility;
  * @noinspection ALL
  */
 public class PlayerControlsPatch {
+    public static final String PLAYER_OVERFLOW_BUTTON_ID_NAME = "player_overflow_button";
+
     private static WeakReference<View> playerOverflowButtonViewRef = new WeakReference<>(null);
     private static final int playerOverflowButtonId =
-            getIdIdentifier("player_overflow_button");
+            getIdIdentifier(PLAYER_OVERFLOW_BUTTON_ID_NAME);
 
     /**
      * Injection point.
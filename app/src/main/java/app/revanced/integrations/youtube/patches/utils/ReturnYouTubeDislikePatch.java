@@ -22,6 +22,7 @@ import java.util.Objects;
 
 import app.revanced.integrations.shared.returnyoutubedislike.requests.ReturnYouTubeDislikeApi;
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.patches.components.ReturnYouTubeDislikeFilterPatch;
 import app.revanced.integrations.youtube.returnyoutubedislike.ReturnYouTubeDislike;
@@ -508,7 +509,8 @@ public class ReturnYouTubeDislikePatch {
             if (videoData.fetchCompleted()) {
                 update.run(); // Network call is completed, no need to wait on background thread.
             } else {
-                Utils.runOnBackgroundThread(update);
+                // Waits on the fetch, so this cannot use the lane of the fetch.
+                TaskScheduler.run(TaskScheduler.Lane.UI_UPDATE, update);
             }
         } catch (Exception ex) {
             Logger.printException(() -> "updateOnScreenShortsTextViews failure", ex);
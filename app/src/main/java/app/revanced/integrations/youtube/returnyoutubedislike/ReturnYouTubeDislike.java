@@ -31,10 +31,7 @@ import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -45,6 +42,7 @@ import java.util.concurrent.TimeoutException;
 
 import app.revanced.integrations.shared.returnyoutubedislike.requests.RYDVoteData;
 import app.revanced.integrations.shared.returnyoutubedislike.requests.ReturnYouTubeDislikeApi;
+import app.revanced.integrations.shared.utils.ExpiringCache;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
@@ -86,11 +84,17 @@ public class ReturnYouTubeDislike {
     public static final boolean IS_SPOOFING_TO_OLD_SEPARATOR_COLOR =
             isSpoofingToLessThan("18.10.00");
 
+    /**
+     * Maximum number of video ids to keep.
+     * Scrolling a feed creates a fetch for every video shown, so the number of fetches must be bounded.
+     */
+    private static final int CACHE_LIMIT = 1000;
+
     /**
      * Cached lookup of all video ids.
      */
-    @GuardedBy("itself")
-    private static final Map<String, ReturnYouTubeDislike> fetchCache = new HashMap<>();
+    private static final ExpiringCache<String, ReturnYouTubeDislike> fetchCache =
+            new ExpiringCache<>(CACHE_LIMIT, (fetch, timeCreated, now) -> fetch.getExpirationTime(timeCreated, now));
 
     /**
      * Used to send votes, one by one, in the same order the user created them.
@@ -148,11 +152,6 @@ public class ReturnYouTubeDislike {
      */
     private final Future<RYDVoteData> future;
 
-    /**
-     * Time this instance and the fetch future was created.
-     */
-    private final long timeFetched;
-
     /**
      * If this instance was previously used for a Short.
      */
@@ -407,63 +406,36 @@ public class ReturnYouTubeDislike {
     @NonNull
     public static ReturnYouTubeDislike getFetchForVideoId(@Nullable String videoId) {
         Objects.requireNonNull(videoId);
-        synchronized (fetchCache) {
-            // Remove any expired entries.
-            final long now = System.currentTimeMillis();
-            if (isSDKAbove(24)) {
-                fetchCache.values().removeIf(value -> {
-                    final boolean expired = value.isExpired(now);
-                    if (expired)
-                        Logger.printDebug(() -> "Removing expired fetch: " + value.videoId);
-                    return expired;
-                });
-            } else {
-                final Iterator<Map.Entry<String, ReturnYouTubeDislike>> itr = fetchCache.entrySet().iterator();
-                while (itr.hasNext()) {
-                    final Map.Entry<String, ReturnYouTubeDislike> entry = itr.next();
-                    if (entry.getValue().isExpired(now)) {
-                        Logger.printDebug(() -> "Removing expired fetch: " + entry.getValue().videoId);
-                        itr.remove();
-                    }
-                }
-            }
-
-            ReturnYouTubeDislike fetch = fetchCache.get(videoId);
-            if (fetch == null) {
-                fetch = new ReturnYouTubeDislike(videoId);
-                fetchCache.put(videoId, fetch);
-            }
-            return fetch;
-        }
+        return fetchCache.getOrCreate(videoId, ReturnYouTubeDislike::new);
     }
 
     /**
      * Should be called if the user changes dislikes appearance settings.
      */
     public static void clearAllUICaches() {
-        synchronized (fetchCache) {
-            for (ReturnYouTubeDislike fetch : fetchCache.values()) {
-                fetch.clearUICache();
-            }
-        }
+        fetchCache.forEach(ReturnYouTubeDislike::clearUICache);
     }
 
     private ReturnYouTubeDislike(@NonNull String videoId) {
         this.videoId = Objects.requireNonNull(videoId);
-        this.timeFetched = System.currentTimeMillis();
         this.future = Utils.submitOnBackgroundThread(() -> ReturnYouTubeDislikeApi.fetchVotes(videoId));
     }
 
-    private boolean isExpired(long now) {
-        final long timeSinceCreation = now - timeFetched;
-        if (timeSinceCreation < CACHE_TIMEOUT_FAILURE_MILLISECONDS) {
-            return false; // Not expired, even if the API call failed.
+    /**
+     * Does not wait for the fetch, as this is called by the fetch cache during lookups.
+     *
+     * @return Time this fetch expires, or the time to check again if it's not yet known if the fetch succeeded.
+     */
+    private long getExpirationTime(long timeFetched, long now) {
+        final long failureExpiration = timeFetched + CACHE_TIMEOUT_FAILURE_MILLISECONDS;
+        if (now < failureExpiration) {
+            return failureExpiration; // Not expired, even if the API call failed.
         }
-        if (timeSinceCreation > CACHE_TIMEOUT_SUCCESS_MILLISECONDS) {
-            return true; // Always expired.
+        // Expired if the fetch failed (API null response) or is taking too long.
+        if (!fetchCompleted() || getFetchData(0) == null) {
+            return failureExpiration;
         }
-        // Only expired if the fetch failed (API null response).
-        return (!fetchCompleted() || getFetchData(MAX_MILLISECONDS_TO_BLOCK_UI_WAITING_FOR_FETCH) == null);
+        return timeFetched + CACHE_TIMEOUT_SUCCESS_MILLISECONDS;
     }
 
     @Nullable
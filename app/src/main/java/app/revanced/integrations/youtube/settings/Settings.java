@@ -607,6 +607,9 @@ public class Settings extends BaseSettings {
     public static final BooleanSetting SB_SEEN_GUIDELINES = new BooleanSetting("sb_seen_guidelines", FALSE, false, false);
 
     static {
+        // All settings are loaded.
+        Setting.preferences.endStartupSnapshot();
+
         // region Migration initialized
         // Categories were previously saved without a 'sb_' key prefix, so they need an additional adjustment.
         Set<Setting<?>> sbCategories = new HashSet<>(Arrays.asList(
@@ -14,7 +14,7 @@ import android.widget.TextView;
 
 import org.apache.commons.lang3.BooleanUtils;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import app.revanced.integrations.youtube.patches.utils.PatchStatus;
 import app.revanced.integrations.youtube.utils.ThemeUtils;
@@ -93,7 +93,7 @@ public class WhitelistedChannelsPreference extends Preference implements Prefere
     }
 
     private static void showWhitelistedChannelDialog(Context context, WhitelistType whitelistType) {
-        final ArrayList<VideoChannel> mEntries = Whitelist.getWhitelistedChannels(whitelistType);
+        final List<VideoChannel> mEntries = Whitelist.getWhitelistedChannels(whitelistType);
 
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle(whitelistType.getFriendlyName());
@@ -0,0 +1,214 @@
+package app.revanced.integrations.youtube.shared;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.Utils;
+
+/**
+ * Estimates the current playback time between updates of {@link VideoInformation#setVideoTime(long)},
+ * using the time since the last update and the playback speed.
+ * <p>
+ * Also runs timers at a video time instead of after a delay.
+ * Timers are rescheduled each time the video time, playback speed or playback state changes,
+ * so a timer still runs at the correct video time after seeking, pausing or changing the speed.
+ */
+public final class PlaybackClock {
+
+    /**
+     * Maximum real time the playback time is estimated past the last update.
+     * Prevents the estimate from running ahead if the updates stop, such as while buffering.
+     */
+    private static final long MAXIMUM_ESTIMATE_MILLISECONDS = 1500;
+
+    /**
+     * Video time, and the system uptime when the video time was updated.
+     */
+    private static final class Sample {
+        final long videoTime;
+        final long uptime;
+        final float playbackSpeed;
+        final boolean playing;
+
+        Sample(long videoTime, long uptime, float playbackSpeed, boolean playing) {
+            this.videoTime = videoTime;
+            this.uptime = uptime;
+            this.playbackSpeed = playbackSpeed;
+            this.playing = playing && playbackSpeed > 0;
+        }
+
+        long getVideoTime(long now) {
+            if (!playing || videoTime < 0) {
+                return videoTime;
+            }
+            final long elapsed = Math.min(now - uptime, MAXIMUM_ESTIMATE_MILLISECONDS);
+            return videoTime + (long) (elapsed * playbackSpeed);
+        }
+    }
+
+    /**
+     * Runs an action once playback reaches a video time.
+     */
+    public static final class Timer {
+        private final long videoTime;
+        @NonNull
+        private final Runnable action;
+
+        private Timer(long videoTime, @NonNull Runnable action) {
+            this.videoTime = videoTime;
+            this.action = action;
+        }
+
+        /**
+         * Cancels the timer, if it has not already run.
+         * Can be called from any thread.
+         */
+        public void cancel() {
+            Utils.runOnMainThreadNowOrLater(() -> {
+                if (timers.remove(this)) {
+                    rescheduleTimers();
+                }
+            });
+        }
+    }
+
+    private static volatile Sample sample = new Sample(-1, 0, 1.0f, false);
+
+    /**
+     * Timers that have not run. Only accessed on the main thread.
+     */
+    private static final List<Timer> timers = new ArrayList<>();
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private static final Runnable runDueTimers = PlaybackClock::runDueTimers;
+
+    private PlaybackClock() {
+    }
+
+    /**
+     * Playback time of the current video, estimated to the current time.
+     * Unlike {@link VideoInformation#getVideoTime()}, this does not lag behind the actual playback time.
+     * Can be called from any thread.
+     *
+     * @return The estimated time of the video in milliseconds. -1 if not set yet.
+     */
+    public static long getVideoTime() {
+        final long videoTime = sample.getVideoTime(SystemClock.uptimeMillis());
+        final long videoLength = VideoInformation.getVideoLength();
+        return videoLength > 0 ? Math.min(videoTime, videoLength) : videoTime;
+    }
+
+    /**
+     * Runs the action once playback reaches the video time.
+     * If the current time is already at or after the video time, or playback is seeked past it,
+     * then the action runs as soon as possible, so the action should check the current time.
+     * Timers do not run while playback is paused.
+     * <p>
+     * Must be called on the main thread. The action is run on the main thread.
+     */
+    @NonNull
+    public static Timer scheduleAt(long videoTime, @NonNull Runnable action) {
+        Utils.verifyOnMainThread();
+        Timer timer = new Timer(videoTime, Objects.requireNonNull(action));
+        timers.add(timer);
+        rescheduleTimers();
+        return timer;
+    }
+
+    /**
+     * Called when the video time is updated. Called on the main thread.
+     */
+    static void onVideoTimeChanged(long videoTime) {
+        Sample current = sample;
+        sample = new Sample(videoTime, SystemClock.uptimeMillis(), current.playbackSpeed,
+                VideoState.getCurrent() == VideoState.PLAYING);
+        rescheduleTimers();
+    }
+
+    static void onPlaybackSpeedChanged(float playbackSpeed) {
+        final long now = SystemClock.uptimeMillis();
+        Sample current = sample;
+        sample = new Sample(current.getVideoTime(now), now, playbackSpeed, current.playing);
+        Utils.runOnMainThreadNowOrLater(PlaybackClock::rescheduleTimers);
+    }
+
+    static void onVideoStateChanged(@NonNull VideoState videoState) {
+        final long now = SystemClock.uptimeMillis();
+        Sample current = sample;
+        sample = new Sample(current.getVideoTime(now), now, current.playbackSpeed,
+                videoState == VideoState.PLAYING);
+        Utils.runOnMainThreadNowOrLater(PlaybackClock::rescheduleTimers);
+    }
+
+    /**
+     * Called when a new video player is created. Timers of the previous video are cancelled.
+     */
+    static void reset() {
+        sample = new Sample(-1, SystemClock.uptimeMillis(), 1.0f, false);
+        Utils.runOnMainThreadNowOrLater(() -> {
+            timers.clear();
+            handler.removeCallbacks(runDueTimers);
+        });
+    }
+
+    private static void rescheduleTimers() {
+        handler.removeCallbacks(runDueTimers);
+        Sample current = sample;
+        if (timers.isEmpty() || !current.playing) {
+            return;
+        }
+
+        long earliestVideoTime = Long.MAX_VALUE;
+        for (Timer timer : timers) {
+            earliestVideoTime = Math.min(earliestVideoTime, timer.videoTime);
+        }
+        final long now = SystemClock.uptimeMillis();
+        if (now - current.uptime >= MAXIMUM_ESTIMATE_MILLISECONDS) {
+            // Estimate does not advance until the next update, such as while buffering,
+            // and the update reschedules the timers.
+            return;
+        }
+        final long remainingVideoTime = earliestVideoTime - current.getVideoTime(now);
+        // Round up, otherwise a timer that is less than 1ms away is rescheduled without a delay until it's due.
+        final long delay = remainingVideoTime <= 0
+                ? 0
+                : (long) Math.ceil(remainingVideoTime / (double) current.playbackSpeed);
+        handler.postDelayed(runDueTimers, delay);
+    }
+
+    private static void runDueTimers() {
+        Sample current = sample;
+        if (!current.playing) {
+            return;
+        }
+
+        final long videoTime = current.getVideoTime(SystemClock.uptimeMillis());
+        List<Timer> dueTimers = new ArrayList<>();
+        for (Iterator<Timer> iterator = timers.iterator(); iterator.hasNext(); ) {
+            Timer timer = iterator.next();
+            if (timer.videoTime <= videoTime) {
+                iterator.remove();
+                dueTimers.add(timer);
+            }
+        }
+        rescheduleTimers();
+
+        for (Timer timer : dueTimers) {
+            try {
+                timer.action.run();
+            } catch (Exception ex) {
+                Logger.printException(() -> "Timer failure", ex);
+            }
+        }
+    }
+}
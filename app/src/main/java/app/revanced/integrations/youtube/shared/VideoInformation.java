@@ -6,13 +6,11 @@ import static app.revanced.integrations.shared.utils.Utils.getFormattedTimeStamp
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.shared.utils.VideoQualityList;
 import app.revanced.integrations.youtube.patches.utils.AlwaysRepeatPatch;
+import app.revanced.integrations.youtube.sponsorblock.requests.SegmentPrefetcher;
 
 /**
  * Hooking class for the current playing video.
@@ -69,7 +67,7 @@ public final class VideoInformation {
      * The available qualities of the current video in human readable form: [1080, 720, 480]
      */
     @Nullable
-    private static List<Integer> videoQualities;
+    private static volatile VideoQualityList videoQualities;
 
     /**
      * Injection point.
@@ -78,6 +76,7 @@ public final class VideoInformation {
         videoTime = -1;
         videoLength = 0;
         playbackSpeed = DEFAULT_YOUTUBE_PLAYBACK_SPEED;
+        PlaybackClock.reset();
         Logger.printDebug(() -> "Initialized Player");
     }
 
@@ -351,6 +350,11 @@ public final class VideoInformation {
     public static void setPlayerResponseVideoId(@NonNull String videoId, boolean isShortAndOpeningOrPlaying) {
         if (!playerResponseVideoId.equals(videoId)) {
             playerResponseVideoId = videoId;
+            if (!isShortAndOpeningOrPlaying) {
+                // Player responses are also loaded for the next autoplay video and feed previews,
+                // before the video is opened.
+                SegmentPrefetcher.prefetch(videoId);
+            }
         }
     }
 
@@ -367,7 +371,10 @@ public final class VideoInformation {
      * @param newlyLoadedPlaybackSpeed The current playback speed.
      */
     public static void setPlaybackSpeed(float newlyLoadedPlaybackSpeed) {
-        playbackSpeed = newlyLoadedPlaybackSpeed;
+        if (playbackSpeed != newlyLoadedPlaybackSpeed) {
+            playbackSpeed = newlyLoadedPlaybackSpeed;
+            PlaybackClock.onPlaybackSpeedChanged(newlyLoadedPlaybackSpeed);
+        }
     }
 
     /**
@@ -415,16 +422,10 @@ public final class VideoInformation {
      * @return available video quality.
      */
     public static int getAvailableVideoQuality(int preferredQuality) {
-        if (videoQualities != null) {
-            int qualityToUse = videoQualities.get(0); // first element is automatic mode
-            for (Integer quality : videoQualities) {
-                if (quality <= preferredQuality && qualityToUse < quality) {
-                    qualityToUse = quality;
-                }
-            }
-            preferredQuality = qualityToUse;
-        }
-        return preferredQuality;
+        VideoQualityList qualities = videoQualities;
+        return qualities == null
+                ? preferredQuality
+                : qualities.getAvailableQuality(preferredQuality);
     }
 
     /**
@@ -434,16 +435,8 @@ public final class VideoInformation {
      */
     public static void setVideoQualityList(Object[] qualities) {
         try {
-            if (videoQualities == null || videoQualities.size() != qualities.length) {
-                videoQualities = new ArrayList<>(qualities.length);
-                for (Object streamQuality : qualities) {
-                    for (Field field : streamQuality.getClass().getFields()) {
-                        if (field.getType().isAssignableFrom(Integer.TYPE)
-                                && field.getName().length() <= 2) {
-                            videoQualities.add(field.getInt(streamQuality));
-                        }
-                    }
-                }
+            if (videoQualities == null || videoQualities.isDifferentSize(qualities)) {
+                videoQualities = VideoQualityList.fromStreamQualities(qualities);
                 Logger.printDebug(() -> "videoQualities: " + videoQualities);
             }
         } catch (Exception ex) {
@@ -471,6 +464,8 @@ public final class VideoInformation {
      * If playback speed is 1.0x, this value may be up to 1000ms behind the actual playback time.
      * If playback speed is 0.5x, this value may be up to 500ms behind the actual playback time.
      * Etc.
+     * <p>
+     * Use {@link PlaybackClock#getVideoTime()} for an estimate of the actual playback time.
      *
      * @return The time of the video in milliseconds. -1 if not set yet.
      */
@@ -486,6 +481,7 @@ public final class VideoInformation {
      */
     public static void setVideoTime(final long time) {
         videoTime = time;
+        PlaybackClock.onVideoTimeChanged(time);
         Logger.printDebug(() -> "setVideoTime: " + getFormattedTimeStamp(time));
     }
 
@@ -500,7 +496,7 @@ public final class VideoInformation {
      * @see VideoState
      */
     public static boolean isAtEndOfVideo() {
-        return videoTime >= videoLength && videoLength > 0;
+        return videoLength > 0 && PlaybackClock.getVideoTime() >= videoLength;
     }
 
     /**
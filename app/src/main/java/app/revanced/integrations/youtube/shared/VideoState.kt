@@ -25,6 +25,7 @@ enum class VideoState {
             } else if (current != state) {
                 Logger.printDebug { "VideoState changed to: $state" }
                 current = state
+                PlaybackClock.onVideoStateChanged(state)
             }
         }
 
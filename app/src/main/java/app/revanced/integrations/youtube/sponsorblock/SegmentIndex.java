@@ -0,0 +1,214 @@
+package app.revanced.integrations.youtube.sponsorblock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import app.revanced.integrations.shared.settings.Setting;
+import app.revanced.integrations.youtube.sponsorblock.objects.CategoryBehaviour;
+import app.revanced.integrations.youtube.sponsorblock.objects.SegmentCategory;
+import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment;
+
+/**
+ * Immutable index of the segments of a video, so a video time can be looked up
+ * without scanning all segments.
+ * <p>
+ * Segments that can be skipped are stored as an interval tree, where the tree is implicit in the
+ * array sorted by start time (the middle of each range is the root of that range),
+ * and each node stores the latest end time of the segments of its subtree.
+ * Finding the segments that contain a video time is then O(log n) plus the number of segments found,
+ * and the segments are found in the same sorted order.
+ * <p>
+ * The index depends on the category behaviours when it was created,
+ * and {@link #isOutdated()} must be checked before using it.
+ */
+final class SegmentIndex {
+
+    /**
+     * All segments, sorted by start time.
+     */
+    @NonNull
+    final SponsorSegment[] segments;
+    private final long[] segmentStarts;
+
+    /**
+     * Segments that can be skipped (not a highlight, and not ignored or only shown in the seekbar).
+     * Sorted by start time.
+     */
+    private final SponsorSegment[] skippableSegments;
+    private final long[] skippableStarts;
+    /**
+     * Latest end time of the subtree with its root at each index of {@link #skippableSegments}.
+     */
+    private final long[] skippableSubtreeEnds;
+
+    /**
+     * Highlight segment, if one exists and the skip behavior is not set to {@link CategoryBehaviour#SHOW_IN_SEEKBAR}.
+     */
+    @Nullable
+    final SponsorSegment highlightSegment;
+
+    /**
+     * If any segments exist that are not a highlight.
+     */
+    final boolean hasNonHighlightSegments;
+
+    /**
+     * Total time of all non highlight segments. Time of overlapping segments is only counted once.
+     */
+    final long coveredDuration;
+
+    /**
+     * {@link Setting#getValueChangeCount()} when this index was created.
+     */
+    private final int settingChangeCount;
+
+    /**
+     * @param sortedSegments Segments sorted by their natural order.
+     */
+    SegmentIndex(@NonNull SponsorSegment[] sortedSegments) {
+        settingChangeCount = Setting.getValueChangeCount();
+        segments = sortedSegments;
+
+        final int length = sortedSegments.length;
+        segmentStarts = new long[length];
+        List<SponsorSegment> skippable = new ArrayList<>(length);
+
+        final boolean highlightIsSkippable = SegmentCategory.HIGHLIGHT.behaviour == CategoryBehaviour.SKIP_AUTOMATICALLY
+                || SegmentCategory.HIGHLIGHT.behaviour == CategoryBehaviour.MANUAL_SKIP;
+        SponsorSegment highlight = null;
+        boolean foundNonHighlight = false;
+        long covered = 0;
+        long latestEnd = Long.MIN_VALUE;
+
+        for (int i = 0; i < length; i++) {
+            SponsorSegment segment = sortedSegments[i];
+            segmentStarts[i] = segment.start;
+
+            if (segment.category == SegmentCategory.HIGHLIGHT) {
+                if (highlightIsSkippable && highlight == null) {
+                    highlight = segment;
+                }
+            } else {
+                foundNonHighlight = true;
+                // Segments are sorted by start time, so only the part after
+                // the latest end of all earlier segments is not yet counted.
+                final long uncoveredStart = Math.max(segment.start, latestEnd);
+                if (uncoveredStart < segment.end) {
+                    covered += segment.end - uncoveredStart;
+                }
+
+                CategoryBehaviour behaviour = segment.category.behaviour;
+                if (behaviour != CategoryBehaviour.SHOW_IN_SEEKBAR && behaviour != CategoryBehaviour.IGNORE) {
+                    skippable.add(segment);
+                }
+            }
+            latestEnd = Math.max(latestEnd, segment.end);
+        }
+
+        highlightSegment = highlight;
+        hasNonHighlightSegments = foundNonHighlight;
+        coveredDuration = covered;
+
+        skippableSegments = skippable.toArray(new SponsorSegment[0]);
+        skippableStarts = new long[skippableSegments.length];
+        for (int i = 0; i < skippableSegments.length; i++) {
+            skippableStarts[i] = skippableSegments[i].start;
+        }
+        skippableSubtreeEnds = new long[skippableSegments.length];
+        buildSubtreeEnds(0, skippableSegments.length - 1);
+    }
+
+    private long buildSubtreeEnds(int low, int high) {
+        if (low > high) {
+            return Long.MIN_VALUE;
+        }
+        final int middle = (low + high) >>> 1;
+        final long end = Math.max(skippableSegments[middle].end,
+                Math.max(buildSubtreeEnds(low, middle - 1), buildSubtreeEnds(middle + 1, high)));
+        skippableSubtreeEnds[middle] = end;
+        return end;
+    }
+
+    /**
+     * @return If any category behaviour may have changed since this index was created.
+     */
+    boolean isOutdated() {
+        return settingChangeCount != Setting.getValueChangeCount();
+    }
+
+    /**
+     * Finds all skippable segments that contain the video time.
+     *
+     * @param found List to clear and then add the segments to, in sorted order.
+     */
+    void findSkippableSegmentsContaining(long videoTime, @NonNull List<SponsorSegment> found) {
+        found.clear();
+        findSkippableSegmentsContaining(videoTime, 0, skippableSegments.length - 1, found);
+    }
+
+    private void findSkippableSegmentsContaining(long videoTime, int low, int high, List<SponsorSegment> found) {
+        if (low > high) {
+            return;
+        }
+        final int middle = (low + high) >>> 1;
+        if (skippableSubtreeEnds[middle] <= videoTime) {
+            return; // All segments of this subtree end before the video time.
+        }
+
+        findSkippableSegmentsContaining(videoTime, low, middle - 1, found);
+
+        SponsorSegment segment = skippableSegments[middle];
+        if (videoTime < segment.start) {
+            return; // This segment and all segments after it start after the video time.
+        }
+        if (videoTime < segment.end) {
+            found.add(segment);
+        }
+
+        findSkippableSegmentsContaining(videoTime, middle + 1, high, found);
+    }
+
+    /**
+     * @return Index of the first skippable segment that starts after the video time,
+     * or {@link #getSkippableSegmentCount()} if no segments start after the video time.
+     */
+    int getFirstSkippableSegmentStartingAfter(long videoTime) {
+        return getFirstIndexAfter(skippableStarts, videoTime);
+    }
+
+    int getSkippableSegmentCount() {
+        return skippableSegments.length;
+    }
+
+    @NonNull
+    SponsorSegment getSkippableSegment(int index) {
+        return skippableSegments[index];
+    }
+
+    /**
+     * @return Index in {@link #segments} of the first segment that starts at or after the video time.
+     */
+    int getFirstSegmentStartingAtOrAfter(long videoTime) {
+        return getFirstIndexAfter(segmentStarts, videoTime - 1);
+    }
+
+    /**
+     * @return Index of the first value that is greater than the key, or the array length if none are greater.
+     */
+    private static int getFirstIndexAfter(long[] sortedValues, long key) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
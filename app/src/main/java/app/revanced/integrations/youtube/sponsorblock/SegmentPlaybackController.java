@@ -23,6 +23,7 @@ import java.util.Objects;
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
+import app.revanced.integrations.youtube.shared.PlaybackClock;
 import app.revanced.integrations.youtube.shared.PlayerType;
 import app.revanced.integrations.youtube.shared.VideoInformation;
 import app.revanced.integrations.youtube.shared.VideoState;
@@ -68,6 +69,15 @@ public class SegmentPlaybackController {
 
     @Nullable
     private static SponsorSegment[] segments;
+    /**
+     * Index of {@link #segments}. Non null if segments is not null.
+     */
+    @Nullable
+    private static SegmentIndex segmentIndex;
+    /**
+     * Segments that contain the current video time. Reused by each call to {@link #setVideoTime(long)}.
+     */
+    private static final List<SponsorSegment> segmentsContainingVideoTime = new ArrayList<>();
     /**
      * Highlight segment, if one exists and the skip behavior is not set to {@link CategoryBehaviour#SHOW_IN_SEEKBAR}.
      */
@@ -90,11 +100,15 @@ public class SegmentPlaybackController {
      */
     @Nullable
     private static SponsorSegment scheduledHideSegment;
+    @Nullable
+    private static PlaybackClock.Timer scheduledHideTimer;
     /**
      * Upcoming segment that is scheduled to either autoskip or show the manual skip button.
      */
     @Nullable
     private static SponsorSegment scheduledUpcomingSegment;
+    @Nullable
+    private static PlaybackClock.Timer scheduledUpcomingTimer;
     /**
      * System time (in milliseconds) of when to hide the skip button of {@link #segmentCurrentlyPlaying}.
      * Value is zero if playback is not inside a segment ({@link #segmentCurrentlyPlaying} is null),
@@ -114,6 +128,11 @@ public class SegmentPlaybackController {
     @Nullable
     private static SponsorSegment toastSegmentSkipped;
     private static int highlightSegmentTimeBarScreenWidth = -1; // actual pixel width to use
+    /**
+     * Segment bars for the current segments and seekbar size.
+     */
+    @Nullable
+    private static SponsorBarRenderCache sponsorBarRenderCache;
 
     @Nullable
     static SponsorSegment[] getSegments() {
@@ -123,18 +142,23 @@ public class SegmentPlaybackController {
     private static void setSegments(@NonNull SponsorSegment[] videoSegments) {
         Arrays.sort(videoSegments);
         segments = videoSegments;
+        segmentIndex = new SegmentIndex(videoSegments);
+        sponsorBarRenderCache = null;
+        highlightSegment = segmentIndex.highlightSegment;
         calculateTimeWithoutSegments();
+    }
 
-        if (SegmentCategory.HIGHLIGHT.behaviour == CategoryBehaviour.SKIP_AUTOMATICALLY
-                || SegmentCategory.HIGHLIGHT.behaviour == CategoryBehaviour.MANUAL_SKIP) {
-            for (SponsorSegment segment : videoSegments) {
-                if (segment.category == SegmentCategory.HIGHLIGHT) {
-                    highlightSegment = segment;
-                    return;
-                }
-            }
+    /**
+     * @return Index of the current segments, recreated if any category behaviour may have changed.
+     */
+    @NonNull
+    private static SegmentIndex getSegmentIndex() {
+        SegmentIndex index = segmentIndex;
+        if (index == null || index.isOutdated()) {
+            index = new SegmentIndex(Objects.requireNonNull(segments));
+            segmentIndex = index;
         }
-        highlightSegment = null;
+        return index;
     }
 
     static void addUnsubmittedSegment(@NonNull SponsorSegment segment) {
@@ -174,12 +198,15 @@ public class SegmentPlaybackController {
         videoId = "";
         videoLength = 0;
         segments = null;
+        segmentIndex = null;
+        segmentsContainingVideoTime.clear();
+        sponsorBarRenderCache = null;
         highlightSegment = null;
         highlightSegmentInitialShowEndTime = 0;
         timeWithoutSegments = null;
         segmentCurrentlyPlaying = null;
-        scheduledUpcomingSegment = null;
-        scheduledHideSegment = null;
+        clearScheduledUpcomingSegment();
+        clearScheduledHideSegment();
         skipSegmentButtonEndTime = 0;
         toastSegmentSkipped = null;
         toastNumberOfSegmentsSkipped = 0;
@@ -337,41 +364,38 @@ public class SegmentPlaybackController {
             SponsorSegment foundSegmentCurrentlyPlaying = null;
             SponsorSegment foundUpcomingSegment = null;
 
-            for (final SponsorSegment segment : segments) {
-                if (segment.category.behaviour == CategoryBehaviour.SHOW_IN_SEEKBAR
-                        || segment.category.behaviour == CategoryBehaviour.IGNORE
-                        || segment.category == SegmentCategory.HIGHLIGHT) {
-                    continue;
-                }
-                if (segment.end <= millis) {
-                    continue; // past this segment
-                }
+            final SegmentIndex index = getSegmentIndex();
+            final List<SponsorSegment> containingSegments = segmentsContainingVideoTime;
+            index.findSkippableSegmentsContaining(millis, containingSegments);
 
-                if (segment.start <= millis) {
-                    // we are in the segment!
-                    if (segment.shouldAutoSkip()) {
-                        skipSegment(segment, false);
-                        return; // must return, as skipping causes a recursive call back into this method
-                    }
+            for (int i = 0, size = containingSegments.size(); i < size; i++) {
+                final SponsorSegment segment = containingSegments.get(i);
+                // we are in the segment!
+                if (segment.shouldAutoSkip()) {
+                    skipSegment(segment, false);
+                    return; // must return, as skipping causes a recursive call back into this method
+                }
 
-                    // first found segment, or it's an embedded segment and fully inside the outer segment
-                    if (foundSegmentCurrentlyPlaying == null || foundSegmentCurrentlyPlaying.containsSegment(segment)) {
-                        // If the found segment is not currently displayed, then do not show if the segment is nearly over.
-                        // This check prevents the skip button text from rapidly changing when multiple segments end at nearly the same time.
-                        // Also prevents showing the skip button if user seeks into the last 800ms of the segment.
-                        final long minMillisOfSegmentRemainingThreshold = 800;
-                        if (segmentCurrentlyPlaying == segment
-                                || !segment.endIsNear(millis, minMillisOfSegmentRemainingThreshold)) {
-                            foundSegmentCurrentlyPlaying = segment;
-                        } else {
-                            Logger.printDebug(() -> "Ignoring segment that ends very soon: " + segment);
-                        }
+                // first found segment, or it's an embedded segment and fully inside the outer segment
+                if (foundSegmentCurrentlyPlaying == null || foundSegmentCurrentlyPlaying.containsSegment(segment)) {
+                    // If the found segment is not currently displayed, then do not show if the segment is nearly over.
+                    // This check prevents the skip button text from rapidly changing when multiple segments end at nearly the same time.
+                    // Also prevents showing the skip button if user seeks into the last 800ms of the segment.
+                    final long minMillisOfSegmentRemainingThreshold = 800;
+                    if (segmentCurrentlyPlaying == segment
+                            || !segment.endIsNear(millis, minMillisOfSegmentRemainingThreshold)) {
+                        foundSegmentCurrentlyPlaying = segment;
+                    } else {
+                        Logger.printDebug(() -> "Ignoring segment that ends very soon: " + segment);
                     }
-                    // Keep iterating and looking. There may be an upcoming autoskip,
-                    // or there may be another smaller segment nested inside this segment
-                    continue;
                 }
+                // Keep iterating and looking. There may be an upcoming autoskip,
+                // or there may be another smaller segment nested inside this segment
+            }
 
+            for (int i = index.getFirstSkippableSegmentStartingAfter(millis),
+                 count = index.getSkippableSegmentCount(); i < count; i++) {
+                final SponsorSegment segment = index.getSkippableSegment(i);
                 // segment is upcoming
                 if (startTimerLookAheadThreshold < segment.start) {
                     break; // segment is not close enough to schedule, and no segments after this are of interest
@@ -430,23 +454,24 @@ public class SegmentPlaybackController {
             if (scheduledHideSegment != segmentToHide) {
                 if (segmentToHide == null) {
                     Logger.printDebug(() -> "Clearing scheduled hide: " + scheduledHideSegment);
-                    scheduledHideSegment = null;
+                    clearScheduledHideSegment();
                 } else {
+                    clearScheduledHideSegment();
                     scheduledHideSegment = segmentToHide;
                     Logger.printDebug(() -> "Scheduling hide segment: " + segmentToHide + " playbackSpeed: " + playbackSpeed);
-                    final long delayUntilHide = (long) ((segmentToHide.end - millis) / playbackSpeed);
-                    Utils.runOnMainThreadDelayed(() -> {
+                    scheduledHideTimer = PlaybackClock.scheduleAt(segmentToHide.end, () -> {
                         if (scheduledHideSegment != segmentToHide) {
                             Logger.printDebug(() -> "Ignoring old scheduled hide segment: " + segmentToHide);
                             return;
                         }
                         scheduledHideSegment = null;
+                        scheduledHideTimer = null;
                         if (VideoState.getCurrent() != VideoState.PLAYING) {
                             Logger.printDebug(() -> "Ignoring scheduled hide segment as video is paused: " + segmentToHide);
                             return;
                         }
 
-                        final long videoTime = VideoInformation.getVideoTime();
+                        final long videoTime = PlaybackClock.getVideoTime();
                         if (!segmentToHide.endIsNear(videoTime, speedAdjustedTimeThreshold)) {
                             // current video time is not what's expected.  User paused playback
                             Logger.printDebug(() -> "Ignoring outdated scheduled hide: " + segmentToHide
@@ -457,35 +482,36 @@ public class SegmentPlaybackController {
                         // Need more than just hide the skip button, as this may have been an embedded segment
                         // Instead call back into setVideoTime to check everything again.
                         // Should not use VideoInformation time as it is less accurate,
-                        // but this scheduled handler was scheduled precisely so we can just use the segment end time
+                        // but this timer runs at the segment end video time so we can just use the segment end time
                         setSegmentCurrentlyPlaying(null);
                         setVideoTime(segmentToHide.end);
-                    }, delayUntilHide);
+                    });
                 }
             }
 
             if (scheduledUpcomingSegment != foundUpcomingSegment) {
                 if (foundUpcomingSegment == null) {
                     Logger.printDebug(() -> "Clearing scheduled segment: " + scheduledUpcomingSegment);
-                    scheduledUpcomingSegment = null;
+                    clearScheduledUpcomingSegment();
                 } else {
+                    clearScheduledUpcomingSegment();
                     scheduledUpcomingSegment = foundUpcomingSegment;
                     final SponsorSegment segmentToSkip = foundUpcomingSegment;
 
                     Logger.printDebug(() -> "Scheduling segment: " + segmentToSkip + " playbackSpeed: " + playbackSpeed);
-                    final long delayUntilSkip = (long) ((segmentToSkip.start - millis) / playbackSpeed);
-                    Utils.runOnMainThreadDelayed(() -> {
+                    scheduledUpcomingTimer = PlaybackClock.scheduleAt(segmentToSkip.start, () -> {
                         if (scheduledUpcomingSegment != segmentToSkip) {
                             Logger.printDebug(() -> "Ignoring old scheduled segment: " + segmentToSkip);
                             return;
                         }
                         scheduledUpcomingSegment = null;
+                        scheduledUpcomingTimer = null;
                         if (VideoState.getCurrent() != VideoState.PLAYING) {
                             Logger.printDebug(() -> "Ignoring scheduled hide segment as video is paused: " + segmentToSkip);
                             return;
                         }
 
-                        final long videoTime = VideoInformation.getVideoTime();
+                        final long videoTime = PlaybackClock.getVideoTime();
                         if (!segmentToSkip.startIsNear(videoTime, speedAdjustedTimeThreshold)) {
                             // current video time is not what's expected.  User paused playback
                             Logger.printDebug(() -> "Ignoring outdated scheduled segment: " + segmentToSkip
@@ -499,7 +525,7 @@ public class SegmentPlaybackController {
                             Logger.printDebug(() -> "Running scheduled show segment: " + segmentToSkip);
                             setSegmentCurrentlyPlaying(segmentToSkip);
                         }
-                    }, delayUntilSkip);
+                    });
                 }
             }
         } catch (Exception e) {
@@ -507,6 +533,28 @@ public class SegmentPlaybackController {
         }
     }
 
+    /**
+     * Clears {@link #scheduledHideSegment} and cancels its timer.
+     */
+    private static void clearScheduledHideSegment() {
+        scheduledHideSegment = null;
+        if (scheduledHideTimer != null) {
+            scheduledHideTimer.cancel();
+            scheduledHideTimer = null;
+        }
+    }
+
+    /**
+     * Clears {@link #scheduledUpcomingSegment} and cancels its timer.
+     */
+    private static void clearScheduledUpcomingSegment() {
+        scheduledUpcomingSegment = null;
+        if (scheduledUpcomingTimer != null) {
+            scheduledUpcomingTimer.cancel();
+            scheduledUpcomingTimer = null;
+        }
+    }
+
     /**
      * Removes all previously hidden segments that are not longer contained in the given video time.
      */
@@ -567,8 +615,8 @@ public class SegmentPlaybackController {
             lastSegmentSkipped = segmentToSkip;
             lastSegmentSkippedTime = now;
             setSegmentCurrentlyPlaying(null);
-            scheduledHideSegment = null;
-            scheduledUpcomingSegment = null;
+            clearScheduledHideSegment();
+            clearScheduledUpcomingSegment();
             if (segmentToSkip == highlightSegment) {
                 highlightSegmentInitialShowEndTime = 0;
             }
@@ -585,7 +633,11 @@ public class SegmentPlaybackController {
             if (!userManuallySkipped) {
                 // check for any smaller embedded segments, and count those as autoskipped
                 final boolean showSkipToast = Settings.SB_TOAST_ON_SKIP.get();
-                for (final SponsorSegment otherSegment : Objects.requireNonNull(segments)) {
+                final SegmentIndex index = Objects.requireNonNull(segmentIndex);
+                final SponsorSegment[] allSegments = index.segments;
+                for (int i = index.getFirstSegmentStartingAtOrAfter(segmentToSkip.start),
+                     length = allSegments.length; i < length; i++) {
+                    final SponsorSegment otherSegment = allSegments[i];
                     if (segmentToSkip.end < otherSegment.start) {
                         break; // no other segments can be contained
                     }
@@ -720,32 +772,13 @@ public class SegmentPlaybackController {
             return;
         }
 
-        boolean foundNonhighlightSegments = false;
-        long timeWithoutSegmentsValue = videoLength;
-
-        for (int i = 0, length = segments.length; i < length; i++) {
-            SponsorSegment segment = segments[i];
-            if (segment.category == SegmentCategory.HIGHLIGHT) {
-                continue;
-            }
-            foundNonhighlightSegments = true;
-            long start = segment.start;
-            final long end = segment.end;
-            // To prevent nested segments from incorrectly counting additional time,
-            // check if the segment overlaps any earlier segments.
-            for (int j = 0; j < i; j++) {
-                start = Math.max(start, segments[j].end);
-            }
-            if (start < end) {
-                timeWithoutSegmentsValue -= (end - start);
-            }
-        }
-
-        if (!foundNonhighlightSegments) {
+        SegmentIndex index = Objects.requireNonNull(segmentIndex);
+        if (!index.hasNonHighlightSegments) {
             timeWithoutSegments = null;
             return;
         }
 
+        final long timeWithoutSegmentsValue = videoLength - index.coveredDuration;
         final long hours = timeWithoutSegmentsValue / 3600000;
         final long minutes = (timeWithoutSegmentsValue / 60000) % 60;
         final long seconds = (timeWithoutSegmentsValue / 1000) % 60;
@@ -770,25 +803,19 @@ public class SegmentPlaybackController {
      */
     public static void drawSponsorTimeBars(final Canvas canvas, final float posY) {
         try {
-            if (segments == null) return;
+            final SponsorSegment[] currentSegments = segments;
+            if (currentSegments == null) return;
             if (videoLength <= 0) return;
 
-            final int thicknessDiv2 = sponsorBarThickness / 2; // rounds down
-            final float top = posY - (sponsorBarThickness - thicknessDiv2);
-            final float bottom = posY + thicknessDiv2;
-            final float videoMillisecondsToPixels = (1f / videoLength) * (sponsorAbsoluteBarRight - sponsorBarAbsoluteLeft);
-            final float leftPadding = sponsorBarAbsoluteLeft;
-
-            for (SponsorSegment segment : segments) {
-                final float left = leftPadding + segment.start * videoMillisecondsToPixels;
-                final float right;
-                if (segment.category == SegmentCategory.HIGHLIGHT) {
-                    right = left + getHighlightSegmentTimeBarScreenWidth();
-                } else {
-                    right = leftPadding + segment.end * videoMillisecondsToPixels;
-                }
-                canvas.drawRect(left, top, right, bottom, segment.category.paint);
+            SponsorBarRenderCache renderCache = sponsorBarRenderCache;
+            if (renderCache == null || !renderCache.matches(currentSegments, videoLength,
+                    sponsorBarAbsoluteLeft, sponsorAbsoluteBarRight, sponsorBarThickness, posY)) {
+                renderCache = new SponsorBarRenderCache(currentSegments, videoLength,
+                        sponsorBarAbsoluteLeft, sponsorAbsoluteBarRight, sponsorBarThickness, posY,
+                        getHighlightSegmentTimeBarScreenWidth());
+                sponsorBarRenderCache = renderCache;
             }
+            renderCache.draw(canvas);
         } catch (Exception ex) {
             Logger.printException(() -> "drawSponsorTimeBars failure", ex);
         }
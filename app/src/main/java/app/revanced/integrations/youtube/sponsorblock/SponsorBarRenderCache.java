@@ -0,0 +1,157 @@
+package app.revanced.integrations.youtube.sponsorblock;
+
+import android.graphics.Canvas;
+import android.graphics.Path;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import app.revanced.integrations.youtube.sponsorblock.objects.SegmentCategory;
+import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment;
+
+/**
+ * Segment bars of the seekbar, precomputed for one set of segments and one seekbar size.
+ * <p>
+ * Segments are drawn in sorted order and later segments are drawn over earlier segments.
+ * Because all category colors are opaque, only the visible part of each segment is kept.
+ * The visible parts do not overlap, so all parts of the same category are drawn as a single path,
+ * and adjacent parts of the same category are merged.
+ */
+final class SponsorBarRenderCache {
+
+    /**
+     * Visible horizontal part of a segment, in screen pixels.
+     */
+    private static final class Span {
+        final SegmentCategory category;
+        final float left;
+        final float right;
+
+        Span(SegmentCategory category, float left, float right) {
+            this.category = category;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private final SponsorSegment[] segments;
+    private final long videoLength;
+    private final int barLeft;
+    private final int barRight;
+    private final int barThickness;
+    private final float posY;
+
+    private final SegmentCategory[] categories;
+    private final Path[] paths;
+
+    SponsorBarRenderCache(@NonNull SponsorSegment[] segments, long videoLength, int barLeft, int barRight,
+                          int barThickness, float posY, int highlightSegmentWidth) {
+        this.segments = segments;
+        this.videoLength = videoLength;
+        this.barLeft = barLeft;
+        this.barRight = barRight;
+        this.barThickness = barThickness;
+        this.posY = posY;
+
+        final int thicknessDiv2 = barThickness / 2; // rounds down
+        final float top = posY - (barThickness - thicknessDiv2);
+        final float bottom = posY + thicknessDiv2;
+        final float videoMillisecondsToPixels = (1f / videoLength) * (barRight - barLeft);
+
+        List<Span> visibleSpans = new ArrayList<>(segments.length);
+        for (SponsorSegment segment : segments) {
+            final float left = barLeft + segment.start * videoMillisecondsToPixels;
+            final float right;
+            if (segment.category == SegmentCategory.HIGHLIGHT) {
+                right = left + highlightSegmentWidth;
+            } else {
+                right = barLeft + segment.end * videoMillisecondsToPixels;
+            }
+            if (left < right) {
+                drawOver(visibleSpans, new Span(segment.category, left, right));
+            }
+        }
+
+        Map<SegmentCategory, Path> categoryPaths = new EnumMap<>(SegmentCategory.class);
+        Map<SegmentCategory, Span> pendingSpans = new EnumMap<>(SegmentCategory.class);
+        for (Span span : visibleSpans) { // Spans are in left to right order.
+            Span pending = pendingSpans.get(span.category);
+            if (pending != null && span.left <= pending.right) {
+                pendingSpans.put(span.category, new Span(span.category, pending.left, span.right));
+                continue;
+            }
+            if (pending != null) {
+                addRect(categoryPaths, pending, top, bottom);
+            }
+            pendingSpans.put(span.category, span);
+        }
+        for (Span pending : pendingSpans.values()) {
+            addRect(categoryPaths, pending, top, bottom);
+        }
+
+        categories = categoryPaths.keySet().toArray(new SegmentCategory[0]);
+        paths = categoryPaths.values().toArray(new Path[0]);
+    }
+
+    /**
+     * Adds a span on top of the existing spans, and removes any parts of existing spans it covers.
+     *
+     * @param spans Non overlapping spans, in left to right order.
+     */
+    private static void drawOver(List<Span> spans, Span span) {
+        int insertIndex = spans.size();
+        for (int i = spans.size() - 1; i >= 0; i--) {
+            Span existing = spans.get(i);
+            if (existing.right <= span.left) {
+                break; // This and all earlier spans are left of the new span.
+            }
+            insertIndex = i;
+            if (existing.left >= span.right) {
+                continue; // Right of the new span.
+            }
+            // Overlaps. Keep only the parts outside the new span.
+            spans.remove(i);
+            if (existing.right > span.right) {
+                spans.add(i, new Span(existing.category, span.right, existing.right));
+            }
+            if (existing.left < span.left) {
+                spans.add(i, new Span(existing.category, existing.left, span.left));
+                insertIndex = i + 1;
+            }
+        }
+        spans.add(insertIndex, span);
+    }
+
+    private static void addRect(Map<SegmentCategory, Path> categoryPaths, Span span, float top, float bottom) {
+        Path path = categoryPaths.get(span.category);
+        if (path == null) {
+            path = new Path();
+            categoryPaths.put(span.category, path);
+        }
+        path.addRect(span.left, top, span.right, bottom, Path.Direction.CW);
+    }
+
+    /**
+     * @return If this cache was created using the same segments and seekbar size.
+     */
+    boolean matches(@NonNull SponsorSegment[] segments, long videoLength, int barLeft, int barRight,
+                    int barThickness, float posY) {
+        return this.segments == segments
+                && this.videoLength == videoLength
+                && this.barLeft == barLeft
+                && this.barRight == barRight
+                && this.barThickness == barThickness
+                && this.posY == posY;
+    }
+
+    void draw(@NonNull Canvas canvas) {
+        for (int i = 0, length = paths.length; i < length; i++) {
+            // Paint is read when drawing, so color changes do not need a new cache.
+            canvas.drawPath(paths[i], categories[i].paint);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
 import app.revanced.integrations.youtube.shared.VideoInformation;
@@ -356,7 +357,7 @@ public class SponsorBlockUtils {
         Settings.SB_LOCAL_TIME_SAVED_NUMBER_SEGMENTS.save(Settings.SB_LOCAL_TIME_SAVED_NUMBER_SEGMENTS.get() + 1);
 
         if (Settings.SB_TRACK_SKIP_COUNT.get()) {
-            Utils.runOnBackgroundThread(() -> SBRequester.sendSegmentSkippedViewedRequest(segment));
+            TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, () -> SBRequester.sendSegmentSkippedViewedRequest(segment));
         }
     }
 
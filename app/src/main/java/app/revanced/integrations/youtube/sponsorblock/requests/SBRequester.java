@@ -13,21 +13,30 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+import app.revanced.integrations.shared.requests.Endpoint;
 import app.revanced.integrations.shared.requests.Requester;
 import app.revanced.integrations.shared.requests.Route;
 import app.revanced.integrations.shared.sponsorblock.requests.SBRoutes;
 import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.settings.Settings;
+import app.revanced.integrations.youtube.sponsorblock.SegmentPlaybackController;
 import app.revanced.integrations.youtube.sponsorblock.SponsorBlockSettings;
 import app.revanced.integrations.youtube.sponsorblock.objects.SegmentCategory;
 import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment;
 import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment.SegmentVote;
 import app.revanced.integrations.youtube.sponsorblock.objects.UserStats;
+import app.revanced.integrations.youtube.sponsorblock.requests.SegmentStore.StoredSegment;
 
 public class SBRequester {
     private static final String TIME_TEMPLATE = "%.3f";
@@ -42,6 +51,25 @@ public class SBRequester {
      */
     private static final int TIMEOUT_HTTP_DEFAULT_MILLISECONDS = 10000;
 
+    private static final Endpoint DEFAULT_ENDPOINT = new Endpoint("sponsorBlock",
+            TIMEOUT_TCP_DEFAULT_MILLISECONDS, TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
+
+    private static final Endpoint GET_SEGMENTS_ENDPOINT = new Endpoint("getSegments",
+            TIMEOUT_TCP_DEFAULT_MILLISECONDS, TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
+
+    private static final Endpoint GET_SEGMENTS_BY_HASH_PREFIX_ENDPOINT = new Endpoint("getSegmentsByHashPrefix",
+            TIMEOUT_TCP_DEFAULT_MILLISECONDS, TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
+
+    /**
+     * Segments of prefetched and recently fetched videos.
+     */
+    static final SegmentStore segmentStore = new SegmentStore();
+
+    /**
+     * Videos with a {@link #getSegments(String)} call in progress.
+     */
+    private static final Set<String> segmentFetchesInProgress = ConcurrentHashMap.newKeySet();
+
     /**
      * Response code of a successful API call
      */
@@ -59,33 +87,55 @@ public class SBRequester {
         }
     }
 
+    /**
+     * @return Key that identifies the API address and categories used to fetch segments.
+     */
+    static int getSegmentQueryKey() {
+        return (Settings.SB_API_URL.get() + SegmentCategory.sponsorBlockAPIFetchCategories).hashCode();
+    }
+
+    /**
+     * Uses the stored segments if available, and otherwise fetches the segments.
+     */
     @NonNull
     public static SponsorSegment[] getSegments(@NonNull String videoId) {
         Utils.verifyOffMainThread();
-        List<SponsorSegment> segments = new ArrayList<>();
+        segmentFetchesInProgress.add(videoId);
         try {
-            HttpURLConnection connection = getConnectionFromRoute(SBRoutes.GET_SEGMENTS, videoId, SegmentCategory.sponsorBlockAPIFetchCategories);
+            return getStoredOrFetchSegments(videoId);
+        } finally {
+            segmentFetchesInProgress.remove(videoId);
+        }
+    }
+
+    /**
+     * @return If the segments of the video are being fetched or read by {@link #getSegments(String)}.
+     */
+    static boolean isGettingSegments(@NonNull String videoId) {
+        return segmentFetchesInProgress.contains(videoId);
+    }
+
+    @NonNull
+    private static SponsorSegment[] getStoredOrFetchSegments(@NonNull String videoId) {
+        SegmentPrefetcher.awaitPrefetchIfInFlight(videoId);
+
+        final int queryKey = getSegmentQueryKey();
+        StoredSegment[] storedSegments = segmentStore.get(videoId, queryKey);
+        if (storedSegments != null) {
+            Logger.printDebug(() -> "Using stored segments for video: " + videoId);
+            return toSponsorSegments(storedSegments);
+        }
+
+        final long startTime = System.currentTimeMillis();
+        try {
+            HttpURLConnection connection = getConnectionFromRoute(GET_SEGMENTS_ENDPOINT, SBRoutes.GET_SEGMENTS, videoId, SegmentCategory.sponsorBlockAPIFetchCategories);
             final int responseCode = connection.getResponseCode();
+            GET_SEGMENTS_ENDPOINT.recordResponse(startTime, responseCode);
 
             if (responseCode == HTTP_STATUS_CODE_SUCCESS) {
-                JSONArray responseArray = Requester.parseJSONArray(connection);
-                final long minSegmentDuration = (long) (Settings.SB_SEGMENT_MIN_DURATION.get() * 1000);
-                for (int i = 0, length = responseArray.length(); i < length; i++) {
-                    JSONObject obj = (JSONObject) responseArray.get(i);
-                    JSONArray segment = obj.getJSONArray("segment");
-                    final long start = (long) (segment.getDouble(0) * 1000);
-                    final long end = (long) (segment.getDouble(1) * 1000);
-
-                    String uuid = obj.getString("UUID");
-                    final boolean locked = obj.getInt("locked") == 1;
-                    String categoryKey = obj.getString("category");
-                    SegmentCategory category = SegmentCategory.byCategoryKey(categoryKey);
-                    if (category == null) {
-                        Logger.printException(() -> "Received unknown category: " + categoryKey); // should never happen
-                    } else if ((end - start) >= minSegmentDuration || category == SegmentCategory.HIGHLIGHT) {
-                        segments.add(new SponsorSegment(category, uuid, start, end, locked));
-                    }
-                }
+                StoredSegment[] fetchedSegments = parseSegments(Requester.parseJSONArray(connection));
+                segmentStore.put(videoId, queryKey, fetchedSegments);
+                SponsorSegment[] segments = toSponsorSegments(fetchedSegments);
                 Logger.printDebug(() -> {
                     StringBuilder builder = new StringBuilder("Downloaded segments:");
                     for (SponsorSegment segment : segments) {
@@ -94,22 +144,110 @@ public class SBRequester {
                     return builder.toString();
                 });
                 runVipCheckInBackgroundIfNeeded();
+                return segments;
             } else if (responseCode == 404) {
                 // no segments are found.  a normal response
                 Logger.printDebug(() -> "No segments found for video: " + videoId);
+                segmentStore.put(videoId, queryKey, new StoredSegment[0]);
             } else {
                 handleConnectionError(str("revanced_sb_sponsorblock_connection_failure_status", responseCode), null);
                 connection.disconnect(); // something went wrong, might as well disconnect
             }
         } catch (SocketTimeoutException ex) {
+            GET_SEGMENTS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError(str("revanced_sb_sponsorblock_connection_failure_timeout"), ex);
         } catch (IOException ex) {
+            GET_SEGMENTS_ENDPOINT.recordConnectionError(startTime);
             handleConnectionError(str("revanced_sb_sponsorblock_connection_failure_generic"), ex);
         } catch (Exception ex) {
             // Should never happen
             Logger.printException(() -> "getSegments failure", ex);
         }
 
+        return new SponsorSegment[0];
+    }
+
+    /**
+     * Fetches the segments of all videos with the hash prefix, and stores the segments of the requested videos.
+     * The server does not learn which videos were requested.
+     *
+     * @param hashPrefix Start of the SHA-256 hash of the video ids.
+     * @param videoIds   Videos to store. All ids must have the hash prefix.
+     */
+    static void prefetchSegmentsForHashPrefix(@NonNull String hashPrefix, @NonNull Collection<String> videoIds) {
+        Utils.verifyOffMainThread();
+        final int queryKey = getSegmentQueryKey();
+        final long startTime = System.currentTimeMillis();
+        try {
+            HttpURLConnection connection = getConnectionFromRoute(GET_SEGMENTS_BY_HASH_PREFIX_ENDPOINT,
+                    SBRoutes.GET_SEGMENTS_BY_HASH_PREFIX, hashPrefix, SegmentCategory.sponsorBlockAPIFetchCategories);
+            final int responseCode = connection.getResponseCode();
+            GET_SEGMENTS_BY_HASH_PREFIX_ENDPOINT.recordResponse(startTime, responseCode);
+
+            Map<String, StoredSegment[]> videoSegments = new HashMap<>();
+            if (responseCode == HTTP_STATUS_CODE_SUCCESS) {
+                JSONArray responseArray = Requester.parseJSONArray(connection);
+                for (int i = 0, length = responseArray.length(); i < length; i++) {
+                    JSONObject video = responseArray.getJSONObject(i);
+                    String videoId = video.getString("videoID");
+                    if (videoIds.contains(videoId)) {
+                        videoSegments.put(videoId, parseSegments(video.getJSONArray("segments")));
+                    }
+                }
+            } else if (responseCode != 404) { // 404 is a normal response if no videos have segments.
+                Logger.printDebug(() -> "Failed to prefetch segments for hash prefix: " + hashPrefix
+                        + " responseCode: " + responseCode); // debug level, no toast is shown
+                Requester.closeResponse(connection);
+                return;
+            }
+
+            // The response includes all videos with segments, so any other video has no segments.
+            for (String videoId : videoIds) {
+                StoredSegment[] segments = videoSegments.get(videoId);
+                segmentStore.put(videoId, queryKey, segments == null ? new StoredSegment[0] : segments);
+            }
+            Logger.printDebug(() -> "Prefetched segments for hash prefix: " + hashPrefix
+                    + " videos: " + videoIds + " found segments: " + videoSegments.keySet());
+        } catch (IOException ex) {
+            GET_SEGMENTS_BY_HASH_PREFIX_ENDPOINT.recordConnectionError(startTime);
+            Logger.printInfo(() -> "Failed to prefetch segments", ex); // do not show a toast
+        } catch (Exception ex) {
+            Logger.printException(() -> "prefetchSegmentsForHashPrefix failure", ex); // should never happen
+        }
+    }
+
+    @NonNull
+    private static StoredSegment[] parseSegments(@NonNull JSONArray responseArray) throws JSONException {
+        final int length = responseArray.length();
+        StoredSegment[] segments = new StoredSegment[length];
+        for (int i = 0; i < length; i++) {
+            JSONObject obj = responseArray.getJSONObject(i);
+            JSONArray segment = obj.getJSONArray("segment");
+            segments[i] = new StoredSegment(
+                    obj.getString("category"),
+                    obj.getString("UUID"),
+                    (long) (segment.getDouble(0) * 1000),
+                    (long) (segment.getDouble(1) * 1000),
+                    obj.getInt("locked") == 1);
+        }
+        return segments;
+    }
+
+    /**
+     * @return New segment instances, excluding segments shorter than the minimum duration.
+     */
+    @NonNull
+    private static SponsorSegment[] toSponsorSegments(@NonNull StoredSegment[] storedSegments) {
+        List<SponsorSegment> segments = new ArrayList<>(storedSegments.length);
+        final long minSegmentDuration = (long) (Settings.SB_SEGMENT_MIN_DURATION.get() * 1000);
+        for (StoredSegment stored : storedSegments) {
+            SegmentCategory category = SegmentCategory.byCategoryKey(stored.categoryKey);
+            if (category == null) {
+                Logger.printException(() -> "Received unknown category: " + stored.categoryKey); // should never happen
+            } else if ((stored.end - stored.start) >= minSegmentDuration || category == SegmentCategory.HIGHLIGHT) {
+                segments.add(new SponsorSegment(category, stored.uuid, stored.start, stored.end, stored.locked));
+            }
+        }
         return segments.toArray(new SponsorSegment[0]);
     }
 
@@ -125,6 +263,9 @@ public class SBRequester {
             HttpURLConnection connection = getConnectionFromRoute(SBRoutes.SUBMIT_SEGMENTS, privateUserId, videoId, category, start, end, duration);
             final int responseCode = connection.getResponseCode();
 
+            if (responseCode == HTTP_STATUS_CODE_SUCCESS) {
+                segmentStore.remove(videoId);
+            }
             final String messageToToast = switch (responseCode) {
                 case HTTP_STATUS_CODE_SUCCESS -> str("revanced_sb_submit_succeeded");
                 case 409 -> str("revanced_sb_submit_failed_duplicate");
@@ -175,7 +316,9 @@ public class SBRequester {
     }
 
     private static void voteOrRequestCategoryChange(@NonNull SponsorSegment segment, @NonNull SegmentVote voteOption, SegmentCategory categoryToVoteFor) {
-        Utils.runOnBackgroundThread(() -> {
+        // The vote can run after the user has opened another video.
+        final String videoId = SegmentPlaybackController.getVideoId();
+        TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, () -> {
             try {
                 String segmentUuid = segment.UUID;
                 String uuid = SponsorBlockSettings.getSBPrivateUserID();
@@ -187,6 +330,7 @@ public class SBRequester {
                 switch (responseCode) {
                     case HTTP_STATUS_CODE_SUCCESS:
                         Logger.printDebug(() -> "Vote success for segment: " + segment);
+                        segmentStore.remove(videoId);
                         break;
                     case 403:
                         Utils.showToastLong(
@@ -253,7 +397,7 @@ public class SBRequester {
         if (now < (Settings.SB_LAST_VIP_CHECK.get() + TimeUnit.DAYS.toMillis(3))) {
             return;
         }
-        Utils.runOnBackgroundThread(() -> {
+        TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, () -> {
             try {
                 JSONObject json = getJSONObject(SBRoutes.IS_USER_VIP, SponsorBlockSettings.getSBPrivateUserID());
                 boolean vip = json.getBoolean("vip");
@@ -270,10 +414,11 @@ public class SBRequester {
     // helpers
 
     private static HttpURLConnection getConnectionFromRoute(@NonNull Route route, String... params) throws IOException {
-        HttpURLConnection connection = Requester.getConnectionFromRoute(Settings.SB_API_URL.get(), route, params);
-        connection.setConnectTimeout(TIMEOUT_TCP_DEFAULT_MILLISECONDS);
-        connection.setReadTimeout(TIMEOUT_HTTP_DEFAULT_MILLISECONDS);
-        return connection;
+        return getConnectionFromRoute(DEFAULT_ENDPOINT, route, params);
+    }
+
+    private static HttpURLConnection getConnectionFromRoute(@NonNull Endpoint endpoint, @NonNull Route route, String... params) throws IOException {
+        return Requester.getConnectionFromRoute(Settings.SB_API_URL.get(), endpoint, route, params);
     }
 
     private static JSONObject getJSONObject(@NonNull Route route, String... params) throws IOException, JSONException {
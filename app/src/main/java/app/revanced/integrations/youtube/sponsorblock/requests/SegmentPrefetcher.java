@@ -0,0 +1,165 @@
+package app.revanced.integrations.youtube.sponsorblock.requests;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import app.revanced.integrations.shared.requests.SingleFlight;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.TaskScheduler;
+import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.youtube.settings.Settings;
+import app.revanced.integrations.youtube.sponsorblock.SegmentPlaybackController;
+
+/**
+ * Fetches segments of videos that may be opened soon, such as the next autoplay video.
+ * <p>
+ * Videos are collected for a short time, and then fetched using the hash prefix API.
+ * Videos with the same hash prefix are fetched with a single request,
+ * and the server does not learn which videos were requested.
+ * Fetched segments are saved to the segment store used by {@link SBRequester#getSegments(String)}.
+ */
+public final class SegmentPrefetcher {
+
+    /**
+     * Number of hex characters of the video id hash to send.
+     */
+    private static final int HASH_PREFIX_LENGTH = 4;
+
+    /**
+     * How long to collect videos before fetching.
+     */
+    private static final long BATCH_DELAY_MILLISECONDS = 500;
+
+    /**
+     * Videos to prefetch are ignored while this many are waiting.
+     */
+    private static final int MAXIMUM_PENDING_VIDEOS = 100;
+
+    /**
+     * How long {@link SBRequester#getSegments(String)} waits for a prefetch already in flight.
+     */
+    private static final long MAXIMUM_MILLISECONDS_TO_WAIT_FOR_PREFETCH = 3000;
+
+    @GuardedBy("itself")
+    private static final Set<String> pendingVideoIds = new LinkedHashSet<>();
+
+    /**
+     * Fetches in flight, keyed by hash prefix.
+     */
+    private static final SingleFlight<String, Void> prefixFetches = new SingleFlight<>(TaskScheduler.Lane.PREFETCH);
+
+    private SegmentPrefetcher() {
+    }
+
+    /**
+     * Fetches the segments of the video, if the segments are not already stored.
+     * Can be called from any thread.
+     */
+    public static void prefetch(@NonNull String videoId) {
+        if (!Settings.SB_ENABLED.get() || videoId.isEmpty()) {
+            return;
+        }
+
+        final boolean startBatch;
+        synchronized (pendingVideoIds) {
+            if (pendingVideoIds.size() >= MAXIMUM_PENDING_VIDEOS || !pendingVideoIds.add(videoId)) {
+                return;
+            }
+            startBatch = pendingVideoIds.size() == 1;
+        }
+        if (startBatch) {
+            Utils.runOnMainThreadDelayed(() -> TaskScheduler.run(TaskScheduler.Lane.PREFETCH,
+                    SegmentPrefetcher::prefetchPendingVideos), BATCH_DELAY_MILLISECONDS);
+        }
+    }
+
+    private static void prefetchPendingVideos() {
+        List<String> videoIds;
+        synchronized (pendingVideoIds) {
+            videoIds = new ArrayList<>(pendingVideoIds);
+            pendingVideoIds.clear();
+        }
+
+        final int queryKey = SBRequester.getSegmentQueryKey();
+        Map<String, List<String>> videoIdsByPrefix = new HashMap<>();
+        final String currentVideoId = SegmentPlaybackController.getVideoId();
+        for (String videoId : videoIds) {
+            // Player responses are also loaded for the video being opened,
+            // and the segments of that video are already fetched by SBRequester#getSegments.
+            if (videoId.equals(currentVideoId) || SBRequester.isGettingSegments(videoId)) {
+                continue;
+            }
+            if (!SBRequester.segmentStore.contains(videoId, queryKey)) {
+                videoIdsByPrefix.computeIfAbsent(getHashPrefix(videoId), prefix -> new ArrayList<>()).add(videoId);
+            }
+        }
+
+        for (Map.Entry<String, List<String>> entry : videoIdsByPrefix.entrySet()) {
+            final String hashPrefix = entry.getKey();
+            final List<String> prefixVideoIds = entry.getValue();
+            if (prefixFetches.isInFlight(hashPrefix)) {
+                // Try again after the current fetch is done.
+                for (String videoId : prefixVideoIds) {
+                    prefetch(videoId);
+                }
+                continue;
+            }
+            prefixFetches.submit(hashPrefix, () -> {
+                SBRequester.prefetchSegmentsForHashPrefix(hashPrefix, prefixVideoIds);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * If the video may be part of a prefetch in flight, then wait for the prefetch to finish.
+     */
+    static void awaitPrefetchIfInFlight(@NonNull String videoId) {
+        Future<Void> future = prefixFetches.getInFlight(getHashPrefix(videoId));
+        if (future == null) {
+            return;
+        }
+        try {
+            Logger.printDebug(() -> "Waiting for prefetch of video: " + videoId);
+            future.get(MAXIMUM_MILLISECONDS_TO_WAIT_FOR_PREFETCH, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException | ExecutionException ex) {
+            Logger.printDebug(() -> "Prefetch did not finish for video: " + videoId);
+        } catch (InterruptedException ex) {
+            Logger.printException(() -> "awaitPrefetchIfInFlight interrupted", ex);
+            Thread.currentThread().interrupt(); // Restore interrupt status flag.
+        }
+    }
+
+    /**
+     * @return Start of the SHA-256 hash of the video id, as lower case hex.
+     */
+    @NonNull
+    static String getHashPrefix(@NonNull String videoId) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(videoId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(HASH_PREFIX_LENGTH);
+            for (int i = 0; i < HASH_PREFIX_LENGTH; i++) {
+                final int halfByte = (hash[i / 2] >> (i % 2 == 0 ? 4 : 0)) & 0x0F;
+                builder.append(Character.forDigit(halfByte, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex); // should never happen
+        }
+    }
+}
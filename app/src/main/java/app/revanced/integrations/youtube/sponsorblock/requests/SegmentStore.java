@@ -0,0 +1,237 @@
+package app.revanced.integrations.youtube.sponsorblock.requests;
+
+import android.content.Context;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app.revanced.integrations.shared.utils.AppendOnlyRecordFile;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.Utils;
+
+/**
+ * Persistent store of fetched segments, so segments of prefetched and recently watched videos
+ * are available when a video starts without waiting for the API.
+ * <p>
+ * Segments are stored as they were returned by the API, before any user settings
+ * (such as the minimum segment duration) are applied.
+ * Entries are only used if they were fetched with the same API address and categories,
+ * and expire sooner if the video had no segments.
+ * <p>
+ * Entries are stored in an append only binary file in the app cache directory.
+ * The file is read into memory on first use, and new fetches are appended to the end.
+ * Once the file contains too many replaced or evicted entries, it is rewritten with only the current entries.
+ * <p>
+ * This class is thread safe.
+ */
+final class SegmentStore {
+    private static final String FILE_NAME = "revanced_sb_segments.bin";
+
+    /**
+     * File header. Must be changed if the record format changes.
+     */
+    private static final int FILE_HEADER = 0x53424701; // 'SBG' and version 1.
+
+    /**
+     * Maximum number of videos kept.
+     */
+    private static final int CACHE_LIMIT = 1000;
+
+    /**
+     * How long segments are used before they are fetched again.
+     */
+    private static final long SEGMENTS_EXPIRATION_MILLISECONDS = 60 * 60 * 1000; // 1 Hour.
+
+    /**
+     * How long a video without segments is used before it's fetched again.
+     * Shorter, as segments are commonly submitted soon after a video is uploaded.
+     */
+    private static final long NO_SEGMENTS_EXPIRATION_MILLISECONDS = 10 * 60 * 1000; // 10 Minutes.
+
+    /**
+     * Segment as returned by the API.
+     */
+    static final class StoredSegment {
+        @NonNull
+        final String categoryKey;
+        @NonNull
+        final String uuid;
+        final long start;
+        final long end;
+        final boolean locked;
+
+        StoredSegment(@NonNull String categoryKey, @NonNull String uuid, long start, long end, boolean locked) {
+            this.categoryKey = categoryKey;
+            this.uuid = uuid;
+            this.start = start;
+            this.end = end;
+            this.locked = locked;
+        }
+    }
+
+    private static final class StoredVideo {
+        @NonNull
+        final String videoId;
+        final long timeFetched;
+        /**
+         * Hash of the API address and categories used to fetch the segments.
+         */
+        final int queryKey;
+        @NonNull
+        final StoredSegment[] segments;
+
+        StoredVideo(@NonNull String videoId, long timeFetched, int queryKey, @NonNull StoredSegment[] segments) {
+            this.videoId = videoId;
+            this.timeFetched = timeFetched;
+            this.queryKey = queryKey;
+            this.segments = segments;
+        }
+
+        boolean isExpired(long now) {
+            return now - timeFetched > (segments.length == 0
+                    ? NO_SEGMENTS_EXPIRATION_MILLISECONDS
+                    : SEGMENTS_EXPIRATION_MILLISECONDS);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            byte[] videoIdBytes = videoId.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(videoIdBytes.length);
+            out.write(videoIdBytes);
+            out.writeLong(timeFetched);
+            out.writeInt(queryKey);
+            out.writeShort(segments.length);
+            for (StoredSegment segment : segments) {
+                out.writeUTF(segment.categoryKey);
+                out.writeUTF(segment.uuid);
+                out.writeLong(segment.start);
+                out.writeLong(segment.end);
+                out.writeBoolean(segment.locked);
+            }
+        }
+
+        static StoredVideo read(DataInputStream in) throws IOException {
+            byte[] videoIdBytes = new byte[in.readUnsignedByte()];
+            in.readFully(videoIdBytes);
+            final long timeFetched = in.readLong();
+            final int queryKey = in.readInt();
+            StoredSegment[] segments = new StoredSegment[in.readUnsignedShort()];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new StoredSegment(in.readUTF(), in.readUTF(),
+                        in.readLong(), in.readLong(), in.readBoolean());
+            }
+            return new StoredVideo(new String(videoIdBytes, StandardCharsets.UTF_8), timeFetched, queryKey, segments);
+        }
+    }
+
+    /**
+     * Entries in least recently used order.
+     */
+    @GuardedBy("this")
+    private final Map<String, StoredVideo> entries = new LinkedHashMap<>(2 * CACHE_LIMIT, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredVideo> eldest) {
+            return size() > CACHE_LIMIT; // Evict the oldest entry if over the cache limit.
+        }
+    };
+
+    /**
+     * Cache file, or null if the cache directory is not available.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private AppendOnlyRecordFile<StoredVideo> storeFile;
+
+    @GuardedBy("this")
+    private boolean loaded;
+
+    /**
+     * @return The stored segments, or null if the video is not stored,
+     * the entry has expired, or the entry was fetched using a different query.
+     * An empty array if the video has no segments.
+     */
+    @Nullable
+    synchronized StoredSegment[] get(@NonNull String videoId, int queryKey) {
+        loadIfNeeded();
+
+        StoredVideo entry = entries.get(videoId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.queryKey != queryKey || entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(videoId);
+            return null;
+        }
+        return entry.segments;
+    }
+
+    /**
+     * @return If the video has an entry that can be used.
+     */
+    synchronized boolean contains(@NonNull String videoId, int queryKey) {
+        return get(videoId, queryKey) != null;
+    }
+
+    /**
+     * @param segments Segments of the video, or an empty array if the video has no segments.
+     */
+    synchronized void put(@NonNull String videoId, int queryKey, @NonNull StoredSegment[] segments) {
+        loadIfNeeded();
+
+        StoredVideo entry = new StoredVideo(videoId, System.currentTimeMillis(), queryKey, segments);
+        entries.put(videoId, entry);
+
+        if (storeFile == null) return;
+        if (storeFile.shouldRewrite(entries.size(), 1, CACHE_LIMIT)) {
+            storeFile.rewrite(entries.values());
+        } else {
+            storeFile.append(entry);
+        }
+    }
+
+    /**
+     * Removes the video, so the next lookup fetches the segments again.
+     */
+    synchronized void remove(@NonNull String videoId) {
+        loadIfNeeded();
+
+        if (entries.remove(videoId) != null && storeFile != null) {
+            // Expired entry that replaces the removed entry when the file is loaded.
+            storeFile.append(new StoredVideo(videoId, 0, 0, new StoredSegment[0]));
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadIfNeeded() {
+        if (loaded) return;
+        loaded = true;
+
+        Context context = Utils.getContext();
+        if (context == null) {
+            return; // Store is only in memory.
+        }
+        storeFile = new AppendOnlyRecordFile<>(new File(context.getCacheDir(), FILE_NAME),
+                FILE_HEADER, "segment store", StoredVideo::read, StoredVideo::write);
+
+        final long startTime = System.currentTimeMillis();
+        final boolean fileIsValid = storeFile.read(entry -> entries.put(entry.videoId, entry));
+
+        final long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        Logger.printDebug(() -> "Loaded " + entries.size() + " stored videos in: "
+                + (System.currentTimeMillis() - startTime) + "ms");
+
+        if (!fileIsValid) {
+            // Do not append after a partial entry or an unknown file version.
+            storeFile.rewrite(entries.values());
+        }
+    }
+}
@@ -19,6 +19,8 @@ import app.revanced.integrations.youtube.shared.VideoInformation;
 import app.revanced.integrations.youtube.sponsorblock.SponsorBlockUtils;
 
 public final class NewSegmentLayout extends FrameLayout {
+    public static final String LAYOUT_NAME = "revanced_sb_new_segment";
+
     private static final ColorStateList rippleColorStateList = new ColorStateList(
             new int[][]{new int[]{android.R.attr.state_enabled}},
             new int[]{0x33ffffff} // sets the ripple color to white
@@ -41,7 +43,7 @@ public final class NewSegmentLayout extends FrameLayout {
                             final int defStyleAttr, final int defStyleRes) {
         super(context, attributeSet, defStyleAttr, defStyleRes);
 
-        LayoutInflater.from(context).inflate(getLayoutIdentifier("revanced_sb_new_segment"), this, true);
+        LayoutInflater.from(context).inflate(getLayoutIdentifier(LAYOUT_NAME), this, true);
 
 
         TypedValue rippleEffect = new TypedValue();
@@ -20,6 +20,10 @@ import app.revanced.integrations.youtube.sponsorblock.SegmentPlaybackController;
 import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment;
 
 public class SkipSponsorButton extends FrameLayout {
+    public static final String LAYOUT_NAME = "revanced_sb_skip_sponsor_button";
+    public static final String CONTAINER_ID_NAME = "revanced_sb_skip_sponsor_button_container";
+    public static final String TEXT_ID_NAME = "revanced_sb_skip_sponsor_button_text";
+
     private final TextView skipSponsorTextView;
     private SponsorSegment segment;
 
@@ -38,10 +42,10 @@ public class SkipSponsorButton extends FrameLayout {
     public SkipSponsorButton(Context context, AttributeSet attributeSet, int defStyleAttr, int defStyleRes) {
         super(context, attributeSet, defStyleAttr, defStyleRes);
 
-        LayoutInflater.from(context).inflate(getLayoutIdentifier("revanced_sb_skip_sponsor_button"), this, true);  // layout:revanced_sb_skip_sponsor_button
+        LayoutInflater.from(context).inflate(getLayoutIdentifier(LAYOUT_NAME), this, true);  // layout:revanced_sb_skip_sponsor_button
         setMinimumHeight(getDimension("ad_skip_ad_button_min_height"));  // dimen:ad_skip_ad_button_min_height
-        final LinearLayout skipSponsorBtnContainer = (LinearLayout) Objects.requireNonNull((View) findViewById(getIdIdentifier("revanced_sb_skip_sponsor_button_container")));  // id:revanced_sb_skip_sponsor_button_container
-        skipSponsorTextView = (TextView) Objects.requireNonNull((View) findViewById(getIdIdentifier("revanced_sb_skip_sponsor_button_text")));  // id:revanced_sb_skip_sponsor_button_text;
+        final LinearLayout skipSponsorBtnContainer = (LinearLayout) Objects.requireNonNull((View) findViewById(getIdIdentifier(CONTAINER_ID_NAME)));  // id:revanced_sb_skip_sponsor_button_container
+        skipSponsorTextView = (TextView) Objects.requireNonNull((View) findViewById(getIdIdentifier(TEXT_ID_NAME)));  // id:revanced_sb_skip_sponsor_button_text;
 
         skipSponsorBtnContainer.setOnClickListener(v -> {
             // The view controller handles hiding this button, but hide it here as well just in case something goofs.
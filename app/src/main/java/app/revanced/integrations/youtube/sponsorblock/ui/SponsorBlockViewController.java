@@ -26,6 +26,8 @@ import app.revanced.integrations.youtube.sponsorblock.objects.SponsorSegment;
 
 @SuppressWarnings("unused")
 public class SponsorBlockViewController {
+    public static final String INLINE_SPONSOR_OVERLAY_LAYOUT_NAME = "revanced_sb_inline_sponsor_overlay";
+
     private static WeakReference<RelativeLayout> inlineSponsorOverlayRef = new WeakReference<>(null);
     private static WeakReference<ViewGroup> youtubeOverlaysLayoutRef = new WeakReference<>(null);
     private static WeakReference<SkipSponsorButton> skipHighlightButtonRef = new WeakReference<>(null);
@@ -73,7 +75,7 @@ public class SponsorBlockViewController {
             Context context = Utils.getContext();
             RelativeLayout layout = new RelativeLayout(context);
             layout.setLayoutParams(new RelativeLayout.LayoutParams(RelativeLayout.LayoutParams.MATCH_PARENT, RelativeLayout.LayoutParams.MATCH_PARENT));
-            LayoutInflater.from(context).inflate(getLayoutIdentifier("revanced_sb_inline_sponsor_overlay"), layout);
+            LayoutInflater.from(context).inflate(getLayoutIdentifier(INLINE_SPONSOR_OVERLAY_LAYOUT_NAME), layout);
             inlineSponsorOverlayRef = new WeakReference<>(layout);
 
             viewGroup.addView(layout);
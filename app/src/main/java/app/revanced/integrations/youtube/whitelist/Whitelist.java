@@ -1,12 +1,10 @@
 package app.revanced.integrations.youtube.whitelist;
 
 import static app.revanced.integrations.shared.utils.StringRef.str;
-import static app.revanced.integrations.shared.utils.Utils.isSDKAbove;
 import static app.revanced.integrations.shared.utils.Utils.showToastShort;
 
 import android.app.AlertDialog;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.content.res.Resources;
 import android.graphics.ColorFilter;
 import android.graphics.PorterDuff;
@@ -14,26 +12,13 @@ import android.graphics.PorterDuffColorFilter;
 import android.graphics.drawable.Drawable;
 import android.widget.Button;
 
-import androidx.annotation.NonNull;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Base64;
 import java.util.EnumMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import app.revanced.integrations.shared.utils.Logger;
 import app.revanced.integrations.shared.utils.ResourceUtils;
+import app.revanced.integrations.shared.utils.TaskScheduler;
 import app.revanced.integrations.shared.utils.Utils;
 import app.revanced.integrations.youtube.patches.utils.PatchStatus;
 import app.revanced.integrations.youtube.shared.VideoInformation;
@@ -41,8 +26,11 @@ import app.revanced.integrations.youtube.utils.ThemeUtils;
 
 @SuppressWarnings("deprecation")
 public class Whitelist {
+    public static final String PLAYBACK_SPEED_DRAWABLE_NAME = "yt_outline_play_arrow_half_circle_black_24";
+    public static final String SPONSOR_BLOCK_DRAWABLE_NAME = "revanced_sb_logo";
+
     private static final String ZERO_WIDTH_SPACE_CHARACTER = "\u200B";
-    private static final Map<WhitelistType, ArrayList<VideoChannel>> whitelistMap = parseWhitelist();
+    private static final Map<WhitelistType, WhitelistStore> whitelistStores = createWhitelistStores();
 
     private static final WhitelistType whitelistTypePlaybackSpeed = WhitelistType.PLAYBACK_SPEED;
     private static final WhitelistType whitelistTypeSponsorBlock = WhitelistType.SPONSOR_BLOCK;
@@ -52,14 +40,21 @@ public class Whitelist {
     private static Drawable sponsorBlockDrawable;
 
     static {
+        // Load before the first video starts.
+        TaskScheduler.run(TaskScheduler.Lane.BACKGROUND, () -> {
+            for (WhitelistStore store : whitelistStores.values()) {
+                store.load();
+            }
+        });
+
         final Resources resource = Utils.getResources();
 
-        final int playbackSpeedDrawableId = ResourceUtils.getDrawableIdentifier("yt_outline_play_arrow_half_circle_black_24");
+        final int playbackSpeedDrawableId = ResourceUtils.getDrawableIdentifier(PLAYBACK_SPEED_DRAWABLE_NAME);
         if (playbackSpeedDrawableId != 0) {
             playbackSpeedDrawable = resource.getDrawable(playbackSpeedDrawableId);
         }
 
-        final int sponsorBlockDrawableId = ResourceUtils.getDrawableIdentifier("revanced_sb_logo");
+        final int sponsorBlockDrawableId = ResourceUtils.getDrawableIdentifier(SPONSOR_BLOCK_DRAWABLE_NAME);
         if (sponsorBlockDrawableId != 0) {
             sponsorBlockDrawable = resource.getDrawable(sponsorBlockDrawableId);
         }
@@ -150,139 +145,42 @@ public class Whitelist {
         }
     }
 
-    /**
-     * @noinspection unchecked
-     */
-    private static Map<WhitelistType, ArrayList<VideoChannel>> parseWhitelist() {
-        WhitelistType[] whitelistTypes = WhitelistType.values();
-        Map<WhitelistType, ArrayList<VideoChannel>> whitelistMap = new EnumMap<>(WhitelistType.class);
-
-        for (WhitelistType whitelistType : whitelistTypes) {
-            SharedPreferences preferences = getPreferences(whitelistType.getPreferencesName());
-            String serializedChannels = preferences.getString("channels", null);
-            if (serializedChannels == null) {
-                whitelistMap.put(whitelistType, new ArrayList<>());
-                continue;
-            }
-            try {
-                Object channelsObject = deserialize(serializedChannels);
-                ArrayList<VideoChannel> deserializedChannels = (ArrayList<VideoChannel>) channelsObject;
-                whitelistMap.put(whitelistType, deserializedChannels);
-            } catch (Exception ex) {
-                Logger.printException(() -> "parseWhitelist failure", ex);
-            }
+    private static Map<WhitelistType, WhitelistStore> createWhitelistStores() {
+        Map<WhitelistType, WhitelistStore> stores = new EnumMap<>(WhitelistType.class);
+        for (WhitelistType whitelistType : WhitelistType.values()) {
+            String preferencesName = whitelistType.getPreferencesName();
+            stores.put(whitelistType, new WhitelistStore("revanced_" + preferencesName + ".bin", preferencesName));
         }
-        return whitelistMap;
+        return stores;
     }
 
     private static boolean isWhitelisted(WhitelistType whitelistType, String channelId) {
-        for (VideoChannel channel : getWhitelistedChannels(whitelistType)) {
-            if (channel.getChannelId().equals(channelId)) {
-                return true;
-            }
-        }
-        return false;
+        return getStore(whitelistType).contains(channelId);
     }
 
     private static void addToWhitelist(WhitelistType whitelistType, String channelId, String channelName) {
-        final VideoChannel channel = new VideoChannel(channelName, channelId);
-        ArrayList<VideoChannel> whitelisted = getWhitelistedChannels(whitelistType);
-        for (VideoChannel whitelistedChannel : whitelisted) {
-            if (whitelistedChannel.getChannelId().equals(channel.getChannelId()))
-                return;
-        }
-        whitelisted.add(channel);
-        String friendlyName = whitelistType.getFriendlyName();
-        if (updateWhitelist(whitelistType, whitelisted)) {
-            showToastShort(str("revanced_whitelist_added", channelName, friendlyName));
-        } else {
-            showToastShort(str("revanced_whitelist_add_failed", channelName, friendlyName));
+        if (getStore(whitelistType).add(channelId, channelName)) {
+            showToastShort(str("revanced_whitelist_added", channelName, whitelistType.getFriendlyName()));
         }
     }
 
     public static void removeFromWhitelist(WhitelistType whitelistType, String channelId) {
-        ArrayList<VideoChannel> whitelisted = getWhitelistedChannels(whitelistType);
-        Iterator<VideoChannel> iterator = whitelisted.iterator();
-        String channelName = "";
-        while (iterator.hasNext()) {
-            VideoChannel channel = iterator.next();
-            if (channel.getChannelId().equals(channelId)) {
-                channelName = channel.getChannelName();
-                iterator.remove();
-                break;
-            }
-        }
-        String friendlyName = whitelistType.getFriendlyName();
-        if (updateWhitelist(whitelistType, whitelisted)) {
-            showToastShort(str("revanced_whitelist_removed", channelName, friendlyName));
-        } else {
-            showToastShort(str("revanced_whitelist_remove_failed", channelName, friendlyName));
-        }
-    }
-
-    private static boolean updateWhitelist(WhitelistType whitelistType, ArrayList<VideoChannel> channels) {
-        SharedPreferences.Editor editor = getPreferences(whitelistType.getPreferencesName()).edit();
-
-        final String channelName = serialize(channels);
-        if (channelName != null && !channelName.isEmpty()) {
-            editor.putString("channels", channelName);
-            editor.apply();
-            return true;
+        String channelName = getStore(whitelistType).remove(channelId);
+        if (channelName != null) {
+            showToastShort(str("revanced_whitelist_removed", channelName, whitelistType.getFriendlyName()));
         }
-        return false;
     }
 
-    public static ArrayList<VideoChannel> getWhitelistedChannels(WhitelistType whitelistType) {
-        return whitelistMap.get(whitelistType);
-    }
-
-    private static SharedPreferences getPreferences(@NonNull String prefName) {
-        final Context context = Utils.getContext();
-        return context.getSharedPreferences(prefName, Context.MODE_PRIVATE);
-    }
-
-    private static String serialize(Serializable obj) {
-        try {
-            if (obj != null) {
-                ByteArrayOutputStream serialObj = new ByteArrayOutputStream();
-                Deflater def = new Deflater(Deflater.BEST_COMPRESSION);
-                ObjectOutputStream objStream =
-                        new ObjectOutputStream(new DeflaterOutputStream(serialObj, def));
-                objStream.writeObject(obj);
-                objStream.close();
-                return encodeBytes(serialObj.toByteArray());
-            }
-        } catch (IOException ex) {
-            Logger.printException(() -> "Serialization error: " + ex.getMessage(), ex);
-        }
-        return null;
-    }
-
-    private static Object deserialize(@NonNull String str) {
-        try {
-            final ByteArrayInputStream serialObj = new ByteArrayInputStream(decodeBytes(str));
-            final ObjectInputStream objStream = new ObjectInputStream(new InflaterInputStream(serialObj));
-            return objStream.readObject();
-        } catch (ClassNotFoundException | IOException ex) {
-            Logger.printException(() -> "Deserialization error: " + ex.getMessage(), ex);
-        }
-        return null;
-    }
-
-    private static String encodeBytes(byte[] bytes) {
-        if (isSDKAbove(26)) {
-            return Base64.getEncoder().encodeToString(bytes);
-        } else {
-            return new String(bytes, StandardCharsets.UTF_8);
-        }
+    /**
+     * @return Copy of the whitelisted channels.
+     */
+    public static List<VideoChannel> getWhitelistedChannels(WhitelistType whitelistType) {
+        return getStore(whitelistType).getChannels();
     }
 
-    private static byte[] decodeBytes(String str) {
-        if (isSDKAbove(26)) {
-            return Base64.getDecoder().decode(str.getBytes(StandardCharsets.UTF_8));
-        } else {
-            return str.getBytes(StandardCharsets.UTF_8);
-        }
+    private static WhitelistStore getStore(WhitelistType whitelistType) {
+        //noinspection ConstantConditions
+        return whitelistStores.get(whitelistType);
     }
 
     public enum WhitelistType {
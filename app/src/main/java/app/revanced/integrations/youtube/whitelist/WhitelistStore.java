@@ -0,0 +1,308 @@
+package app.revanced.integrations.youtube.whitelist;
+
+import static app.revanced.integrations.shared.utils.Utils.isSDKAbove;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+
+import app.revanced.integrations.shared.utils.AppendOnlyRecordFile;
+import app.revanced.integrations.shared.utils.Logger;
+import app.revanced.integrations.shared.utils.Utils;
+
+/**
+ * Persistent set of whitelisted channels of one whitelist type.
+ * <p>
+ * Channels are stored in an append only binary file in the app files directory.
+ * Each add or remove immediately appends a small record to the end of the file.
+ * The records are a few bytes, so they are written while holding the lock
+ * instead of on a background thread that could delay or drop the write.
+ * Once the file contains too many removed channels, it is rewritten with only the current channels.
+ * <p>
+ * Checking if a channel is whitelisted does not lock, and does not search the list of channels.
+ * <p>
+ * Whitelists previously stored as a serialized list in shared preferences are moved into the file on first use.
+ * <p>
+ * This class is thread safe.
+ */
+final class WhitelistStore {
+    /**
+     * File header. Must be changed if the record format changes.
+     */
+    private static final int FILE_HEADER = 0x574C5301; // 'WLS' and version 1.
+
+    private static final byte RECORD_REMOVE = 0;
+    private static final byte RECORD_ADD = 1;
+
+    /**
+     * Number of removed or replaced records allowed in the file before it is rewritten.
+     */
+    private static final int MAXIMUM_STALE_RECORDS = 64;
+
+    /**
+     * Key of the serialized channels, in the legacy shared preferences.
+     */
+    private static final String LEGACY_PREFERENCES_KEY = "channels";
+
+    private static final class Record {
+        final boolean add;
+        @NonNull
+        final String channelId;
+        @NonNull
+        final String channelName;
+
+        Record(boolean add, @NonNull String channelId, @NonNull String channelName) {
+            this.add = add;
+            this.channelId = channelId;
+            this.channelName = channelName;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(add ? RECORD_ADD : RECORD_REMOVE);
+            out.writeUTF(channelId);
+            if (add) {
+                out.writeUTF(channelName);
+            }
+        }
+
+        static Record read(DataInputStream in) throws IOException {
+            final byte type = in.readByte();
+            if (type == RECORD_ADD) {
+                return new Record(true, in.readUTF(), in.readUTF());
+            }
+            if (type == RECORD_REMOVE) {
+                return new Record(false, in.readUTF(), "");
+            }
+            throw new IOException("Unknown record type: " + type);
+        }
+    }
+
+    @NonNull
+    private final String fileName;
+
+    @NonNull
+    private final String legacyPreferencesName;
+
+    /**
+     * Map of channel id -> channel name, in the order the channels were added.
+     */
+    @GuardedBy("this")
+    private final Map<String, String> channels = new LinkedHashMap<>();
+
+    /**
+     * Immutable copy of the whitelisted channel ids. Replaced each time a channel is added or removed.
+     */
+    private volatile Set<String> channelIds = Collections.emptySet();
+
+    /**
+     * Only set while holding the lock, after {@link #channelIds} is loaded.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Store file, or null if the files directory is not available.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private AppendOnlyRecordFile<Record> storeFile;
+
+    WhitelistStore(@NonNull String fileName, @NonNull String legacyPreferencesName) {
+        this.fileName = fileName;
+        this.legacyPreferencesName = legacyPreferencesName;
+    }
+
+    boolean contains(@NonNull String channelId) {
+        if (!loaded) {
+            load();
+        }
+        return channelIds.contains(channelId);
+    }
+
+    /**
+     * @return If the channel was added, or false if the channel is already whitelisted.
+     */
+    synchronized boolean add(@NonNull String channelId, @NonNull String channelName) {
+        loadIfNeeded();
+        if (channels.containsKey(channelId)) {
+            return false;
+        }
+        channels.put(channelId, channelName);
+        onChanged(new Record(true, channelId, channelName));
+        return true;
+    }
+
+    /**
+     * @return The name of the removed channel, or null if the channel is not whitelisted.
+     */
+    @Nullable
+    synchronized String remove(@NonNull String channelId) {
+        loadIfNeeded();
+        String channelName = channels.remove(channelId);
+        if (channelName != null) {
+            onChanged(new Record(false, channelId, ""));
+        }
+        return channelName;
+    }
+
+    /**
+     * @return Copy of the whitelisted channels, in the order they were added.
+     */
+    @NonNull
+    synchronized List<VideoChannel> getChannels() {
+        loadIfNeeded();
+        List<VideoChannel> list = new ArrayList<>(channels.size());
+        for (Map.Entry<String, String> entry : channels.entrySet()) {
+            list.add(new VideoChannel(entry.getValue(), entry.getKey()));
+        }
+        return list;
+    }
+
+    /**
+     * Loads the whitelist, if not already loaded.
+     */
+    synchronized void load() {
+        loadIfNeeded();
+    }
+
+    @GuardedBy("this")
+    private void onChanged(@NonNull Record record) {
+        channelIds = Collections.unmodifiableSet(new HashSet<>(channels.keySet()));
+        if (storeFile == null) {
+            return;
+        }
+        if (storeFile.shouldRewrite(channels.size(), 1, MAXIMUM_STALE_RECORDS)
+                || !storeFile.append(record)) {
+            // If the rewrite also fails, the file stays invalid and the next change tries again.
+            rewriteFile();
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadIfNeeded() {
+        if (loaded) return;
+        try {
+            loadFile();
+        } finally {
+            loaded = true;
+        }
+    }
+
+    @GuardedBy("this")
+    private void loadFile() {
+        Context context = Utils.getContext();
+        if (context == null) {
+            return; // Whitelist is only in memory.
+        }
+        File file = new File(context.getFilesDir(), fileName);
+        storeFile = new AppendOnlyRecordFile<>(file, FILE_HEADER, "whitelist", Record::read, Record::write);
+        if (!file.exists()) {
+            loadLegacyWhitelist(context);
+            return;
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final boolean fileIsValid = storeFile.read(record -> {
+            if (record.add) {
+                channels.put(record.channelId, record.channelName);
+            } else {
+                channels.remove(record.channelId);
+            }
+        });
+
+        channelIds = Collections.unmodifiableSet(new HashSet<>(channels.keySet()));
+        Logger.printDebug(() -> "Loaded " + channels.size() + " whitelisted channels in: "
+                + (System.currentTimeMillis() - startTime) + "ms");
+
+        if (!fileIsValid) {
+            // Do not append after a partial record or an unknown file version,
+            // even if no channels were read.
+            rewriteFile();
+        }
+    }
+
+    /**
+     * Moves the channels stored in the legacy shared preferences into the file.
+     */
+    @GuardedBy("this")
+    private void loadLegacyWhitelist(@NonNull Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(legacyPreferencesName, Context.MODE_PRIVATE);
+        String serializedChannels = preferences.getString(LEGACY_PREFERENCES_KEY, null);
+        if (serializedChannels == null) {
+            return;
+        }
+
+        List<VideoChannel> legacyChannels = deserializeLegacyChannels(serializedChannels);
+        if (legacyChannels == null) {
+            return; // Keep the legacy whitelist, in case a later version can read it.
+        }
+        for (VideoChannel channel : legacyChannels) {
+            channels.put(channel.getChannelId(), channel.getChannelName());
+        }
+        channelIds = Collections.unmodifiableSet(new HashSet<>(channels.keySet()));
+
+        if (rewriteFile()) {
+            preferences.edit().remove(LEGACY_PREFERENCES_KEY).apply();
+            Logger.printDebug(() -> "Migrated " + channels.size() + " whitelisted channels of: " + legacyPreferencesName);
+        }
+    }
+
+    /**
+     * Replaces the file with only the current channels.
+     *
+     * @return If the file was written.
+     */
+    @GuardedBy("this")
+    private boolean rewriteFile() {
+        if (storeFile == null) return false;
+
+        List<Record> records = new ArrayList<>(channels.size());
+        for (Map.Entry<String, String> entry : channels.entrySet()) {
+            records.add(new Record(true, entry.getKey(), entry.getValue()));
+        }
+        if (!storeFile.rewrite(records)) {
+            Logger.printException(() -> "Failed to write whitelist: " + fileName);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The channels of the legacy serialized format, or null if the channels cannot be read.
+     */
+    @Nullable
+    private static List<VideoChannel> deserializeLegacyChannels(@NonNull String serializedChannels) {
+        try {
+            final byte[] bytes = isSDKAbove(26)
+                    ? Base64.getDecoder().decode(serializedChannels.getBytes(StandardCharsets.UTF_8))
+                    : serializedChannels.getBytes(StandardCharsets.UTF_8);
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+                //noinspection unchecked
+                return (List<VideoChannel>) in.readObject();
+            }
+        } catch (ClassNotFoundException | IOException | ClassCastException | IllegalArgumentException ex) {
+            Logger.printException(() -> "Deserialization error: " + ex.getMessage(), ex);
+        }
+        return null;
+    }
+}
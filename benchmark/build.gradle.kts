@@ -0,0 +1,52 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// JVM only benchmarks of the litho filtering code.
+//
+// The benchmarks use the classes compiled by the app module (which compiles against the stub module),
+// and the few Android framework classes loaded while filtering are replaced by
+// the minimal JVM implementations in src/jmh/java/android.
+//
+// Usage:
+//   ./gradlew :benchmark:jmh
+//   ./gradlew :benchmark:jmh -Pcorpus=/path/to/corpus.tsv -Pfilters=none,feed -Pkeywords="minecraft;shorts"
+//
+// Results are written to benchmark/build/results/jmh/results.json
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+val appClasses = files(
+    project(":app").layout.buildDirectory.dir("intermediates/javac/debug/compileDebugJavaWithJavac/classes"),
+    project(":app").layout.buildDirectory.dir("tmp/kotlin-classes/debug"),
+    project(":stub").layout.buildDirectory.dir("intermediates/javac/debug/compileDebugJavaWithJavac/classes"),
+).builtBy(
+    ":app:compileDebugJavaWithJavac",
+    ":app:compileDebugKotlin",
+    ":stub:compileDebugJavaWithJavac",
+)
+
+dependencies {
+    jmhImplementation(appClasses)
+    jmhImplementation(libs.annotation)
+    jmhImplementation(libs.kotlin.stdlib)
+    jmhImplementation(libs.lang3)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // Allocation rate of each benchmark.
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+
+    // Overrides the default benchmark parameters. Multiple values are separated with commas.
+    listOf("corpus", "filters", "keywords", "customFilters", "verdictCache").forEach { name ->
+        providers.gradleProperty(name).orNull?.let { values ->
+            benchmarkParameters.put(name, objects.listProperty<String>().value(values.split(',')))
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package android.content;
+
+/**
+ * JVM replacement of the Android class, for the methods used by the integrations.
+ */
+public abstract class Context {
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+}
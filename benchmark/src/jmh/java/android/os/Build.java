@@ -0,0 +1,11 @@
+package android.os;
+
+/**
+ * JVM replacement of the Android class, for the fields used by the integrations.
+ */
+@SuppressWarnings("unused")
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = Integer.getInteger("benchmark.sdk", 34);
+    }
+}
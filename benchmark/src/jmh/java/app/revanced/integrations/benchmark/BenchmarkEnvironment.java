@@ -0,0 +1,69 @@
+package app.revanced.integrations.benchmark;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import app.revanced.integrations.shared.utils.Utils;
+import app.revanced.integrations.youtube.settings.Settings;
+
+/**
+ * Sets up the integrations to run outside the app.
+ * <p>
+ * Must be called before any setting is used, since settings are loaded once when their class is loaded.
+ */
+public final class BenchmarkEnvironment {
+    /**
+     * Separator of keyword and custom filter lists.
+     * Commas cannot be used, since JMH uses commas to separate parameter values.
+     */
+    public static final char LIST_SEPARATOR = ';';
+
+    /**
+     * Settings are loaded only once, so a JVM can only be initialized once.
+     */
+    private static Boolean initialized;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * @param enableAllFilters If all boolean settings (except debug settings) are enabled,
+     *                         so all filter groups are enabled and searched.
+     */
+    public static synchronized void initialize(boolean enableAllFilters) {
+        if (initialized != null) {
+            if (initialized != enableAllFilters) {
+                throw new IllegalStateException("Already initialized with enableAllFilters: " + initialized);
+            }
+            return;
+        }
+        initialized = enableAllFilters;
+
+        final Boolean defaultBooleanOverride = enableAllFilters ? Boolean.TRUE : null;
+        Utils.context = new Context() {
+            private final Map<String, SharedPreferences> preferences = new HashMap<>();
+
+            @Override
+            public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+                return preferences.computeIfAbsent(name, key -> new InMemorySharedPreferences(defaultBooleanOverride));
+            }
+        };
+    }
+
+    /**
+     * @param keywords Keywords separated by {@link #LIST_SEPARATOR}, or an empty string for none.
+     */
+    public static void setKeywords(String keywords) {
+        Settings.HIDE_KEYWORD_CONTENT_PHRASES.save(keywords.replace(LIST_SEPARATOR, '\n'));
+    }
+
+    /**
+     * @param customFilters Custom filters separated by {@link #LIST_SEPARATOR}, or an empty string for none.
+     */
+    public static void setCustomFilters(String customFilters) {
+        Settings.CUSTOM_FILTER_STRINGS.save(customFilters.replace(LIST_SEPARATOR, '\n'));
+    }
+}
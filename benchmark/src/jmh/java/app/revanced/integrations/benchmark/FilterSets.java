@@ -0,0 +1,78 @@
+package app.revanced.integrations.benchmark;
+
+import app.revanced.integrations.shared.patches.components.Filter;
+import app.revanced.integrations.youtube.patches.components.ActionButtonsFilter;
+import app.revanced.integrations.youtube.patches.components.AdsFilter;
+import app.revanced.integrations.youtube.patches.components.CarouselShelfFilter;
+import app.revanced.integrations.youtube.patches.components.CommentsFilter;
+import app.revanced.integrations.youtube.patches.components.CustomFilter;
+import app.revanced.integrations.youtube.patches.components.DescriptionsFilter;
+import app.revanced.integrations.youtube.patches.components.FeedComponentsFilter;
+import app.revanced.integrations.youtube.patches.components.FeedVideoFilter;
+import app.revanced.integrations.youtube.patches.components.FeedVideoViewsFilter;
+import app.revanced.integrations.youtube.patches.components.KeywordContentFilter;
+import app.revanced.integrations.youtube.patches.components.LayoutComponentsFilter;
+import app.revanced.integrations.youtube.patches.components.PlayerComponentsFilter;
+import app.revanced.integrations.youtube.patches.components.QuickActionFilter;
+import app.revanced.integrations.youtube.patches.components.ShortsButtonFilter;
+import app.revanced.integrations.youtube.patches.components.ShortsShelfFilter;
+
+/**
+ * Filters used by the benchmarks.
+ * <p>
+ * Filters that make network requests or depend on views
+ * (such as Return YouTube Dislike and the flyout menu filters) are not included.
+ */
+public final class FilterSets {
+    /**
+     * No filters, to measure the cost of the litho filter itself.
+     */
+    public static final String NONE = "none";
+    /**
+     * Filters of home, subscription and search feed components.
+     */
+    public static final String FEED = "feed";
+    public static final String KEYWORD = "keyword";
+    public static final String CUSTOM = "custom";
+    /**
+     * All filters that can be used outside the app.
+     */
+    public static final String ALL = "all";
+
+    private FilterSets() {
+    }
+
+    public static Filter[] create(String name) {
+        return switch (name) {
+            case NONE -> new Filter[0];
+            case FEED -> new Filter[]{
+                    new AdsFilter(),
+                    new CarouselShelfFilter(),
+                    new FeedComponentsFilter(),
+                    new FeedVideoFilter(),
+                    new FeedVideoViewsFilter(),
+                    new ShortsShelfFilter(),
+            };
+            case KEYWORD -> new Filter[]{new KeywordContentFilter()};
+            case CUSTOM -> new Filter[]{new CustomFilter()};
+            case ALL -> new Filter[]{
+                    new ActionButtonsFilter(),
+                    new AdsFilter(),
+                    new CarouselShelfFilter(),
+                    new CommentsFilter(),
+                    new CustomFilter(),
+                    new DescriptionsFilter(),
+                    new FeedComponentsFilter(),
+                    new FeedVideoFilter(),
+                    new FeedVideoViewsFilter(),
+                    new KeywordContentFilter(),
+                    new LayoutComponentsFilter(),
+                    new PlayerComponentsFilter(),
+                    new QuickActionFilter(),
+                    new ShortsButtonFilter(),
+                    new ShortsShelfFilter(),
+            };
+            default -> throw new IllegalArgumentException("Unknown filter set: " + name);
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package app.revanced.integrations.benchmark;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recorded litho components, replayed by the benchmarks.
+ * <p>
+ * A corpus is a text file with one component per line, with tab separated fields:
+ * <pre>
+ * identifier    path    base64 proto buffer    [all value]
+ * </pre>
+ * An identifier of '-' is a null identifier, and the all value is optional.
+ * Empty lines and lines starting with '#' are ignored.
+ */
+public final class LithoCorpus {
+    /**
+     * Corpus included with the benchmarks.
+     */
+    public static final String DEFAULT_CORPUS = "default";
+
+    public static final class Component {
+        @Nullable
+        public final String identifier;
+        public final String path;
+        public final byte[] buffer;
+        /**
+         * String value of the litho object.
+         */
+        public final String allValue;
+
+        Component(@Nullable String identifier, String path, byte[] buffer, String allValue) {
+            this.identifier = identifier;
+            this.path = path;
+            this.buffer = buffer;
+            this.allValue = allValue;
+        }
+    }
+
+    public final List<Component> components;
+
+    private LithoCorpus(List<Component> components) {
+        if (components.isEmpty()) {
+            throw new IllegalArgumentException("Corpus is empty");
+        }
+        this.components = components;
+    }
+
+    /**
+     * @param corpus {@link #DEFAULT_CORPUS} or the path of a corpus file.
+     */
+    public static LithoCorpus load(String corpus) throws IOException {
+        if (DEFAULT_CORPUS.equals(corpus)) {
+            try (InputStream stream = Objects.requireNonNull(
+                    LithoCorpus.class.getResourceAsStream("/corpus/default.tsv"))) {
+                return parse(stream);
+            }
+        }
+        try (InputStream stream = Files.newInputStream(Path.of(corpus))) {
+            return parse(stream);
+        }
+    }
+
+    private static LithoCorpus parse(InputStream stream) throws IOException {
+        List<Component> components = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 3 && fields.length != 4) {
+                throw new IOException("Invalid corpus line " + lineNumber + ": " + line);
+            }
+            String identifier = fields[0].equals("-") ? null : fields[0];
+            String allValue = fields.length == 4 ? fields[3] : "";
+            components.add(new Component(identifier, fields[1], Base64.getDecoder().decode(fields[2]), allValue));
+        }
+        return new LithoCorpus(components);
+    }
+
+    public int size() {
+        return components.size();
+    }
+}
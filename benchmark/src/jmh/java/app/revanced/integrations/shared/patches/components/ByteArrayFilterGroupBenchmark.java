@@ -0,0 +1,83 @@
+package app.revanced.integrations.shared.patches.components;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import app.revanced.integrations.benchmark.BenchmarkEnvironment;
+import app.revanced.integrations.benchmark.LithoCorpus;
+import app.revanced.integrations.shared.utils.ByteBufferView;
+
+/**
+ * Searches the corpus proto buffers using {@link ByteArrayFilterGroupList},
+ * with one {@link ByteArrayFilterGroup} for each pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteArrayFilterGroupBenchmark {
+
+    @Param(LithoCorpus.DEFAULT_CORPUS)
+    public String corpus;
+
+    /**
+     * Buffer patterns separated by {@link BenchmarkEnvironment#LIST_SEPARATOR}.
+     * The default patterns are not found, so every buffer is fully searched.
+     */
+    @Param({
+            "pattern_not_found",
+            "ad_badge_not_found;shorts_not_found;playables_not_found;yt_outline_not_found;mix_not_found;id.not_found",
+    })
+    public String patterns;
+
+    private final ByteArrayFilterGroupList groupList = new ByteArrayFilterGroupList();
+    private final ByteBufferView view = new ByteBufferView();
+    private ByteBuffer[] buffers;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize(true);
+
+        for (String pattern : patterns.split(String.valueOf(BenchmarkEnvironment.LIST_SEPARATOR))) {
+            groupList.addAll(new ByteArrayFilterGroup(null, pattern));
+        }
+
+        List<LithoCorpus.Component> components = LithoCorpus.load(corpus).components;
+        buffers = new ByteBuffer[components.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(components.get(i).buffer);
+        }
+    }
+
+    /**
+     * Nanoseconds to search a buffer for all patterns.
+     */
+    @Benchmark
+    public boolean searchBuffer() {
+        int i = index;
+        if (i == buffers.length) {
+            i = 0;
+        }
+        index = i + 1;
+        view.set(buffers[i]);
+        return groupList.check(view).isFiltered();
+    }
+}
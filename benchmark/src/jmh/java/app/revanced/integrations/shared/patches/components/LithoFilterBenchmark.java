@@ -0,0 +1,148 @@
+package app.revanced.integrations.shared.patches.components;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import app.revanced.integrations.benchmark.BenchmarkEnvironment;
+import app.revanced.integrations.benchmark.FilterSets;
+import app.revanced.integrations.benchmark.LithoCorpus;
+
+/**
+ * Replays a corpus of litho components through {@link LithoFilterPatch#filter(StringBuilder, String, Object)},
+ * the same as the app does while scrolling.
+ * <p>
+ * Each benchmark operation filters one component, and the corpus is replayed in order.
+ * <p>
+ * Filters are registered with {@link LithoFilterHooks}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LithoFilterBenchmark {
+
+    /**
+     * {@link LithoCorpus#DEFAULT_CORPUS} or the path of a corpus file.
+     */
+    @Param(LithoCorpus.DEFAULT_CORPUS)
+    public String corpus;
+
+    /**
+     * See {@link FilterSets}.
+     */
+    @Param({FilterSets.NONE, FilterSets.FEED, FilterSets.KEYWORD, FilterSets.CUSTOM, FilterSets.ALL})
+    public String filters;
+
+    @Param("minecraft;\"shorts\";live stream")
+    public String keywords;
+
+    @Param("video_lockup_with_attachment.eml$ad_badge;^compact_video.eml;chip_bar")
+    public String customFilters;
+
+    /**
+     * If the verdict cache is cleared every time the corpus is replayed.
+     * Cold shows the cost of the filters, and warm shows scrolling back to already filtered components.
+     */
+    @Param({"cold", "warm"})
+    public String verdictCache;
+
+    /**
+     * Matches per second, when used with {@link #filterThroughput(MatchCounter)}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class MatchCounter {
+        public long matches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            matches = 0;
+        }
+    }
+
+    private StringBuilder[] paths;
+    private String[] identifiers;
+    private ByteBuffer[] buffers;
+    private String[] allValues;
+    private boolean clearCache;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ReflectiveOperationException {
+        BenchmarkEnvironment.initialize(true);
+        BenchmarkEnvironment.setKeywords(keywords);
+        BenchmarkEnvironment.setCustomFilters(customFilters);
+        LithoFilterHooks.addFilters(FilterSets.create(filters));
+
+        LithoCorpus loaded = LithoCorpus.load(corpus);
+        final int size = loaded.size();
+        paths = new StringBuilder[size];
+        identifiers = new String[size];
+        buffers = new ByteBuffer[size];
+        allValues = new String[size];
+        for (int i = 0; i < size; i++) {
+            LithoCorpus.Component component = loaded.components.get(i);
+            paths[i] = new StringBuilder(component.path);
+            identifiers[i] = component.identifier;
+            buffers[i] = ByteBuffer.wrap(component.buffer);
+            allValues[i] = component.allValue;
+        }
+
+        clearCache = verdictCache.equals("cold");
+        index = 0;
+    }
+
+    private boolean filterNextComponent() {
+        int i = index;
+        if (i == paths.length) {
+            i = 0;
+            if (clearCache) {
+                LithoFilterHooks.clearVerdictCache();
+            }
+        }
+        index = i + 1;
+
+        LithoFilterPatch.setProtoBuffer(buffers[i]);
+        return LithoFilterPatch.filter(paths[i], identifiers[i], allValues[i]);
+    }
+
+    /**
+     * Nanoseconds to filter a component.
+     * Use the gc profiler for the allocation rate.
+     */
+    @Benchmark
+    public boolean filter() {
+        return filterNextComponent();
+    }
+
+    /**
+     * Components and matched (filtered) components per second.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean filterThroughput(MatchCounter counter) {
+        final boolean filtered = filterNextComponent();
+        if (filtered) {
+            counter.matches++;
+        }
+        return filtered;
+    }
+}
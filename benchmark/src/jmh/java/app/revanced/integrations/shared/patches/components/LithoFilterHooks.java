@@ -0,0 +1,72 @@
+package app.revanced.integrations.shared.patches.components;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import app.revanced.integrations.shared.utils.CharSequenceTrieSearch;
+
+/**
+ * Benchmark only access to the private state of {@link LithoFilterPatch}.
+ * <p>
+ * In the app the filters are set by the patch, and the verdict cache is never cleared.
+ * The benchmarks use other filters and measure filtering without cached verdicts,
+ * so this uses reflection instead of adding test hooks to the app code.
+ * <p>
+ * In the package of {@link LithoFilterPatch} to use the package-private verdict cache.
+ */
+final class LithoFilterHooks {
+
+    private static final Method filterUsingCallbacks;
+    private static final CharSequenceTrieSearch identifierSearchTree;
+    private static final CharSequenceTrieSearch pathSearchTree;
+    private static final CharSequenceTrieSearch allValueSearchTree;
+    private static final LithoVerdictCache verdictCache;
+
+    static {
+        try {
+            filterUsingCallbacks = LithoFilterPatch.class.getDeclaredMethod("filterUsingCallbacks",
+                    CharSequenceTrieSearch.class, Filter.class, List.class, Filter.FilterContentType.class);
+            filterUsingCallbacks.setAccessible(true);
+            identifierSearchTree = (CharSequenceTrieSearch) getStaticField("identifierSearchTree");
+            pathSearchTree = (CharSequenceTrieSearch) getStaticField("pathSearchTree");
+            allValueSearchTree = (CharSequenceTrieSearch) getStaticField("allValueSearchTree");
+            verdictCache = (LithoVerdictCache) getStaticField("verdictCache");
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private LithoFilterHooks() {
+    }
+
+    private static Object getStaticField(String name) throws ReflectiveOperationException {
+        Field field = LithoFilterPatch.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(null);
+    }
+
+    /**
+     * Adds the callbacks of filters to the search trees,
+     * the same as {@link LithoFilterPatch} does for the filters set by the patch.
+     */
+    static void addFilters(Filter[] filters) throws ReflectiveOperationException {
+        for (Filter filter : filters) {
+            filterUsingCallbacks.invoke(null, identifierSearchTree, filter,
+                    filter.identifierCallbacks, Filter.FilterContentType.IDENTIFIER);
+            filterUsingCallbacks.invoke(null, pathSearchTree, filter,
+                    filter.pathCallbacks, Filter.FilterContentType.PATH);
+            filterUsingCallbacks.invoke(null, allValueSearchTree, filter,
+                    filter.allValueCallbacks, Filter.FilterContentType.ALLVALUE);
+        }
+
+        identifierSearchTree.buildAutomaton();
+        pathSearchTree.buildAutomaton();
+        allValueSearchTree.buildAutomaton();
+        verdictCache.clear();
+    }
+
+    static void clearVerdictCache() {
+        verdictCache.clear();
+    }
+}
@@ -0,0 +1,103 @@
+package app.revanced.integrations.shared.patches.components;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import app.revanced.integrations.benchmark.BenchmarkEnvironment;
+import app.revanced.integrations.benchmark.FilterSets;
+import app.revanced.integrations.benchmark.LithoCorpus;
+import app.revanced.integrations.shared.utils.CharSequenceTrieSearch;
+
+/**
+ * Searches the corpus paths for all path patterns of a filter set,
+ * using either the prefix tree or the automaton of {@link app.revanced.integrations.shared.utils.TrieSearch}.
+ * <p>
+ * Every match is counted and the search continues, so this is the cost of searching for all patterns.
+ * <p>
+ * In the package of {@link Filter} to use the path callbacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrieSearchBenchmark {
+
+    @Param(LithoCorpus.DEFAULT_CORPUS)
+    public String corpus;
+
+    @Param({FilterSets.FEED, FilterSets.ALL})
+    public String filters;
+
+    @Param({"trie", "automaton"})
+    public String search;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class MatchCounter {
+        public long matches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            matches = 0;
+        }
+    }
+
+    private final CharSequenceTrieSearch pathSearch = new CharSequenceTrieSearch();
+    private StringBuilder[] paths;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize(true);
+
+        for (Filter filter : FilterSets.create(filters)) {
+            for (StringFilterGroup group : filter.pathCallbacks) {
+                for (String pattern : group.filters) {
+                    pathSearch.addPattern(pattern, (textSearched, matchedStartIndex, matchedLength, callbackParameter) -> {
+                        ((MatchCounter) callbackParameter).matches++;
+                        return false;
+                    });
+                }
+            }
+        }
+        if (search.equals("automaton")) {
+            pathSearch.buildAutomaton();
+        }
+
+        List<LithoCorpus.Component> components = LithoCorpus.load(corpus).components;
+        paths = new StringBuilder[components.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = new StringBuilder(components.get(i).path);
+        }
+    }
+
+    /**
+     * Nanoseconds to search a path, and matches per nanosecond.
+     */
+    @Benchmark
+    public boolean searchPath(MatchCounter counter) {
+        int i = index;
+        if (i == paths.length) {
+            i = 0;
+        }
+        index = i + 1;
+        return pathSearch.matches(paths[i], counter);
+    }
+}